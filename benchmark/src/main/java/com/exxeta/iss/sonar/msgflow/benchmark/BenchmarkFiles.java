@@ -0,0 +1,63 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * The class manages the temporary directories holding the generated 
+ * message flow files of the benchmarks.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+final class BenchmarkFiles {
+
+	/**
+	 * Constructor
+	 * 
+	 * Direct instantiation is not possible.
+	 */
+	private BenchmarkFiles() {
+	}
+	
+	/**
+	 * The method creates a new temporary directory.
+	 * 
+	 * @return the temporary directory
+	 * 
+	 * @throws IOException if the directory cannot be created
+	 */
+	static File createDirectory() throws IOException {
+		return Files.createTempDirectory("msgflow-benchmark").toFile();
+	}
+	
+	/**
+	 * The method deletes a temporary directory including its content.
+	 * 
+	 * @param directory the temporary directory or null
+	 */
+	static void deleteDirectory(File directory) {
+		if (directory != null) {
+			FileUtils.deleteQuietly(directory);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonar.api.batch.fs.InputPath;
+import org.sonar.api.component.Component;
+import org.sonar.api.component.Perspective;
+import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * The class is a stub of {@link ResourcePerspectives} counting the issues 
+ * added to the {@link Issuable} of the files instead of storing them.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+class CountingPerspectives implements ResourcePerspectives {
+
+	/**
+	 * the number of issues added
+	 */
+	private final AtomicLong issueCount = new AtomicLong();
+	
+	/**
+	 * the issuable shared by all files, resources and components
+	 */
+	private final Issuable issuable = new CountingIssuable();
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.component.ResourcePerspectives#as(java.lang.Class, org.sonar.api.resources.Resource)
+	 */
+	@Override
+	public <P extends Perspective> P as(Class<P> perspectiveClass, Resource resource) {
+		return perspectiveClass.cast(issuable);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.component.ResourcePerspectives#as(java.lang.Class, org.sonar.api.batch.fs.InputPath)
+	 */
+	@Override
+	public <P extends Perspective> P as(Class<P> perspectiveClass, InputPath inputPath) {
+		return perspectiveClass.cast(issuable);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.component.Perspectives#as(java.lang.Class, org.sonar.api.component.Component)
+	 */
+	@Override
+	public <P extends Perspective> P as(Class<P> perspectiveClass, Component component) {
+		return perspectiveClass.cast(issuable);
+	}
+	
+	/**
+	 * The method returns the number of issues added.
+	 * 
+	 * @return the number of issues
+	 */
+	public long getIssueCount() {
+		return issueCount.get();
+	}
+	
+	/**
+	 * The class counts the issues of all files.
+	 */
+	private final class CountingIssuable implements Issuable {
+		
+		@Override
+		public Component component() {
+			return null;
+		}
+		
+		@Override
+		public IssueBuilder newIssueBuilder() {
+			final DefaultIssue issue = new DefaultIssue();
+			
+			return new IssueBuilder() {
+				@Override
+				public IssueBuilder ruleKey(RuleKey ruleKey) {
+					issue.setRuleKey(ruleKey);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder line(Integer line) {
+					issue.setLine(line);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder message(String message) {
+					issue.setMessage(message);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder severity(String severity) {
+					issue.setSeverity(severity);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder reporter(String reporter) {
+					issue.setReporter(reporter);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder effortToFix(Double effortToFix) {
+					issue.setEffortToFix(effortToFix);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder attribute(String key, String value) {
+					issue.setAttribute(key, value);
+					return this;
+				}
+				
+				@Override
+				public Issue build() {
+					return issue;
+				}
+			};
+		}
+		
+		@Override
+		public boolean addIssue(Issue issue) {
+			issueCount.incrementAndGet();
+			return true;
+		}
+		
+		@Override
+		public List<Issue> issues() {
+			return Collections.emptyList();
+		}
+		
+		@Override
+		public List<Issue> resolvedIssues() {
+			return Collections.emptyList();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowConnection;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser;
+
+/**
+ * The class measures the creation of the graph index of a message flow and 
+ * the traversal of all nodes reachable from the first node, once with the 
+ * int adjacency of the {@link MessageFlowGraph} and once following the 
+ * connections by node ID.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+	/**
+	 * the number of nodes of the generated message flow
+	 */
+	@Param({"100", "1000", "10000"})
+	private int nodes;
+	
+	/**
+	 * the average number of outgoing connections per node
+	 */
+	@Param({"1.0", "2.0"})
+	private double connectionDensity;
+	
+	/**
+	 * the directory of the generated message flow
+	 */
+	private File directory;
+	
+	/**
+	 * the parsed message flow
+	 */
+	private MessageFlow messageFlow;
+	
+	/**
+	 * the graph index of the message flow
+	 */
+	private MessageFlowGraph graph;
+	
+	/**
+	 * the ID of the first node of the message flow
+	 */
+	private String firstNode;
+	
+	/**
+	 * Generates and parses the message flow file.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		directory = BenchmarkFiles.createDirectory();
+		
+		String fileName = new MessageFlowGenerator().nodeCount(nodes).connectionDensity(connectionDensity).write(directory, "Flow.msgflow").getPath();
+		
+		messageFlow = new MessageFlow(fileName, new MessageFlowStaxParser());
+		graph = messageFlow.getGraph();
+		firstNode = "FCMComposite_1_1";
+	}
+	
+	/**
+	 * Deletes the message flow file.
+	 */
+	@TearDown
+	public void tearDown() {
+		BenchmarkFiles.deleteDirectory(directory);
+	}
+	
+	/**
+	 * Creates the graph index of the message flow.
+	 * 
+	 * @return the graph index
+	 */
+	@Benchmark
+	public MessageFlowGraph build() {
+		return new MessageFlowGraph(messageFlow);
+	}
+	
+	/**
+	 * Traverses the message flow using the graph index.
+	 * 
+	 * @return the reachable nodes
+	 */
+	@Benchmark
+	public BitSet traverseGraph() {
+		return graph.getReachableNodes(graph.indexOf(firstNode), -1);
+	}
+	
+	/**
+	 * Traverses the message flow following the connections by node ID.
+	 * 
+	 * @return the reachable nodes
+	 */
+	@Benchmark
+	public HashSet<String> traverseConnections() {
+		HashSet<String> reached = new HashSet<String>();
+		ArrayDeque<String> queue = new ArrayDeque<String>();
+		
+		queue.add(firstNode);
+		
+		while (!queue.isEmpty()) {
+			for (MessageFlowConnection connection : messageFlow.getConnectionsFrom(queue.poll())) {
+				if (reached.add(connection.getTargetNode())) {
+					queue.add(connection.getTargetNode());
+				}
+			}
+		}
+		
+		return reached;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowParser;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class measures the retrieval of a message flow from the message flow 
+ * project if the message flow is in the cache (hit) and if the message flow 
+ * file has to be parsed (miss).
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageFlowProjectBenchmark {
+
+	/**
+	 * the number of nodes of the generated message flow
+	 */
+	@Param({"10", "1000"})
+	private int nodes;
+	
+	/**
+	 * the directory of the generated message flow
+	 */
+	private File directory;
+	
+	/**
+	 * the file name of the generated message flow
+	 */
+	private String fileName;
+	
+	/**
+	 * the message flow project
+	 */
+	private MessageFlowProject project;
+	
+	/**
+	 * Generates the message flow file and configures the project without 
+	 * persistent cache.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		directory = BenchmarkFiles.createDirectory();
+		fileName = new MessageFlowGenerator().nodeCount(nodes).write(directory, "Flow.msgflow").getPath();
+		
+		project = MessageFlowProject.getInstance();
+		project.setMessageFlowParser(new MessageFlowParser());
+		project.setDiskCache(null);
+		project.getMessageFlowCache().clear();
+	}
+	
+	/**
+	 * Deletes the message flow file and clears the cache.
+	 */
+	@TearDown
+	public void tearDown() {
+		project.getMessageFlowCache().clear();
+		BenchmarkFiles.deleteDirectory(directory);
+	}
+	
+	/**
+	 * Retrieves the message flow from the cache.
+	 * 
+	 * @return the message flow
+	 */
+	@Benchmark
+	public MessageFlow hit() {
+		return project.getMessageFlow(fileName);
+	}
+	
+	/**
+	 * Retrieves the message flow after the cache has been cleared.
+	 * 
+	 * @return the message flow
+	 */
+	@Benchmark
+	public MessageFlow miss() {
+		project.getMessageFlowCache().clear();
+		
+		return project.getMessageFlow(fileName);
+	}
+}
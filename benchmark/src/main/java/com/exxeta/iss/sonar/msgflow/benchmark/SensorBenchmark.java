@@ -0,0 +1,184 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.Settings;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowPlugin;
+import com.exxeta.iss.sonar.msgflow.batch.CollectorNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.ComputeNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.FileInputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.FileOutputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.HttpInputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.HttpRequestNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MQInputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MQOutputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor;
+import com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor;
+import com.exxeta.iss.sonar.msgflow.batch.ResetContentDescriptorNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.SoapInputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.SoapRequestNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.TimeoutControlNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.TimeoutNotificationNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.TryCatchNodeSensor;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowParser;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class measures a complete run of the message flow sensor over a set 
+ * of generated message flow files, either with the message flows in the 
+ * cache or with an empty cache (every file is parsed).
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorBenchmark {
+
+	/**
+	 * the number of generated message flow files
+	 */
+	@Param({"100"})
+	private int files;
+	
+	/**
+	 * the number of nodes of each message flow
+	 */
+	@Param({"10", "100"})
+	private int nodes;
+	
+	/**
+	 * the number of analysis threads
+	 */
+	@Param({"1", "4"})
+	private int threads;
+	
+	/**
+	 * true if the message flows are kept in the cache between the runs
+	 */
+	@Param({"true", "false"})
+	private boolean cached;
+	
+	/**
+	 * the directory of the generated message flows
+	 */
+	private File directory;
+	
+	/**
+	 * the sensor to be measured
+	 */
+	private MessageFlowSensor sensor;
+	
+	/**
+	 * the stub counting the issues
+	 */
+	private CountingPerspectives perspectives;
+	
+	/**
+	 * Generates the message flow files and creates the sensor.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		directory = BenchmarkFiles.createDirectory();
+		
+		DefaultFileSystem fs = new DefaultFileSystem();
+		MessageFlowGenerator generator = new MessageFlowGenerator().nodeCount(nodes);
+		
+		for (int i = 0; i < files; i++) {
+			File file = generator.write(directory, "Flow" + i + ".msgflow");
+			
+			fs.add(new DefaultInputFile(file.getName())
+					.setAbsolutePath(file.getAbsolutePath())
+					.setFile(file)
+					.setLanguage("msgflow"));
+		}
+		
+		Settings settings = new Settings();
+		settings.setProperty(MessageFlowPlugin.THREADS_KEY, threads);
+		
+		MessageFlowProject.getInstance().setMessageFlowParser(new MessageFlowParser());
+		MessageFlowProject.getInstance().setDiskCache(null);
+		MessageFlowProject.getInstance().getMessageFlowCache().clear();
+		
+		perspectives = new CountingPerspectives();
+		sensor = new MessageFlowSensor(fs, settings, perspectives, new MessageFlowNodeVisitor[] {
+			new CollectorNodeSensor(),
+			new ComputeNodeSensor(),
+			new FileInputNodeSensor(),
+			new FileOutputNodeSensor(),
+			new HttpInputNodeSensor(),
+			new HttpRequestNodeSensor(),
+			new MQInputNodeSensor(),
+			new MQOutputNodeSensor(),
+			new ResetContentDescriptorNodeSensor(),
+			new SoapInputNodeSensor(),
+			new SoapRequestNodeSensor(),
+			new TimeoutControlNodeSensor(),
+			new TimeoutNotificationNodeSensor(),
+			new TryCatchNodeSensor()
+		});
+	}
+	
+	/**
+	 * Deletes the message flow files and clears the cache.
+	 */
+	@TearDown
+	public void tearDown() {
+		MessageFlowProject.getInstance().getMessageFlowCache().clear();
+		BenchmarkFiles.deleteDirectory(directory);
+	}
+	
+	/**
+	 * Runs the sensor over all message flow files.
+	 * 
+	 * @return the number of issues added so far
+	 */
+	@Benchmark
+	public long analyse() {
+		if (!cached) {
+			MessageFlowProject.getInstance().getMessageFlowCache().clear();
+		}
+		
+		sensor.analyse(null, null);
+		
+		return perspectives.getIssueCount();
+	}
+}
@@ -48,6 +48,11 @@ public final class MessageFlowCheckList {
 	 */
 	public static final String SONAR_WAY_PROFILE = "Message Flow";
 	
+	/**
+	 * The PERFORMANCE_PROFILE of the Sonar repository.
+	 */
+	public static final String PERFORMANCE_PROFILE = "Message Flow Performance";
+	
 	/**
 	 * Constructor
 	 * 
@@ -25,7 +25,8 @@ import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.Metrics;
 
 /**
- * The class defines the metrics of the plug-in.
+ * The class defines the metrics of the plug-in. The numeric metrics are 
+ * measured by the analysis (see {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics}).
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
@@ -49,6 +50,97 @@ public class MessageFlowMetrics implements Metrics {
 		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
 		    .create();
 	
+	/**
+	 * Defines the number of analysed message flow files.
+	 */
+	public static final Metric FILES =
+			new Metric.Builder(
+		        "msgflow_files",	// metric identifier
+		        "Message flow files",	// metric name
+		        Metric.ValueType.INT)	// metric data type
+		    .setDescription("Number of analysed message flow files")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
+	/**
+	 * Defines the number of unchanged message flow files skipped by the incremental analysis.
+	 */
+	public static final Metric SKIPPED_FILES =
+			new Metric.Builder(
+		        "msgflow_skipped_files",	// metric identifier
+		        "Unchanged message flow files",	// metric name
+		        Metric.ValueType.INT)	// metric data type
+		    .setDescription("Number of message flow files skipped by the incremental analysis")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
+	/**
+	 * Defines the number of issues found in the message flow files.
+	 */
+	public static final Metric ISSUES =
+			new Metric.Builder(
+		        "msgflow_issues",	// metric identifier
+		        "Message flow issues",	// metric name
+		        Metric.ValueType.INT)	// metric data type
+		    .setDescription("Number of issues found in the message flow files")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
+	/**
+	 * Defines the time spent analysing the message flow files.
+	 */
+	public static final Metric ANALYSIS_TIME =
+			new Metric.Builder(
+		        "msgflow_analysis_time",	// metric identifier
+		        "Message flow analysis time",	// metric name
+		        Metric.ValueType.MILLISEC)	// metric data type
+		    .setDescription("Time spent analysing the message flow files")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
+	/**
+	 * Defines the time spent loading and parsing the message flow files.
+	 */
+	public static final Metric LOAD_TIME =
+			new Metric.Builder(
+		        "msgflow_load_time",	// metric identifier
+		        "Message flow parse time",	// metric name
+		        Metric.ValueType.MILLISEC)	// metric data type
+		    .setDescription("Time spent loading and parsing the message flow files")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
+	/**
+	 * Defines the part of the parse time spent in XML parsing and XPath evaluation.
+	 */
+	public static final Metric XML_TIME =
+			new Metric.Builder(
+		        "msgflow_xml_time",	// metric identifier
+		        "Message flow XML time",	// metric name
+		        Metric.ValueType.MILLISEC)	// metric data type
+		    .setDescription("Time spent in XML parsing and XPath evaluation")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
+	/**
+	 * Defines the time spent evaluating the rules.
+	 */
+	public static final Metric RULE_TIME =
+			new Metric.Builder(
+		        "msgflow_rule_time",	// metric identifier
+		        "Message flow rule time",	// metric name
+		        Metric.ValueType.MILLISEC)	// metric data type
+		    .setDescription("Time spent evaluating the rules")
+		    .setQualitative(false)
+		    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+		    .create();
+	
 	/* (non-Javadoc)
 	 * @see org.sonar.api.measures.Metrics#getMetrics()
 	 */
@@ -59,7 +151,7 @@ public class MessageFlowMetrics implements Metrics {
 	 */
 	@Override
 	public List<Metric> getMetrics() {
-		return Arrays.asList(MSGFLOW);
+		return Arrays.asList(MSGFLOW, FILES, SKIPPED_FILES, ISSUES, ANALYSIS_TIME, LOAD_TIME, XML_TIME, RULE_TIME);
 	}
 
 }
@@ -0,0 +1,96 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.profiles.ProfileDefinition;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.utils.ValidationMessages;
+
+/**
+ * The class creates the performance profile, which activates the rules 
+ * tagged 'performance' (see {@link Tags#PERFORMANCE}). The rules are not 
+ * part of the default profile (see {@link MessageFlowProfile}), as they 
+ * only matter for high-volume message flows.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowPerformanceProfile extends ProfileDefinition {
+	
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowPerformanceProfile.class);
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.profiles.ProfileDefinition#createProfile(org.sonar.api.utils.ValidationMessages)
+	 */
+	/**
+	 * The method creates a new profile. The rules tagged 'performance' are activated in the method.
+	 * 
+	 * @return a new RulesProfile
+	 */
+	@Override
+	public RulesProfile createProfile(ValidationMessages validationMessages) {
+		LOG.debug("create profile");
+		
+		RulesProfile profile = RulesProfile.create(MessageFlowCheckList.PERFORMANCE_PROFILE, MessageFlowLanguage.KEY);
+		
+		/* MQInputNode */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQInputNodeAdditionalInstances"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQInputNodeCommitCount"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQInputNodeTransactionMode"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQInputNodeBrowse"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQInputNodeOrderMode"), null);
+		
+		/* MQOutputNode */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQOutputNodeTransactionMode"), null);
+		
+		/* HttpRequestNode */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "HttpRequestNodeTimeout"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "HttpRequestNodeKeepAlive"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "HttpRequestNodeCompression"), null);
+		
+		/* SoapRequestNode */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "SoapRequestNodeTimeout"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "SoapRequestNodeKeepAlive"), null);
+		
+		/* CollectorRequestLoop */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "CollectorRequestLoop"), null);
+		
+		/* CollectorNode */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "CollectorNodeUnboundedCollection"), null);
+		
+		/* FileInputNode */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "FileInputNodeRecordDetection"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "FileInputNodeParseTiming"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "FileInputNodeWholeFileValidation"), null);
+		
+		/* MonitoringEventBudget */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MonitoringEventBudget"), null);
+		
+		// add more rules here
+		
+		LOG.debug("created profile: " + profile.toString());
+		
+		return profile;
+	}
+
+}
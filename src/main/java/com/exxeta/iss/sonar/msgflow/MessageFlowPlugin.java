@@ -20,28 +20,133 @@ package com.exxeta.iss.sonar.msgflow;
 import java.util.Arrays;
 import java.util.List;
 
+import org.sonar.api.Properties;
+import org.sonar.api.Property;
+import org.sonar.api.PropertyType;
 import org.sonar.api.SonarPlugin;
 
 import com.exxeta.iss.sonar.msgflow.batch.CollectorNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.CollectorRequestLoopSensor;
 import com.exxeta.iss.sonar.msgflow.batch.ComputeNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.ErrorHandlingPathSensor;
 import com.exxeta.iss.sonar.msgflow.batch.FileInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.FileOutputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.HttpInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.HttpRequestNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.MQInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.MQOutputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor;
+import com.exxeta.iss.sonar.msgflow.batch.MessageFlowProjectInitializer;
+import com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MonitoringEventBudgetSensor;
 import com.exxeta.iss.sonar.msgflow.batch.ResetContentDescriptorNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.SoapInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.SoapRequestNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.TimeoutControlNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.TimeoutNotificationNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.TryCatchNodeSensor;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowCache;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
 
 /**
  * The class is the entry point of the plug-in.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
+@Properties({
+	@Property(
+		key = MessageFlowPlugin.FILE_SUFFIXES_KEY,
+		defaultValue = MessageFlowPlugin.FILE_SUFFIXES_DEFAULTVALUE,
+		name = "File suffixes",
+		description = "Comma-separated list of suffixes of the message flow files to analyse.",
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.THREADS_KEY,
+		defaultValue = MessageFlowPlugin.THREADS_DEFAULTVALUE,
+		name = "Analysis threads",
+		description = "The number of threads analysing the message flow files in parallel. '1' analyses the files sequentially, '0' uses one thread per available processor.",
+		type = PropertyType.INTEGER,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.PIPELINE_DEPTHS_KEY,
+		defaultValue = MessageFlowPlugin.PIPELINE_DEPTHS_DEFAULTVALUE,
+		name = "Analysis pipeline depths",
+		description = "The capacities of the queues between the stages of the parallel analysis (prefetch, parse, evaluate, publish): one value for all queues or three comma-separated values.",
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.PARSER_KEY,
+		defaultValue = MessageFlowPlugin.PARSER_DEFAULTVALUE,
+		name = "Message flow parser",
+		description = "The parser used to read the message flow files: 'dom' (DOM and XPath) or 'stax' (single-pass streaming parser).",
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.CACHE_SIZE_KEY,
+		defaultValue = MessageFlowPlugin.CACHE_SIZE_DEFAULTVALUE,
+		name = "Message flow cache size",
+		description = "The maximum number of parsed message flows kept in memory during the analysis.",
+		type = PropertyType.INTEGER,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.CACHE_PERSISTENT_KEY,
+		defaultValue = MessageFlowPlugin.CACHE_PERSISTENT_DEFAULTVALUE,
+		name = "Persistent message flow cache",
+		description = "Keeps the parsed message flows on disk, so that unchanged files are not parsed again in later analyses. The cache writes files to the cache directory and removes unused entries, so it has to be enabled explicitly.",
+		type = PropertyType.BOOLEAN,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.CACHE_DIR_KEY,
+		defaultValue = "",
+		name = "Persistent message flow cache directory",
+		description = "The directory of the persistent message flow cache. Defaults to 'msgflow-cache' in the working directory of the analysis.",
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.INCREMENTAL_KEY,
+		defaultValue = MessageFlowPlugin.INCREMENTAL_DEFAULTVALUE,
+		name = "Incremental analysis",
+		description = "Analyses only new and changed message flow files. The issues of unchanged files are taken from a manifest kept in the working directory of the previous analysis.",
+		type = PropertyType.BOOLEAN,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.SUBFLOW_DEPTH_KEY,
+		defaultValue = MessageFlowPlugin.SUBFLOW_DEPTH_DEFAULTVALUE,
+		name = "Maximum subflow depth",
+		description = "The maximum nesting depth of the subflows expanded by rules following the connections of a message flow through its subflows.",
+		type = PropertyType.INTEGER,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.REQUEST_TIMEOUT_KEY,
+		defaultValue = MessageFlowPlugin.REQUEST_TIMEOUT_DEFAULTVALUE,
+		name = "Maximum request timeout",
+		description = "The maximum request timeout in seconds of HTTP Request and SOAP Request nodes. Nodes with a larger or unbounded timeout are reported, as are nodes using the default of 120 seconds if it exceeds the maximum.",
+		type = PropertyType.INTEGER,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.MONITORING_EVENTS_KEY,
+		defaultValue = MessageFlowPlugin.MONITORING_EVENTS_DEFAULTVALUE,
+		name = "Maximum monitoring events",
+		description = "The maximum number of enabled monitoring events emitted per message on a path of a message flow. Message flows with more events are reported by the event budget rule.",
+		type = PropertyType.INTEGER,
+		global = true,
+		project = true),
+	@Property(
+		key = MessageFlowPlugin.PAYLOAD_EVENTS_KEY,
+		defaultValue = MessageFlowPlugin.PAYLOAD_EVENTS_DEFAULTVALUE,
+		name = "Maximum payload monitoring events",
+		description = "The maximum number of enabled monitoring events emitted per message on a path of a message flow capturing the message body or the whole message. Message flows with more of these events are reported by the event budget rule.",
+		type = PropertyType.INTEGER,
+		global = true,
+		project = true)
+})
 public class MessageFlowPlugin extends SonarPlugin {
 
 	/**
@@ -59,6 +164,111 @@ public class MessageFlowPlugin extends SonarPlugin {
 	 */
 	public static final String FILE_SUFFIXES_DEFAULTVALUE = ".msgflow,.subflow";
 	
+	/**
+	 * The THREADS_KEY for the plug-in.
+	 */
+	public static final String THREADS_KEY = "sonar.msgflow.threads";
+	
+	/**
+	 * The THREADS_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String THREADS_DEFAULTVALUE = "1";
+	
+	/**
+	 * The PIPELINE_DEPTHS_KEY for the plug-in.
+	 */
+	public static final String PIPELINE_DEPTHS_KEY = "sonar.msgflow.pipeline.depths";
+	
+	/**
+	 * The PIPELINE_DEPTHS_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String PIPELINE_DEPTHS_DEFAULTVALUE = "16,16,16";
+	
+	/**
+	 * The PARSER_KEY for the plug-in.
+	 */
+	public static final String PARSER_KEY = "sonar.msgflow.parser";
+	
+	/**
+	 * The PARSER_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String PARSER_DEFAULTVALUE = "dom";
+	
+	/**
+	 * The CACHE_SIZE_KEY for the plug-in.
+	 */
+	public static final String CACHE_SIZE_KEY = "sonar.msgflow.cache.size";
+	
+	/**
+	 * The CACHE_SIZE_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String CACHE_SIZE_DEFAULTVALUE = "" + MessageFlowCache.DEFAULT_MAXIMUM_SIZE;
+	
+	/**
+	 * The CACHE_PERSISTENT_KEY for the plug-in.
+	 */
+	public static final String CACHE_PERSISTENT_KEY = "sonar.msgflow.cache.persistent";
+	
+	/**
+	 * The CACHE_PERSISTENT_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String CACHE_PERSISTENT_DEFAULTVALUE = "false";
+	
+	/**
+	 * The CACHE_DIR_KEY for the plug-in.
+	 */
+	public static final String CACHE_DIR_KEY = "sonar.msgflow.cache.dir";
+	
+	/**
+	 * The INCREMENTAL_KEY for the plug-in.
+	 */
+	public static final String INCREMENTAL_KEY = "sonar.msgflow.incremental";
+	
+	/**
+	 * The INCREMENTAL_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String INCREMENTAL_DEFAULTVALUE = "false";
+	
+	/**
+	 * The SUBFLOW_DEPTH_KEY for the plug-in.
+	 */
+	public static final String SUBFLOW_DEPTH_KEY = "sonar.msgflow.subflow.depth";
+	
+	/**
+	 * The SUBFLOW_DEPTH_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String SUBFLOW_DEPTH_DEFAULTVALUE = "" + MessageFlowProject.DEFAULT_MAXIMUM_SUBFLOW_DEPTH;
+	
+	/**
+	 * The REQUEST_TIMEOUT_KEY for the plug-in.
+	 */
+	public static final String REQUEST_TIMEOUT_KEY = "sonar.msgflow.request.timeout.max";
+	
+	/**
+	 * The REQUEST_TIMEOUT_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String REQUEST_TIMEOUT_DEFAULTVALUE = "" + MessageFlowProject.DEFAULT_MAXIMUM_REQUEST_TIMEOUT;
+	
+	/**
+	 * The MONITORING_EVENTS_KEY for the plug-in.
+	 */
+	public static final String MONITORING_EVENTS_KEY = "sonar.msgflow.monitoring.events.max";
+	
+	/**
+	 * The MONITORING_EVENTS_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String MONITORING_EVENTS_DEFAULTVALUE = "" + MessageFlowProject.DEFAULT_MAXIMUM_MONITORING_EVENTS;
+	
+	/**
+	 * The PAYLOAD_EVENTS_KEY for the plug-in.
+	 */
+	public static final String PAYLOAD_EVENTS_KEY = "sonar.msgflow.monitoring.payloadEvents.max";
+	
+	/**
+	 * The PAYLOAD_EVENTS_DEFAULTVALUE for the plug-in.
+	 */
+	public static final String PAYLOAD_EVENTS_DEFAULTVALUE = "" + MessageFlowProject.DEFAULT_MAXIMUM_PAYLOAD_EVENTS;
+	
 	/* (non-Javadoc)
 	 * @see org.sonar.api.Plugin#getExtensions()
 	 */
@@ -74,23 +284,30 @@ public class MessageFlowPlugin extends SonarPlugin {
 			MessageFlowLanguage.class, // class extends AbstractLanguage
 			MessageFlowRulesDefinition.class, // class implements RulesDefinition
 			MessageFlowProfile.class, // class extends ProfileDefinition
-			//MessageFlowMetrics.class, ???
+			MessageFlowPerformanceProfile.class, // class extends ProfileDefinition
+			MessageFlowMetrics.class, // class implements Metrics
 				
 			// Batch
-			CollectorNodeSensor.class, // class extends Sensor
-			ComputeNodeSensor.class, // class extends Sensor
-			FileInputNodeSensor.class, // class extends Sensor
-			FileOutputNodeSensor.class, // class extends Sensor
-			HttpInputNodeSensor.class, // class extends Sensor
-			HttpRequestNodeSensor.class, // class extends Sensor
-			MQInputNodeSensor.class, // class extends Sensor
-			MQOutputNodeSensor.class, // class extends Sensor
-			ResetContentDescriptorNodeSensor.class, // class extends Sensor
-			SoapInputNodeSensor.class, // class extends Sensor
-			SoapRequestNodeSensor.class, // class extends Sensor
-			TimeoutControlNodeSensor.class, // class extends Sensor
-			TimeoutNotificationNodeSensor.class, // class extends Sensor
-			TryCatchNodeSensor.class // class extends Sensor
+			MessageFlowProjectInitializer.class, // class extends Initializer
+			MessageFlowSensor.class, // class extends Sensor
+			CollectorNodeSensor.class, // class extends MessageFlowNodeVisitor
+			ComputeNodeSensor.class, // class extends MessageFlowNodeVisitor
+			FileInputNodeSensor.class, // class extends MessageFlowNodeVisitor
+			FileOutputNodeSensor.class, // class extends MessageFlowNodeVisitor
+			HttpInputNodeSensor.class, // class extends MessageFlowNodeVisitor
+			HttpRequestNodeSensor.class, // class extends MessageFlowNodeVisitor
+			MQInputNodeSensor.class, // class extends MessageFlowNodeVisitor
+			MQOutputNodeSensor.class, // class extends MessageFlowNodeVisitor
+			ResetContentDescriptorNodeSensor.class, // class extends MessageFlowNodeVisitor
+			SoapInputNodeSensor.class, // class extends MessageFlowNodeVisitor
+			SoapRequestNodeSensor.class, // class extends MessageFlowNodeVisitor
+			TimeoutControlNodeSensor.class, // class extends MessageFlowNodeVisitor
+			TimeoutNotificationNodeSensor.class, // class extends MessageFlowNodeVisitor
+			TryCatchNodeSensor.class, // class extends MessageFlowNodeVisitor
+			ErrorHandlingPathSensor.class, // class extends MessageFlowNodeVisitor
+			MQQueueTopologySensor.class, // class extends MessageFlowNodeVisitor
+			CollectorRequestLoopSensor.class, // class extends MessageFlowNodeVisitor
+			MonitoringEventBudgetSensor.class // class extends MessageFlowNodeVisitor
 
 			// UI
 			// ...
@@ -179,6 +179,15 @@ public class MessageFlowProfile extends ProfileDefinition {
 		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "TryCatchNodeCatchTerminal"), null);
 		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "TryCatchNodeMonitoringEvents"), null);
 		
+		/* Error handling */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "ErrorHandlingPath"), null);
+		
+		/* MQ queue topology */
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQQueueNotConsumed"), null);
+		profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQQueueNotProduced"), null);
+		//profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQQueueMultipleConsumers"), null);
+		//profile.activateRule(Rule.create(MessageFlowCheckList.REPOSITORY_KEY, "MQQueueMultipleProducers"), null);
+		
 		// add more rules here
 		
 		LOG.debug("created profile: " + profile.toString());
@@ -216,7 +216,8 @@ public class MessageFlowRulesDefinition implements RulesDefinition {
 		 */
 		repository.createRule("FileInputNodeValidation")
 					.setName("File Input Node - 'Validate' under 'Validation' is not set to 'Content and Value' (see Properties).")
-					.setHtmlDescription("Validation should be enabled to make sure incoming resp. outgoing messages are valid according to the given message set.")
+					.setHtmlDescription("Validation should be enabled to make sure incoming resp. outgoing messages are valid according to the given message set. "
+									  + "The rule is not applied if the whole file is read as one message, see 'FileInput Node - Whole files are validated for content and value.'.")
 					.setSeverity(Severity.INFO)
 					.setTags(Tags.BAD_PRACTICE);
 
@@ -1001,6 +1002,235 @@ public class MessageFlowRulesDefinition implements RulesDefinition {
 					.setSeverity(Severity.MINOR)
 					.setTags(Tags.BAD_PRACTICE);
 		
+		/*
+		 * ErrorHandlingPath
+		 */
+		repository.createRule("ErrorHandlingPath")
+					.setName("Error Handling - The failure of a node does not reach an exception handler.")
+					.setHtmlDescription("An exception raised by a Compute, HTTP Request or SOAP Request Node whose failure terminal is not connected is propagated back "
+									  + "to the last Try Catch Node on the path or to the catch terminal of the input node. "
+									  + "If there is no connected catch terminal on a path from an input node, the message is rolled back without error handling. "
+									  + "Connect the failure terminal of the node, the catch terminal of the input node or add a Try Catch Node to the path.")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.BAD_PRACTICE);
+		
+		/*
+		 * MQQueueNotConsumed
+		 */
+		repository.createRule("MQQueueNotConsumed")
+					.setName("MQ Queue Topology - A queue written by a MQ Output Node is not read by any message flow of the project.")
+					.setHtmlDescription("The messages written to the queue are not processed by any message flow of the project. "
+									  + "Check the queue name or make sure that the queue is read by another application.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.BAD_PRACTICE);
+		
+		/*
+		 * MQQueueNotProduced
+		 */
+		repository.createRule("MQQueueNotProduced")
+					.setName("MQ Queue Topology - A queue read by a MQ Input Node is not written by any message flow of the project.")
+					.setHtmlDescription("No message flow of the project writes to the queue. "
+									  + "Check the queue name or make sure that the queue is written by another application.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.BAD_PRACTICE);
+		
+		/*
+		 * MQQueueMultipleConsumers
+		 */
+		repository.createRule("MQQueueMultipleConsumers")
+					.setName("MQ Queue Topology - A queue is read by several MQ Input Nodes.")
+					.setHtmlDescription("Several MQ Input Nodes of the project read the same queue, so each message is processed by one of them only. "
+									  + "Use additional instances of one message flow to scale the processing of a queue.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.BAD_PRACTICE);
+		
+		/*
+		 * MQQueueMultipleProducers
+		 */
+		repository.createRule("MQQueueMultipleProducers")
+					.setName("MQ Queue Topology - A queue is written by several MQ Output Nodes.")
+					.setHtmlDescription("Several MQ Output Nodes of the project write to the same queue. "
+									  + "Make sure that the consumer of the queue handles the messages of all producers.")
+					.setSeverity(Severity.INFO)
+					.setTags(Tags.BAD_PRACTICE);
+		
+		/*
+		 * MQInputNodeAdditionalInstances
+		 */
+		repository.createRule("MQInputNodeAdditionalInstances")
+					.setName("MQ Input Node - No additional instances are defined.")
+					.setHtmlDescription("Without additional instances the messages of the queue are read and processed by a single thread. "
+									  + "Define additional instances to process the messages of a high-volume queue in parallel.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * MQInputNodeCommitCount
+		 */
+		repository.createRule("MQInputNodeCommitCount")
+					.setName("MQ Input Node - The commit count is set to 1.")
+					.setHtmlDescription("Each message is committed in a separate unit of work. "
+									  + "A higher commit count reduces the number of commits on a high-volume queue.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * MQInputNodeTransactionMode
+		 */
+		repository.createRule("MQInputNodeTransactionMode")
+					.setName("MQ Input Node - The transaction mode is set to 'Yes'.")
+					.setHtmlDescription("Non-persistent messages are read under syncpoint as well, which adds a commit per message. "
+									  + "Use the transaction mode 'Automatic' to read only persistent messages under syncpoint.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * MQInputNodeBrowse
+		 */
+		repository.createRule("MQInputNodeBrowse")
+					.setName("MQ Input Node - Browse only is set.")
+					.setHtmlDescription("The messages are browsed and not removed from the queue, so the queue keeps growing and each read has to skip the browsed messages. "
+									  + "Use browsing for special purposes only.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * MQInputNodeOrderMode
+		 */
+		repository.createRule("MQInputNodeOrderMode")
+					.setName("MQ Input Node - The order mode serialises the processing of the messages.")
+					.setHtmlDescription("With an order mode other than 'Default' the messages (of a user or of the queue) are processed one after another, "
+									  + "so additional instances do not increase the throughput. Use an order mode only if the order is required.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * MQOutputNodeTransactionMode
+		 */
+		repository.createRule("MQOutputNodeTransactionMode")
+					.setName("MQ Output Node - Non-persistent messages are put under syncpoint.")
+					.setHtmlDescription("The transaction mode 'Yes' puts each non-persistent message under syncpoint, which adds a commit for data that is not recoverable anyway. "
+									  + "Use the transaction mode 'Automatic' or 'No' for non-persistent messages.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * HttpRequestNodeTimeout
+		 */
+		repository.createRule("HttpRequestNodeTimeout")
+					.setName("HTTP Request Node - The request timeout is unbounded or exceeds the maximum.")
+					.setHtmlDescription("A HTTP Request Node waits for the response of the service up to the request timeout, which is 120 seconds by default. "
+									  + "A slow service holds the thread of the message flow for that long and the messages behind it wait as well. "
+									  + "Set a request timeout not exceeding the maximum request timeout of the project (setting 'sonar.msgflow.request.timeout.max').")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * HttpRequestNodeKeepAlive
+		 */
+		repository.createRule("HttpRequestNodeKeepAlive")
+					.setName("HTTP Request Node - Persistent connections are disabled.")
+					.setHtmlDescription("Without HTTP/1.1 keep-alive a new TCP (and TLS) connection is opened for each request, which adds at least one round trip to the latency of every call. "
+									  + "Enable 'Enable HTTP/1.1 keep-alive' unless the service does not support persistent connections.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * HttpRequestNodeCompression
+		 */
+		repository.createRule("HttpRequestNodeCompression")
+					.setName("HTTP Request Node - Neither requests nor responses are compressed.")
+					.setHtmlDescription("Large payloads sent over slow networks take less time to transfer when they are compressed. "
+									  + "Consider setting 'Request compression type' or 'Accept compressed responses by default' if the service supports compression.")
+					.setSeverity(Severity.INFO)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * SoapRequestNodeTimeout
+		 */
+		repository.createRule("SoapRequestNodeTimeout")
+					.setName("SOAP Request Node - The request timeout is unbounded or exceeds the maximum.")
+					.setHtmlDescription("A SOAP Request Node waits for the response of the service up to the request timeout, which is 120 seconds by default. "
+									  + "A slow service holds the thread of the message flow for that long and the messages behind it wait as well. "
+									  + "Set a request timeout not exceeding the maximum request timeout of the project (setting 'sonar.msgflow.request.timeout.max').")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * SoapRequestNodeKeepAlive
+		 */
+		repository.createRule("SoapRequestNodeKeepAlive")
+					.setName("SOAP Request Node - Persistent connections are disabled.")
+					.setHtmlDescription("Without HTTP/1.1 keep-alive a new TCP (and TLS) connection is opened for each request, which adds at least one round trip to the latency of every call. "
+									  + "Enable 'Enable HTTP/1.1 keep-alive' unless the service does not support persistent connections.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * CollectorRequestLoop
+		 */
+		repository.createRule("CollectorRequestLoop")
+					.setName("Collector Node - A HTTP or SOAP request is called in a loop fed by a Collector Node.")
+					.setHtmlDescription("A HTTP Request or SOAP Request Node on a loop of connections after a Collector Node is called synchronously for each iteration over the collected messages, "
+									  + "so the latencies of the calls add up. "
+									  + "Send the requests before the messages are collected, e.g. using asynchronous request and response nodes, or reduce the number of calls per collection.")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * CollectorNodeUnboundedCollection
+		 */
+		repository.createRule("CollectorNodeUnboundedCollection")
+					.setName("Collector Node - Collections neither expire nor are limited in quantity.")
+					.setHtmlDescription("Without a collection expiry and a quantity per input terminal, a collection is only completed by its timeout or never. "
+									  + "The messages of incomplete collections stay in the memory and the queues of the Collector Node, which may exhaust the memory of the execution group. "
+									  + "Set a 'Collection expiry' or a 'Quantity' for the input terminals.")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * FileInputNodeRecordDetection
+		 */
+		repository.createRule("FileInputNodeRecordDetection")
+					.setName("FileInput Node - Each file is read as a whole.")
+					.setHtmlDescription("The record detection 'Whole File' propagates each file as one message, so the memory needed by the message flow grows with the size of the files. "
+									  + "Use the record detection 'Fixed Length', 'Delimited' or 'Parsed Record Sequence' for large files, so that each record is propagated as a message of its own.")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * FileInputNodeParseTiming
+		 */
+		repository.createRule("FileInputNodeParseTiming")
+					.setName("FileInput Node - The message is parsed completely when it is read.")
+					.setHtmlDescription("The parse timing 'Immediate' or 'Complete' builds the complete message tree before the message is propagated, even if the message flow only needs a few fields. "
+									  + "Use the parse timing 'On Demand' to parse only the parts of the message that are accessed.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * FileInputNodeWholeFileValidation
+		 */
+		repository.createRule("FileInputNodeWholeFileValidation")
+					.setName("FileInput Node - Whole files are validated for content and value.")
+					.setHtmlDescription("The validation 'Content and Value' parses the complete message, so every file read as a whole is materialised as one message tree. "
+									  + "Split the file into records or validate the records after they have been propagated.")
+					.setSeverity(Severity.MAJOR)
+					.setTags(Tags.PERFORMANCE);
+		
+		/*
+		 * MonitoringEventBudget
+		 */
+		repository.createRule("MonitoringEventBudget")
+					.setName("Monitoring - The message flow exceeds the monitoring event budget.")
+					.setHtmlDescription("Every enabled monitoring event is emitted whenever a message passes its source, and events capturing the message body or the whole message serialise the message tree each time. "
+									  + "Many events per message take a noticeable share of the throughput of the message flow. "
+									  + "The events of the nodes of all types are counted along the paths a message can take from an input node, the events of a loop once. "
+									  + "Enable only the events needed for the business monitoring and capture selected fields instead of the payload. "
+									  + "The budget is set by 'sonar.msgflow.monitoring.events.max' and 'sonar.msgflow.monitoring.payloadEvents.max'.")
+					.setSeverity(Severity.MINOR)
+					.setTags(Tags.PERFORMANCE);
+		
 		// add more rules here
 		
 		repository.done();
@@ -0,0 +1,150 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowTerminals;
+
+/**
+ * The class (rule visitor) analyses whether HTTP Request and SOAP Request 
+ * Nodes are called in loops fed by Collector Nodes. 
+ * 
+ * The request nodes wait for the response of the service, so a request 
+ * inside a loop of connections adds the latency of the service to each 
+ * iteration over the collected messages. The connections are followed from 
+ * the out terminal of every Collector Node and every request node reached 
+ * which is part of a cycle is reported.
+ * 
+ * The traversal uses the graph index of the message flow (see 
+ * {@link MessageFlowGraph}). Loops implemented within the ESQL of a Compute 
+ * Node (PROPAGATE) are not visible in the connections and not detected.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class CollectorRequestLoopSensor extends MessageFlowNodeVisitor {
+
+	/**
+	 * The logger for the class.
+	 */
+	//private static final Logger LOG = LoggerFactory.getLogger(CollectorRequestLoopSensor.class);
+	
+	/**
+	 * the key of the rule
+	 */
+	static final String RULE = "CollectorRequestLoop";
+	
+	/**
+	 * the types of the request nodes
+	 */
+	private static final MessageFlowNodeType[] REQUEST_TYPES = {
+		MessageFlowNodeType.HTTP_REQUEST,
+		MessageFlowNodeType.SOAP_REQUEST
+	};
+	
+	/**
+	 * the index of the terminal propagating the collections
+	 */
+	private static final int OUT = MessageFlowTerminals.indexOf("OutTerminal.out");
+	
+	/**
+	 * Constructor
+	 * 
+	 * Declares the rule of the visitor.
+	 */
+	public CollectorRequestLoopSensor() {
+		addRule(RULE);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
+	 */
+	/**
+	 * The method defines the type of the message flow nodes to be analysed.
+	 */
+	@Override
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.COLLECTOR;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeTypes()
+	 */
+	/**
+	 * The method defines the types of the message flow nodes needed to 
+	 * follow the paths: the Collector Nodes and the request nodes.
+	 */
+	@Override
+	public Set<MessageFlowNodeType> getNodeTypes() {
+		EnumSet<MessageFlowNodeType> types = EnumSet.of(MessageFlowNodeType.COLLECTOR);
+		
+		for (MessageFlowNodeType type : REQUEST_TYPES) {
+			types.add(type);
+		}
+		
+		return types;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
+	 */
+	/**
+	 * The method where the analysis of the message flow as a whole takes place.
+	 */
+	@Override
+	public void visitMessageFlow(MessageFlow msgFlow, MessageFlowIssueCollector issues) {
+		if (!issues.isActive(RULE) || msgFlow.getNodes(MessageFlowNodeType.COLLECTOR).isEmpty()) {
+			return;
+		}
+		
+		MessageFlowGraph graph = msgFlow.getGraph();
+		BitSet checked = new BitSet(graph.getNodeCount());
+		
+		for (MessageFlowNode collector : msgFlow.getNodes(MessageFlowNodeType.COLLECTOR)) {
+			BitSet fed = graph.getReachableNodes(graph.indexOf(collector.getId()), OUT);
+			
+			for (MessageFlowNodeType type : REQUEST_TYPES) {
+				for (MessageFlowNode request : msgFlow.getNodes(type)) {
+					int node = graph.indexOf(request.getId());
+					
+					if (!fed.get(node) || checked.get(node)) {
+						continue;
+					}
+					
+					checked.set(node);
+					
+					/* the start node is only reachable from itself if it is part of a cycle */
+					if (graph.getReachableNodes(node, -1).get(node)) {
+						issues.addIssue(RuleKey.of("msgflow", RULE), 
+								"'" + request.getName() + "' (type: " + request.getType() + ") is called in a loop fed by '" + collector.getName() 
+								+ "' (type: " + collector.getType() + "), each iteration waits for the response of the service.");
+					}
+				}
+			}
+		}
+	}
+
+}
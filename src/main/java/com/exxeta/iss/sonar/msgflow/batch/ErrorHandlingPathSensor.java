@@ -0,0 +1,511 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowSubflowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowTerminals;
+
+/**
+ * The class (rule visitor) analyses whether the failures of the nodes of a 
+ * message flow reach an exception handler. 
+ * 
+ * An exception raised by a node whose failure terminal is not connected is 
+ * propagated back along the path of the message to the last Try Catch Node 
+ * passed through its try terminal or to the catch terminal of the input 
+ * node. The connections are followed from every input node (MQ Input, 
+ * HTTP Input, File Input, SOAP Input and Timeout Notification Node) and 
+ * every Compute, HTTP Request and SOAP Request Node reached without a 
+ * connected catch terminal on the path is reported.
+ * 
+ * The traversal uses the graph index of the message flow (see 
+ * {@link MessageFlowGraph}). A node is traversed at most once with and 
+ * once without handler, the parts of the flow shared by several input 
+ * nodes are not traversed again, so the analysis takes O(V + E) for the 
+ * whole message flow. 
+ * 
+ * The paths are followed into the subflows: a subflow node is entered at 
+ * its input terminal and left at the output terminals reached inside the 
+ * subflow, the unhandled nodes inside the subflow are reported with the 
+ * path of the subflow node. The result for a subflow graph, an input 
+ * terminal and a handler state is kept per subflow graph (see 
+ * {@link Summary}), so a subflow referenced by many nodes or flows is 
+ * traversed once. Subflows which cannot be resolved, reference themselves 
+ * or exceed the maximum nesting depth are passed through like in the 
+ * flattened view of the message flow.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class ErrorHandlingPathSensor extends MessageFlowNodeVisitor {
+
+	/**
+	 * The logger for the class.
+	 */
+	//private static final Logger LOG = LoggerFactory.getLogger(ErrorHandlingPathSensor.class);
+	
+	/**
+	 * the key of the rule
+	 */
+	static final String RULE = "ErrorHandlingPath";
+	
+	/**
+	 * the types of the input nodes the paths start at
+	 */
+	private static final MessageFlowNodeType[] INPUT_TYPES = {
+		MessageFlowNodeType.MQ_INPUT,
+		MessageFlowNodeType.HTTP_INPUT,
+		MessageFlowNodeType.FILE_INPUT,
+		MessageFlowNodeType.SOAP_INPUT,
+		MessageFlowNodeType.TIMEOUT_NOTIFICATION
+	};
+	
+	/**
+	 * the types of the nodes whose failures are checked
+	 */
+	private static final MessageFlowNodeType[] FAILING_TYPES = {
+		MessageFlowNodeType.COMPUTE,
+		MessageFlowNodeType.HTTP_REQUEST,
+		MessageFlowNodeType.SOAP_REQUEST
+	};
+	
+	/**
+	 * the prefix of the ids of the output nodes of a subflow (the id is the 
+	 * name of the output terminal of the subflow node)
+	 */
+	private static final String OUTPUT_PREFIX = "OutTerminal.";
+	
+	/**
+	 * the separator of the paths of the nodes inside subflows
+	 */
+	private static final String SEPARATOR = "/";
+	
+	private static final int TRY		= MessageFlowTerminals.indexOf("OutTerminal.try");
+	private static final int CATCH		= MessageFlowTerminals.indexOf("OutTerminal.catch");
+	private static final int FAILURE	= MessageFlowTerminals.indexOf("OutTerminal.failure");
+	
+	/**
+	 * the results of the subflows by subflow graph and by input terminal, 
+	 * handler state and nesting depth (the graphs of the message flows 
+	 * which are no longer cached are released)
+	 */
+	private final Map<MessageFlowGraph, ConcurrentMap<String, Summary>> summaries = 
+			Collections.synchronizedMap(new WeakHashMap<MessageFlowGraph, ConcurrentMap<String, Summary>>());
+	
+	/**
+	 * Constructor
+	 * 
+	 * Declares the rule of the visitor.
+	 */
+	public ErrorHandlingPathSensor() {
+		addRule(RULE);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeTypes()
+	 */
+	/**
+	 * The method defines the types of the message flow nodes needed to 
+	 * follow the paths: the input nodes, the checked nodes and the Try Catch 
+	 * Nodes.
+	 */
+	@Override
+	public Set<MessageFlowNodeType> getNodeTypes() {
+		EnumSet<MessageFlowNodeType> types = EnumSet.of(MessageFlowNodeType.TRY_CATCH);
+		
+		for (MessageFlowNodeType type : INPUT_TYPES) {
+			types.add(type);
+		}
+		
+		for (MessageFlowNodeType type : FAILING_TYPES) {
+			types.add(type);
+		}
+		
+		return types;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
+	 */
+	/**
+	 * The method where the analysis of the message flow as a whole takes place.
+	 */
+	@Override
+	public void visitMessageFlow(MessageFlow msgFlow, MessageFlowIssueCollector issues) {
+		if (!issues.isActive(RULE)) {
+			return;
+		}
+		
+		if (!msgFlow.getSubflowNodes().isEmpty()) {
+			/* the issues change with the subflows */
+			issues.dependOnOtherFiles();
+		}
+		
+		Set<String> subflowPath = new HashSet<String>();
+		subflowPath.add(issues.getFileName());
+		
+		Walk walk = new Walk(issues.getFileName(), msgFlow, 0, subflowPath);
+		MessageFlowGraph graph = walk.graph;
+		Set<String> reported = new HashSet<String>();
+		
+		for (MessageFlowNodeType type : INPUT_TYPES) {
+			for (MessageFlowNode input : msgFlow.getNodes(type)) {
+				int start = graph.indexOf(input.getId());
+				int handler = input.hasOutputTerminal(CATCH) ? 1 : 0;
+				
+				for (int i = 0; i < graph.getOutDegree(start); i++) {
+					int edge = graph.getOutEdge(start, i);
+					int terminal = graph.getSourceTerminal(edge);
+					
+					/* the failures of the error handling of the input node are not caught again */
+					walk.follow(edge, terminal == CATCH || terminal == FAILURE ? 0 : handler);
+				}
+				
+				walk.run();
+				
+				for (Failure failure : walk.failures) {
+					if (reported.add(failure.path)) {
+						issues.addIssue(RuleKey.of("msgflow", RULE), 
+								"The failure terminal of '" + failure.node.getName() + "' (type: " + failure.node.getType() + ")" 
+								+ (failure.subflowNames.isEmpty() ? "" : " in the subflow node '" + failure.subflowNames + "'") 
+								+ " is not connected and an exception on the path from '" + input.getName() 
+								+ "' does not reach the catch terminal of a TryCatch or input node.");
+					}
+				}
+				
+				walk.failures.clear();
+			}
+		}
+	}
+	
+	/**
+	 * The method returns the result of the traversal of a subflow entered 
+	 * at an input terminal with the given handler state. Complete results 
+	 * are kept per subflow graph.
+	 * 
+	 * @param subflowFile the file name of the subflow
+	 * @param entry the id of the input node of the subflow (the name of the 
+	 * input terminal of the subflow node)
+	 * @param handler the handler state the subflow is entered with
+	 * @param depth the nesting depth of the subflow
+	 * @param subflowPath the file names of the message flows expanded on the path to the subflow
+	 * 
+	 * @return the result of the traversal
+	 */
+	private Summary summarise(String subflowFile, String entry, int handler, int depth, Set<String> subflowPath) {
+		MessageFlow subflow = MessageFlowProject.getInstance().getMessageFlow(subflowFile);
+		MessageFlowGraph graph = subflow.getGraph();
+		String key = entry + SEPARATOR + handler + SEPARATOR + depth;
+		
+		ConcurrentMap<String, Summary> graphSummaries;
+		
+		synchronized (summaries) {
+			graphSummaries = summaries.get(graph);
+			
+			if (graphSummaries == null) {
+				graphSummaries = new ConcurrentHashMap<String, Summary>();
+				summaries.put(graph, graphSummaries);
+			}
+		}
+		
+		Summary summary = graphSummaries.get(key);
+		
+		if (summary != null) {
+			return summary;
+		}
+		
+		subflowPath.add(subflowFile);
+		
+		Walk walk = new Walk(subflowFile, subflow, depth, subflowPath);
+		int start = graph.indexOf(entry);
+		
+		if (start >= 0) {
+			walk.enqueue(start, handler);
+			walk.run();
+		}
+		
+		subflowPath.remove(subflowFile);
+		
+		summary = new Summary(walk.exits, walk.failures, walk.complete);
+		
+		/* the result of a subflow cut off by a reference to itself depends on the path to the subflow */
+		if (summary.complete) {
+			graphSummaries.putIfAbsent(key, summary);
+		}
+		
+		return summary;
+	}
+	
+	/**
+	 * The class holds the state of the traversal of a message flow or 
+	 * subflow.
+	 */
+	private final class Walk {
+		
+		/** the file name of the message flow or null if unknown */
+		private final String fileName;
+		
+		/** the graph index of the message flow */
+		private final MessageFlowGraph graph;
+		
+		/** the nesting depth of the message flow */
+		private final int depth;
+		
+		/** the file names of the message flows expanded on the path to the message flow */
+		private final Set<String> subflowPath;
+		
+		/** the checked nodes and the Try Catch Nodes */
+		private final BitSet failing;
+		private final BitSet tryCatch;
+		
+		/** the subflow nodes by graph index */
+		private final Map<Integer, MessageFlowSubflowNode> subflowNodes = new HashMap<Integer, MessageFlowSubflowNode>();
+		
+		/** the subflow nodes entered (graph index, input terminal and handler state) */
+		private final Set<String> entered = new HashSet<String>();
+		
+		/** the nodes reached without (0) and with (1) exception handler */
+		private final BitSet[] reached;
+		
+		/** the queue of the nodes to be traversed, the entries are node index * 2 + handler */
+		private final int[] queue;
+		private int head;
+		private int tail;
+		
+		/** the output nodes of the subflow reached, with the handler states as bit mask */
+		private final Map<String, Integer> exits = new HashMap<String, Integer>();
+		
+		/** the unhandled nodes found since the last input node */
+		private final List<Failure> failures = new ArrayList<Failure>();
+		
+		/** whether no subflow has been cut off by a reference to itself */
+		private boolean complete = true;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param fileName the file name of the message flow or null if unknown
+		 * @param msgFlow the message flow
+		 * @param depth the nesting depth of the message flow
+		 * @param subflowPath the file names of the message flows expanded on the path to the message flow
+		 */
+		private Walk(String fileName, MessageFlow msgFlow, int depth, Set<String> subflowPath) {
+			this.fileName = fileName;
+			this.graph = msgFlow.getGraph();
+			this.depth = depth;
+			this.subflowPath = subflowPath;
+			
+			int nodeCount = graph.getNodeCount();
+			
+			failing = indices(msgFlow, graph, FAILING_TYPES);
+			tryCatch = indices(msgFlow, graph, new MessageFlowNodeType[] { MessageFlowNodeType.TRY_CATCH });
+			reached = new BitSet[] { new BitSet(nodeCount), new BitSet(nodeCount) };
+			queue = new int[2 * nodeCount];
+			
+			for (MessageFlowSubflowNode subflowNode : msgFlow.getSubflowNodes()) {
+				subflowNodes.put(graph.indexOf(subflowNode.getId()), subflowNode);
+			}
+		}
+		
+		/**
+		 * Follows a connection with the given handler state. A resolved 
+		 * subflow is entered at the target terminal and left at the output 
+		 * terminals reached inside the subflow.
+		 */
+		private void follow(int edge, int handler) {
+			int target = graph.getTarget(edge);
+			MessageFlowSubflowNode subflowNode = subflowNodes.get(target);
+			String subflowFile = subflowNode == null || fileName == null ? null 
+					: MessageFlowProject.getInstance().getSubflowFile(fileName, subflowNode);
+			
+			if (subflowFile == null || depth >= MessageFlowProject.getInstance().getMaximumSubflowDepth() || graph.getTargetTerminal(edge) < 0) {
+				enqueue(target, handler);
+				return;
+			}
+			
+			if (subflowPath.contains(subflowFile)) {
+				complete = false;
+				enqueue(target, handler);
+				return;
+			}
+			
+			String entry = MessageFlowTerminals.nameOf(graph.getTargetTerminal(edge));
+			
+			if (!entered.add(target + SEPARATOR + entry + SEPARATOR + handler)) {
+				return;
+			}
+			
+			Summary summary = summarise(subflowFile, entry, handler, depth + 1, subflowPath);
+			complete &= summary.complete;
+			
+			for (Failure failure : summary.failures) {
+				failures.add(new Failure(subflowNode.getId() + SEPARATOR + failure.path, 
+						failure.subflowNames.isEmpty() ? subflowNode.getName() : subflowNode.getName() + SEPARATOR + failure.subflowNames, 
+						failure.node));
+			}
+			
+			for (int i = 0; i < graph.getOutDegree(target); i++) {
+				int outEdge = graph.getOutEdge(target, i);
+				int terminal = graph.getSourceTerminal(outEdge);
+				Integer exitHandlers = terminal < 0 ? null : summary.exits.get(MessageFlowTerminals.nameOf(terminal));
+				
+				for (int exitHandler = 0; exitHandlers != null && exitHandler < 2; exitHandler++) {
+					if ((exitHandlers & 1 << exitHandler) != 0) {
+						follow(outEdge, exitHandler);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Traverses the queued nodes and records the unhandled nodes and the 
+		 * output nodes of the subflow reached.
+		 */
+		private void run() {
+			while (head < tail) {
+				int node = queue[head] >> 1;
+				int nodeHandler = queue[head] & 1;
+				head++;
+				
+				MessageFlowNode msgFlowNode = graph.getNode(node);
+				
+				if (nodeHandler == 0 && failing.get(node) && !msgFlowNode.hasOutputTerminal(FAILURE)) {
+					failures.add(new Failure(msgFlowNode.getId(), "", msgFlowNode));
+				}
+				
+				if (msgFlowNode == null && !subflowNodes.containsKey(node) && graph.getId(node).startsWith(OUTPUT_PREFIX)) {
+					Integer exitHandlers = exits.get(graph.getId(node));
+					exits.put(graph.getId(node), (exitHandlers == null ? 0 : exitHandlers) | 1 << nodeHandler);
+				}
+				
+				boolean tryWithCatch = tryCatch.get(node) && msgFlowNode.hasOutputTerminal(CATCH);
+				
+				for (int i = 0; i < graph.getOutDegree(node); i++) {
+					int edge = graph.getOutEdge(node, i);
+					
+					follow(edge, tryWithCatch && graph.getSourceTerminal(edge) == TRY ? 1 : nodeHandler);
+				}
+			}
+		}
+		
+		/**
+		 * Queues a node with the given handler state unless it has been 
+		 * reached with that state before.
+		 */
+		private void enqueue(int node, int handler) {
+			if (reached[handler].get(node)) {
+				return;
+			}
+			
+			reached[handler].set(node);
+			queue[tail++] = node << 1 | handler;
+		}
+	}
+	
+	/**
+	 * The class holds the result of the traversal of a subflow entered at 
+	 * an input terminal with a handler state.
+	 */
+	private static final class Summary {
+		
+		/** the output nodes of the subflow reached, with the handler states as bit mask */
+		private final Map<String, Integer> exits;
+		
+		/** the unhandled nodes of the subflow */
+		private final List<Failure> failures;
+		
+		/** whether no subflow has been cut off by a reference to itself */
+		private final boolean complete;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param exits the output nodes of the subflow reached
+		 * @param failures the unhandled nodes of the subflow
+		 * @param complete whether no subflow has been cut off by a reference to itself
+		 */
+		private Summary(Map<String, Integer> exits, List<Failure> failures, boolean complete) {
+			this.exits = exits;
+			this.failures = failures;
+			this.complete = complete;
+		}
+	}
+	
+	/**
+	 * The class describes a node whose failure does not reach an exception 
+	 * handler.
+	 */
+	private static final class Failure {
+		
+		/** the path of the node relative to the traversed message flow, e.g. 'FCMComposite_1_3/FCMComposite_1_1' */
+		private final String path;
+		
+		/** the names of the subflow nodes on the path or an empty string */
+		private final String subflowNames;
+		
+		/** the node */
+		private final MessageFlowNode node;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param path the path of the node relative to the traversed message flow
+		 * @param subflowNames the names of the subflow nodes on the path or an empty string
+		 * @param node the node
+		 */
+		private Failure(String path, String subflowNames, MessageFlowNode node) {
+			this.path = path;
+			this.subflowNames = subflowNames;
+			this.node = node;
+		}
+	}
+	
+	/**
+	 * Returns the graph indices of the nodes of the given types.
+	 */
+	private static BitSet indices(MessageFlow msgFlow, MessageFlowGraph graph, MessageFlowNodeType[] types) {
+		BitSet indices = new BitSet(graph.getNodeCount());
+		
+		for (MessageFlowNodeType type : types) {
+			for (MessageFlowNode node : msgFlow.getNodes(type)) {
+				indices.set(graph.indexOf(node.getId()));
+			}
+		}
+		
+		return indices;
+	}
+
+}
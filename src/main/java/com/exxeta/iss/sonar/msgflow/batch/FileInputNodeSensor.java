@@ -17,28 +17,16 @@
  */
 package com.exxeta.iss.sonar.msgflow.batch;
 
-import java.util.Iterator;
-
-import org.sonar.api.batch.Sensor;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.batch.fs.FileSystem;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.component.ResourcePerspectives;
-import org.sonar.api.issue.Issuable;
-import org.sonar.api.resources.Project;
-import org.sonar.api.rule.RuleKey;
-
-import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
 
 /**
- * The class (sensor) contains the method to analyse the connections and 
+ * The class (rule visitor) contains the method to analyse the connections and 
  * configuration of a FileInput Node.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
-public class FileInputNodeSensor implements Sensor {
+public class FileInputNodeSensor extends MessageFlowNodeVisitor {
 
 	/**
 	 * The logger for the class.
@@ -46,155 +34,61 @@ public class FileInputNodeSensor implements Sensor {
 	//private static final Logger LOG = LoggerFactory.getLogger(FileInputNodeSensor.class);
 	
 	/**
-	 * Variable to hold file system information, e.g. the file names of the project files.
-	 */
-	private final FileSystem fs;
-	
-	/**
+	 * Constructor
 	 * 
+	 * Declares the rule table of the visitor.
 	 */
-	private final ResourcePerspectives perspectives;
-	
-	/**
-	  * Use of IoC to get FileSystem and ResourcePerspectives
-	  */
-	public FileInputNodeSensor(FileSystem fs, ResourcePerspectives perspectives) {
-		this.fs = fs;
-		this.perspectives = perspectives;
+	public FileInputNodeSensor() {
+		addRule(MessageFlowRule.terminalNotConnected("FileInputNodeFailureTerminal", "OutTerminal.failure"));
+		addRule(MessageFlowRule.terminalNotConnected("FileInputNodeOutTerminal", "OutTerminal.out"));
+		addRule(MessageFlowRule.terminalNotConnected("FileInputNodeEODTerminal", "OutTerminal.EOD"));
+		addRule(MessageFlowRule.terminalNotConnected("FileInputNodeCatchTerminal", "OutTerminal.catch"));
+		addRule(MessageFlowRule.propertyNotSet("FileInputNodeBuildTree", MessageFlowNodeProperty.BUILD_TREE_USING_SCHEMA,
+				"Loss of data types: 'Build tree using XML schema data types' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("FileInputNodeRetainMixedContent", MessageFlowNodeProperty.MIXED_CONTENT_RETAIN_MODE,
+				"Possible loss of data: 'Retain mixed content' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("FileInputNodeRetainComments", MessageFlowNodeProperty.COMMENTS_RETAIN_MODE,
+				"Possible loss of data: 'Retain comments' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		/* 
+		 * The validation of whole files is reported by the rule 'FileInputNodeWholeFileValidation'.
+		 */
+		addRule(MessageFlowRule.propertyNotSet("FileInputNodeValidation", MessageFlowNodeProperty.VALIDATE_MASTER,
+				"'Validate' under 'Validation' is not set to 'Content and Value' for '{name}' (type: {type}) (see Properties).")
+				.whenValueNotIn(MessageFlowNodeProperty.RECORD_DETECTION, "", "wholeFile"));
+		addRule(MessageFlowRule.propertyNotSet("FileInputNodeMessageDomain", MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY,
+				"'Message domain' under 'Input Message Parsing' is not set for '{name}' (type: {type}) (see Properties)."));
+		/* 
+		 * The setting of a message set is only checked for the following domains:
+		 * MRM, XMLNSC and DataObject.
+		 */
+		addRule(MessageFlowRule.propertyNotSet("FileInputNodeMessageSet", MessageFlowNodeProperty.MESSAGE_SET_PROPERTY,
+				"'Message set' under 'Input Message Parsing' is not set for '{name}' (type: {type}) (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, "MRM", "XMLNSC", "DataObject"));
+		addRule(MessageFlowRule.monitoringEventsDisabled("FileInputNodeMonitoringEvents"));
+		/* 
+		 * memory - the record detection 'Whole File' is the default
+		 */
+		addRule(MessageFlowRule.always("FileInputNodeRecordDetection",
+				"'Record detection' under 'Records and Elements' is set to 'Whole File' for '{name}' (type: {type}), each file is read into memory as one message (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.RECORD_DETECTION, "", "wholeFile"));
+		addRule(MessageFlowRule.always("FileInputNodeParseTiming",
+				"'Parse timing' under 'Parser Options' is set to '{PARSE_TIMING}' for '{name}' (type: {type}), the complete message tree is built when the message is read (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.PARSE_TIMING, "immediate", "complete"));
+		addRule(MessageFlowRule.always("FileInputNodeWholeFileValidation",
+				"'Validate' under 'Validation' is set to 'Content and Value' for the whole files read by '{name}' (type: {type}), the complete message tree of each file is built for the validation (see Properties).")
+				.whenSet(MessageFlowNodeProperty.VALIDATE_MASTER)
+				.whenValueIn(MessageFlowNodeProperty.RECORD_DETECTION, "", "wholeFile"));
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
-	 */
-	/**
-	 * The method defines the language of the file to be analysed.
-	 */
-	@Override
-	public boolean shouldExecuteOnProject(Project arg0) {
-		// This sensor is executed only when there are msgflow files
-	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
-	}
-
-	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
 	 */
 	/**
-	 * The method where the analysis of the connections and configuration of 
-	 * the message flow node takes place.
+	 * The method defines the type of the message flow nodes to be analysed.
 	 */
 	@Override
-	public void analyse(Project arg0, SensorContext arg1) {
-		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
-																							
-			/* 
-			 * retrieve the message flow object
-			 */
-			MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
-			
-			// the actual rule ...
-			Iterator<MessageFlowNode> iMsgFlowNodes = msgFlow.getFileInputNodes().iterator();
-			
-			while (iMsgFlowNodes.hasNext()) {
-				MessageFlowNode msgFlowNode = iMsgFlowNodes.next();
-				
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.failure")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeFailureTerminal"))
-				    	        	  .message("The failure terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.out")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeOutTerminal"))
-				    	        	  .message("The out terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.EOD")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeEODTerminal"))
-				    	        	  .message("The EOD terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.catch")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeCatchTerminal"))
-				    	        	  .message("The catch terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isBuildTreeUsingSchema() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeBuildTree"))
-				    	        	  .message("Loss of data types: 'Build tree using XML schema data types' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isMixedContentRetainMode() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeRetainMixedContent"))
-				    	        	  .message("Possible loss of data: 'Retain mixed content' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isCommentsRetainMode() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeRetainComments"))
-				    	        	  .message("Possible loss of data: 'Retain comments' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isValidateMaster() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeValidation"))
-				    	        	  .message("'Validate' under 'Validation' is not set to 'Content and Value' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.getMessageDomainProperty().equals("")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeMessageDomain"))
-				    	        	  .message("'Message domain' under 'Input Message Parsing' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				/* 
-				 * The setting of a message set is only checked for the following domains:
-				 * MRM, XMLNSC and DataObject.
-				 */
-				if (msgFlowNode.getMessageSetProperty().equals("") &&
-					(msgFlowNode.getMessageDomainProperty().equals("MRM") ||
-					 msgFlowNode.getMessageDomainProperty().equals("XMLNSC") ||
-					 msgFlowNode.getMessageDomainProperty().equals("DataObject"))) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeMessageSet"))
-				    	        	  .message("'Message set' under 'Input Message Parsing' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.areMonitoringEventsEnabled()) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileInputNodeMonitoringEvents"))
-				    	        	  .message("There are no monitoring events defined or the "
-				    	        	  		 + "existing events are disabled for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-			}
-			
-		}
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.FILE_INPUT;
 	}
 
 }
@@ -17,28 +17,16 @@
  */
 package com.exxeta.iss.sonar.msgflow.batch;
 
-import java.util.Iterator;
-
-import org.sonar.api.batch.Sensor;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.batch.fs.FileSystem;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.component.ResourcePerspectives;
-import org.sonar.api.issue.Issuable;
-import org.sonar.api.resources.Project;
-import org.sonar.api.rule.RuleKey;
-
-import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
 
 /**
- * The class (sensor) contains the method to analyse the connections and 
+ * The class (rule visitor) contains the method to analyse the connections and 
  * configuration of a File Output Node.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
-public class FileOutputNodeSensor implements Sensor {
+public class FileOutputNodeSensor extends MessageFlowNodeVisitor {
 
 	/**
 	 * The logger for the class.
@@ -46,116 +34,32 @@ public class FileOutputNodeSensor implements Sensor {
 	//private static final Logger LOG = LoggerFactory.getLogger(FileOutputNodeSensor.class);
 	
 	/**
-	 * Variable to hold file system information, e.g. the file names of the project files.
-	 */
-	private final FileSystem fs;
-	
-	/**
+	 * Constructor
 	 * 
+	 * Declares the rule table of the visitor.
 	 */
-	private final ResourcePerspectives perspectives;
-	
-	/**
-	  * Use of IoC to get FileSystem and ResourcePerspectives
-	  */
-	public FileOutputNodeSensor(FileSystem fs, ResourcePerspectives perspectives) {
-		this.fs = fs;
-		this.perspectives = perspectives;
+	public FileOutputNodeSensor() {
+		addRule(MessageFlowRule.terminalNotConnected("FileOutputNodeInTerminal", "InTerminal.in"));
+		/* "Record is Whole File" - element "recordDefinition" does not exist */
+		addRule(MessageFlowRule.terminalNotConnected("FileOutputNodeInEODTerminal", "InTerminal.EOD")
+				.whenSet(MessageFlowNodeProperty.RECORD_DEFINITION));
+		addRule(MessageFlowRule.terminalNotConnected("FileOutputNodeFailureTerminal", "OutTerminal.failure"));
+		addRule(MessageFlowRule.terminalNotConnected("FileOutputNodeOutTerminal", "OutTerminal.out"));
+		addRule(MessageFlowRule.terminalNotConnected("FileOutputNodeOutEODTerminal", "OutTerminal.EOD"));
+		addRule(MessageFlowRule.propertyNotSet("FileOutputNodeValidation", MessageFlowNodeProperty.VALIDATE_MASTER,
+				"'Validate' under 'Validation' is not set to 'Content and Value' for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.monitoringEventsDisabled("FileOutputNodeMonitoringEvents"));
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
-	 */
-	/**
-	 * The method defines the language of the file to be analysed.
-	 */
-	@Override
-	public boolean shouldExecuteOnProject(Project arg0) {
-		// This sensor is executed only when there are msgflow files
-	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
-	}
-
-	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
 	 */
 	/**
-	 * The method where the analysis of the connections and configuration of 
-	 * the message flow node takes place.
+	 * The method defines the type of the message flow nodes to be analysed.
 	 */
 	@Override
-	public void analyse(Project arg0, SensorContext arg1) {
-		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
-			
-			/* 
-			 * retrieve the message flow object
-			 */
-			MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
-			
-			// the actual rule ...
-			Iterator<MessageFlowNode> iMsgFlowNodes = msgFlow.getFileOutputNodes().iterator();
-			
-			while (iMsgFlowNodes.hasNext()) {
-				MessageFlowNode msgFlowNode = iMsgFlowNodes.next();
-				
-				if (!msgFlowNode.getInputTerminals().contains("InTerminal.in")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeInTerminal"))
-				    	        	  .message("The in terminal (input) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.getInputTerminals().contains("InTerminal.EOD") &&
-					!msgFlowNode.getRecordDefinition().equals("")) { /* "Record is Whole File" - element "recordDefinition" does not exist */
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeInEODTerminal"))
-				    	        	  .message("The EOD terminal (input) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.failure")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeFailureTerminal"))
-				    	        	  .message("The failure terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.out")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeOutTerminal"))
-				    	        	  .message("The out terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.EOD")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeOutEODTerminal"))
-				    	        	  .message("The EOD terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isValidateMaster() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeValidation"))
-				    	        	  .message("'Validate' under 'Validation' is not set to 'Content and Value' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.areMonitoringEventsEnabled()) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "FileOutputNodeMonitoringEvents"))
-				    	        	  .message("There are no monitoring events defined or the "
-				    	        	  		 + "existing events are disabled for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-			}
-		}
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.FILE_OUTPUT;
 	}
 
 }
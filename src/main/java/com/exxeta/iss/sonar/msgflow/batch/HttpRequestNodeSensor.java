@@ -17,28 +17,20 @@
  */
 package com.exxeta.iss.sonar.msgflow.batch;
 
-import java.util.Iterator;
-
-import org.sonar.api.batch.Sensor;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.batch.fs.FileSystem;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.component.ResourcePerspectives;
-import org.sonar.api.issue.Issuable;
-import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
 
-import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
 import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
 import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
 
 /**
- * The class (sensor) contains the method to analyse the connections and 
+ * The class (rule visitor) contains the method to analyse the connections and 
  * configuration of a Http Request Node.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
-public class HttpRequestNodeSensor implements Sensor {
+public class HttpRequestNodeSensor extends MessageFlowNodeVisitor {
 
 	/**
 	 * The logger for the class.
@@ -46,170 +38,142 @@ public class HttpRequestNodeSensor implements Sensor {
 	//private static final Logger LOG = LoggerFactory.getLogger(HttpRequestNodeSensor.class);
 	
 	/**
-	 * Variable to hold file system information, e.g. the file names of the project files.
+	 * the key of the rule checking the request timeout
 	 */
-	private final FileSystem fs;
+	static final String TIMEOUT = "HttpRequestNodeTimeout";
 	
 	/**
-	 * 
+	 * the default request timeout of HTTP Request and SOAP Request nodes in seconds
 	 */
-	private final ResourcePerspectives perspectives;
+	static final int DEFAULT_REQUEST_TIMEOUT = 120;
 	
 	/**
-	  * Use of IoC to get FileSystem and ResourcePerspectives
-	  */
-	public HttpRequestNodeSensor(FileSystem fs, ResourcePerspectives perspectives) {
-		this.fs = fs;
-		this.perspectives = perspectives;
+	 * Constructor
+	 * 
+	 * Declares the rule table of the visitor.
+	 */
+	public HttpRequestNodeSensor() {
+		addRule(MessageFlowRule.always("HttpRequestNodeHTTPHeader",
+				"Make sure the HTTP header for '{name}' (type: {type}) contains a 'Host' element, e.g. InputRoot.HTTPRequestHeader.\"Host\"."));
+		addRule(MessageFlowRule.always("HttpRequestNodeMessageLocationTree",
+				"Make sure the value of 'Request message location tree*' (see Properties 'Advanced') for '{name}' (type: {type}) refers to the correct element, e.g. 'InputRoot.XMLNSC'. The current value is '{REQUEST_MSG_LOCATION_IN_TREE}'."));
+		addRule(MessageFlowRule.terminalNotConnected("HttpRequestNodeInTerminal", "InTerminal.in")
+				.onLine(1));
+		addRule(MessageFlowRule.terminalNotConnected("HttpRequestNodeFailureTerminal", "OutTerminal.failure"));
+		addRule(MessageFlowRule.terminalNotConnected("HttpRequestNodeOutTerminal", "OutTerminal.out"));
+		addRule(MessageFlowRule.terminalNotConnected("HttpRequestNodeErrorTerminal", "OutTerminal.error"));
+		addRule(MessageFlowRule.propertyNotSet("HttpRequestNodeBuildTree", MessageFlowNodeProperty.BUILD_TREE_USING_SCHEMA,
+				"Loss of data types: 'Build tree using XML schema data types' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("HttpRequestNodeRetainMixedContent", MessageFlowNodeProperty.MIXED_CONTENT_RETAIN_MODE,
+				"Possible loss of data: 'Retain mixed content' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("HttpRequestNodeRetainComments", MessageFlowNodeProperty.COMMENTS_RETAIN_MODE,
+				"Possible loss of data: 'Retain comments' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("HttpRequestNodeValidation", MessageFlowNodeProperty.VALIDATE_MASTER,
+				"'Validate' under 'Validation' is not set to 'Content and Value' for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("HttpRequestNodeMessageDomain", MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY,
+				"'Message domain' under 'Response Message Parsing' is not set for '{name}' (type: {type}) (see Properties)."));
+		/* 
+		 * The setting of a message set is only checked for the following domains:
+		 * MRM, XMLNSC and DataObject.
+		 */
+		addRule(MessageFlowRule.propertyNotSet("HttpRequestNodeMessageSet", MessageFlowNodeProperty.MESSAGE_SET_PROPERTY,
+				"'Message set' under 'Response Message Parsing' is not set for '{name}' (type: {type}) (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, "MRM", "XMLNSC", "DataObject"));
+		addRule(MessageFlowRule.monitoringEventsDisabled("HttpRequestNodeMonitoringEvents"));
+		/* 
+		 * latency
+		 */
+		addRule(TIMEOUT, MessageFlowNodeProperty.HTTP_REQUEST_TIMEOUT);
+		addRule(MessageFlowRule.always("HttpRequestNodeKeepAlive",
+				"'Enable HTTP/1.1 keep-alive' under 'HTTP Settings' is not set for '{name}' (type: {type}), a new connection is opened for each request (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.KEEP_ALIVE, "false"));
+		addRule(MessageFlowRule.always("HttpRequestNodeCompression",
+				"Neither 'Request compression type' nor 'Accept compressed responses by default' under 'HTTP Settings' is set for '{name}' (type: {type}) (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.REQUEST_COMPRESSION_TYPE, "", "none")
+				.whenValueIn(MessageFlowNodeProperty.ACCEPT_COMPRESSED_RESPONSES, "", "false"));
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
 	 */
 	/**
-	 * The method defines the language of the file to be analysed.
+	 * The method defines the type of the message flow nodes to be analysed.
 	 */
 	@Override
-	public boolean shouldExecuteOnProject(Project arg0) {
-		// This sensor is executed only when there are msgflow files
-	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.HTTP_REQUEST;
 	}
-
+	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitNode(com.exxeta.iss.sonar.msgflow.model.MessageFlowNode, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
 	 */
 	/**
-	 * The method where the analysis of the connections and configuration of 
-	 * the message flow node takes place.
+	 * The method checks the request timeout of the node against the maximum 
+	 * request timeout of the project.
 	 */
 	@Override
-	public void analyse(Project arg0, SensorContext arg1) {
-		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
-			
-			/* 
-			 * retrieve the message flow object
-			 */
-			MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
-			
-			// the actual rule ...
-			Iterator<MessageFlowNode> iMsgFlowNodes = msgFlow.getHttpRequestNodes().iterator();
-			
-			while (iMsgFlowNodes.hasNext()) {
-				MessageFlowNode msgFlowNode = iMsgFlowNodes.next();
-				
-				/* general hints are given here */
-				Issuable issuable1 = perspectives.as(Issuable.class, inputFile);
-			    issuable1.addIssue(issuable1.newIssueBuilder()
-			    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeHTTPHeader"))
-			    	        	  .message("Make sure the HTTP header for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") contains a 'Host' element, e.g. InputRoot.HTTPRequestHeader.\"Host\".")
-			    	        	  .build());
-				
-				Issuable issuable2 = perspectives.as(Issuable.class, inputFile);
-			    issuable2.addIssue(issuable2.newIssueBuilder()
-			    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeMessageLocationTree"))
-			    	        	  .message("Make sure the value of 'Request message location tree*' (see Properties 'Advanced') for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") refers to the correct element, e.g. 'InputRoot.XMLNSC'. "
-			    	        	  		+ "The current value is '" + msgFlowNode.getRequestMsgLocationInTree() + "'.")
-			    	        	  .build());
-				/* general hints are given here - end */
-				
-				if (!msgFlowNode.getInputTerminals().contains("InTerminal.in")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeInTerminal"))
-				    	        	  .message("The in terminal (input) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .line(1)
-				    	        	  .build());
-				}
-
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.failure")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeFailureTerminal"))
-				    	        	  .message("The failure terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.out")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeOutTerminal"))
-				    	        	  .message("The out terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.error")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeErrorTerminal"))
-				    	        	  .message("The error terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isBuildTreeUsingSchema() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeBuildTree"))
-				    	        	  .message("Loss of data types: 'Build tree using XML schema data types' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isMixedContentRetainMode() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeRetainMixedContent"))
-				    	        	  .message("Possible loss of data: 'Retain mixed content' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isCommentsRetainMode() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeRetainComments"))
-				    	        	  .message("Possible loss of data: 'Retain comments' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isValidateMaster() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeValidation"))
-				    	        	  .message("'Validate' under 'Validation' is not set to 'Content and Value' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.getMessageDomainProperty().equals("")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeMessageDomain"))
-				    	        	  .message("'Message domain' under 'Response Message Parsing' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				/* 
-				 * The setting of a message set is only checked for the following domains:
-				 * MRM, XMLNSC and DataObject.
-				 */
-				if (msgFlowNode.getMessageSetProperty().equals("") &&
-					(msgFlowNode.getMessageDomainProperty().equals("MRM") ||
-					 msgFlowNode.getMessageDomainProperty().equals("XMLNSC") ||
-					 msgFlowNode.getMessageDomainProperty().equals("DataObject"))) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeMessageSet"))
-				    	        	  .message("'Message set' under 'Response Message Parsing' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.areMonitoringEventsEnabled()) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "HttpRequestNodeMonitoringEvents"))
-				    	        	  .message("There are no monitoring events defined or the "
-				    	        	  		 + "existing events are disabled for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
+	public void visitNode(MessageFlowNode msgFlowNode, MessageFlowIssueCollector issues) {
+		visitRequestTimeout(msgFlowNode, TIMEOUT, MessageFlowNodeProperty.HTTP_REQUEST_TIMEOUT, issues);
+	}
+	
+	/**
+	 * The method reports a HTTP Request or SOAP Request node using the 
+	 * default request timeout if it exceeds the maximum request timeout of 
+	 * the project (see {@link MessageFlowProject#getMaximumRequestTimeout()}), 
+	 * an unbounded timeout (0 or less) or a timeout exceeding the maximum. 
+	 * Values which are not numbers are not checked. The messages are only 
+	 * built for nodes which are reported.
+	 * 
+	 * @param msgFlowNode the message flow node to be analysed
+	 * @param rule the key of the rule
+	 * @param property the property holding the request timeout of the node
+	 * @param issues the collector of the issues of the message flow file
+	 */
+	static void visitRequestTimeout(MessageFlowNode msgFlowNode, String rule, MessageFlowNodeProperty property, MessageFlowIssueCollector issues) {
+		if (!issues.isActive(rule)) {
+			return;
+		}
+		
+		int maximum = MessageFlowProject.getInstance().getMaximumRequestTimeout();
+		String value = msgFlowNode.getValue(property).trim();
+		
+		if (value.isEmpty()) {
+			if (DEFAULT_REQUEST_TIMEOUT <= maximum) {
+				return;
 			}
+			
+			issues.addIssue(RuleKey.of("msgflow", rule), "'Request timeout' is not set for " + nodeOf(msgFlowNode) + ", the default of " + DEFAULT_REQUEST_TIMEOUT 
+					+ " seconds exceeds the maximum of " + maximum + " seconds (see Properties).");
+			return;
+		}
+		
+		int timeout;
+		
+		try {
+			timeout = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return;
+		}
+		
+		if (timeout <= 0) {
+			issues.addIssue(RuleKey.of("msgflow", rule), "'Request timeout' is set to " + timeout + " for " + nodeOf(msgFlowNode) 
+					+ ", the request waits without limit (see Properties).");
+		} else if (timeout > maximum) {
+			issues.addIssue(RuleKey.of("msgflow", rule), "'Request timeout' is set to " + timeout + " seconds for " + nodeOf(msgFlowNode) 
+					+ ", which exceeds the maximum of " + maximum + " seconds (see Properties).");
 		}
 	}
+	
+	/**
+	 * The method returns the description of a node used in the messages, 
+	 * e.g. "'Lookup' (type: HTTPRequest)".
+	 * 
+	 * @param msgFlowNode the message flow node
+	 * 
+	 * @return the description of the node
+	 */
+	private static String nodeOf(MessageFlowNode msgFlowNode) {
+		return "'" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ")";
+	}
 
 }
@@ -17,175 +17,78 @@
  */
 package com.exxeta.iss.sonar.msgflow.batch;
 
-import java.util.Iterator;
-
-import org.sonar.api.batch.Sensor;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.batch.fs.FileSystem;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.component.ResourcePerspectives;
-import org.sonar.api.issue.Issuable;
-import org.sonar.api.resources.Project;
-import org.sonar.api.rule.RuleKey;
-
-import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
 
 /**
- * The class (sensor) contains the method to analyse the connections and 
+ * The class (rule visitor) contains the method to analyse the connections and 
  * configuration of a MQ Input Node.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
-public class MQInputNodeSensor implements Sensor {
+public class MQInputNodeSensor extends MessageFlowNodeVisitor {
 
 	/**
 	 * The logger for the class.
 	 */
 	//private static final Logger LOG = LoggerFactory.getLogger(MQInputNodeSensor.class);
-
-	/**
-	 * Variable to hold file system information, e.g. the file names of the project files.
-	 */
-	private final FileSystem fs;
 	
 	/**
+	 * Constructor
 	 * 
+	 * Declares the rule table of the visitor.
 	 */
-	private final ResourcePerspectives perspectives;
-	
-	/**
-	  * Use of IoC to get FileSystem and ResourcePerspectives
-	  */
-	public MQInputNodeSensor(FileSystem fs, ResourcePerspectives perspectives) {
-		this.fs = fs;
-		this.perspectives = perspectives;
+	public MQInputNodeSensor() {
+		addRule(MessageFlowRule.terminalNotConnected("MQInputNodeFailureTerminal", "OutTerminal.failure"));
+		addRule(MessageFlowRule.terminalNotConnected("MQInputNodeOutTerminal", "OutTerminal.out"));
+		addRule(MessageFlowRule.terminalNotConnected("MQInputNodeCatchTerminal", "OutTerminal.catch"));
+		addRule(MessageFlowRule.propertyNotSet("MQInputNodeBuildTree", MessageFlowNodeProperty.BUILD_TREE_USING_SCHEMA,
+				"Loss of data types: 'Build tree using XML schema data types' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("MQInputNodeRetainMixedContent", MessageFlowNodeProperty.MIXED_CONTENT_RETAIN_MODE,
+				"Possible loss of data: 'Retain mixed content' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("MQInputNodeRetainComments", MessageFlowNodeProperty.COMMENTS_RETAIN_MODE,
+				"Possible loss of data: 'Retain comments' under 'Parser Options' is not set for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("MQInputNodeValidation", MessageFlowNodeProperty.VALIDATE_MASTER,
+				"'Validate' under 'Validation' is not set to 'Content and Value' for '{name}' (type: {type}) (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("MQInputNodeMessageDomain", MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY,
+				"'Message domain' under 'Input Message Parsing' is not set for '{name}' (type: {type}) (see Properties)."));
+		/* 
+		 * The setting of a message set is only checked for the following domains:
+		 * MRM, XMLNSC and DataObject.
+		 */
+		addRule(MessageFlowRule.propertyNotSet("MQInputNodeMessageSet", MessageFlowNodeProperty.MESSAGE_SET_PROPERTY,
+				"'Message set' under 'Input Message Parsing' is not set for '{name}' (type: {type}) (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, "MRM", "XMLNSC", "DataObject"));
+		addRule(MessageFlowRule.monitoringEventsDisabled("MQInputNodeMonitoringEvents"));
+		/* 
+		 * throughput
+		 */
+		addRule(MessageFlowRule.always("MQInputNodeAdditionalInstances",
+				"No 'Additional instances' are defined under 'Instances' for '{name}' (type: {type}), the queue is read by a single thread (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.ADDITIONAL_INSTANCES, "", "0"));
+		addRule(MessageFlowRule.always("MQInputNodeCommitCount",
+				"'Commit count' is set to 1 for '{name}' (type: {type}), each message is committed separately (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.COMMIT_COUNT, "1"));
+		addRule(MessageFlowRule.always("MQInputNodeTransactionMode",
+				"'Transaction mode' under 'Advanced' is set to 'Yes' for '{name}' (type: {type}), non-persistent messages are read under syncpoint as well (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.TRANSACTION_MODE, "yes"));
+		addRule(MessageFlowRule.always("MQInputNodeBrowse",
+				"'Browse only' under 'Advanced' is set for '{name}' (type: {type}), the messages are not removed from the queue (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.BROWSE, "true"));
+		addRule(MessageFlowRule.always("MQInputNodeOrderMode",
+				"'Order mode' under 'Advanced' is set to '{ORDER_MODE}' for '{name}' (type: {type}), the messages are processed one after another (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.ORDER_MODE, "byUserId", "byQueueOrder", "userDefined"));
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
 	 */
 	/**
-	 * The method defines the language of the file to be analysed.
+	 * The method defines the type of the message flow nodes to be analysed.
 	 */
 	@Override
-	public boolean shouldExecuteOnProject(Project arg0) {
-		// This sensor is executed only when there are msgflow files
-	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
-	}
-
-	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
-	 */
-	/**
-	 * The method where the analysis of the connections and configuration of 
-	 * the message flow node takes place.
-	 */
-	@Override
-	public void analyse(Project arg0, SensorContext arg1) {
-		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
-			
-			/* 
-			 * retrieve the message flow object
-			 */
-			MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
-			
-			// the actual rule ...
-			Iterator<MessageFlowNode> iMsgFlowNodes = msgFlow.getMqInputNodes().iterator();
-			
-			while (iMsgFlowNodes.hasNext()) {
-				MessageFlowNode msgFlowNode = iMsgFlowNodes.next();
-				
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.failure")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeFailureTerminal"))
-				    	        	  .message("The failure terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.out")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeOutTerminal"))
-				    	        	  .message("The out terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.catch")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeCatchTerminal"))
-				    	        	  .message("The catch terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isBuildTreeUsingSchema() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeBuildTree"))
-				    	        	  .message("Loss of data types: 'Build tree using XML schema data types' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isMixedContentRetainMode() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeRetainMixedContent"))
-				    	        	  .message("Possible loss of data: 'Retain mixed content' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isCommentsRetainMode() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeRetainComments"))
-				    	        	  .message("Possible loss of data: 'Retain comments' under 'Parser Options' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isValidateMaster() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeValidation"))
-				    	        	  .message("'Validate' under 'Validation' is not set to 'Content and Value' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.getMessageDomainProperty().equals("")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeMessageDomain"))
-				    	        	  .message("'Message domain' under 'Input Message Parsing' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-
-				/* 
-				 * The setting of a message set is only checked for the following domains:
-				 * MRM, XMLNSC and DataObject.
-				 */
-				if (msgFlowNode.getMessageSetProperty().equals("") &&
-					(msgFlowNode.getMessageDomainProperty().equals("MRM") ||
-					 msgFlowNode.getMessageDomainProperty().equals("XMLNSC") ||
-					 msgFlowNode.getMessageDomainProperty().equals("DataObject"))) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeMessageSet"))
-				    	        	  .message("'Message set' under 'Input Message Parsing' is not set for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.areMonitoringEventsEnabled()) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "MQInputNodeMonitoringEvents"))
-				    	        	  .message("There are no monitoring events defined or the "
-				    	        	  		 + "existing events are disabled for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-			}
-		}
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.MQ_INPUT;
 	}
 
 }
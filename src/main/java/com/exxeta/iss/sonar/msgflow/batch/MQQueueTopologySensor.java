@@ -0,0 +1,185 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueEndpoint;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueIndex;
+
+/**
+ * The class (rule visitor) analyses the MQ queues connecting the message 
+ * flows of a project. 
+ * 
+ * The queues of the MQ Input and MQ Output Nodes of each message flow are 
+ * collected while the message flow is analysed and added to the 
+ * project-wide queue index (see {@link MessageFlowQueueIndex}). Once all 
+ * message flows have been analysed, the producers and consumers of each 
+ * queue are looked up in the index to find queues which are written but 
+ * never read (or read but never written) and queues shared by several 
+ * consumers or producers. Queues whose name is not set (e.g. destination 
+ * lists) are not analysed.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MQQueueTopologySensor extends MessageFlowNodeVisitor {
+
+	/**
+	 * The logger for the class.
+	 */
+	//private static final Logger LOG = LoggerFactory.getLogger(MQQueueTopologySensor.class);
+	
+	/** the keys of the rules */
+	static final String NOT_CONSUMED		= "MQQueueNotConsumed";
+	static final String NOT_PRODUCED		= "MQQueueNotProduced";
+	static final String MULTIPLE_CONSUMERS	= "MQQueueMultipleConsumers";
+	static final String MULTIPLE_PRODUCERS	= "MQQueueMultipleProducers";
+	
+	/**
+	 * Constructor
+	 * 
+	 * Declares the rules of the visitor.
+	 */
+	public MQQueueTopologySensor() {
+		addRule(NOT_CONSUMED, MessageFlowNodeProperty.QUEUE_NAME, MessageFlowNodeProperty.QUEUE_MANAGER_NAME);
+		addRule(NOT_PRODUCED, MessageFlowNodeProperty.QUEUE_NAME, MessageFlowNodeProperty.QUEUE_MANAGER_NAME);
+		addRule(MULTIPLE_CONSUMERS, MessageFlowNodeProperty.QUEUE_NAME, MessageFlowNodeProperty.QUEUE_MANAGER_NAME);
+		addRule(MULTIPLE_PRODUCERS, MessageFlowNodeProperty.QUEUE_NAME, MessageFlowNodeProperty.QUEUE_MANAGER_NAME);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
+	 */
+	/**
+	 * The method defines the type of the message flow nodes to be analysed.
+	 */
+	@Override
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.MQ_INPUT;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeTypes()
+	 */
+	/**
+	 * The method defines the types of the message flow nodes needed to 
+	 * collect the queues, i.e. MQ Input and MQ Output Nodes.
+	 */
+	@Override
+	public Set<MessageFlowNodeType> getNodeTypes() {
+		return EnumSet.of(MessageFlowNodeType.MQ_INPUT, MessageFlowNodeType.MQ_OUTPUT);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
+	 */
+	/**
+	 * The method collects the queues read and written by the message flow.
+	 */
+	@Override
+	public void visitMessageFlow(MessageFlow msgFlow, MessageFlowIssueCollector issues) {
+		for (MessageFlowNodeType type : getNodeTypes()) {
+			for (MessageFlowNode node : msgFlow.getNodes(type)) {
+				MessageFlowQueueEndpoint endpoint = MessageFlowQueueEndpoint.of(node);
+				
+				if (endpoint != null) {
+					issues.addQueueEndpoint(endpoint);
+				}
+			}
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitProjectFile(java.lang.String, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
+	 */
+	/**
+	 * The method looks up the producers and consumers of the queues of the 
+	 * message flow file in the queue index of the project.
+	 */
+	@Override
+	public void visitProjectFile(String path, MessageFlowIssueCollector issues) {
+		MessageFlowQueueIndex queueIndex = MessageFlowProject.getInstance().getQueueIndex();
+		
+		for (MessageFlowQueueEndpoint endpoint : queueIndex.getEndpoints(path)) {
+			if (endpoint.isProducer()) {
+				if (issues.isActive(NOT_CONSUMED) && queueIndex.getConsumers(endpoint).isEmpty()) {
+					issues.addIssue(RuleKey.of("msgflow", NOT_CONSUMED), 
+							"The queue " + queueOf(endpoint) + " written by '" + endpoint.getNodeName() + "' (type: " + endpoint.getNodeType() 
+							+ ") is not read by any MQ Input node of the project.");
+				}
+				
+				if (issues.isActive(MULTIPLE_PRODUCERS)) {
+					addShared(issues, MULTIPLE_PRODUCERS, endpoint, queueIndex.getProducers(endpoint), "written", "MQ Output");
+				}
+			} else {
+				if (issues.isActive(NOT_PRODUCED) && queueIndex.getProducers(endpoint).isEmpty()) {
+					issues.addIssue(RuleKey.of("msgflow", NOT_PRODUCED), 
+							"The queue " + queueOf(endpoint) + " read by '" + endpoint.getNodeName() + "' (type: " + endpoint.getNodeType() 
+							+ ") is not written by any MQ Output node of the project.");
+				}
+				
+				if (issues.isActive(MULTIPLE_CONSUMERS)) {
+					addShared(issues, MULTIPLE_CONSUMERS, endpoint, queueIndex.getConsumers(endpoint), "read", "MQ Input");
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The method adds an issue if a queue is shared with other nodes of the 
+	 * same kind.
+	 * 
+	 * @param issues the collector of the issues of the message flow file
+	 * @param rule the key of the rule
+	 * @param endpoint the endpoint of the node
+	 * @param others the paths of the files holding the other nodes
+	 * @param access 'read' or 'written'
+	 * @param kind the kind of the other nodes, e.g. 'MQ Input'
+	 */
+	private static void addShared(MessageFlowIssueCollector issues, String rule, MessageFlowQueueEndpoint endpoint, List<String> others, String access, String kind) {
+		if (others.isEmpty()) {
+			return;
+		}
+		
+		issues.addIssue(RuleKey.of("msgflow", rule), 
+				"The queue " + queueOf(endpoint) + " " + access + " by '" + endpoint.getNodeName() + "' (type: " + endpoint.getNodeType() 
+				+ ") is also " + access + " by " + others.size() + " other " + kind + " node(s), e.g. in '" + others.get(0) + "'.");
+	}
+	
+	/**
+	 * The method returns the name of the queue of an endpoint for the 
+	 * messages of the issues.
+	 * 
+	 * @param endpoint the endpoint
+	 * 
+	 * @return the quoted queue name and the queue manager if it is set
+	 */
+	private static String queueOf(MessageFlowQueueEndpoint endpoint) {
+		return "'" + endpoint.getQueue() + "'" + (endpoint.getQueueManager().isEmpty() ? "" : " of queue manager '" + endpoint.getQueueManager() + "'");
+	}
+	
+}
@@ -0,0 +1,136 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowCheckList;
+
+/**
+ * The class holds the keys of the active rules of the repository 'msgflow'. 
+ * The active rules are looked up once per analysis, the checks of the 
+ * visitors only query this set.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowActiveRules {
+
+	/**
+	 * the active rules if all rules are considered active, e.g. if the 
+	 * quality profile is not known
+	 */
+	public static final MessageFlowActiveRules ALL = new MessageFlowActiveRules(null);
+	
+	/**
+	 * the keys of the active rules or null if all rules are active
+	 */
+	private final Set<String> rules;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param rules the keys of the active rules or null if all rules are active
+	 */
+	private MessageFlowActiveRules(Set<String> rules) {
+		this.rules = rules;
+	}
+	
+	/**
+	 * The method returns the active rules of the repository 'msgflow'.
+	 * 
+	 * @param activeRules the active rules of the analysis or null
+	 * 
+	 * @return the active rules of the repository or {@link #ALL} if the 
+	 * active rules of the analysis are not known
+	 */
+	public static MessageFlowActiveRules of(ActiveRules activeRules) {
+		if (activeRules == null) {
+			return ALL;
+		}
+		
+		Set<String> rules = new HashSet<String>();
+		
+		for (ActiveRule activeRule : activeRules.findByRepository(MessageFlowCheckList.REPOSITORY_KEY)) {
+			rules.add(activeRule.ruleKey().rule());
+		}
+		
+		return new MessageFlowActiveRules(Collections.unmodifiableSet(rules));
+	}
+	
+	/**
+	 * The method returns whether a rule of the repository 'msgflow' is active.
+	 * 
+	 * @param rule the key of the rule, e.g. 'ComputeNodeInTerminal'
+	 * 
+	 * @return true if the rule is active
+	 */
+	public boolean isActive(String rule) {
+		return rules == null || rules.contains(rule);
+	}
+	
+	/**
+	 * The method returns whether a rule is active. Rules of other 
+	 * repositories are always considered active.
+	 * 
+	 * @param ruleKey the key of the rule
+	 * 
+	 * @return true if the rule is active
+	 */
+	public boolean isActive(RuleKey ruleKey) {
+		return !MessageFlowCheckList.REPOSITORY_KEY.equals(ruleKey.repository()) || isActive(ruleKey.rule());
+	}
+	
+	/**
+	 * The method returns the canonical form of the active rules, i.e. the 
+	 * sorted keys of the rules or '*' if all rules are active.
+	 * 
+	 * @return the canonical form of the active rules
+	 */
+	public String getKey() {
+		if (rules == null) {
+			return "*";
+		}
+		
+		StringBuilder key = new StringBuilder();
+		
+		for (String rule : new TreeSet<String>(rules)) {
+			if (key.length() > 0) {
+				key.append(',');
+			}
+			
+			key.append(rule);
+		}
+		
+		return key.toString();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MessageFlowActiveRules[" + (rules == null ? "all" : String.valueOf(rules.size())) + "]";
+	}
+}
@@ -0,0 +1,364 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issuable.IssueBuilder;
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueEndpoint;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueIndex;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics;
+
+/**
+ * The class collects the issues found in one message flow file. The issues 
+ * are published to the {@link Issuable} of the file in the order they were 
+ * added. Issues of inactive rules are dropped, the visitors should check 
+ * {@link #isActive(String)} before evaluating a rule.
+ * 
+ * The collector counts the evaluations and issues per rule, they are added 
+ * to the statistics of the analysis once per file (see 
+ * {@link #addTo(MessageFlowStatistics)}).
+ * 
+ * Besides the issues, the collector holds the MQ queues read and written by 
+ * the message flow. They are added to the project-wide 
+ * {@link MessageFlowQueueIndex} when the issues are published and are kept 
+ * in the manifest of the incremental analysis with the issues.
+ * 
+ * The collector also names the analysed file, so visitors can resolve the 
+ * subflows of the message flow (see {@link #getFileName()}). Issues found 
+ * by looking into other files are marked (see {@link #dependOnOtherFiles()}), 
+ * as they may change although the file itself is unchanged.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowIssueCollector {
+
+	/**
+	 * the issues in the order they were added
+	 */
+	private final List<PendingIssue> issues = new ArrayList<PendingIssue>();
+	
+	/**
+	 * the active rules of the analysis
+	 */
+	private final MessageFlowActiveRules activeRules;
+	
+	/**
+	 * the number of evaluations (index 0) and issues (index 1) by rule
+	 */
+	private final Map<String, int[]> ruleCounts = new HashMap<String, int[]>();
+	
+	/**
+	 * the MQ queues read and written by the message flow in the order they were added
+	 */
+	private final List<MessageFlowQueueEndpoint> queueEndpoints = new ArrayList<MessageFlowQueueEndpoint>();
+	
+	/**
+	 * the file name of the analysed message flow or null if unknown
+	 */
+	private final String fileName;
+	
+	/**
+	 * whether the issues depend on other files than the message flow file
+	 */
+	private boolean dependsOnOtherFiles;
+	
+	/**
+	 * Constructor
+	 * 
+	 * All rules are considered active.
+	 */
+	public MessageFlowIssueCollector() {
+		this(MessageFlowActiveRules.ALL);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param activeRules the active rules of the analysis
+	 */
+	public MessageFlowIssueCollector(MessageFlowActiveRules activeRules) {
+		this(activeRules, null);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param activeRules the active rules of the analysis
+	 * @param fileName the file name of the analysed message flow or null if unknown
+	 */
+	public MessageFlowIssueCollector(MessageFlowActiveRules activeRules, String fileName) {
+		this.activeRules = activeRules;
+		this.fileName = fileName;
+	}
+	
+	/**
+	 * The method returns the file name of the analysed message flow, e.g. 
+	 * to resolve its subflows (see 
+	 * {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#getSubflowFile}).
+	 * 
+	 * @return the file name or null if unknown
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+	
+	/**
+	 * The method marks the issues as depending on other files than the 
+	 * message flow file, e.g. on the subflows it references. Such issues 
+	 * are not stored in the manifest of the incremental analysis.
+	 */
+	public void dependOnOtherFiles() {
+		dependsOnOtherFiles = true;
+	}
+	
+	/**
+	 * The method returns whether the issues depend on other files than the 
+	 * message flow file.
+	 * 
+	 * @return true if the issues depend on other files
+	 */
+	public boolean dependsOnOtherFiles() {
+		return dependsOnOtherFiles;
+	}
+	
+	/**
+	 * The method returns whether a rule of the repository 'msgflow' is active.
+	 * 
+	 * @param rule the key of the rule, e.g. 'ComputeNodeInTerminal'
+	 * 
+	 * @return true if the rule is active
+	 */
+	public boolean isActive(String rule) {
+		if (activeRules.isActive(rule)) {
+			countEvaluation(rule);
+			
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * The method counts an evaluation of an active rule, e.g. by a compiled 
+	 * rule table (see {@link MessageFlowRuleTable}).
+	 * 
+	 * @param rule the key of the rule
+	 */
+	void countEvaluation(String rule) {
+		ruleCounts(rule)[0]++;
+	}
+	
+	/**
+	 * The method returns the counters of a rule.
+	 * 
+	 * @param rule the key of the rule
+	 * 
+	 * @return the number of evaluations (index 0) and issues (index 1)
+	 */
+	private int[] ruleCounts(String rule) {
+		int[] counts = ruleCounts.get(rule);
+		
+		if (counts == null) {
+			counts = new int[2];
+			ruleCounts.put(rule, counts);
+		}
+		
+		return counts;
+	}
+	
+	/**
+	 * The method adds an issue for the message flow file.
+	 * 
+	 * @param ruleKey the key of the violated rule
+	 * @param message the message of the issue
+	 */
+	public void addIssue(RuleKey ruleKey, String message) {
+		if (activeRules.isActive(ruleKey)) {
+			issues.add(new PendingIssue(ruleKey, message, null));
+			ruleCounts(ruleKey.rule())[1]++;
+		}
+	}
+	
+	/**
+	 * The method adds an issue on a line of the message flow file.
+	 * 
+	 * @param ruleKey the key of the violated rule
+	 * @param message the message of the issue
+	 * @param line the line of the issue
+	 */
+	public void addIssue(RuleKey ruleKey, String message, int line) {
+		if (activeRules.isActive(ruleKey)) {
+			issues.add(new PendingIssue(ruleKey, message, line));
+			ruleCounts(ruleKey.rule())[1]++;
+		}
+	}
+	
+	/**
+	 * The method adds a MQ queue read or written by the message flow.
+	 * 
+	 * @param endpoint the queue endpoint of a node
+	 */
+	public void addQueueEndpoint(MessageFlowQueueEndpoint endpoint) {
+		queueEndpoints.add(endpoint);
+	}
+	
+	/**
+	 * The method returns the MQ queues read and written by the message flow.
+	 * 
+	 * @return the queue endpoints in the order they were added
+	 */
+	public List<MessageFlowQueueEndpoint> getQueueEndpoints() {
+		return Collections.unmodifiableList(queueEndpoints);
+	}
+	
+	/**
+	 * The method returns the number of collected issues.
+	 * 
+	 * @return the number of collected issues
+	 */
+	public int size() {
+		return issues.size();
+	}
+	
+	/**
+	 * The method publishes the collected issues.
+	 * 
+	 * @param issuable the issuable of the message flow file
+	 */
+	public void publish(Issuable issuable) {
+		for (PendingIssue issue : issues) {
+			IssueBuilder builder = issuable.newIssueBuilder()
+										   .ruleKey(issue.ruleKey)
+										   .message(issue.message);
+			
+			if (issue.line != null) {
+				builder.line(issue.line);
+			}
+			
+			issuable.addIssue(builder.build());
+		}
+	}
+	
+	/**
+	 * The method adds the evaluations and issues per rule to the statistics 
+	 * of the analysis.
+	 * 
+	 * @param statistics the statistics of the analysis
+	 */
+	void addTo(MessageFlowStatistics statistics) {
+		for (Map.Entry<String, int[]> entry : ruleCounts.entrySet()) {
+			statistics.addRule(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+		}
+	}
+	
+	/**
+	 * The method writes the collected issues, e.g. to the manifest of the 
+	 * incremental analysis (see {@link MessageFlowManifest}).
+	 * 
+	 * @param out the stream to write to
+	 * 
+	 * @throws IOException if the issues cannot be written
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(issues.size());
+		
+		for (PendingIssue issue : issues) {
+			out.writeUTF(issue.ruleKey.toString());
+			out.writeUTF(issue.message);
+			out.writeInt(issue.line == null ? -1 : issue.line);
+		}
+		
+		out.writeInt(queueEndpoints.size());
+		
+		for (MessageFlowQueueEndpoint endpoint : queueEndpoints) {
+			out.writeBoolean(endpoint.isProducer());
+			out.writeUTF(endpoint.getQueueManager());
+			out.writeUTF(endpoint.getQueue());
+			out.writeUTF(endpoint.getNodeName());
+			out.writeUTF(endpoint.getNodeType());
+		}
+	}
+	
+	/**
+	 * The method reads the issues written by {@link #write(DataOutputStream)}.
+	 * 
+	 * @param in the stream to read from
+	 * 
+	 * @return the collector holding the issues
+	 * 
+	 * @throws IOException if the issues cannot be read
+	 */
+	static MessageFlowIssueCollector read(DataInputStream in) throws IOException {
+		MessageFlowIssueCollector collector = new MessageFlowIssueCollector();
+		
+		for (int count = in.readInt(); count > 0; count--) {
+			RuleKey ruleKey = RuleKey.parse(in.readUTF());
+			String message = in.readUTF();
+			int line = in.readInt();
+			
+			collector.issues.add(new PendingIssue(ruleKey, message, line < 0 ? null : Integer.valueOf(line)));
+		}
+		
+		for (int count = in.readInt(); count > 0; count--) {
+			collector.queueEndpoints.add(new MessageFlowQueueEndpoint(in.readBoolean(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+		}
+		
+		return collector;
+	}
+	
+	/**
+	 * The class holds an issue until it is published.
+	 */
+	private static final class PendingIssue {
+		
+		/**
+		 * the key of the violated rule
+		 */
+		private final RuleKey ruleKey;
+		
+		/**
+		 * the message of the issue
+		 */
+		private final String message;
+		
+		/**
+		 * the line of the issue or null
+		 */
+		private final Integer line;
+		
+		/**
+		 * Constructor
+		 */
+		private PendingIssue(RuleKey ruleKey, String message, Integer line) {
+			this.ruleKey = ruleKey;
+			this.message = message;
+			this.line    = line;
+		}
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class is the manifest of the incremental analysis. For each analysed 
+ * message flow file it keeps the path, the size, the time of the last 
+ * modification, the hash of the content and the issues found in the file 
+ * (including the MQ queues read and written by the file, see 
+ * {@link MessageFlowIssueCollector#getQueueEndpoints()}).
+ * 
+ * In a later analysis a file is unchanged if its size and modification time 
+ * are unchanged or, if only the modification time differs, if the hash of 
+ * its content is unchanged. The stored issues of unchanged files are 
+ * published again, so these files are neither parsed nor evaluated.
+ * 
+ * The manifest is only used if it has been written with the same 
+ * configuration (plug-in version and active rules), as the stored issues 
+ * depend on it. It may be used by several threads at the same time.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowManifest {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowManifest.class);
+	
+	/**
+	 * the magic number of the manifest ('MSGM')
+	 */
+	private static final int MAGIC = 0x4D53474D;
+	
+	/**
+	 * the version of the manifest format
+	 */
+	private static final int FORMAT_VERSION = 2;
+	
+	/**
+	 * the file holding the manifest
+	 */
+	private final File file;
+	
+	/**
+	 * the configuration the stored issues depend on
+	 */
+	private final String configuration;
+	
+	/**
+	 * the entries of the previous analysis by path
+	 */
+	private final Map<String, Entry> previousEntries = new HashMap<String, Entry>();
+	
+	/**
+	 * the entries of the current analysis by path
+	 */
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	
+	/**
+	 * the number of unchanged files whose issues have been taken from the manifest
+	 */
+	private final AtomicInteger skippedCount = new AtomicInteger();
+	
+	/**
+	 * the number of new or changed files which have been analysed
+	 */
+	private final AtomicInteger analysedCount = new AtomicInteger();
+	
+	/**
+	 * Constructor
+	 * 
+	 * The entries of the previous analysis are read from the file if it 
+	 * exists and has been written with the same configuration.
+	 * 
+	 * @param file the file holding the manifest
+	 * @param configuration the configuration the stored issues depend on
+	 */
+	public MessageFlowManifest(File file, String configuration) {
+		this.file = file;
+		this.configuration = configuration;
+		
+		if (file.isFile()) {
+			read();
+		}
+	}
+	
+	/**
+	 * The method returns the stored issues of a message flow file if the 
+	 * file is unchanged since the previous analysis.
+	 * 
+	 * @param path the path of the message flow file in the project
+	 * @param msgflowFile the message flow file
+	 * 
+	 * @return the stored issues or null if the file is new or has changed
+	 */
+	public MessageFlowIssueCollector getUnchangedIssues(String path, File msgflowFile) {
+		Entry previous = previousEntries.get(path);
+		
+		if (previous == null) {
+			return null;
+		}
+		
+		long size = msgflowFile.length();
+		long lastModified = msgflowFile.lastModified();
+		
+		if (previous.size != size) {
+			return null;
+		}
+		
+		if (previous.lastModified != lastModified) {
+			String hash = hash(msgflowFile);
+			
+			if (hash == null || !hash.equals(previous.hash)) {
+				return null;
+			}
+			
+			previous = new Entry(size, lastModified, hash, previous.issues);
+		}
+		
+		entries.put(path, previous);
+		skippedCount.incrementAndGet();
+		
+		return previous.issues;
+	}
+	
+	/**
+	 * The method stores the issues of a new or changed message flow file. 
+	 * Issues depending on other files (e.g. on the subflows of the message 
+	 * flow) are not stored, so the file is analysed again next time.
+	 * 
+	 * @param path the path of the message flow file in the project
+	 * @param msgflowFile the message flow file
+	 * @param issues the issues found in the file
+	 */
+	public void putIssues(String path, File msgflowFile, MessageFlowIssueCollector issues) {
+		analysedCount.incrementAndGet();
+		
+		if (issues.dependsOnOtherFiles()) {
+			return;
+		}
+		
+		String hash = hash(msgflowFile);
+		
+		if (hash != null) {
+			entries.put(path, new Entry(msgflowFile.length(), msgflowFile.lastModified(), hash, issues));
+		}
+	}
+	
+	/**
+	 * The method writes the entries of the current analysis. The entries of 
+	 * deleted or excluded files are dropped. The manifest is written to a 
+	 * temporary file, which is renamed afterwards.
+	 */
+	public void write() {
+		File temp = null;
+		
+		try {
+			File directory = file.getAbsoluteFile().getParentFile();
+			
+			if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+				throw new IOException("The directory " + directory + " cannot be created.");
+			}
+			
+			temp = File.createTempFile(file.getName(), ".tmp", directory);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			
+			try {
+				out.writeInt(MAGIC);
+				out.writeShort(FORMAT_VERSION);
+				out.writeUTF(configuration);
+				
+				/* the entries are written in the order of the paths */
+				Map<String, Entry> sortedEntries = new TreeMap<String, Entry>(entries);
+				out.writeInt(sortedEntries.size());
+				
+				for (Map.Entry<String, Entry> entry : sortedEntries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeLong(entry.getValue().size);
+					out.writeLong(entry.getValue().lastModified);
+					out.writeUTF(entry.getValue().hash);
+					entry.getValue().issues.write(out);
+				}
+			} finally {
+				out.close();
+			}
+			
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOG.warn("Cannot write the manifest " + file + ": " + e.getMessage());
+			
+			if (temp != null && !temp.delete()) {
+				temp.deleteOnExit();
+			}
+		}
+	}
+	
+	/**
+	 * The method returns the number of unchanged files whose issues have 
+	 * been taken from the manifest.
+	 * 
+	 * @return the number of skipped files
+	 */
+	public int getSkippedCount() {
+		return skippedCount.get();
+	}
+	
+	/**
+	 * The method returns the number of new or changed files which have been 
+	 * analysed.
+	 * 
+	 * @return the number of analysed files
+	 */
+	public int getAnalysedCount() {
+		return analysedCount.get();
+	}
+	
+	/**
+	 * The method returns the file holding the manifest.
+	 * 
+	 * @return the file holding the manifest
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MessageFlowManifest[skipped=" + getSkippedCount() + ", analysed=" + getAnalysedCount() + ", file=" + file + "]";
+	}
+	
+	/**
+	 * Reads the entries of the previous analysis. A manifest written with 
+	 * another configuration or format is ignored.
+	 */
+	private void read() {
+		DataInputStream in = null;
+		
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			
+			if (in.readInt() != MAGIC || in.readUnsignedShort() != FORMAT_VERSION || !in.readUTF().equals(configuration)) {
+				LOG.info("The manifest " + file + " has been written with another configuration, all files are analysed.");
+				return;
+			}
+			
+			for (int count = in.readInt(); count > 0; count--) {
+				String path = in.readUTF();
+				long size = in.readLong();
+				long lastModified = in.readLong();
+				String hash = in.readUTF();
+				
+				previousEntries.put(path, new Entry(size, lastModified, hash, MessageFlowIssueCollector.read(in)));
+			}
+		} catch (IOException e) {
+			LOG.warn("Ignoring the manifest " + file + ": " + e.getMessage());
+			previousEntries.clear();
+		} catch (RuntimeException e) {
+			LOG.warn("Ignoring the corrupt manifest " + file + ": " + e.getMessage());
+			previousEntries.clear();
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					LOG.debug(e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Computes the SHA-256 hash of the content of a file.
+	 * 
+	 * @return the hash or null if the file cannot be read
+	 */
+	static String hash(File msgflowFile) {
+		MessageDigest digest;
+		
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		
+		try {
+			digest.update(Files.readAllBytes(msgflowFile.toPath()));
+		} catch (IOException e) {
+			LOG.error(e.getMessage());
+			
+			return null;
+		}
+		
+		StringBuilder hash = new StringBuilder();
+		
+		for (byte b : digest.digest()) {
+			hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		
+		return hash.toString();
+	}
+	
+	/**
+	 * The class holds the state and the issues of a message flow file.
+	 */
+	private static final class Entry {
+		
+		/**
+		 * the size of the file in bytes
+		 */
+		private final long size;
+		
+		/**
+		 * the time of the last modification of the file
+		 */
+		private final long lastModified;
+		
+		/**
+		 * the hash of the content of the file
+		 */
+		private final String hash;
+		
+		/**
+		 * the issues found in the file
+		 */
+		private final MessageFlowIssueCollector issues;
+		
+		/**
+		 * Constructor
+		 */
+		private Entry(long size, long lastModified, String hash, MessageFlowIssueCollector issues) {
+			this.size			= size;
+			this.lastModified	= lastModified;
+			this.hash			= hash;
+			this.issues			= issues;
+		}
+	}
+}
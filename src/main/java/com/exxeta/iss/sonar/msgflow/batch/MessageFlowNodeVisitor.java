@@ -0,0 +1,206 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonar.api.BatchExtension;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class is the base class of the rule visitors. A rule visitor analyses 
+ * the message flow nodes of one type. The visitors are called by the 
+ * {@link MessageFlowSensor}, which reads each message flow only once.
+ * 
+ * Message flows may be analysed by several threads at the same time, so 
+ * the visitors must not keep state between calls.
+ * 
+ * A visitor declares its rules and the node properties each rule needs 
+ * (see {@link #addRule}). The sensor skips the visitors without active 
+ * rules and only extracts the properties needed by the active rules. A 
+ * visitor which does not declare any rules is always called and gets all 
+ * properties of its nodes.
+ * 
+ * The checks of single nodes are declared as a rule table (see 
+ * {@link #addRule(MessageFlowRule)}), which the sensor compiles once per 
+ * analysis and evaluates for each node. Checks which cannot be expressed 
+ * by the table are implemented in {@link #visitNode} and 
+ * {@link #visitMessageFlow}. Checks across the message flow files of the 
+ * project are implemented in {@link #visitProjectFile}.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public abstract class MessageFlowNodeVisitor implements BatchExtension {
+
+	/**
+	 * the node properties needed by the rules of the visitor by rule key
+	 */
+	private final Map<String, Set<MessageFlowNodeProperty>> rules = new LinkedHashMap<String, Set<MessageFlowNodeProperty>>();
+	
+	/**
+	 * the declared rule table in the order the rules were declared
+	 */
+	private final List<MessageFlowRule> ruleTable = new ArrayList<MessageFlowRule>();
+	
+	/**
+	 * The method declares a rule of the visitor and the node properties the 
+	 * rule needs. It is called by the constructors of the visitors.
+	 * 
+	 * @param rule the key of the rule in the repository 'msgflow'
+	 * @param properties the node properties needed by the rule
+	 */
+	protected final void addRule(String rule, MessageFlowNodeProperty... properties) {
+		EnumSet<MessageFlowNodeProperty> ruleProperties = EnumSet.noneOf(MessageFlowNodeProperty.class);
+		Collections.addAll(ruleProperties, properties);
+		
+		rules.put(rule, Collections.unmodifiableSet(ruleProperties));
+	}
+	
+	/**
+	 * The method declares a rule of the rule table of the visitor. The node 
+	 * properties the rule needs are derived from its conditions and message. 
+	 * It is called by the constructors of the visitors.
+	 * 
+	 * @param rule the rule, e.g. {@link MessageFlowRule#terminalNotConnected(String, String)}
+	 */
+	protected final void addRule(MessageFlowRule rule) {
+		rules.put(rule.getRule(), rule.getProperties());
+		ruleTable.add(rule);
+	}
+	
+	/**
+	 * The method returns the rule table of the visitor.
+	 * 
+	 * @return the rules of the table in the order they were declared
+	 */
+	public final List<MessageFlowRule> getRuleTable() {
+		return Collections.unmodifiableList(ruleTable);
+	}
+	
+	/**
+	 * The method returns the keys of the rules declared by the visitor.
+	 * 
+	 * @return the keys of the rules in the order they were declared
+	 */
+	public final Set<String> getRules() {
+		return Collections.unmodifiableSet(rules.keySet());
+	}
+	
+	/**
+	 * The method returns the node properties needed by a rule of the visitor.
+	 * 
+	 * @param rule the key of the rule
+	 * 
+	 * @return the node properties needed by the rule, empty if the rule is unknown
+	 */
+	public final Set<MessageFlowNodeProperty> getProperties(String rule) {
+		Set<MessageFlowNodeProperty> ruleProperties = rules.get(rule);
+		
+		return ruleProperties == null ? Collections.<MessageFlowNodeProperty>emptySet() : ruleProperties;
+	}
+	
+	/**
+	 * The method returns the type of the message flow nodes the visitor 
+	 * analyses, e.g. {@link MessageFlowNodeType#COMPUTE}. The default 
+	 * implementation returns null for visitors analysing the message flow 
+	 * as a whole only, which are not called for single nodes.
+	 * 
+	 * @return the type of the message flow nodes or null
+	 */
+	public MessageFlowNodeType getNodeType() {
+		return null;
+	}
+	
+	/**
+	 * The method returns the types of the message flow nodes the visitor 
+	 * needs to be extracted. Visitors analysing the message flow as a whole 
+	 * may need nodes of several types, e.g. to follow the connections. The 
+	 * properties needed by the rules are extracted for all of these types. 
+	 * The default implementation returns the type of {@link #getNodeType()}, 
+	 * if any.
+	 * 
+	 * @return the types of the message flow nodes needed by the visitor
+	 */
+	public Set<MessageFlowNodeType> getNodeTypes() {
+		return getNodeType() == null ? EnumSet.noneOf(MessageFlowNodeType.class) : EnumSet.of(getNodeType());
+	}
+	
+	/**
+	 * The method returns whether the visitor needs the nodes of types which 
+	 * are not supported (see {@link MessageFlow#getOtherNodes()}), e.g. to 
+	 * count the monitoring events of all nodes. The default implementation 
+	 * returns false.
+	 * 
+	 * @return true if the nodes of types which are not supported are extracted for the visitor
+	 */
+	public boolean needsOtherNodes() {
+		return false;
+	}
+	
+	/**
+	 * The method analyses the message flow as a whole. It is called once per 
+	 * message flow before the nodes are visited. The default implementation 
+	 * does nothing.
+	 * 
+	 * @param msgFlow the message flow to be analysed
+	 * @param issues the collector of the issues of the message flow file
+	 */
+	public void visitMessageFlow(MessageFlow msgFlow, MessageFlowIssueCollector issues) {
+		// nothing to do by default
+	}
+	
+	/**
+	 * The method analyses the connections and configuration of a message 
+	 * flow node of the type returned by {@link #getNodeType()}. It is called 
+	 * after the rule table has been evaluated for the node. The default 
+	 * implementation does nothing.
+	 * 
+	 * @param msgFlowNode the message flow node to be analysed
+	 * @param issues the collector of the issues of the message flow file
+	 */
+	public void visitNode(MessageFlowNode msgFlowNode, MessageFlowIssueCollector issues) {
+		// nothing to do by default
+	}
+	
+	/**
+	 * The method analyses a message flow file in the context of the project. 
+	 * It is called after all message flow files have been analysed, once for 
+	 * each file holding MQ queues (see 
+	 * {@link MessageFlowProject#getQueueIndex()}), so the visitor can look up 
+	 * the other files in the project-wide index. The default implementation 
+	 * does nothing.
+	 * 
+	 * @param path the path of the message flow file in the project
+	 * @param issues the collector of the issues of the message flow file
+	 */
+	public void visitProjectFile(String path, MessageFlowIssueCollector issues) {
+		// nothing to do by default
+	}
+	
+}
@@ -0,0 +1,443 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowPlugin;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowContent;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics;
+
+/**
+ * The class analyses the message flow files in a pipeline of stages 
+ * connected by bounded queues (see {@link MessageFlowStageQueue}):
+ * 
+ * 1. a prefetch thread reads the content of the files using NIO (and 
+ *    checks the manifest of the incremental analysis),
+ * 2. parser threads load the message flows from the prefetched content,
+ * 3. evaluation threads pass the message flows to the rule visitors and
+ * 4. the thread executing the sensor publishes the issues in the order of 
+ *    the files, as the {@link org.sonar.api.component.ResourcePerspectives} 
+ *    must not be used by several threads.
+ * 
+ * So reading the files, parsing and evaluating overlap. A stage waits if 
+ * the queue to the next stage is full, and the number of files in the 
+ * pipeline is bounded by the capacities of the queues and the number of 
+ * threads. The depths of the queues are configurable (see 
+ * {@link MessageFlowPlugin#PIPELINE_DEPTHS_KEY}) and their occupancy is 
+ * added to the statistics of the analysis.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+final class MessageFlowPipeline {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowPipeline.class);
+	
+	/**
+	 * the default capacity of the queues
+	 */
+	static final int DEFAULT_DEPTH = 16;
+	
+	/**
+	 * the sensor evaluating the rules and publishing the issues
+	 */
+	private final MessageFlowSensor sensor;
+	
+	/**
+	 * the manifest of the incremental analysis or null
+	 */
+	private final MessageFlowManifest manifest;
+	
+	/**
+	 * the number of parser threads
+	 */
+	private final int parserThreads;
+	
+	/**
+	 * the number of evaluation threads
+	 */
+	private final int evaluationThreads;
+	
+	/**
+	 * the queue from the prefetch stage to the parser threads
+	 */
+	private final MessageFlowStageQueue<Job> parseQueue;
+	
+	/**
+	 * the queue from the parser threads to the evaluation threads
+	 */
+	private final MessageFlowStageQueue<Job> evaluationQueue;
+	
+	/**
+	 * the queue from the evaluation threads to the publishing stage
+	 */
+	private final MessageFlowStageQueue<Job> publishQueue;
+	
+	/**
+	 * the permits for the files in the pipeline, released when the issues 
+	 * of a file are published
+	 */
+	private final Semaphore permits;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param sensor the sensor evaluating the rules and publishing the issues
+	 * @param manifest the manifest of the incremental analysis or null
+	 * @param parserThreads the number of parser threads
+	 * @param evaluationThreads the number of evaluation threads
+	 * @param depths the capacities of the queues to the parser threads, the 
+	 * evaluation threads and the publishing stage
+	 */
+	MessageFlowPipeline(MessageFlowSensor sensor, MessageFlowManifest manifest, int parserThreads, int evaluationThreads, int[] depths) {
+		this.sensor				= sensor;
+		this.manifest			= manifest;
+		this.parserThreads		= parserThreads;
+		this.evaluationThreads	= evaluationThreads;
+		this.parseQueue			= new MessageFlowStageQueue<Job>("parse", depths[0]);
+		this.evaluationQueue	= new MessageFlowStageQueue<Job>("evaluate", depths[1]);
+		this.publishQueue		= new MessageFlowStageQueue<Job>("publish", depths[2]);
+		this.permits			= new Semaphore(depths[0] + depths[1] + depths[2] + parserThreads + evaluationThreads);
+	}
+	
+	/**
+	 * The method returns the capacities of the queues for the value of the 
+	 * depths setting, either one capacity for all queues or a 
+	 * comma-separated list of the capacities of the queues to the parser 
+	 * threads, the evaluation threads and the publishing stage. The default 
+	 * is used if the setting is missing or invalid.
+	 * 
+	 * @param depths the value of the depths setting
+	 * 
+	 * @return the capacities of the three queues
+	 */
+	static int[] depths(String depths) {
+		int[] result = new int[] { DEFAULT_DEPTH, DEFAULT_DEPTH, DEFAULT_DEPTH };
+		
+		if (depths == null || depths.trim().isEmpty()) {
+			return result;
+		}
+		
+		String[] values = depths.split(",");
+		
+		try {
+			if (values.length != 1 && values.length != result.length) {
+				throw new NumberFormatException("1 or " + result.length + " values expected");
+			}
+			
+			for (int i = 0; i < result.length; i++) {
+				result[i] = Integer.parseInt(values[values.length == 1 ? 0 : i].trim());
+				
+				if (result[i] < 1) {
+					throw new NumberFormatException("positive values expected");
+				}
+			}
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + depths + "' for " + MessageFlowPlugin.PIPELINE_DEPTHS_KEY + " (" + e.getMessage() + "), using " + DEFAULT_DEPTH + ".");
+			
+			return new int[] { DEFAULT_DEPTH, DEFAULT_DEPTH, DEFAULT_DEPTH };
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * The method analyses the files and publishes their issues in the order 
+	 * of the files. Failures of the analysis are rethrown on the calling 
+	 * thread.
+	 * 
+	 * @param inputFiles the files to be analysed
+	 */
+	void analyse(final List<InputFile> inputFiles) {
+		LOG.debug("Analysing " + inputFiles.size() + " files using " + parserThreads + " parser and " + evaluationThreads + " evaluation threads");
+		
+		List<Thread> threads = new ArrayList<Thread>();
+		
+		try {
+			threads.add(start("msgflow-prefetch", new Runnable() {
+				@Override
+				public void run() {
+					prefetch(inputFiles);
+				}
+			}));
+			
+			for (int i = 1; i <= parserThreads; i++) {
+				threads.add(start("msgflow-parse-" + i, new Runnable() {
+					@Override
+					public void run() {
+						parse();
+					}
+				}));
+			}
+			
+			for (int i = 1; i <= evaluationThreads; i++) {
+				threads.add(start("msgflow-evaluate-" + i, new Runnable() {
+					@Override
+					public void run() {
+						evaluate();
+					}
+				}));
+			}
+			
+			publish(inputFiles.size());
+		} finally {
+			/* the threads wait for further files until they are interrupted */
+			for (Thread thread : threads) {
+				thread.interrupt();
+			}
+			
+			MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+			
+			parseQueue.addTo(statistics);
+			evaluationQueue.addTo(statistics);
+			publishQueue.addTo(statistics);
+		}
+	}
+	
+	/**
+	 * The method starts a daemon thread of the pipeline.
+	 * 
+	 * @param name the name of the thread
+	 * @param stage the stage executed by the thread
+	 * 
+	 * @return the thread
+	 */
+	private static Thread start(String name, Runnable stage) {
+		Thread thread = new Thread(stage, name);
+		thread.setDaemon(true);
+		thread.start();
+		
+		return thread;
+	}
+	
+	/**
+	 * The prefetch stage reads the content of the files in the order of the 
+	 * files. In the incremental mode, the stored issues are taken instead if 
+	 * a file is unchanged.
+	 * 
+	 * @param inputFiles the files to be analysed
+	 */
+	private void prefetch(List<InputFile> inputFiles) {
+		try {
+			for (int i = 0; i < inputFiles.size(); i++) {
+				permits.acquire();
+				
+				Job job = new Job(i, inputFiles.get(i));
+				long start = System.nanoTime();
+				
+				try {
+					if (manifest != null) {
+						job.issues = manifest.getUnchangedIssues(job.inputFile.relativePath(), job.inputFile.file());
+					}
+					
+					if (job.issues == null) {
+						job.content = MessageFlowContent.read(job.inputFile.file());
+					}
+				} catch (IOException e) {
+					/* the parser reports files which cannot be read */
+					LOG.debug(e.getMessage());
+				} catch (RuntimeException e) {
+					job.failure = e;
+				} catch (Error e) {
+					/* the job is queued anyway, otherwise the publishing stage waits for it forever */
+					job.failure = e;
+				}
+				
+				job.nanos += System.nanoTime() - start;
+				parseQueue.put(job);
+			}
+		} catch (InterruptedException e) {
+			LOG.debug("Prefetching interrupted");
+		}
+	}
+	
+	/**
+	 * The parse stage loads the message flows of the files from the 
+	 * prefetched content.
+	 */
+	private void parse() {
+		try {
+			while (true) {
+				Job job = parseQueue.take();
+				
+				if (job.issues == null && job.failure == null) {
+					String fileName = job.inputFile.absolutePath();
+					long start = System.nanoTime();
+					
+					MessageFlowContent.prefetch(fileName, job.content);
+					
+					try {
+						job.msgFlow = MessageFlowProject.getInstance().getMessageFlow(fileName);
+					} catch (RuntimeException e) {
+						job.failure = e;
+					} catch (Error e) {
+						job.failure = e;
+					} finally {
+						MessageFlowContent.clear();
+						
+						job.content = null;
+						job.nanos += System.nanoTime() - start;
+					}
+				}
+				
+				evaluationQueue.put(job);
+			}
+		} catch (InterruptedException e) {
+			/* the analysis has ended */
+		}
+	}
+	
+	/**
+	 * The evaluation stage passes the message flows to the rule visitors.
+	 */
+	private void evaluate() {
+		try {
+			while (true) {
+				Job job = evaluationQueue.take();
+				
+				if (job.msgFlow != null) {
+					long start = System.nanoTime();
+					
+					try {
+						job.issues = sensor.analyseMessageFlow(job.inputFile.absolutePath(), job.msgFlow);
+						
+						if (manifest != null) {
+							manifest.putIssues(job.inputFile.relativePath(), job.inputFile.file(), job.issues);
+						}
+					} catch (RuntimeException e) {
+						job.failure = e;
+					} catch (Error e) {
+						job.failure = e;
+					} finally {
+						job.msgFlow = null;
+						job.nanos += System.nanoTime() - start;
+					}
+				}
+				
+				MessageFlowProject.getInstance().getStatistics().addFile(job.inputFile.relativePath(), job.nanos);
+				publishQueue.put(job);
+			}
+		} catch (InterruptedException e) {
+			/* the analysis has ended */
+		}
+	}
+	
+	/**
+	 * The publishing stage publishes the issues of the files in the order of 
+	 * the files. Files completed early are kept until the files before them 
+	 * have been published.
+	 * 
+	 * @param files the number of files to be published
+	 */
+	private void publish(int files) {
+		Map<Integer, Job> completed = new HashMap<Integer, Job>();
+		
+		try {
+			for (int next = 0; next < files; next++) {
+				Job job = completed.remove(next);
+				
+				while (job == null) {
+					Job done = publishQueue.take();
+					
+					if (done.index == next) {
+						job = done;
+					} else {
+						completed.put(done.index, done);
+					}
+				}
+				
+				if (job.failure instanceof RuntimeException) {
+					throw (RuntimeException)job.failure;
+				} else if (job.failure instanceof Error) {
+					throw (Error)job.failure;
+				}
+				
+				sensor.publish(job.inputFile, job.issues);
+				permits.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			
+			throw new IllegalStateException("Interrupted while analysing the message flow files", e);
+		}
+	}
+	
+	/**
+	 * The class holds the state of a file passing the pipeline. The state 
+	 * is handed from stage to stage by the queues.
+	 */
+	private static final class Job {
+		
+		/**
+		 * the index of the file in the order of publication
+		 */
+		private final int index;
+		
+		/**
+		 * the message flow file
+		 */
+		private final InputFile inputFile;
+		
+		/**
+		 * the prefetched content of the file or null
+		 */
+		private byte[] content;
+		
+		/**
+		 * the message flow of the file until it has been evaluated
+		 */
+		private MessageFlow msgFlow;
+		
+		/**
+		 * the issues found in the file
+		 */
+		private MessageFlowIssueCollector issues;
+		
+		/**
+		 * the failure of a stage or null
+		 */
+		private Throwable failure;
+		
+		/**
+		 * the time spent on the file by the stages in nanoseconds
+		 */
+		private long nanos;
+		
+		/**
+		 * Constructor
+		 */
+		private Job(int index, InputFile inputFile) {
+			this.index = index;
+			this.inputFile = inputFile;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.Initializer;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowPlugin;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowCache;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowParser;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser;
+
+/**
+ * The class configures the message flow project according to the settings
+ * of the plug-in before the sensors are executed.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowProjectInitializer extends Initializer {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowProjectInitializer.class);
+	
+	/**
+	 * the name of the persistent cache directory in the working directory
+	 */
+	private static final String CACHE_DIR_NAME = "msgflow-cache";
+
+	/**
+	 * Variable to hold file system information, e.g. the file names of the project files.
+	 */
+	private final FileSystem fs;
+
+	/**
+	 * Variable to hold the configuration settings.
+	 */
+	private final Settings settings;
+
+	/**
+	  * Use of IoC to get FileSystem and Settings
+	  */
+	public MessageFlowProjectInitializer(FileSystem fs, Settings settings) {
+		this.fs = fs;
+		this.settings = settings;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
+	 */
+	/**
+	 * The method defines the language of the file to be analysed.
+	 */
+	@Override
+	public boolean shouldExecuteOnProject(Project project) {
+		// This initializer is executed only when there are msgflow files
+		return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.sonar.api.batch.Initializer#execute(org.sonar.api.resources.Project)
+	 */
+	/**
+	 * The method releases the message flows of an earlier analysis and 
+	 * configures the message flow project.
+	 */
+	@Override
+	public void execute(Project project) {
+		MessageFlowProject.getInstance().clear();
+		MessageFlowProject.getInstance().setBaseDir(fs.baseDir());
+		MessageFlowProject.getInstance().setMessageFlowParser(createParser(settings.getString(MessageFlowPlugin.PARSER_KEY)));
+		MessageFlowProject.getInstance().getMessageFlowCache().setMaximumSize(cacheSize(settings.getInt(MessageFlowPlugin.CACHE_SIZE_KEY)));
+		MessageFlowProject.getInstance().setDiskCache(createDiskCache());
+		MessageFlowProject.getInstance().setMaximumSubflowDepth(subflowDepth(settings.getInt(MessageFlowPlugin.SUBFLOW_DEPTH_KEY)));
+		MessageFlowProject.getInstance().setMaximumRequestTimeout(requestTimeout(settings.getInt(MessageFlowPlugin.REQUEST_TIMEOUT_KEY)));
+		MessageFlowProject.getInstance().setMaximumMonitoringEvents(eventBudget(settings.getString(MessageFlowPlugin.MONITORING_EVENTS_KEY), MessageFlowProject.DEFAULT_MAXIMUM_MONITORING_EVENTS));
+		MessageFlowProject.getInstance().setMaximumPayloadEvents(eventBudget(settings.getString(MessageFlowPlugin.PAYLOAD_EVENTS_KEY), MessageFlowProject.DEFAULT_MAXIMUM_PAYLOAD_EVENTS));
+	}
+	
+	/**
+	 * The method creates the persistent cache of the message flows if it is 
+	 * enabled.
+	 * 
+	 * @return the persistent cache or null if it is disabled
+	 */
+	MessageFlowDiskCache createDiskCache() {
+		if (!settings.getBoolean(MessageFlowPlugin.CACHE_PERSISTENT_KEY)) {
+			return null;
+		}
+		
+		String directory = settings.getString(MessageFlowPlugin.CACHE_DIR_KEY);
+		MessageFlowDiskCache diskCache = new MessageFlowDiskCache(directory == null || directory.isEmpty() ? new File(fs.workDir(), CACHE_DIR_NAME) : new File(directory), pluginVersion());
+		
+		LOG.debug("using the persistent cache " + diskCache.getDirectory());
+		
+		return diskCache;
+	}
+	
+	/**
+	 * The method returns the version of the plug-in.
+	 * 
+	 * @return the version of the plug-in or 'unknown'
+	 */
+	static String pluginVersion() {
+		Properties properties = new Properties();
+		InputStream in = MessageFlowPlugin.class.getResourceAsStream("plugin.properties");
+		
+		if (in != null) {
+			try {
+				properties.load(in);
+			} catch (IOException e) {
+				LOG.error(e.getMessage());
+			} finally {
+				try {
+					in.close();
+				} catch (IOException e) {
+					LOG.error(e.getMessage());
+				}
+			}
+		}
+		
+		return properties.getProperty("version", "unknown");
+	}
+
+	/**
+	 * The method creates the parser for the given parser setting ('dom' or
+	 * 'stax'). The DOM based parser is used if the setting is missing or unknown.
+	 *
+	 * @param parser the value of the parser setting
+	 *
+	 * @return the parser for the message flow files
+	 */
+	static MessageFlowParser createParser(String parser) {
+		if ("stax".equalsIgnoreCase(parser)) {
+			LOG.debug("using the StAX parser");
+
+			return new MessageFlowStaxParser();
+		}
+
+		if (parser != null && !parser.isEmpty() && !MessageFlowPlugin.PARSER_DEFAULTVALUE.equalsIgnoreCase(parser)) {
+			LOG.warn("Unknown value '" + parser + "' for " + MessageFlowPlugin.PARSER_KEY + ", using the DOM parser.");
+		}
+
+		return new MessageFlowParser();
+	}
+
+	/**
+	 * The method returns the maximum number of cached message flows. The
+	 * default is used if the setting is missing or not positive.
+	 *
+	 * @param cacheSize the value of the cache size setting
+	 *
+	 * @return the maximum number of cached message flows
+	 */
+	static int cacheSize(int cacheSize) {
+		if (cacheSize < 1) {
+			return MessageFlowCache.DEFAULT_MAXIMUM_SIZE;
+		}
+
+		return cacheSize;
+	}
+
+	/**
+	 * The method returns the maximum nesting depth of the subflows. The
+	 * default is used if the setting is missing or not positive.
+	 *
+	 * @param subflowDepth the value of the subflow depth setting
+	 *
+	 * @return the maximum nesting depth of the subflows
+	 */
+	static int subflowDepth(int subflowDepth) {
+		if (subflowDepth < 1) {
+			return MessageFlowProject.DEFAULT_MAXIMUM_SUBFLOW_DEPTH;
+		}
+
+		return subflowDepth;
+	}
+
+	/**
+	 * The method returns the maximum request timeout of HTTP Request and
+	 * SOAP Request nodes. The default is used if the setting is missing or
+	 * not positive.
+	 *
+	 * @param requestTimeout the value of the request timeout setting
+	 *
+	 * @return the maximum request timeout in seconds
+	 */
+	static int requestTimeout(int requestTimeout) {
+		if (requestTimeout < 1) {
+			return MessageFlowProject.DEFAULT_MAXIMUM_REQUEST_TIMEOUT;
+		}
+
+		return requestTimeout;
+	}
+
+	/**
+	 * The method returns a maximum number of monitoring events. Unlike the
+	 * other limits, 0 is a valid value (no events allowed). The default is
+	 * used if the setting is missing, not a number or negative.
+	 *
+	 * @param eventBudget the value of the event budget setting
+	 * @param defaultValue the default maximum number of events
+	 *
+	 * @return the maximum number of monitoring events
+	 */
+	static int eventBudget(String eventBudget, int defaultValue) {
+		if (eventBudget == null || eventBudget.trim().isEmpty()) {
+			return defaultValue;
+		}
+
+		try {
+			int value = Integer.parseInt(eventBudget.trim());
+
+			return value < 0 ? defaultValue : value;
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + eventBudget + "' for a monitoring event budget, using " + defaultValue + ".");
+
+			return defaultValue;
+		}
+	}
+}
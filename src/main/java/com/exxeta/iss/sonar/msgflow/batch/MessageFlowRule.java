@@ -0,0 +1,477 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowTerminals;
+
+/**
+ * The class is an entry of the declarative rule table of a rule visitor: 
+ * the rule key, the conditions under which an issue is raised and the 
+ * message template of the issue (see 
+ * {@link MessageFlowNodeVisitor#addRule(MessageFlowRule)}).
+ * 
+ * The conditions are compiled when the rule is declared: the terminals are 
+ * resolved to their indices (see {@link MessageFlowTerminals}) and the 
+ * template is split into literals and placeholders. Checking a node does 
+ * not allocate anything, the message is only built if an issue is raised.
+ * 
+ * The template may contain the placeholders <code>{name}</code> and 
+ * <code>{type}</code> for the name and type of the node and 
+ * <code>{PROPERTY}</code> for the value of a node property, e.g. 
+ * <code>{REQUEST_MSG_LOCATION_IN_TREE}</code>.
+ * 
+ * A rule is immutable, the methods adding a condition or a line return a 
+ * new rule.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowRule {
+
+	/** the kinds of the conditions */
+	private static final int INPUT_TERMINAL_MISSING		= 0;
+	private static final int OUTPUT_TERMINAL_MISSING	= 1;
+	private static final int PROPERTY_NOT_SET			= 2;
+	private static final int PROPERTY_SET				= 3;
+	private static final int VALUE_IN					= 4;
+	private static final int VALUE_NOT_IN				= 5;
+	
+	/** the placeholders of the name and the type, properties refer to their ordinal */
+	private static final int NAME	= -1;
+	private static final int TYPE	= -2;
+	
+	/**
+	 * the template of the message of the monitoring events rules
+	 */
+	private static final String MONITORING_EVENTS_MESSAGE = "There are no monitoring events defined or the "
+			+ "existing events are disabled for '{name}' (type: {type}) (see Properties).";
+	
+	/**
+	 * the node properties by ordinal
+	 */
+	private static final MessageFlowNodeProperty[] PROPERTIES = MessageFlowNodeProperty.values();
+	
+	/**
+	 * the key of the rule in the repository 'msgflow'
+	 */
+	private final String rule;
+	
+	/**
+	 * the key of the rule
+	 */
+	private final RuleKey ruleKey;
+	
+	/**
+	 * the conditions, all of them must hold to raise an issue
+	 */
+	private final Condition[] conditions;
+	
+	/**
+	 * the literals of the message template, one more than placeholders
+	 */
+	private final String[] literals;
+	
+	/**
+	 * the placeholders of the message template
+	 */
+	private final int[] placeholders;
+	
+	/**
+	 * the line of the issues or 0 if the issues are not bound to a line
+	 */
+	private final int line;
+	
+	/**
+	 * the node properties needed by the rule
+	 */
+	private final Set<MessageFlowNodeProperty> properties;
+	
+	/**
+	 * Constructor
+	 */
+	private MessageFlowRule(String rule, Condition[] conditions, String[] literals, int[] placeholders, int line) {
+		this.rule			= rule;
+		this.ruleKey		= RuleKey.of("msgflow", rule);
+		this.conditions		= conditions;
+		this.literals		= literals;
+		this.placeholders	= placeholders;
+		this.line			= line;
+		
+		EnumSet<MessageFlowNodeProperty> ruleProperties = EnumSet.noneOf(MessageFlowNodeProperty.class);
+		
+		for (Condition condition : conditions) {
+			if (condition.property != null) {
+				ruleProperties.add(condition.property);
+			}
+		}
+		
+		for (int placeholder : placeholders) {
+			if (placeholder >= 0) {
+				ruleProperties.add(PROPERTIES[placeholder]);
+			}
+		}
+		
+		this.properties = Collections.unmodifiableSet(ruleProperties);
+	}
+	
+	/**
+	 * The method creates a rule raising an issue for each node.
+	 * 
+	 * @param rule the key of the rule, e.g. 'HttpRequestNodeHTTPHeader'
+	 * @param message the template of the message
+	 * 
+	 * @return the rule
+	 */
+	public static MessageFlowRule always(String rule, String message) {
+		return create(rule, new Condition[0], message);
+	}
+	
+	/**
+	 * The method creates a rule raising an issue if a terminal of the node 
+	 * is not connected. The terminal is an input terminal if its name starts 
+	 * with 'InTerminal.', an output terminal otherwise.
+	 * 
+	 * @param rule the key of the rule, e.g. 'ComputeNodeInTerminal'
+	 * @param terminal the name of the terminal, e.g. 'InTerminal.in'
+	 * 
+	 * @return the rule
+	 */
+	public static MessageFlowRule terminalNotConnected(String rule, String terminal) {
+		boolean input = terminal.startsWith("InTerminal.");
+		
+		return create(rule, new Condition[] {new Condition(input ? INPUT_TERMINAL_MISSING : OUTPUT_TERMINAL_MISSING, MessageFlowTerminals.indexOf(terminal), null, null)}, 
+				"The " + terminal.substring(terminal.indexOf('.') + 1) + " terminal (" + (input ? "input" : "output") + ") for '{name}' (type: {type}) is not connected.");
+	}
+	
+	/**
+	 * The method creates a rule raising an issue if a property of the node 
+	 * is not set, i.e. a flag is false or a value is empty.
+	 * 
+	 * @param rule the key of the rule, e.g. 'MQInputNodeValidation'
+	 * @param property the property of the node
+	 * @param message the template of the message
+	 * 
+	 * @return the rule
+	 */
+	public static MessageFlowRule propertyNotSet(String rule, MessageFlowNodeProperty property, String message) {
+		return create(rule, new Condition[] {new Condition(PROPERTY_NOT_SET, 0, property, null)}, message);
+	}
+	
+	/**
+	 * The method creates a rule raising an issue if the monitoring events of 
+	 * the node are missing or disabled.
+	 * 
+	 * @param rule the key of the rule, e.g. 'ComputeNodeMonitoringEvents'
+	 * 
+	 * @return the rule
+	 */
+	public static MessageFlowRule monitoringEventsDisabled(String rule) {
+		return propertyNotSet(rule, MessageFlowNodeProperty.MONITORING_EVENTS, MONITORING_EVENTS_MESSAGE);
+	}
+	
+	/**
+	 * The method returns a copy of the rule which only raises an issue if a 
+	 * property of the node is set.
+	 * 
+	 * @param property the property of the node
+	 * 
+	 * @return the new rule
+	 */
+	public MessageFlowRule whenSet(MessageFlowNodeProperty property) {
+		return withCondition(new Condition(PROPERTY_SET, 0, property, null));
+	}
+	
+	/**
+	 * The method returns a copy of the rule which only raises an issue if the 
+	 * value of a property of the node is one of the given values.
+	 * 
+	 * @param property the property of the node
+	 * @param values the values, e.g. 'MRM', 'XMLNSC' and 'DataObject'
+	 * 
+	 * @return the new rule
+	 */
+	public MessageFlowRule whenValueIn(MessageFlowNodeProperty property, String... values) {
+		return withCondition(new Condition(VALUE_IN, 0, property, values.clone()));
+	}
+	
+	/**
+	 * The method returns a copy of the rule which only raises an issue if the 
+	 * value of a property of the node is none of the given values.
+	 * 
+	 * @param property the property of the node
+	 * @param values the values, e.g. '' and 'wholeFile'
+	 * 
+	 * @return the new rule
+	 */
+	public MessageFlowRule whenValueNotIn(MessageFlowNodeProperty property, String... values) {
+		return withCondition(new Condition(VALUE_NOT_IN, 0, property, values.clone()));
+	}
+	
+	/**
+	 * The method returns a copy of the rule raising its issues on a line.
+	 * 
+	 * @param issueLine the line of the issues
+	 * 
+	 * @return the new rule
+	 */
+	public MessageFlowRule onLine(int issueLine) {
+		return new MessageFlowRule(rule, conditions, literals, placeholders, issueLine);
+	}
+	
+	/**
+	 * The method returns a copy of the rule with an additional condition.
+	 * 
+	 * @param condition the condition
+	 * 
+	 * @return the new rule
+	 */
+	private MessageFlowRule withCondition(Condition condition) {
+		Condition[] extended = Arrays.copyOf(conditions, conditions.length + 1);
+		extended[conditions.length] = condition;
+		
+		return new MessageFlowRule(rule, extended, literals, placeholders, line);
+	}
+	
+	/**
+	 * The method creates a rule and compiles its message template.
+	 * 
+	 * @param rule the key of the rule
+	 * @param conditions the conditions of the rule
+	 * @param message the template of the message
+	 * 
+	 * @return the rule
+	 */
+	private static MessageFlowRule create(String rule, Condition[] conditions, String message) {
+		List<String> literals = new ArrayList<String>();
+		List<Integer> placeholders = new ArrayList<Integer>();
+		int start = 0;
+		
+		for (int open = message.indexOf('{'); open >= 0; open = message.indexOf('{', start)) {
+			int close = message.indexOf('}', open);
+			
+			if (close < 0) {
+				break;
+			}
+			
+			String placeholder = message.substring(open + 1, close);
+			
+			literals.add(message.substring(start, open));
+			
+			if ("name".equals(placeholder)) {
+				placeholders.add(NAME);
+			} else if ("type".equals(placeholder)) {
+				placeholders.add(TYPE);
+			} else {
+				placeholders.add(MessageFlowNodeProperty.valueOf(placeholder).ordinal());
+			}
+			
+			start = close + 1;
+		}
+		
+		literals.add(message.substring(start));
+		
+		int[] placeholderArray = new int[placeholders.size()];
+		
+		for (int i = 0; i < placeholderArray.length; i++) {
+			placeholderArray[i] = placeholders.get(i);
+		}
+		
+		return new MessageFlowRule(rule, conditions, literals.toArray(new String[literals.size()]), placeholderArray, 0);
+	}
+	
+	/**
+	 * The method returns the key of the rule in the repository 'msgflow'.
+	 * 
+	 * @return the key of the rule, e.g. 'ComputeNodeInTerminal'
+	 */
+	public String getRule() {
+		return rule;
+	}
+	
+	/**
+	 * The method returns the key of the rule.
+	 * 
+	 * @return the key of the rule
+	 */
+	public RuleKey getRuleKey() {
+		return ruleKey;
+	}
+	
+	/**
+	 * The method returns the line of the issues.
+	 * 
+	 * @return the line of the issues or 0 if the issues are not bound to a line
+	 */
+	public int getLine() {
+		return line;
+	}
+	
+	/**
+	 * The method returns the node properties needed by the conditions and 
+	 * the message of the rule.
+	 * 
+	 * @return the node properties needed by the rule
+	 */
+	public Set<MessageFlowNodeProperty> getProperties() {
+		return properties;
+	}
+	
+	/**
+	 * The method checks if the rule raises an issue for a node.
+	 * 
+	 * @param msgFlowNode the message flow node
+	 * 
+	 * @return true if all conditions hold
+	 */
+	public boolean isViolatedBy(MessageFlowNode msgFlowNode) {
+		for (Condition condition : conditions) {
+			if (!condition.holds(msgFlowNode)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * The method creates the message of an issue for a node.
+	 * 
+	 * @param msgFlowNode the message flow node
+	 * 
+	 * @return the message
+	 */
+	public String getMessage(MessageFlowNode msgFlowNode) {
+		StringBuilder message = new StringBuilder(128);
+		message.append(literals[0]);
+		
+		for (int i = 0; i < placeholders.length; i++) {
+			switch (placeholders[i]) {
+				case NAME:
+					message.append(msgFlowNode.getName());
+					break;
+				case TYPE:
+					message.append(msgFlowNode.getType());
+					break;
+				default:
+					message.append(msgFlowNode.getValue(PROPERTIES[placeholders[i]]));
+			}
+			
+			message.append(literals[i + 1]);
+		}
+		
+		return message.toString();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return rule;
+	}
+	
+	/**
+	 * The class is a compiled condition of a rule.
+	 */
+	private static final class Condition {
+		
+		/**
+		 * the kind of the condition
+		 */
+		private final int kind;
+		
+		/**
+		 * the index of the terminal
+		 */
+		private final int terminal;
+		
+		/**
+		 * the node property or null
+		 */
+		private final MessageFlowNodeProperty property;
+		
+		/**
+		 * the values of the property or null
+		 */
+		private final String[] values;
+		
+		/**
+		 * Constructor
+		 */
+		private Condition(int kind, int terminal, MessageFlowNodeProperty property, String[] values) {
+			this.kind		= kind;
+			this.terminal	= terminal;
+			this.property	= property;
+			this.values		= values;
+		}
+		
+		/**
+		 * The method checks if the condition holds for a node.
+		 * 
+		 * @param msgFlowNode the message flow node
+		 * 
+		 * @return true if the condition holds
+		 */
+		private boolean holds(MessageFlowNode msgFlowNode) {
+			switch (kind) {
+				case INPUT_TERMINAL_MISSING:
+					return !msgFlowNode.hasInputTerminal(terminal);
+				case OUTPUT_TERMINAL_MISSING:
+					return !msgFlowNode.hasOutputTerminal(terminal);
+				case PROPERTY_NOT_SET:
+					return !msgFlowNode.isSet(property);
+				case PROPERTY_SET:
+					return msgFlowNode.isSet(property);
+				case VALUE_NOT_IN:
+					return !valueIn(msgFlowNode);
+				default:
+					return valueIn(msgFlowNode);
+			}
+		}
+		
+		/**
+		 * The method checks if the value of the property of a node is one 
+		 * of the values of the condition.
+		 * 
+		 * @param msgFlowNode the message flow node
+		 * 
+		 * @return true if the value is one of the values
+		 */
+		private boolean valueIn(MessageFlowNode msgFlowNode) {
+			String value = msgFlowNode.getValue(property);
+			
+			for (String candidate : values) {
+				if (candidate.equals(value)) {
+					return true;
+				}
+			}
+			
+			return false;
+		}
+	}
+}
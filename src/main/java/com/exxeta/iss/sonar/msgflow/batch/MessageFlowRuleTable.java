@@ -0,0 +1,86 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+
+/**
+ * The class is the compiled rule table of a rule visitor: the declared 
+ * rules (see {@link MessageFlowRule}) which are active in the analysis, in 
+ * the order they were declared. The table is compiled once per analysis 
+ * and is evaluated for each node of the type of the visitor.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+final class MessageFlowRuleTable {
+
+	/**
+	 * the active rules
+	 */
+	private final MessageFlowRule[] rules;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param declaredRules the rules declared by the visitor
+	 * @param activeRules the active rules of the analysis
+	 */
+	MessageFlowRuleTable(List<MessageFlowRule> declaredRules, MessageFlowActiveRules activeRules) {
+		List<MessageFlowRule> compiledRules = new ArrayList<MessageFlowRule>();
+		
+		for (MessageFlowRule rule : declaredRules) {
+			if (activeRules.isActive(rule.getRule())) {
+				compiledRules.add(rule);
+			}
+		}
+		
+		this.rules = compiledRules.toArray(new MessageFlowRule[compiledRules.size()]);
+	}
+	
+	/**
+	 * The method returns the number of active rules.
+	 * 
+	 * @return the number of active rules
+	 */
+	int size() {
+		return rules.length;
+	}
+	
+	/**
+	 * The method evaluates the active rules for a node and adds the issues.
+	 * 
+	 * @param msgFlowNode the message flow node
+	 * @param issues the collector of the issues of the message flow file
+	 */
+	void evaluate(MessageFlowNode msgFlowNode, MessageFlowIssueCollector issues) {
+		for (MessageFlowRule rule : rules) {
+			issues.countEvaluation(rule.getRule());
+			
+			if (rule.isViolatedBy(msgFlowNode)) {
+				if (rule.getLine() > 0) {
+					issues.addIssue(rule.getRuleKey(), rule.getMessage(msgFlowNode), rule.getLine());
+				} else {
+					issues.addIssue(rule.getRuleKey(), rule.getMessage(msgFlowNode));
+				}
+			}
+		}
+	}
+}
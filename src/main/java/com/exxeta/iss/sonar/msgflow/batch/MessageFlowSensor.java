@@ -0,0 +1,548 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.resources.Project;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowMetrics;
+import com.exxeta.iss.sonar.msgflow.MessageFlowPlugin;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowExtractionPlan;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueIndex;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics;
+
+/**
+ * The class (sensor) analyses the message flow files. Each file is read 
+ * once and every node of the message flow is passed to the rule visitors 
+ * registered for the type of the node.
+ * 
+ * The files can be analysed in parallel by a bounded number of threads 
+ * (see {@link MessageFlowPlugin#THREADS_KEY}) in a pipeline reading, 
+ * parsing and evaluating the files in overlapping stages (see 
+ * {@link MessageFlowPipeline}). The issues are published by the thread 
+ * executing the sensor in the order of the files, so the result does not 
+ * depend on the number of threads.
+ * 
+ * The active rules of the repository 'msgflow' are looked up once per 
+ * analysis. Visitors without active rules are not called, and only the 
+ * nodes and properties needed by the active rules are extracted from the 
+ * message flow files (see {@link MessageFlowExtractionPlan}).
+ * 
+ * In the incremental mode (see {@link MessageFlowPlugin#INCREMENTAL_KEY}) 
+ * only new and changed files are analysed, the issues of unchanged files 
+ * are taken from the manifest of the previous analysis (see 
+ * {@link MessageFlowManifest}).
+ * 
+ * The MQ queues of the files are added to the project-wide queue index 
+ * when the file has been analysed (see 
+ * {@link MessageFlowProject#getQueueIndex()}). After all files have been 
+ * analysed, the visitors analyse the files holding queues in the context 
+ * of the project (see {@link MessageFlowNodeVisitor#visitProjectFile}). 
+ * The issues of these files are published together with the issues found 
+ * across the files, so each file is still looked up once.
+ * 
+ * The time spent per file and per visitor and the evaluations and issues 
+ * per rule are recorded in the statistics of the project (see 
+ * {@link MessageFlowStatistics}). A summary is logged at the end of the 
+ * analysis and the measures of {@link MessageFlowMetrics} are saved.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowSensor implements Sensor {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowSensor.class);
+	
+	/**
+	 * the name of the manifest of the incremental analysis in the working directory
+	 */
+	private static final String MANIFEST_NAME = "msgflow-manifest.bin";
+	
+	/**
+	 * Variable to hold file system information, e.g. the file names of the project files.
+	 */
+	private final FileSystem fs;
+	
+	/**
+	 * Variable to hold the configuration settings.
+	 */
+	private final Settings settings;
+	
+	/**
+	 * 
+	 */
+	private final ResourcePerspectives perspectives;
+	
+	/**
+	 * the active rules of the repository 'msgflow'
+	 */
+	private final MessageFlowActiveRules activeRules;
+	
+	/**
+	 * the rule visitors with active rules in the order they are registered
+	 */
+	private final List<MessageFlowNodeVisitor> visitors;
+	
+	/**
+	 * the compiled rule tables of the rule visitors with active rules
+	 */
+	private final List<MessageFlowRuleTable> ruleTables;
+	
+	/**
+	 * the indices of the rule visitors with active rules by node type
+	 */
+	private final EnumMap<MessageFlowNodeType, int[]> visitorsByType;
+	
+	/**
+	 * the nodes and properties needed by the active rules
+	 */
+	private final MessageFlowExtractionPlan extractionPlan;
+	
+	/**
+	 * the issues of the files holding MQ queues, published after the 
+	 * analysis of the project in the order of the files
+	 */
+	private final Map<InputFile, MessageFlowIssueCollector> queueFileIssues = new LinkedHashMap<InputFile, MessageFlowIssueCollector>();
+	
+	/**
+	  * Use of IoC to get FileSystem, Settings, ResourcePerspectives and the rule visitors
+	  * 
+	  * All rules are considered active.
+	  */
+	public MessageFlowSensor(FileSystem fs, Settings settings, ResourcePerspectives perspectives, MessageFlowNodeVisitor[] visitors) {
+		this(fs, settings, perspectives, null, visitors);
+	}
+	
+	/**
+	  * Use of IoC to get FileSystem, Settings, ResourcePerspectives, the active rules and the rule visitors
+	  */
+	public MessageFlowSensor(FileSystem fs, Settings settings, ResourcePerspectives perspectives, ActiveRules activeRules, MessageFlowNodeVisitor[] visitors) {
+		this.fs = fs;
+		this.settings = settings;
+		this.perspectives = perspectives;
+		this.activeRules = MessageFlowActiveRules.of(activeRules);
+		this.visitors = new ArrayList<MessageFlowNodeVisitor>();
+		this.ruleTables = new ArrayList<MessageFlowRuleTable>();
+		this.visitorsByType = new EnumMap<MessageFlowNodeType, int[]>(MessageFlowNodeType.class);
+		
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		boolean otherNodes = false;
+		
+		for (MessageFlowNodeVisitor visitor : visitors) {
+			EnumSet<MessageFlowNodeProperty> visitorProperties = requiredProperties(visitor, this.activeRules);
+			
+			if (visitorProperties == null) {
+				LOG.debug("Skipping " + visitor.getClass().getSimpleName() + " without active rules");
+				continue;
+			}
+			
+			/* visitors analysing the message flow as a whole only have no node type */
+			EnumSet<MessageFlowNodeType> types = EnumSet.noneOf(MessageFlowNodeType.class);
+			types.addAll(visitor.getNodeTypes());
+			
+			if (visitor.getNodeType() != null) {
+				int[] typeVisitors = visitorsByType.get(visitor.getNodeType());
+				
+				if (typeVisitors == null) {
+					typeVisitors = new int[0];
+				}
+				
+				typeVisitors = Arrays.copyOf(typeVisitors, typeVisitors.length + 1);
+				typeVisitors[typeVisitors.length - 1] = this.visitors.size();
+				visitorsByType.put(visitor.getNodeType(), typeVisitors);
+				types.add(visitor.getNodeType());
+			}
+			
+			for (MessageFlowNodeType type : types) {
+				if (!properties.containsKey(type)) {
+					properties.put(type, EnumSet.noneOf(MessageFlowNodeProperty.class));
+				}
+				
+				properties.get(type).addAll(visitorProperties);
+			}
+			
+			this.visitors.add(visitor);
+			this.ruleTables.add(new MessageFlowRuleTable(visitor.getRuleTable(), this.activeRules));
+			otherNodes |= visitor.needsOtherNodes();
+		}
+		
+		this.extractionPlan = new MessageFlowExtractionPlan(properties, otherNodes);
+	}
+	
+	/**
+	 * The method returns the node properties needed by the active rules of 
+	 * a visitor. A visitor which does not declare any rules needs all 
+	 * properties.
+	 * 
+	 * @param visitor the rule visitor
+	 * @param activeRules the active rules of the analysis
+	 * 
+	 * @return the node properties needed by the visitor or null if the 
+	 * visitor does not have any active rules
+	 */
+	static EnumSet<MessageFlowNodeProperty> requiredProperties(MessageFlowNodeVisitor visitor, MessageFlowActiveRules activeRules) {
+		if (visitor.getRules().isEmpty()) {
+			return EnumSet.allOf(MessageFlowNodeProperty.class);
+		}
+		
+		EnumSet<MessageFlowNodeProperty> properties = null;
+		
+		for (String rule : visitor.getRules()) {
+			if (activeRules.isActive(rule)) {
+				if (properties == null) {
+					properties = EnumSet.noneOf(MessageFlowNodeProperty.class);
+				}
+				
+				properties.addAll(visitor.getProperties(rule));
+			}
+		}
+		
+		return properties;
+	}
+	
+	/**
+	 * The method returns the nodes and properties needed by the active rules.
+	 * 
+	 * @return the extraction plan of the analysis
+	 */
+	MessageFlowExtractionPlan getExtractionPlan() {
+		return extractionPlan;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
+	 */
+	/**
+	 * The method defines the language of the file to be analysed.
+	 */
+	@Override
+	public boolean shouldExecuteOnProject(Project arg0) {
+		// This sensor is executed only when there are msgflow files
+	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
+	 */
+	/**
+	 * The method where the analysis of the message flow files takes place.
+	 */
+	@Override
+	public void analyse(Project arg0, SensorContext arg1) {
+		List<InputFile> inputFiles = new ArrayList<InputFile>();
+		
+		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
+			inputFiles.add(inputFile);
+		}
+		
+		LOG.debug("Analysing " + visitors.size() + " rule visitors, extracting " + extractionPlan);
+		
+		MessageFlowProject.getInstance().setExtractionPlan(extractionPlan);
+		
+		MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+		statistics.reset();
+		
+		MessageFlowQueueIndex queueIndex = MessageFlowProject.getInstance().getQueueIndex();
+		queueIndex.clear();
+		queueFileIssues.clear();
+		
+		MessageFlowManifest manifest = createManifest();
+		int threads = threads(settings.getInt(MessageFlowPlugin.THREADS_KEY));
+		
+		if (threads == 1 || inputFiles.size() < 2) {
+			for (InputFile inputFile : inputFiles) {
+				publish(inputFile, analyse(inputFile, manifest));
+			}
+		} else {
+			new MessageFlowPipeline(this, manifest, threads, Math.max(1, threads / 2), 
+					MessageFlowPipeline.depths(settings.getString(MessageFlowPlugin.PIPELINE_DEPTHS_KEY))).analyse(inputFiles);
+		}
+		
+		analyseProject(queueIndex);
+		
+		if (manifest != null) {
+			manifest.write();
+			
+			LOG.info("Incremental analysis: skipped " + manifest.getSkippedCount() + " unchanged of " + inputFiles.size() 
+					+ " message flow files, analysed " + manifest.getAnalysedCount());
+		}
+		
+		for (String line : statistics.getSummary()) {
+			LOG.info(line);
+		}
+		
+		if (arg1 != null) {
+			saveMeasures(arg1, statistics, manifest == null ? 0 : manifest.getSkippedCount());
+		}
+		
+		MessageFlowDiskCache diskCache = MessageFlowProject.getInstance().getDiskCache();
+		
+		if (diskCache != null) {
+			int deleted = diskCache.deleteUnusedEntries();
+			
+			LOG.info("Persistent message flow cache: reused " + diskCache.getReuseCount() + " of " + (diskCache.getReuseCount() + diskCache.getStoreCount()) 
+					+ " message flows, stored " + diskCache.getStoreCount() + ", errors " + diskCache.getErrorCount() + ", deleted " + deleted + " unused entries");
+		}
+	}
+	
+	/**
+	 * The method passes the files holding MQ queues to the visitors once all 
+	 * files have been analysed and publishes the issues of these files 
+	 * together with the issues found across the files of the project.
+	 * 
+	 * @param queueIndex the queue index of the project
+	 */
+	private void analyseProject(MessageFlowQueueIndex queueIndex) {
+		if (queueIndex.getFileCount() == 0) {
+			return;
+		}
+		
+		LOG.info("MQ queue topology: " + queueIndex.getQueueCount() + " queues, " + queueIndex.getProducerCount() + " producers, " 
+				+ queueIndex.getConsumerCount() + " consumers in " + queueIndex.getFileCount() + " message flow files");
+		
+		MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+		
+		for (Map.Entry<InputFile, MessageFlowIssueCollector> entry : queueFileIssues.entrySet()) {
+			/* the issues of the file are kept apart, they may be stored in the manifest of the incremental analysis */
+			MessageFlowIssueCollector projectIssues = new MessageFlowIssueCollector(activeRules);
+			
+			for (MessageFlowNodeVisitor visitor : visitors) {
+				long start = System.nanoTime();
+				visitor.visitProjectFile(entry.getKey().relativePath(), projectIssues);
+				statistics.addVisitorNanos(visitor.getClass().getSimpleName(), System.nanoTime() - start);
+			}
+			
+			projectIssues.addTo(statistics);
+			statistics.addIssues(projectIssues.size());
+			
+			if (entry.getValue().size() > 0 || projectIssues.size() > 0) {
+				Issuable issuable = perspectives.as(Issuable.class, entry.getKey());
+				entry.getValue().publish(issuable);
+				projectIssues.publish(issuable);
+			}
+		}
+		
+		queueFileIssues.clear();
+	}
+	
+	/**
+	 * The method saves the measures of the analysis on the project.
+	 * 
+	 * @param context the context of the sensor
+	 * @param statistics the statistics of the analysis
+	 * @param skippedFiles the number of unchanged files skipped by the incremental analysis
+	 */
+	private static void saveMeasures(SensorContext context, MessageFlowStatistics statistics, int skippedFiles) {
+		saveMeasure(context, MessageFlowMetrics.FILES, statistics.getFileCount());
+		saveMeasure(context, MessageFlowMetrics.SKIPPED_FILES, skippedFiles);
+		saveMeasure(context, MessageFlowMetrics.ISSUES, statistics.getIssueCount());
+		saveMeasure(context, MessageFlowMetrics.ANALYSIS_TIME, statistics.getFileMillis());
+		saveMeasure(context, MessageFlowMetrics.LOAD_TIME, statistics.getLoadMillis());
+		saveMeasure(context, MessageFlowMetrics.XML_TIME, statistics.getXmlMillis());
+		saveMeasure(context, MessageFlowMetrics.RULE_TIME, statistics.getVisitorMillis());
+	}
+	
+	/**
+	 * The method saves a measure on the project.
+	 * 
+	 * @param context the context of the sensor
+	 * @param metric the metric of the measure
+	 * @param value the value of the measure
+	 */
+	private static void saveMeasure(SensorContext context, Metric metric, long value) {
+		context.saveMeasure(metric, Double.valueOf(value));
+	}
+	
+	/**
+	 * The method analyses a message flow file. In the incremental mode, the 
+	 * stored issues are returned if the file is unchanged.
+	 * 
+	 * @param inputFile the message flow file
+	 * @param manifest the manifest of the incremental analysis or null
+	 * 
+	 * @return the issues found in the file
+	 */
+	private MessageFlowIssueCollector analyse(InputFile inputFile, MessageFlowManifest manifest) {
+		long start = System.nanoTime();
+		
+		try {
+			return analyseFile(inputFile, manifest);
+		} finally {
+			MessageFlowProject.getInstance().getStatistics().addFile(inputFile.relativePath(), System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * The method analyses a message flow file, see 
+	 * {@link #analyse(InputFile, MessageFlowManifest)}.
+	 * 
+	 * @param inputFile the message flow file
+	 * @param manifest the manifest of the incremental analysis or null
+	 * 
+	 * @return the issues found in the file
+	 */
+	private MessageFlowIssueCollector analyseFile(InputFile inputFile, MessageFlowManifest manifest) {
+		if (manifest != null) {
+			MessageFlowIssueCollector issues = manifest.getUnchangedIssues(inputFile.relativePath(), inputFile.file());
+			
+			if (issues != null) {
+				return issues;
+			}
+		}
+		
+		/* 
+		 * retrieve the message flow object
+		 */
+		MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
+		MessageFlowIssueCollector issues = analyseMessageFlow(inputFile.absolutePath(), msgFlow);
+		
+		if (manifest != null) {
+			manifest.putIssues(inputFile.relativePath(), inputFile.file(), issues);
+		}
+		
+		return issues;
+	}
+	
+	/**
+	 * The method creates the manifest of the incremental analysis if the 
+	 * incremental mode is enabled. The stored issues depend on the plug-in 
+	 * version and the active rules.
+	 * 
+	 * @return the manifest or null if the incremental mode is disabled
+	 */
+	private MessageFlowManifest createManifest() {
+		if (!settings.getBoolean(MessageFlowPlugin.INCREMENTAL_KEY)) {
+			return null;
+		}
+		
+		return new MessageFlowManifest(new File(fs.workDir(), MANIFEST_NAME), 
+				MessageFlowProjectInitializer.pluginVersion() + "|" + activeRules.getKey() + "|" + extractionPlan.getKey());
+	}
+	
+	/**
+	 * The method publishes the issues of a message flow file. The issues 
+	 * of a file holding MQ queues are published after the analysis of the 
+	 * project (see {@link #analyseProject(MessageFlowQueueIndex)}).
+	 * 
+	 * @param inputFile the message flow file
+	 * @param issues the issues found in the file
+	 */
+	void publish(InputFile inputFile, MessageFlowIssueCollector issues) {
+		MessageFlowProject.getInstance().getStatistics().addIssues(issues.size());
+		
+		if (!issues.getQueueEndpoints().isEmpty()) {
+			MessageFlowProject.getInstance().getQueueIndex().add(inputFile.relativePath(), issues.getQueueEndpoints());
+			queueFileIssues.put(inputFile, issues);
+			
+			return;
+		}
+		
+		if (issues.size() > 0) {
+			Issuable issuable = perspectives.as(Issuable.class, inputFile);
+			issues.publish(issuable);
+		}
+	}
+	
+	/**
+	 * The method returns the number of analysis threads. If the setting is 
+	 * not positive, one thread per available processor is used.
+	 * 
+	 * @param threads the value of the threads setting
+	 * 
+	 * @return the number of analysis threads
+	 */
+	static int threads(int threads) {
+		if (threads < 1) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+		
+		return threads;
+	}
+	
+	/**
+	 * The method passes the message flow and its nodes to the rule visitors. 
+	 * The rule table of a visitor is evaluated for each node before the node 
+	 * is passed to the visitor. 
+	 * The time spent per visitor and the evaluations and issues per rule are 
+	 * added to the statistics once per message flow.
+	 * 
+	 * @param fileName the file name of the message flow
+	 * @param msgFlow the message flow to be analysed
+	 * 
+	 * @return the issues found in the message flow
+	 */
+	MessageFlowIssueCollector analyseMessageFlow(String fileName, MessageFlow msgFlow) {
+		MessageFlowIssueCollector issues = new MessageFlowIssueCollector(activeRules, fileName);
+		long[] visitorNanos = new long[visitors.size()];
+		
+		for (int i = 0; i < visitors.size(); i++) {
+			long start = System.nanoTime();
+			visitors.get(i).visitMessageFlow(msgFlow, issues);
+			visitorNanos[i] += System.nanoTime() - start;
+		}
+		
+		for (Map.Entry<MessageFlowNodeType, int[]> entry : visitorsByType.entrySet()) {
+			for (MessageFlowNode msgFlowNode : msgFlow.getNodes(entry.getKey())) {
+				for (int i : entry.getValue()) {
+					long start = System.nanoTime();
+					ruleTables.get(i).evaluate(msgFlowNode, issues);
+					visitors.get(i).visitNode(msgFlowNode, issues);
+					visitorNanos[i] += System.nanoTime() - start;
+				}
+			}
+		}
+		
+		MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+		
+		for (int i = 0; i < visitors.size(); i++) {
+			statistics.addVisitorNanos(visitors.get(i).getClass().getSimpleName(), visitorNanos[i]);
+		}
+		
+		issues.addTo(statistics);
+		
+		return issues;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics;
+
+/**
+ * The class is a bounded queue between two stages of the pipelined analysis 
+ * (see {@link MessageFlowPipeline}). A stage putting to a full queue waits 
+ * until the next stage has taken an element (backpressure).
+ * 
+ * The queue counts how often it has been full or empty and samples its 
+ * occupancy after each put, so the statistics show which stage is the 
+ * bottleneck.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+final class MessageFlowStageQueue<T> {
+
+	/**
+	 * the name of the queue, i.e. of the stage taking from it
+	 */
+	private final String name;
+	
+	/**
+	 * the elements of the queue
+	 */
+	private final ArrayBlockingQueue<T> queue;
+	
+	/**
+	 * the capacity of the queue
+	 */
+	private final int capacity;
+	
+	/**
+	 * the number of elements put
+	 */
+	private final AtomicLong puts = new AtomicLong();
+	
+	/**
+	 * the sum of the occupancies after each put
+	 */
+	private final AtomicLong occupancy = new AtomicLong();
+	
+	/**
+	 * the maximum occupancy
+	 */
+	private final AtomicLong maximumOccupancy = new AtomicLong();
+	
+	/**
+	 * the number of puts which waited for a full queue
+	 */
+	private final AtomicLong fullCount = new AtomicLong();
+	
+	/**
+	 * the number of takes which waited for an empty queue
+	 */
+	private final AtomicLong emptyCount = new AtomicLong();
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param name the name of the queue, i.e. of the stage taking from it
+	 * @param capacity the capacity of the queue
+	 */
+	MessageFlowStageQueue(String name, int capacity) {
+		this.name = name;
+		this.capacity = capacity;
+		this.queue = new ArrayBlockingQueue<T>(capacity);
+	}
+	
+	/**
+	 * The method puts an element to the queue and waits if the queue is full.
+	 * 
+	 * @param element the element
+	 * 
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	void put(T element) throws InterruptedException {
+		if (!queue.offer(element)) {
+			fullCount.incrementAndGet();
+			queue.put(element);
+		}
+		
+		long size = queue.size();
+		
+		puts.incrementAndGet();
+		occupancy.addAndGet(size);
+		
+		long maximum = maximumOccupancy.get();
+		
+		while (size > maximum && !maximumOccupancy.compareAndSet(maximum, size)) {
+			maximum = maximumOccupancy.get();
+		}
+	}
+	
+	/**
+	 * The method takes an element from the queue and waits if the queue is 
+	 * empty.
+	 * 
+	 * @return the element
+	 * 
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	T take() throws InterruptedException {
+		T element = queue.poll();
+		
+		if (element == null) {
+			emptyCount.incrementAndGet();
+			element = queue.take();
+		}
+		
+		return element;
+	}
+	
+	/**
+	 * The method returns the name of the queue.
+	 * 
+	 * @return the name of the queue
+	 */
+	String getName() {
+		return name;
+	}
+	
+	/**
+	 * The method returns the number of puts which waited for a full queue.
+	 * 
+	 * @return the number of puts to a full queue
+	 */
+	long getFullCount() {
+		return fullCount.get();
+	}
+	
+	/**
+	 * The method returns the number of takes which waited for an empty queue.
+	 * 
+	 * @return the number of takes from an empty queue
+	 */
+	long getEmptyCount() {
+		return emptyCount.get();
+	}
+	
+	/**
+	 * The method adds the occupancy of the queue to the statistics.
+	 * 
+	 * @param statistics the statistics of the analysis
+	 */
+	void addTo(MessageFlowStatistics statistics) {
+		statistics.addQueue(name, capacity, puts.get(), occupancy.get(), maximumOccupancy.get(), fullCount.get(), emptyCount.get());
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowMonitoringEvent;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class (rule visitor) analyses the number of monitoring events a 
+ * message flow emits per message. 
+ * 
+ * Each enabled monitoring event is emitted whenever a message passes its 
+ * source, so a message emits the enabled events of the nodes on the path 
+ * it takes through the message flow. The events are counted along each 
+ * path starting at a node without incoming connections (an input node of 
+ * the message flow or subflow) using the graph of the message flow (see 
+ * {@link MessageFlow#getGraph()}); the nodes of a loop are counted once. 
+ * The events of the nodes of all types are counted, including the types 
+ * which are not supported otherwise (see {@link MessageFlow#getOtherNodes()}).
+ * 
+ * Events capturing the message body or the whole message (see 
+ * {@link MessageFlowMonitoringEvent#capturesPayload()}) serialise the 
+ * message tree and are counted separately. The message flow is reported 
+ * if the largest count of a path exceeds the budget of the project (see 
+ * {@link MessageFlowProject#getMaximumMonitoringEvents()} and 
+ * {@link MessageFlowProject#getMaximumPayloadEvents()}).
+ * 
+ * The events within subflows are counted in the subflow files.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MonitoringEventBudgetSensor extends MessageFlowNodeVisitor {
+
+	/**
+	 * The logger for the class.
+	 */
+	//private static final Logger LOG = LoggerFactory.getLogger(MonitoringEventBudgetSensor.class);
+	
+	/**
+	 * the key of the rule
+	 */
+	static final String RULE = "MonitoringEventBudget";
+	
+	/**
+	 * Constructor
+	 * 
+	 * Declares the rule of the visitor.
+	 */
+	public MonitoringEventBudgetSensor() {
+		addRule(RULE, MessageFlowNodeProperty.MONITORING_EVENTS);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeTypes()
+	 */
+	/**
+	 * The method defines the types of the message flow nodes whose events 
+	 * are counted: all supported types.
+	 */
+	@Override
+	public Set<MessageFlowNodeType> getNodeTypes() {
+		return EnumSet.allOf(MessageFlowNodeType.class);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#needsOtherNodes()
+	 */
+	/**
+	 * The method defines that the events of the nodes of types which are 
+	 * not supported are counted as well.
+	 */
+	@Override
+	public boolean needsOtherNodes() {
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
+	 */
+	/**
+	 * The method where the analysis of the message flow as a whole takes place.
+	 */
+	@Override
+	public void visitMessageFlow(MessageFlow msgFlow, MessageFlowIssueCollector issues) {
+		if (!issues.isActive(RULE)) {
+			return;
+		}
+		
+		Paths paths = new Paths(msgFlow);
+		paths.run();
+		
+		int maximumEvents = MessageFlowProject.getInstance().getMaximumMonitoringEvents();
+		int maximumPayloadEvents = MessageFlowProject.getInstance().getMaximumPayloadEvents();
+		
+		if (paths.events <= maximumEvents && paths.payloadEvents <= maximumPayloadEvents) {
+			return;
+		}
+		
+		issues.addIssue(RuleKey.of("msgflow", RULE), 
+				"The message flow emits up to " + paths.events + " monitoring events per message on the path from '" + paths.start + "' (maximum: " + maximumEvents + "), " 
+				+ "up to " + paths.payloadEvents + " events on a path capture the message body or the whole message (maximum: " + maximumPayloadEvents + ")" 
+				+ (paths.example == null ? "." : ", e.g. " + paths.example + "."));
+	}
+	
+	/**
+	 * The class determines the largest number of events along the paths of 
+	 * a message flow. The strongly connected components (loops) of the 
+	 * graph are found by Tarjan's algorithm without recursion. The 
+	 * components are completed in reverse topological order, so the largest 
+	 * count of the paths starting at a component is known as soon as the 
+	 * component is completed.
+	 */
+	private static final class Paths {
+		
+		/**
+		 * the graph of the message flow
+		 */
+		private final MessageFlowGraph graph;
+		
+		/**
+		 * the enabled events, payload events and the first payload event of the nodes by node index
+		 */
+		private final int[] nodeEvents;
+		private final int[] nodePayloadEvents;
+		private final String[] nodeExamples;
+		
+		/**
+		 * the names of the nodes by node index, the ID if a node has no name
+		 */
+		private final String[] names;
+		
+		/**
+		 * the largest counts and the first payload event of the paths 
+		 * starting at a component by component index
+		 */
+		private final int[] pathEvents;
+		private final int[] pathPayloadEvents;
+		private final String[] pathExamples;
+		
+		/**
+		 * the node a component has been entered at by component index
+		 */
+		private final int[] firstNodes;
+		
+		/**
+		 * whether a component is reached from another component by component index
+		 */
+		private final boolean[] reached;
+		
+		/**
+		 * the largest counts of the paths of the message flow, the start of 
+		 * the path with the most events and the first payload event of the 
+		 * path with the most payload events
+		 */
+		private int events;
+		private int payloadEvents;
+		private String start;
+		private String example;
+		
+		/**
+		 * Constructor
+		 * 
+		 * Counts the enabled events of the nodes of the message flow.
+		 * 
+		 * @param msgFlow the message flow
+		 */
+		private Paths(MessageFlow msgFlow) {
+			graph = msgFlow.getGraph();
+			
+			int n = graph.getNodeCount();
+			
+			nodeEvents			= new int[n];
+			nodePayloadEvents	= new int[n];
+			nodeExamples		= new String[n];
+			names				= new String[n];
+			pathEvents			= new int[n];
+			pathPayloadEvents	= new int[n];
+			pathExamples		= new String[n];
+			firstNodes			= new int[n];
+			reached				= new boolean[n];
+			
+			Map<String, MessageFlowNode> otherNodes = new HashMap<String, MessageFlowNode>();
+			
+			for (MessageFlowNode node : msgFlow.getOtherNodes()) {
+				if (graph.indexOf(node.getId()) < 0) {
+					/* a node without connections is a path of its own */
+					count(node, -1);
+				} else {
+					otherNodes.put(node.getId(), node);
+				}
+			}
+			
+			for (int i = 0; i < n; i++) {
+				MessageFlowNode node = graph.getNode(i);
+				
+				if (node == null) {
+					node = otherNodes.get(graph.getId(i));
+				}
+				
+				names[i] = node == null || node.getName().isEmpty() ? graph.getId(i) : node.getName();
+				
+				if (node != null) {
+					count(node, i);
+				}
+			}
+		}
+		
+		/**
+		 * Counts the enabled events of a node. A node which is not part of 
+		 * the graph is taken as a path of its own.
+		 * 
+		 * @param node the node
+		 * @param i the index of the node or -1 if the node is not part of the graph
+		 */
+		private void count(MessageFlowNode node, int i) {
+			int nodeEvents = 0;
+			int nodePayloadEvents = 0;
+			String nodeExample = null;
+			
+			for (MessageFlowMonitoringEvent event : node.getMonitoringEvents()) {
+				if (!event.isEnabled()) {
+					continue;
+				}
+				
+				nodeEvents++;
+				
+				if (event.capturesPayload()) {
+					nodePayloadEvents++;
+					
+					if (nodeExample == null) {
+						nodeExample = "'" + node.getName() + "' (" + event.getSource() + ")";
+					}
+				}
+			}
+			
+			if (i >= 0) {
+				this.nodeEvents[i] = nodeEvents;
+				this.nodePayloadEvents[i] = nodePayloadEvents;
+				this.nodeExamples[i] = nodeExample;
+			} else {
+				path(nodeEvents, nodePayloadEvents, node.getName(), nodeExample);
+			}
+		}
+		
+		/**
+		 * Takes the counts of a path if they are larger than the counts of 
+		 * the paths seen so far.
+		 */
+		private void path(int pathEvents, int pathPayloadEvents, String pathStart, String pathExample) {
+			if (start == null || pathEvents > events) {
+				events = pathEvents;
+				start = pathStart;
+			}
+			
+			if (pathPayloadEvents > payloadEvents) {
+				payloadEvents = pathPayloadEvents;
+				example = pathExample;
+			}
+		}
+		
+		/**
+		 * Finds the components of the graph and the largest counts of the 
+		 * paths starting at the components which are not reached from other 
+		 * components.
+		 */
+		private void run() {
+			int n = graph.getNodeCount();
+			int[] index = new int[n];
+			int[] low = new int[n];
+			int[] component = new int[n];
+			int[] stack = new int[n];
+			int[] callNodes = new int[n];
+			int[] callEdges = new int[n];
+			int counter = 0;
+			int components = 0;
+			int sp = 0;
+			
+			Arrays.fill(index, -1);
+			Arrays.fill(component, -1);
+			
+			for (int root = 0; root < n; root++) {
+				if (index[root] >= 0) {
+					continue;
+				}
+				
+				int depth = 0;
+				callNodes[0] = root;
+				callEdges[0] = 0;
+				index[root] = low[root] = counter++;
+				stack[sp++] = root;
+				
+				while (depth >= 0) {
+					int v = callNodes[depth];
+					
+					if (callEdges[depth] < graph.getOutDegree(v)) {
+						int w = graph.getTarget(graph.getOutEdge(v, callEdges[depth]++));
+						
+						if (index[w] < 0) {
+							depth++;
+							callNodes[depth] = w;
+							callEdges[depth] = 0;
+							index[w] = low[w] = counter++;
+							stack[sp++] = w;
+						} else if (component[w] < 0) {
+							low[v] = Math.min(low[v], index[w]);
+						}
+						
+						continue;
+					}
+					
+					if (low[v] == index[v]) {
+						int top = sp;
+						
+						do {
+							component[stack[--sp]] = components;
+						} while (stack[sp] != v);
+						
+						complete(components++, stack, sp, top, component);
+					}
+					
+					if (--depth >= 0) {
+						int u = callNodes[depth];
+						low[u] = Math.min(low[u], low[v]);
+					}
+				}
+			}
+			
+			/* the paths start at the components not reached from other components, in the order of the nodes */
+			for (int i = 0; i < n; i++) {
+				int c = component[i];
+				
+				if (firstNodes[c] == i && !reached[c]) {
+					path(pathEvents[c], pathPayloadEvents[c], names[i], pathExamples[c]);
+				}
+			}
+		}
+		
+		/**
+		 * Completes a component: its nodes are counted once and the path 
+		 * continues with the successor having the largest count. The 
+		 * successors have been completed before.
+		 * 
+		 * @param c the index of the component
+		 * @param stack the stack of the nodes holding the nodes of the component
+		 * @param from the position of the node the component has been entered at
+		 * @param to the position after the last node of the component
+		 * @param component the component index by node index
+		 */
+		private void complete(int c, int[] stack, int from, int to, int[] component) {
+			int componentEvents = 0;
+			int componentPayloadEvents = 0;
+			String componentExample = null;
+			int nextEvents = 0;
+			int nextPayloadEvents = 0;
+			String nextExample = null;
+			
+			for (int k = from; k < to; k++) {
+				int v = stack[k];
+				
+				componentEvents += nodeEvents[v];
+				componentPayloadEvents += nodePayloadEvents[v];
+				
+				if (componentExample == null) {
+					componentExample = nodeExamples[v];
+				}
+				
+				for (int e = 0; e < graph.getOutDegree(v); e++) {
+					int d = component[graph.getTarget(graph.getOutEdge(v, e))];
+					
+					if (d == c) {
+						continue;
+					}
+					
+					reached[d] = true;
+					nextEvents = Math.max(nextEvents, pathEvents[d]);
+					
+					if (pathPayloadEvents[d] > nextPayloadEvents) {
+						nextPayloadEvents = pathPayloadEvents[d];
+						nextExample = pathExamples[d];
+					}
+				}
+			}
+			
+			firstNodes[c] = stack[from];
+			pathEvents[c] = componentEvents + nextEvents;
+			pathPayloadEvents[c] = componentPayloadEvents + nextPayloadEvents;
+			pathExamples[c] = componentExample != null ? componentExample : nextExample;
+		}
+	}
+
+}
@@ -17,28 +17,16 @@
  */
 package com.exxeta.iss.sonar.msgflow.batch;
 
-import java.util.Iterator;
-
-import org.sonar.api.batch.Sensor;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.batch.fs.FileSystem;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.component.ResourcePerspectives;
-import org.sonar.api.issue.Issuable;
-import org.sonar.api.resources.Project;
-import org.sonar.api.rule.RuleKey;
-
-import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
 
 /**
- * The class (sensor) contains the method to analyse the connections and 
+ * The class (rule visitor) contains the method to analyse the connections and 
  * configuration of a Reset Content Descriptor Node.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
-public class ResetContentDescriptorNodeSensor implements Sensor {
+public class ResetContentDescriptorNodeSensor extends MessageFlowNodeVisitor {
 
 	/**
 	 * The logger for the class.
@@ -46,129 +34,45 @@ public class ResetContentDescriptorNodeSensor implements Sensor {
 	//private static final Logger LOG = LoggerFactory.getLogger(ResetContentDescriptorNodeSensor.class);
 	
 	/**
-	 * Variable to hold file system information, e.g. the file names of the project files.
-	 */
-	private final FileSystem fs;
-	
-	/**
+	 * Constructor
 	 * 
+	 * Declares the rule table of the visitor.
 	 */
-	private final ResourcePerspectives perspectives;
-	
-	/**
-	  * Use of IoC to get FileSystem and ResourcePerspectives
-	  */
-	public ResetContentDescriptorNodeSensor(FileSystem fs, ResourcePerspectives perspectives) {
-		this.fs = fs;
-		this.perspectives = perspectives;
+	public ResetContentDescriptorNodeSensor() {
+		addRule(MessageFlowRule.propertyNotSet("ResetContentDescriptorNodeMessageDomain", MessageFlowNodeProperty.MESSAGE_DOMAIN,
+				"'Message Domain' under 'Basic' for '{name}' (type: {type}) is not set (see Properties)."));
+		/* 
+		 * The setting of a message set is only checked for the following domains:
+		 * MRM, XMLNSC and DataObject.
+		 */
+		addRule(MessageFlowRule.propertyNotSet("ResetContentDescriptorNodeMessageSet", MessageFlowNodeProperty.MESSAGE_SET,
+				"'Message Set' under 'Basic' for '{name}' (type: {type}) is not set (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.MESSAGE_DOMAIN, "MRM", "XMLNSC", "DataObject"));
+		addRule(MessageFlowRule.propertyNotSet("ResetContentDescriptorNodeResetMessageDomain", MessageFlowNodeProperty.RESET_MESSAGE_DOMAIN,
+				"'Message Domain' under 'Basic' for '{name}' (type: {type}) is not set (see Properties)."));
+		/* 
+		 * The resetting of a message set is only checked for the following domains:
+		 * MRM, XMLNSC and DataObject.
+		 */
+		addRule(MessageFlowRule.propertyNotSet("ResetContentDescriptorNodeResetMessageSet", MessageFlowNodeProperty.RESET_MESSAGE_SET,
+				"'Reset Message Set' under 'Basic' for '{name}' (type: {type}) is not set (see Properties).")
+				.whenValueIn(MessageFlowNodeProperty.MESSAGE_DOMAIN, "MRM", "XMLNSC", "DataObject"));
+		addRule(MessageFlowRule.propertyNotSet("ResetContentDescriptorNodeResetMessageType", MessageFlowNodeProperty.RESET_MESSAGE_TYPE,
+				"'Reset Message Type' under 'Basic' for '{name}' (type: {type}) is not set (see Properties)."));
+		addRule(MessageFlowRule.propertyNotSet("ResetContentDescriptorNodeResetMessageFormat", MessageFlowNodeProperty.RESET_MESSAGE_FORMAT,
+				"'Reset Message Format' under 'Basic' for '{name}' (type: {type}) is not set (see Properties)."));
+		addRule(MessageFlowRule.monitoringEventsDisabled("ResetContentDescriptorNodeMonitoringEvents"));
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
 	 */
 	/**
-	 * The method defines the language of the file to be analysed.
+	 * The method defines the type of the message flow nodes to be analysed.
 	 */
 	@Override
-	public boolean shouldExecuteOnProject(Project arg0) {
-		// This sensor is executed only when there are msgflow files
-	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
-	}
-
-	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
-	 */
-	/**
-	 * The method where the analysis of the connections and configuration of 
-	 * the message flow node takes place.
-	 */
-	@Override
-	public void analyse(Project arg0, SensorContext arg1) {
-		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
-			
-			/* 
-			 * retrieve the message flow object
-			 */
-			MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
-			
-			// the actual rule ...
-			Iterator<MessageFlowNode> iMsgFlowNodes = msgFlow.getResetContentDescriptorNodes().iterator();
-			
-			while (iMsgFlowNodes.hasNext()) {
-				MessageFlowNode msgFlowNode = iMsgFlowNodes.next();
-
-				if (msgFlowNode.getMessageDomain().equals("")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeMessageDomain"))
-				    	        	  .message("'Message Domain' under 'Basic' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not set (see Properties).")
-				    	        	  .build());
-				}
-				
-				/* 
-				 * The setting of a message set is only checked for the following domains:
-				 * MRM, XMLNSC and DataObject.
-				 */
-				if (msgFlowNode.getMessageSet().equals("") &&
-					(msgFlowNode.getMessageDomain().equals("MRM") ||
-					 msgFlowNode.getMessageDomain().equals("XMLNSC") ||
-					 msgFlowNode.getMessageDomain().equals("DataObject"))) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeMessageSet"))
-				    	        	  .message("'Message Set' under 'Basic' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not set (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isResetMessageDomain() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeResetMessageDomain"))
-				    	        	  .message("'Message Domain' under 'Basic' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not set (see Properties).")
-				    	        	  .build());
-				}
-				
-				/* 
-				 * The resetting of a message set is only checked for the following domains:
-				 * MRM, XMLNSC and DataObject.
-				 */
-				if ((msgFlowNode.isResetMessageSet() == false) &&
-					(msgFlowNode.getMessageDomain().equals("MRM") ||
-					 msgFlowNode.getMessageDomain().equals("XMLNSC") ||
-					 msgFlowNode.getMessageDomain().equals("DataObject"))) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeResetMessageSet"))
-				    	        	  .message("'Reset Message Set' under 'Basic' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not set (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isResetMessageType() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeResetMessageType"))
-				    	        	  .message("'Reset Message Type' under 'Basic' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not set (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (msgFlowNode.isResetMessageFormat() == false) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeResetMessageFormat"))
-				    	        	  .message("'Reset Message Format' under 'Basic' for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not set (see Properties).")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.areMonitoringEventsEnabled()) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "ResetContentDescriptorNodeMonitoringEvents"))
-				    	        	  .message("There are no monitoring events defined or the "
-				    	        	  		 + "existing events are disabled for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-			}
-		}
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.RESET_CONTENT_DESCRIPTOR;
 	}
 
 }
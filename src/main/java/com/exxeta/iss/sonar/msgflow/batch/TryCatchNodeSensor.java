@@ -17,28 +17,18 @@
  */
 package com.exxeta.iss.sonar.msgflow.batch;
 
-import java.util.Iterator;
-
-import org.sonar.api.batch.Sensor;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.batch.fs.FileSystem;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.component.ResourcePerspectives;
-import org.sonar.api.issue.Issuable;
-import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
 
 import com.exxeta.iss.sonar.msgflow.model.MessageFlow;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
-import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
 
 /**
- * The class (sensor) contains the method to analyse the connections and 
+ * The class (rule visitor) contains the method to analyse the connections and 
  * configuration of a Try Catch Node.
  * 
  * @author Hendrik Scholz (EXXETA AG)
  */
-public class TryCatchNodeSensor implements Sensor {
+public class TryCatchNodeSensor extends MessageFlowNodeVisitor {
 
 	/**
 	 * The logger for the class.
@@ -46,100 +36,43 @@ public class TryCatchNodeSensor implements Sensor {
 	//private static final Logger LOG = LoggerFactory.getLogger(TryCatchNodeSensor.class);
 	
 	/**
-	 * Variable to hold file system information, e.g. the file names of the project files.
-	 */
-	private final FileSystem fs;
-	
-	/**
+	 * Constructor
 	 * 
+	 * Declares the rule table of the visitor.
 	 */
-	private final ResourcePerspectives perspectives;
-	
-	/**
-	  * Use of IoC to get FileSystem and ResourcePerspectives
-	  */
-	public TryCatchNodeSensor(FileSystem fs, ResourcePerspectives perspectives) {
-		this.fs = fs;
-		this.perspectives = perspectives;
+	public TryCatchNodeSensor() {
+		addRule("TryCatchNodeTryCatch");
+		addRule(MessageFlowRule.terminalNotConnected("TryCatchNodeInTerminal", "InTerminal.in"));
+		addRule(MessageFlowRule.terminalNotConnected("TryCatchNodeTryTerminal", "OutTerminal.try"));
+		addRule(MessageFlowRule.terminalNotConnected("TryCatchNodeCatchTerminal", "OutTerminal.catch"));
+		addRule(MessageFlowRule.monitoringEventsDisabled("TryCatchNodeMonitoringEvents"));
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.CheckProject#shouldExecuteOnProject(org.sonar.api.resources.Project)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#getNodeType()
 	 */
 	/**
-	 * The method defines the language of the file to be analysed.
+	 * The method defines the type of the message flow nodes to be analysed.
 	 */
 	@Override
-	public boolean shouldExecuteOnProject(Project arg0) {
-		// This sensor is executed only when there are msgflow files
-	    return fs.hasFiles(fs.predicates().hasLanguage("msgflow"));
+	public MessageFlowNodeType getNodeType() {
+		return MessageFlowNodeType.TRY_CATCH;
 	}
-
+	
 	/* (non-Javadoc)
-	 * @see org.sonar.api.batch.Sensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)
+	 * @see com.exxeta.iss.sonar.msgflow.batch.MessageFlowNodeVisitor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, com.exxeta.iss.sonar.msgflow.batch.MessageFlowIssueCollector)
 	 */
 	/**
-	 * The method where the analysis of the connections and configuration of 
-	 * the message flow node takes place.
+	 * The method where the analysis of the message flow as a whole takes place.
 	 */
 	@Override
-	public void analyse(Project arg0, SensorContext arg1) {
-		for (InputFile inputFile : fs.inputFiles(fs.predicates().hasLanguage("msgflow"))) {
-			
-			/* 
-			 * retrieve the message flow object
-			 */
-			MessageFlow msgFlow = MessageFlowProject.getInstance().getMessageFlow(inputFile.absolutePath());
-			
-			// the actual rule ...
-			/* If there is no TryCatch, the exception handling might be missing. */
-			if (msgFlow.getTryCatchNodes().size() == 0) {
-				Issuable issuable = perspectives.as(Issuable.class, inputFile);
-			    issuable.addIssue(issuable.newIssueBuilder()
-			    	        	  .ruleKey(RuleKey.of("msgflow", "TryCatchNodeTryCatch"))
-			    	        	  .message("No TryCatch node found in message flow. Check exception handling of the message flow.")
-			    	        	  .build());
-			}
-			
-			Iterator<MessageFlowNode> iMsgFlowNodes = msgFlow.getTryCatchNodes().iterator();
-
-			while (iMsgFlowNodes.hasNext()) {
-				MessageFlowNode msgFlowNode = iMsgFlowNodes.next();
-				
-				if (!msgFlowNode.getInputTerminals().contains("InTerminal.in")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "TryCatchNodeInTerminal"))
-				    	        	  .message("The in terminal (input) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.try")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "TryCatchNodeTryTerminal"))
-				    	        	  .message("The try terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-					
-				if (!msgFlowNode.getOutputTerminals().contains("OutTerminal.catch")) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "TryCatchNodeCatchTerminal"))
-				    	        	  .message("The catch terminal (output) for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") is not connected.")
-				    	        	  .build());
-				}
-				
-				if (!msgFlowNode.areMonitoringEventsEnabled()) {
-					Issuable issuable = perspectives.as(Issuable.class, inputFile);
-				    issuable.addIssue(issuable.newIssueBuilder()
-				    	        	  .ruleKey(RuleKey.of("msgflow", "TryCatchNodeMonitoringEvents"))
-				    	        	  .message("There are no monitoring events defined or the "
-				    	        	  		 + "existing events are disabled for '" + msgFlowNode.getName() + "' (type: " + msgFlowNode.getType() + ") (see Properties).")
-				    	        	  .build());
-				}
-			}
+	public void visitMessageFlow(MessageFlow msgFlow, MessageFlowIssueCollector issues) {
+		/* If there is no TryCatch, the exception handling might be missing. */
+		if (issues.isActive("TryCatchNodeTryCatch") && msgFlow.getTryCatchNodes().size() == 0) {
+			issues.addIssue(RuleKey.of("msgflow", "TryCatchNodeTryCatch"),
+					"No TryCatch node found in message flow. Check exception handling of the message flow.");
 		}
 	}
 
+
 }
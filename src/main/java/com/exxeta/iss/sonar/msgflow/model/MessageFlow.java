@@ -18,11 +18,22 @@
 package com.exxeta.iss.sonar.msgflow.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 
 /**
  * The class is a model of a message flow model containing a list of 
  * message flow nodes. 
  * 
+ * Nodes referencing a subflow are kept as {@link MessageFlowSubflowNode}s; 
+ * the subflow graphs and flattened views are provided by the 
+ * {@link MessageFlowProject}. Nodes of types which are not supported are 
+ * kept apart (see {@link #getOtherNodes()}).
+ * 
+ * The lookup of nodes by ID and the adjacency of the nodes are provided by 
+ * the graph index (see {@link #getGraph()}).
+ * 
  * @author Hendrik Scholz (EXXETA AG)
  */
 public class MessageFlow {
@@ -33,74 +44,34 @@ public class MessageFlow {
 	//private static final Logger LOG = LoggerFactory.getLogger(MessageFlow.class);
 	
 	/**
-	 * a list of Collector Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> collectorNodes;
-	
-	/**
-	 * a list of Compute Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> computeNodes;
-
-	/**
-	 * a list of File Input Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> fileInputNodes;
-	
-	/**
-	 * a list of File Output Nodes of a message flow
+	 * the lists of nodes of a message flow indexed by node type
 	 */
-	private ArrayList<MessageFlowNode> fileOutputNodes;
+	private final EnumMap<MessageFlowNodeType, ArrayList<MessageFlowNode>> nodes;
 	
 	/**
-	 * a list of Http Input Nodes of a message flow
+	 * the index of the connections (edges) of a message flow
 	 */
-	private ArrayList<MessageFlowNode> httpInputNodes;
+	private final MessageFlowConnectionIndex connectionIndex;
 	
 	/**
-	 * a list of Http Request Nodes of a message flow
+	 * the nodes of a message flow referencing a subflow in document order
 	 */
-	private ArrayList<MessageFlowNode> httpRequestNodes;
+	private final ArrayList<MessageFlowSubflowNode> subflowNodes;
 	
 	/**
-	 * a list of MQ Input Nodes of a message flow
+	 * the nodes of a message flow of types which are not supported in document order
 	 */
-	private ArrayList<MessageFlowNode> mqInputNodes;
+	private final ArrayList<MessageFlowNode> otherNodes;
 	
 	/**
-	 * a list of MQ Output Nodes of a message flow
+	 * the nodes and properties extracted from the message flow file
 	 */
-	private ArrayList<MessageFlowNode> mqOutputNodes;
+	private final MessageFlowExtractionPlan extractionPlan;
 	
 	/**
-	 * a list of Reset Content Descriptor Nodes of a message flow
+	 * the graph index of the message flow created on first use
 	 */
-	private ArrayList<MessageFlowNode> resetContentDescriptorNodes;
-	
-	/**
-	 * a list of Soap Input Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> soapInputNodes;
-	
-	/**
-	 * a list of Soap Request Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> soapRequestNodes;
-	
-	/**
-	 * a list of Timeout Control Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> timeoutControlNodes;
-	
-	/**
-	 * a list of Timeout Notification Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> timeoutNotificationNodes;
-	
-	/**
-	 * a list of Try Catch Nodes of a message flow
-	 */
-	private ArrayList<MessageFlowNode> tryCatchNodes;
+	private volatile MessageFlowGraph graph;
 
 	/**
 	 * Constructor
@@ -109,36 +80,32 @@ public class MessageFlow {
 	 */
 	public MessageFlow(String file,
 					   MessageFlowParser messageFlowParser) {
-		collectorNodes				= new ArrayList<MessageFlowNode>();
-		computeNodes				= new ArrayList<MessageFlowNode>();
-		fileInputNodes				= new ArrayList<MessageFlowNode>();
-		fileOutputNodes				= new ArrayList<MessageFlowNode>();
-		httpInputNodes				= new ArrayList<MessageFlowNode>();
-		httpRequestNodes			= new ArrayList<MessageFlowNode>();
-		mqInputNodes				= new ArrayList<MessageFlowNode>();
-		mqOutputNodes				= new ArrayList<MessageFlowNode>();
-		resetContentDescriptorNodes	= new ArrayList<MessageFlowNode>();
-		soapInputNodes				= new ArrayList<MessageFlowNode>();
-		soapRequestNodes			= new ArrayList<MessageFlowNode>();
-		timeoutControlNodes			= new ArrayList<MessageFlowNode>();
-		timeoutNotificationNodes	= new ArrayList<MessageFlowNode>();
-		tryCatchNodes				= new ArrayList<MessageFlowNode>();
+		this(file, messageFlowParser, MessageFlowExtractionPlan.ALL);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * Parses message flow files and adds the nodes and properties of the 
+	 * extraction plan to the message flow model. The file is not read at all 
+	 * if the plan is empty.
+	 */
+	public MessageFlow(String file,
+					   MessageFlowParser messageFlowParser,
+					   MessageFlowExtractionPlan extractionPlan) {
+		nodes						= new EnumMap<MessageFlowNodeType, ArrayList<MessageFlowNode>>(MessageFlowNodeType.class);
+		connectionIndex				= new MessageFlowConnectionIndex();
+		subflowNodes				= new ArrayList<MessageFlowSubflowNode>();
+		otherNodes					= new ArrayList<MessageFlowNode>();
+		this.extractionPlan			= extractionPlan;
 		
-		messageFlowParser.parse(file,
-								collectorNodes,
-								computeNodes,
-								fileInputNodes,
-								fileOutputNodes,
-								httpInputNodes,
-								httpRequestNodes,
-								mqInputNodes,
-								mqOutputNodes,
-								resetContentDescriptorNodes,
-								soapInputNodes,
-								soapRequestNodes,
-								timeoutControlNodes,
-								timeoutNotificationNodes,
-								tryCatchNodes);
+		for (MessageFlowNodeType type : MessageFlowNodeType.values()) {
+			nodes.put(type, new ArrayList<MessageFlowNode>());
+		}
+		
+		if (!extractionPlan.isEmpty()) {
+			messageFlowParser.parse(file, extractionPlan, nodes, connectionIndex, subflowNodes, otherNodes);
+		}
 	}
 	
 	/**
@@ -147,7 +114,7 @@ public class MessageFlow {
 	 * @return a list of the Collector Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getCollectorNodes() {
-		return collectorNodes;
+		return nodes.get(MessageFlowNodeType.COLLECTOR);
 	}
 
 	/**
@@ -156,7 +123,7 @@ public class MessageFlow {
 	 * @return a list of the Compute Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getComputeNodes() {
-		return computeNodes;
+		return nodes.get(MessageFlowNodeType.COMPUTE);
 	}
 
 	/**
@@ -165,7 +132,7 @@ public class MessageFlow {
 	 * @return a list of the File Input Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getFileInputNodes() {
-		return fileInputNodes;
+		return nodes.get(MessageFlowNodeType.FILE_INPUT);
 	}
 
 	/**
@@ -174,7 +141,7 @@ public class MessageFlow {
 	 * @return a list of the File Output Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getFileOutputNodes() {
-		return fileOutputNodes;
+		return nodes.get(MessageFlowNodeType.FILE_OUTPUT);
 	}
 
 	/**
@@ -183,7 +150,7 @@ public class MessageFlow {
 	 * @return a list of the Http Input Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getHttpInputNodes() {
-		return httpInputNodes;
+		return nodes.get(MessageFlowNodeType.HTTP_INPUT);
 	}
 
 	/**
@@ -192,7 +159,7 @@ public class MessageFlow {
 	 * @return a list of the Http Request Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getHttpRequestNodes() {
-		return httpRequestNodes;
+		return nodes.get(MessageFlowNodeType.HTTP_REQUEST);
 	}
 
 	/**
@@ -201,7 +168,7 @@ public class MessageFlow {
 	 * @return a list of the MQ Input Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getMqInputNodes() {
-		return mqInputNodes;
+		return nodes.get(MessageFlowNodeType.MQ_INPUT);
 	}
 
 	/**
@@ -210,7 +177,7 @@ public class MessageFlow {
 	 * @return a list of the MQ Output Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getMqOutputNodes() {
-		return mqOutputNodes;
+		return nodes.get(MessageFlowNodeType.MQ_OUTPUT);
 	}
 
 	/**
@@ -219,7 +186,7 @@ public class MessageFlow {
 	 * @return a list of the Reset Content Descriptor Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getResetContentDescriptorNodes() {
-		return resetContentDescriptorNodes;
+		return nodes.get(MessageFlowNodeType.RESET_CONTENT_DESCRIPTOR);
 	}
 	
 	/**
@@ -228,7 +195,7 @@ public class MessageFlow {
 	 * @return a list of the Soap Input Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getSoapInputNodes() {
-		return soapInputNodes;
+		return nodes.get(MessageFlowNodeType.SOAP_INPUT);
 	}
 
 	/**
@@ -237,7 +204,7 @@ public class MessageFlow {
 	 * @return a list of the Soap Request Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getSoapRequestNodes() {
-		return soapRequestNodes;
+		return nodes.get(MessageFlowNodeType.SOAP_REQUEST);
 	}
 
 	/**
@@ -246,7 +213,7 @@ public class MessageFlow {
 	 * @return a list of the Timeout Control Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getTimeoutControlNodes() {
-		return timeoutControlNodes;
+		return nodes.get(MessageFlowNodeType.TIMEOUT_CONTROL);
 	}
 
 	/**
@@ -255,7 +222,7 @@ public class MessageFlow {
 	 * @return a list of the Timeout Notification Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getTimeoutNotificationNodes() {
-		return timeoutNotificationNodes;
+		return nodes.get(MessageFlowNodeType.TIMEOUT_NOTIFICATION);
 	}
 	
 	/**
@@ -264,6 +231,120 @@ public class MessageFlow {
 	 * @return a list of the Try Catch Nodes of Message Flow
 	 */
 	public ArrayList<MessageFlowNode> getTryCatchNodes() {
-		return tryCatchNodes;
+		return nodes.get(MessageFlowNodeType.TRY_CATCH);
+	}
+	
+	/**
+	 * The method returns a list of the nodes of the given type of Message Flow.
+	 * 
+	 * @param type the type of the nodes
+	 * 
+	 * @return a list of the nodes of the given type of Message Flow
+	 */
+	public ArrayList<MessageFlowNode> getNodes(MessageFlowNodeType type) {
+		return nodes.get(type);
+	}
+	
+	/**
+	 * The method returns all nodes of the Message Flow grouped by type in the 
+	 * order of {@link MessageFlowNodeType}.
+	 * 
+	 * @return a list of all nodes of the Message Flow
+	 */
+	public List<MessageFlowNode> getNodes() {
+		ArrayList<MessageFlowNode> allNodes = new ArrayList<MessageFlowNode>();
+		
+		for (ArrayList<MessageFlowNode> typeNodes : nodes.values()) {
+			allNodes.addAll(typeNodes);
+		}
+		
+		return allNodes;
+	}
+	
+	/**
+	 * The method returns the nodes of the Message Flow referencing a subflow 
+	 * in document order.
+	 * 
+	 * @return an unmodifiable list of the subflow nodes of the Message Flow
+	 */
+	public List<MessageFlowSubflowNode> getSubflowNodes() {
+		return Collections.unmodifiableList(subflowNodes);
+	}
+	
+	/**
+	 * The method returns the nodes of the Message Flow of types which are not 
+	 * supported (e.g. Java Compute or Route Nodes) in document order. Only 
+	 * their ID, name, type, terminals and monitoring events are set, and 
+	 * only if the extraction plan includes them (see 
+	 * {@link MessageFlowExtractionPlan#includesOtherNodes()}). The nodes are 
+	 * not part of {@link #getNodes()}.
+	 * 
+	 * @return an unmodifiable list of the nodes of types which are not supported
+	 */
+	public List<MessageFlowNode> getOtherNodes() {
+		return Collections.unmodifiableList(otherNodes);
+	}
+	
+	/**
+	 * The method returns the plan defining the nodes and properties which 
+	 * have been extracted from the message flow file.
+	 * 
+	 * @return the extraction plan of the Message Flow
+	 */
+	public MessageFlowExtractionPlan getExtractionPlan() {
+		return extractionPlan;
+	}
+	
+	/**
+	 * The method returns all connections (edges) of the Message Flow in 
+	 * document order.
+	 * 
+	 * @return a list of the connections of the Message Flow
+	 */
+	public List<MessageFlowConnection> getConnections() {
+		return connectionIndex.getConnections();
+	}
+	
+	/**
+	 * The method returns the connections of the Message Flow starting at the 
+	 * given node.
+	 * 
+	 * @param nodeId the ID of the source node
+	 * 
+	 * @return a list of the outgoing connections of the node
+	 */
+	public List<MessageFlowConnection> getConnectionsFrom(String nodeId) {
+		return connectionIndex.getConnectionsFrom(nodeId);
+	}
+	
+	/**
+	 * The method returns the connections of the Message Flow ending at the 
+	 * given node.
+	 * 
+	 * @param nodeId the ID of the target node
+	 * 
+	 * @return a list of the incoming connections of the node
+	 */
+	public List<MessageFlowConnection> getConnectionsTo(String nodeId) {
+		return connectionIndex.getConnectionsTo(nodeId);
+	}
+	
+	/**
+	 * The method returns the graph index of the Message Flow providing the 
+	 * lookup of nodes by ID and the adjacency of the nodes. The index is 
+	 * created on first use.
+	 * 
+	 * @return the graph index of the Message Flow
+	 */
+	public MessageFlowGraph getGraph() {
+		MessageFlowGraph result = graph;
+		
+		if (result == null) {
+			/* concurrent callers may create equal indices, one of them is kept */
+			result = new MessageFlowGraph(this);
+			graph = result;
+		}
+		
+		return result;
 	}
 }
@@ -0,0 +1,427 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class reads and writes the compact binary form of a message flow model 
+ * used by the {@link MessageFlowDiskCache}. Reading a message flow from its 
+ * binary form does not involve any XML parsing.
+ * 
+ * The binary form starts with a header (magic number, format version and 
+ * plug-in version) followed by a table of the distinct strings of the 
+ * message flow, the nodes (including the values of the attribute properties 
+ * and the monitoring events), 
+ * the connections, the subflow nodes and the nodes of types which are not 
+ * supported (with their monitoring events). Strings, booleans and 
+ * counts are written as indices into the string table, bit fields and 
+ * variable-length integers respectively.
+ * 
+ * Unlike the XML parsers, the binary parser throws an 
+ * {@link IllegalStateException} if the file cannot be read, so that the 
+ * caller can fall back to parsing the message flow file.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowBinaryParser extends MessageFlowParser {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowBinaryParser.class);
+	
+	/**
+	 * the magic number of the binary form ('MSGF')
+	 */
+	private static final int MAGIC = 0x4D534746;
+	
+	/**
+	 * the version of the binary form, to be increased whenever the layout 
+	 * or the content of the model changes
+	 */
+	static final int FORMAT_VERSION = 6;
+	
+	/**
+	 * the plug-in version the binary form must have been written with
+	 */
+	private final String pluginVersion;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param pluginVersion the plug-in version the binary form must have been written with
+	 */
+	public MessageFlowBinaryParser(String pluginVersion) {
+		this.pluginVersion = pluginVersion;
+	}
+	
+	/**
+	 * Reads the binary form of a message flow and creates the message flow 
+	 * node model. The binary form holds the nodes and properties extracted 
+	 * when it was written, so the plan is not applied again (the persistent 
+	 * cache keeps the entries of different plans apart).
+	 * 
+	 * @see MessageFlowParser#parse(String, MessageFlowExtractionPlan, EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)
+	 */
+	@Override
+	public void parse(String fileName,
+					  MessageFlowExtractionPlan plan,
+					  EnumMap<MessageFlowNodeType, ArrayList<MessageFlowNode>> nodes,
+					  MessageFlowConnectionIndex connectionIndex,
+					  ArrayList<MessageFlowSubflowNode> subflowNodes,
+					  ArrayList<MessageFlowNode> otherNodes) {
+		LOG.debug("START");
+		
+		DataInputStream in = null;
+		
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+			
+			if (in.readInt() != MAGIC || in.readUnsignedShort() != FORMAT_VERSION || !in.readUTF().equals(pluginVersion)) {
+				throw new IllegalStateException("The binary message flow " + fileName + " has been written by another version.");
+			}
+			
+			String[] strings = new String[readCount(in)];
+			
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = in.readUTF();
+			}
+			
+			for (int non = readCount(in); non > 0; non--) {
+				String id						= readString(in, strings);
+				String name						= readString(in, strings);
+				MessageFlowNodeType nodeType	= MessageFlowNodeType.forTypeName(readString(in, strings));
+				String messageDomainProperty	= readString(in, strings);
+				String messageSetProperty		= readString(in, strings);
+				String requestMsgLocationInTree	= readString(in, strings);
+				String messageDomain			= readString(in, strings);
+				String messageSet				= readString(in, strings);
+				String recordDefinition			= readString(in, strings);
+				int flags						= in.readUnsignedShort();
+				ArrayList<String> inputTerminals	= readStrings(in, strings);
+				ArrayList<String> outputTerminals	= readStrings(in, strings);
+				ArrayList<String> attributes		= readStrings(in, strings);
+				ArrayList<MessageFlowMonitoringEvent> monitoringEvents = readMonitoringEvents(in, strings);
+				
+				MessageFlowNode mfn = new MessageFlowNode(id,
+														  name,
+														  nodeType.getTypeName(),
+														  (flags & 0x001) != 0,
+														  (flags & 0x002) != 0,
+														  (flags & 0x004) != 0,
+														  (flags & 0x008) != 0,
+														  messageDomainProperty,
+														  messageSetProperty,
+														  requestMsgLocationInTree,
+														  messageDomain,
+														  messageSet,
+														  recordDefinition,
+														  (flags & 0x010) != 0,
+														  (flags & 0x020) != 0,
+														  (flags & 0x040) != 0,
+														  (flags & 0x080) != 0,
+														  (flags & 0x100) != 0,
+														  inputTerminals,
+														  outputTerminals,
+														  attributes.isEmpty() ? null : attributes.toArray(new String[attributes.size()]),
+														  monitoringEvents);
+				
+				addNode(mfn, nodeType, nodes);
+			}
+			
+			for (int noc = readCount(in); noc > 0; noc--) {
+				connectionIndex.add(new MessageFlowConnection(readString(in, strings),
+															  readString(in, strings),
+															  readString(in, strings),
+															  readString(in, strings)));
+			}
+			
+			for (int nos = readCount(in); nos > 0; nos--) {
+				subflowNodes.add(new MessageFlowSubflowNode(readString(in, strings),
+															readString(in, strings),
+															readString(in, strings)));
+			}
+			
+			for (int noo = readCount(in); noo > 0; noo--) {
+				String id		= readString(in, strings);
+				String name		= readString(in, strings);
+				String typeName	= readString(in, strings);
+				
+				otherNodes.add(createOtherNode(id, name, typeName, connectionIndex, readMonitoringEvents(in, strings)));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("The binary message flow " + fileName + " cannot be read.", e);
+		} catch (RuntimeException e) {
+			throw new IllegalStateException("The binary message flow " + fileName + " is corrupt.", e);
+		} finally {
+			closeQuietly(in);
+		}
+		
+		LOG.debug("END");
+	}
+	
+	/**
+	 * Writes the binary form of a message flow.
+	 * 
+	 * @param msgFlow the message flow to be written
+	 * @param pluginVersion the version of the plug-in
+	 * @param out the stream to write to, which is not closed
+	 * 
+	 * @throws IOException if the message flow cannot be written
+	 */
+	public static void write(MessageFlow msgFlow, String pluginVersion, OutputStream out) throws IOException {
+		Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream bodyOut = new DataOutputStream(body);
+		
+		List<MessageFlowNode> nodes = msgFlow.getNodes();
+		writeCount(bodyOut, nodes.size());
+		
+		for (MessageFlowNode node : nodes) {
+			writeString(bodyOut, strings, node.getId());
+			writeString(bodyOut, strings, node.getName());
+			writeString(bodyOut, strings, node.getType());
+			writeString(bodyOut, strings, node.getMessageDomainProperty());
+			writeString(bodyOut, strings, node.getMessageSetProperty());
+			writeString(bodyOut, strings, node.getRequestMsgLocationInTree());
+			writeString(bodyOut, strings, node.getMessageDomain());
+			writeString(bodyOut, strings, node.getMessageSet());
+			writeString(bodyOut, strings, node.getRecordDefinition());
+			bodyOut.writeShort((node.isBuildTreeUsingSchema()		? 0x001 : 0)
+							 | (node.isMixedContentRetainMode()		? 0x002 : 0)
+							 | (node.isCommentsRetainMode()			? 0x004 : 0)
+							 | (node.isValidateMaster()				? 0x008 : 0)
+							 | (node.isResetMessageDomain()			? 0x010 : 0)
+							 | (node.isResetMessageSet()			? 0x020 : 0)
+							 | (node.isResetMessageType()			? 0x040 : 0)
+							 | (node.isResetMessageFormat()			? 0x080 : 0)
+							 | (node.areMonitoringEventsEnabled()	? 0x100 : 0));
+			writeStrings(bodyOut, strings, node.getInputConnections());
+			writeStrings(bodyOut, strings, node.getOutputConnections());
+			writeStrings(bodyOut, strings, attributesOf(node));
+			writeMonitoringEvents(bodyOut, strings, node.getMonitoringEvents());
+		}
+		
+		List<MessageFlowConnection> connections = msgFlow.getConnections();
+		writeCount(bodyOut, connections.size());
+		
+		for (MessageFlowConnection connection : connections) {
+			writeString(bodyOut, strings, connection.getSourceNode());
+			writeString(bodyOut, strings, connection.getSourceTerminal());
+			writeString(bodyOut, strings, connection.getTargetNode());
+			writeString(bodyOut, strings, connection.getTargetTerminal());
+		}
+		
+		List<MessageFlowSubflowNode> subflowNodes = msgFlow.getSubflowNodes();
+		writeCount(bodyOut, subflowNodes.size());
+		
+		for (MessageFlowSubflowNode subflowNode : subflowNodes) {
+			writeString(bodyOut, strings, subflowNode.getId());
+			writeString(bodyOut, strings, subflowNode.getName());
+			writeString(bodyOut, strings, subflowNode.getSubflow());
+		}
+		
+		List<MessageFlowNode> otherNodes = msgFlow.getOtherNodes();
+		writeCount(bodyOut, otherNodes.size());
+		
+		for (MessageFlowNode otherNode : otherNodes) {
+			writeString(bodyOut, strings, otherNode.getId());
+			writeString(bodyOut, strings, otherNode.getName());
+			writeString(bodyOut, strings, otherNode.getType());
+			writeMonitoringEvents(bodyOut, strings, otherNode.getMonitoringEvents());
+		}
+		
+		bodyOut.flush();
+		
+		DataOutputStream headerOut = new DataOutputStream(new BufferedOutputStream(out));
+		headerOut.writeInt(MAGIC);
+		headerOut.writeShort(FORMAT_VERSION);
+		headerOut.writeUTF(pluginVersion);
+		writeCount(headerOut, strings.size());
+		
+		for (String string : strings.keySet()) {
+			headerOut.writeUTF(string);
+		}
+		
+		body.writeTo(headerOut);
+		headerOut.flush();
+	}
+	
+	/**
+	 * Writes the monitoring events of a node. The flag and the scope of an 
+	 * event are packed into one count.
+	 */
+	private static void writeMonitoringEvents(DataOutputStream out, Map<String, Integer> strings, List<MessageFlowMonitoringEvent> events) throws IOException {
+		writeCount(out, events.size());
+		
+		for (MessageFlowMonitoringEvent event : events) {
+			writeString(out, strings, event.getSource());
+			writeCount(out, event.getPayloadScope().ordinal() << 1 | (event.isEnabled() ? 1 : 0));
+		}
+	}
+	
+	/**
+	 * Reads the monitoring events of a node written by 
+	 * {@link #writeMonitoringEvents(DataOutputStream, Map, List)}.
+	 */
+	private static ArrayList<MessageFlowMonitoringEvent> readMonitoringEvents(DataInputStream in, String[] strings) throws IOException {
+		ArrayList<MessageFlowMonitoringEvent> events = new ArrayList<MessageFlowMonitoringEvent>();
+		
+		for (int noe = readCount(in); noe > 0; noe--) {
+			String source	= readString(in, strings);
+			int event		= readCount(in);
+			
+			events.add(new MessageFlowMonitoringEvent(source, (event & 1) != 0, MessageFlowMonitoringEvent.PayloadScope.values()[event >> 1]));
+		}
+		
+		return events;
+	}
+	
+	/**
+	 * Returns the values of the attribute properties of a node.
+	 * 
+	 * @return the values by attribute index or an empty list if none is set
+	 */
+	private static List<String> attributesOf(MessageFlowNode node) {
+		List<String> attributes = new ArrayList<String>();
+		
+		if (node.hasAttributes()) {
+			for (int i = 0; i < MessageFlowNodeProperty.attributes().length; i++) {
+				attributes.add(node.getAttribute(i));
+			}
+		}
+		
+		return attributes;
+	}
+	
+	/**
+	 * Writes a string as index into the string table. The index 0 stands 
+	 * for null.
+	 */
+	private static void writeString(DataOutputStream out, Map<String, Integer> strings, String string) throws IOException {
+		if (string == null) {
+			writeCount(out, 0);
+			return;
+		}
+		
+		Integer index = strings.get(string);
+		
+		if (index == null) {
+			index = strings.size();
+			strings.put(string, index);
+		}
+		
+		writeCount(out, index + 1);
+	}
+	
+	/**
+	 * Writes a list of strings as indices into the string table.
+	 */
+	private static void writeStrings(DataOutputStream out, Map<String, Integer> strings, List<String> list) throws IOException {
+		writeCount(out, list.size());
+		
+		for (String string : list) {
+			writeString(out, strings, string);
+		}
+	}
+	
+	/**
+	 * Writes a non-negative integer using 7 bits per byte.
+	 */
+	private static void writeCount(DataOutputStream out, int count) throws IOException {
+		int value = count;
+		
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		out.writeByte(value);
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString}.
+	 */
+	private static String readString(DataInputStream in, String[] strings) throws IOException {
+		int index = readCount(in);
+		
+		return index == 0 ? null : strings[index - 1];
+	}
+	
+	/**
+	 * Reads a list of strings written by {@link #writeStrings}.
+	 */
+	private static ArrayList<String> readStrings(DataInputStream in, String[] strings) throws IOException {
+		int count = readCount(in);
+		ArrayList<String> list = new ArrayList<String>(count);
+		
+		for (int i = 0; i < count; i++) {
+			list.add(readString(in, strings));
+		}
+		
+		return list;
+	}
+	
+	/**
+	 * Reads a non-negative integer written by {@link #writeCount}.
+	 */
+	private static int readCount(DataInputStream in) throws IOException {
+		int value = 0;
+		
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		
+		throw new IOException("Malformed count");
+	}
+	
+	/**
+	 * Closes the stream and ignores errors.
+	 */
+	private static void closeQuietly(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				LOG.debug(e.getMessage());
+			}
+		}
+	}
+}
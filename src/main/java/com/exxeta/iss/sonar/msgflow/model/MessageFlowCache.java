@@ -0,0 +1,233 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class is a thread-safe, size-bounded cache of message flows keyed by
+ * file name. The least recently used message flow is evicted if the
+ * maximum number of entries is exceeded.
+ *
+ * A message flow is loaded at most once per key even if several threads
+ * request it at the same time: the first thread loads the message flow,
+ * the other threads wait for the result.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowCache {
+
+	/**
+	 * the default maximum number of entries
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+	/**
+	 * the entries in access order (least recently used first), guarded by itself
+	 */
+	private final LinkedHashMap<String, FutureTask<MessageFlow>> entries = new LinkedHashMap<String, FutureTask<MessageFlow>>(16, 0.75f, true);
+
+	/**
+	 * the maximum number of entries, guarded by entries
+	 */
+	private int maximumSize;
+
+	/**
+	 * the number of requests answered from the cache
+	 */
+	private final AtomicLong hitCount = new AtomicLong();
+
+	/**
+	 * the number of requests which caused a message flow to be loaded
+	 */
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * the number of entries evicted due to the size bound
+	 */
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * Creates a cache holding at most the given number of message flows.
+	 *
+	 * @param maximumSize the maximum number of entries (at least 1)
+	 */
+	public MessageFlowCache(int maximumSize) {
+		setMaximumSize(maximumSize);
+	}
+
+	/**
+	 * The method returns the message flow for the key. If the key is not in
+	 * the cache, the message flow is created by the loader and put to the
+	 * cache. Concurrent requests for the same key share one load.
+	 *
+	 * @param key the key (file name) of the message flow
+	 * @param loader the loader creating the message flow on a cache miss
+	 *
+	 * @return the message flow
+	 */
+	public MessageFlow get(String key, Callable<MessageFlow> loader) {
+		FutureTask<MessageFlow> entry;
+		boolean load = false;
+
+		synchronized (entries) {
+			entry = entries.get(key);
+
+			if (entry == null) {
+				entry = new FutureTask<MessageFlow>(loader);
+				load = true;
+
+				entries.put(key, entry);
+				evict();
+			}
+		}
+
+		if (load) {
+			missCount.incrementAndGet();
+
+			/* the message flow is loaded outside of the lock */
+			entry.run();
+		} else {
+			hitCount.incrementAndGet();
+		}
+
+		try {
+			return entry.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new IllegalStateException("Interrupted while loading " + key, e);
+		} catch (ExecutionException e) {
+			/* failed loads are not cached */
+			synchronized (entries) {
+				if (entries.get(key) == entry) {
+					entries.remove(key);
+				}
+			}
+
+			throw new IllegalStateException("Failed to load " + key, e.getCause());
+		}
+	}
+
+	/**
+	 * The method removes all entries from the cache. The statistics are kept.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * The method returns the number of entries in the cache.
+	 *
+	 * @return the number of entries in the cache
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * The method returns the maximum number of entries.
+	 *
+	 * @return the maximum number of entries
+	 */
+	public int getMaximumSize() {
+		synchronized (entries) {
+			return maximumSize;
+		}
+	}
+
+	/**
+	 * The method sets the maximum number of entries. If the cache holds more
+	 * entries, the least recently used entries are evicted.
+	 *
+	 * @param maximumSize the maximum number of entries (at least 1)
+	 */
+	public void setMaximumSize(int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size of the cache must be at least 1, but is " + maximumSize + ".");
+		}
+
+		synchronized (entries) {
+			this.maximumSize = maximumSize;
+
+			evict();
+		}
+	}
+
+	/**
+	 * The method returns the number of requests answered from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * The method returns the number of requests which caused a load.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * The method returns the number of entries evicted due to the size bound.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MessageFlowCache[size=" + size() + ", maximumSize=" + getMaximumSize() + ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	/**
+	 * Evicts the least recently used entries until the size bound is met.
+	 * The caller must hold the lock on entries.
+	 */
+	private void evict() {
+		Iterator<FutureTask<MessageFlow>> iterator = entries.values().iterator();
+
+		while (entries.size() > maximumSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+
+			evictionCount.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+/**
+ * The class is a model of a connection (edge) between two message flow 
+ * nodes. A connection links an output terminal of the source node to an 
+ * input terminal of the target node.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowConnection {
+
+	/**
+	 * the ID of the source node of the connection
+	 */
+	private final String sourceNode;
+	
+	/**
+	 * the name of the output terminal of the source node, e.g. 'OutTerminal.out'
+	 */
+	private final String sourceTerminal;
+	
+	/**
+	 * the ID of the target node of the connection
+	 */
+	private final String targetNode;
+	
+	/**
+	 * the name of the input terminal of the target node, e.g. 'InTerminal.in'
+	 */
+	private final String targetTerminal;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a new connection (model) between two message flow nodes.
+	 */
+	public MessageFlowConnection(String sourceNode,
+								 String sourceTerminal,
+								 String targetNode,
+								 String targetTerminal) {
+		this.sourceNode		= sourceNode;
+		this.sourceTerminal	= sourceTerminal;
+		this.targetNode		= targetNode;
+		this.targetTerminal	= targetTerminal;
+	}
+
+	/**
+	 * The method returns the ID of the source node of the connection.
+	 * 
+	 * @return the ID of the source node of the connection
+	 */
+	public String getSourceNode() {
+		return sourceNode;
+	}
+
+	/**
+	 * The method returns the name of the output terminal of the source node.
+	 * 
+	 * @return the name of the output terminal of the source node
+	 */
+	public String getSourceTerminal() {
+		return sourceTerminal;
+	}
+
+	/**
+	 * The method returns the ID of the target node of the connection.
+	 * 
+	 * @return the ID of the target node of the connection
+	 */
+	public String getTargetNode() {
+		return targetNode;
+	}
+
+	/**
+	 * The method returns the name of the input terminal of the target node.
+	 * 
+	 * @return the name of the input terminal of the target node
+	 */
+	public String getTargetTerminal() {
+		return targetTerminal;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return sourceNode + "." + sourceTerminal + " -> " + targetNode + "." + targetTerminal;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The class indexes the connections of a message flow by the IDs of their 
+ * source and target nodes. The index is filled in one pass over the 
+ * connections of a message flow file, so the terminals of all nodes can be 
+ * looked up in linear time instead of scanning all connections per node.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowConnectionIndex {
+
+	/**
+	 * the list of all connections in document order
+	 */
+	private final ArrayList<MessageFlowConnection> connections = new ArrayList<MessageFlowConnection>();
+	
+	/**
+	 * the connections grouped by the ID of their source node
+	 */
+	private final HashMap<String, ArrayList<MessageFlowConnection>> bySourceNode = new HashMap<String, ArrayList<MessageFlowConnection>>();
+	
+	/**
+	 * the connections grouped by the ID of their target node
+	 */
+	private final HashMap<String, ArrayList<MessageFlowConnection>> byTargetNode = new HashMap<String, ArrayList<MessageFlowConnection>>();
+	
+	/**
+	 * The method adds a connection to the index.
+	 * 
+	 * @param connection the connection to be added
+	 */
+	public void add(MessageFlowConnection connection) {
+		connections.add(connection);
+		
+		if (connection.getSourceNode() != null) {
+			group(bySourceNode, connection.getSourceNode()).add(connection);
+		}
+		
+		if (connection.getTargetNode() != null) {
+			group(byTargetNode, connection.getTargetNode()).add(connection);
+		}
+	}
+	
+	/**
+	 * The method returns all connections of the message flow in document order.
+	 * 
+	 * @return an unmodifiable list of all connections
+	 */
+	public List<MessageFlowConnection> getConnections() {
+		return Collections.unmodifiableList(connections);
+	}
+	
+	/**
+	 * The method returns the connections starting at the given node in 
+	 * document order.
+	 * 
+	 * @param nodeId the ID of the source node
+	 * 
+	 * @return an unmodifiable list of the outgoing connections of the node
+	 */
+	public List<MessageFlowConnection> getConnectionsFrom(String nodeId) {
+		return unmodifiable(bySourceNode.get(nodeId));
+	}
+	
+	/**
+	 * The method returns the connections ending at the given node in 
+	 * document order.
+	 * 
+	 * @param nodeId the ID of the target node
+	 * 
+	 * @return an unmodifiable list of the incoming connections of the node
+	 */
+	public List<MessageFlowConnection> getConnectionsTo(String nodeId) {
+		return unmodifiable(byTargetNode.get(nodeId));
+	}
+	
+	/**
+	 * The method returns the names of the connected input terminals of a 
+	 * node. A terminal is listed once per connection. The list is in reverse 
+	 * document order of the connections as created by the parser ever since.
+	 * 
+	 * @param nodeId the ID of the node
+	 * 
+	 * @return a new list of input terminal names
+	 */
+	public ArrayList<String> getInputTerminals(String nodeId) {
+		ArrayList<MessageFlowConnection> group = byTargetNode.get(nodeId);
+		ArrayList<String> terminals = new ArrayList<String>(group == null ? 0 : group.size());
+		
+		if (group != null) {
+			for (int i = group.size() - 1; i >= 0; i--) {
+				terminals.add(group.get(i).getTargetTerminal());
+			}
+		}
+		
+		return terminals;
+	}
+	
+	/**
+	 * The method returns the names of the connected output terminals of a 
+	 * node. A terminal is listed once per connection. The list is in reverse 
+	 * document order of the connections as created by the parser ever since.
+	 * 
+	 * @param nodeId the ID of the node
+	 * 
+	 * @return a new list of output terminal names
+	 */
+	public ArrayList<String> getOutputTerminals(String nodeId) {
+		ArrayList<MessageFlowConnection> group = bySourceNode.get(nodeId);
+		ArrayList<String> terminals = new ArrayList<String>(group == null ? 0 : group.size());
+		
+		if (group != null) {
+			for (int i = group.size() - 1; i >= 0; i--) {
+				terminals.add(group.get(i).getSourceTerminal());
+			}
+		}
+		
+		return terminals;
+	}
+	
+	/**
+	 * Returns the group of connections for a node ID and creates the group 
+	 * if necessary.
+	 */
+	private static ArrayList<MessageFlowConnection> group(HashMap<String, ArrayList<MessageFlowConnection>> groups, String nodeId) {
+		ArrayList<MessageFlowConnection> group = groups.get(nodeId);
+		
+		if (group == null) {
+			group = new ArrayList<MessageFlowConnection>(2);
+			groups.put(nodeId, group);
+		}
+		
+		return group;
+	}
+	
+	/**
+	 * Returns an unmodifiable view of a group of connections.
+	 */
+	private static List<MessageFlowConnection> unmodifiable(ArrayList<MessageFlowConnection> group) {
+		if (group == null) {
+			return Collections.emptyList();
+		}
+		
+		return Collections.unmodifiableList(group);
+	}
+}
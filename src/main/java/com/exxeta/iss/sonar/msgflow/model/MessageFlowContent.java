@@ -0,0 +1,156 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The class provides the content of the message flow files to the parsers 
+ * and the persistent cache. The content of a file may be read in advance 
+ * (prefetched), e.g. by another stage of the analysis, and handed to the 
+ * thread loading the message flow, so the file is not read again.
+ * 
+ * The prefetched content is held per thread and is only used for the file 
+ * it has been read from.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowContent {
+
+	/**
+	 * the file name (index 0) and the prefetched content (index 1) of the 
+	 * current thread
+	 */
+	private static final ThreadLocal<Object[]> PREFETCHED = new ThreadLocal<Object[]>() {
+		@Override
+		protected Object[] initialValue() {
+			return new Object[2];
+		}
+	};
+	
+	/**
+	 * Constructor
+	 * 
+	 * Direct instantiation is not possible.
+	 */
+	private MessageFlowContent() {
+	}
+	
+	/**
+	 * The method reads the content of a file using a file channel.
+	 * 
+	 * @param file the file
+	 * 
+	 * @return the content of the file
+	 * 
+	 * @throws IOException if the file cannot be read
+	 */
+	public static byte[] read(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		try {
+			long size = channel.size();
+			
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("The file " + file + " is too large.");
+			}
+			
+			ByteBuffer buffer = ByteBuffer.allocate((int)size);
+			
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new EOFException("The file " + file + " has been truncated.");
+				}
+			}
+			
+			return buffer.array();
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * The method sets the prefetched content of a file for the current thread.
+	 * 
+	 * @param fileName the file name as passed to the parser
+	 * @param content the content of the file or null if it has not been read
+	 */
+	public static void prefetch(String fileName, byte[] content) {
+		Object[] prefetched = PREFETCHED.get();
+		
+		prefetched[0] = content == null ? null : fileName;
+		prefetched[1] = content;
+	}
+	
+	/**
+	 * The method removes the prefetched content of the current thread.
+	 */
+	public static void clear() {
+		prefetch(null, null);
+	}
+	
+	/**
+	 * The method returns the content of a file, the prefetched content if 
+	 * available.
+	 * 
+	 * @param fileName the file name
+	 * 
+	 * @return the content of the file
+	 * 
+	 * @throws IOException if the file cannot be read
+	 */
+	static byte[] readAllBytes(String fileName) throws IOException {
+		byte[] content = prefetched(fileName);
+		
+		return content == null ? read(new File(fileName)) : content;
+	}
+	
+	/**
+	 * The method opens a stream on the content of a file, the prefetched 
+	 * content if available.
+	 * 
+	 * @param fileName the file name
+	 * 
+	 * @return the stream, which must be closed by the caller
+	 * 
+	 * @throws IOException if the file cannot be opened
+	 */
+	static InputStream open(String fileName) throws IOException {
+		byte[] content = prefetched(fileName);
+		
+		return content == null ? new BufferedInputStream(new FileInputStream(fileName)) : new ByteArrayInputStream(content);
+	}
+	
+	/**
+	 * Returns the prefetched content of the file or null.
+	 */
+	private static byte[] prefetched(String fileName) {
+		Object[] prefetched = PREFETCHED.get();
+		
+		return fileName.equals(prefetched[0]) ? (byte[])prefetched[1] : null;
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class is a persistent cache of parsed message flows in a directory, 
+ * usually below the working directory of the analysis. The binary form of 
+ * each message flow (see {@link MessageFlowBinaryParser}) is stored in a 
+ * file named after the hash of the plug-in version, the extraction plan and 
+ * the content of the message flow file. Unchanged message flow files are 
+ * therefore loaded without XML parsing in later analyses, while changed 
+ * files, a new plug-in version or other active rules lead to a new entry.
+ * 
+ * The cache may be used by several threads at the same time.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowDiskCache {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowDiskCache.class);
+	
+	/**
+	 * the suffix of the cache entries
+	 */
+	private static final String SUFFIX = ".bin";
+	
+	/**
+	 * the directory holding the cache entries
+	 */
+	private final File directory;
+	
+	/**
+	 * the version of the plug-in
+	 */
+	private final String pluginVersion;
+	
+	/**
+	 * the names of the entries read or written during the analysis
+	 */
+	private final Set<String> usedEntries = Collections.synchronizedSet(new HashSet<String>());
+	
+	/**
+	 * the number of message flows loaded from the cache
+	 */
+	private final AtomicLong reuseCount = new AtomicLong();
+	
+	/**
+	 * the number of message flows parsed and written to the cache
+	 */
+	private final AtomicLong storeCount = new AtomicLong();
+	
+	/**
+	 * the number of cache entries which could not be read or written
+	 */
+	private final AtomicLong errorCount = new AtomicLong();
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param directory the directory holding the cache entries
+	 * @param pluginVersion the version of the plug-in
+	 */
+	public MessageFlowDiskCache(File directory, String pluginVersion) {
+		this.directory = directory;
+		this.pluginVersion = pluginVersion;
+	}
+	
+	/**
+	 * The method returns the message flow of the file. If the cache holds an 
+	 * entry for the content of the file, the message flow is read from the 
+	 * entry. Otherwise the file is parsed and the message flow is stored.
+	 * 
+	 * @param fileName the file name of the message flow file
+	 * @param parser the parser for the message flow file
+	 * 
+	 * @return the message flow
+	 */
+	public MessageFlow load(String fileName, MessageFlowParser parser) {
+		return load(fileName, parser, MessageFlowExtractionPlan.ALL);
+	}
+	
+	/**
+	 * The method returns the message flow of the file holding the nodes and 
+	 * properties of the extraction plan. If the cache holds an entry for the 
+	 * content of the file and the plan, the message flow is read from the 
+	 * entry. Otherwise the file is parsed and the message flow is stored.
+	 * 
+	 * @param fileName the file name of the message flow file
+	 * @param parser the parser for the message flow file
+	 * @param plan the nodes and properties to be extracted
+	 * 
+	 * @return the message flow
+	 */
+	public MessageFlow load(String fileName, MessageFlowParser parser, MessageFlowExtractionPlan plan) {
+		String key;
+		
+		try {
+			key = key(new File(fileName), plan);
+		} catch (IOException e) {
+			/* the parser reports files which cannot be read */
+			return new MessageFlow(fileName, parser, plan);
+		}
+		
+		File entry = new File(directory, key + SUFFIX);
+		usedEntries.add(entry.getName());
+		
+		if (entry.isFile()) {
+			try {
+				MessageFlow msgFlow = new MessageFlow(entry.getPath(), new MessageFlowBinaryParser(pluginVersion), plan);
+				reuseCount.incrementAndGet();
+				
+				return msgFlow;
+			} catch (IllegalStateException e) {
+				LOG.warn("Ignoring cache entry for " + fileName + ": " + e.getMessage());
+				errorCount.incrementAndGet();
+			}
+		}
+		
+		MessageFlow msgFlow = new MessageFlow(fileName, parser, plan);
+		store(msgFlow, entry);
+		
+		return msgFlow;
+	}
+	
+	/**
+	 * The method deletes the entries which have not been used during the 
+	 * analysis, i.e. the entries of changed, deleted or excluded files and 
+	 * of other plug-in versions.
+	 * 
+	 * @return the number of deleted entries
+	 */
+	public int deleteUnusedEntries() {
+		File[] entries = directory.listFiles();
+		int deleted = 0;
+		
+		if (entries != null) {
+			for (File entry : entries) {
+				if (entry.getName().endsWith(SUFFIX) && !usedEntries.contains(entry.getName()) && entry.delete()) {
+					deleted++;
+				}
+			}
+		}
+		
+		return deleted;
+	}
+	
+	/**
+	 * The method returns the number of message flows loaded from the cache.
+	 * 
+	 * @return the number of reused message flows
+	 */
+	public long getReuseCount() {
+		return reuseCount.get();
+	}
+	
+	/**
+	 * The method returns the number of message flows parsed and written to 
+	 * the cache.
+	 * 
+	 * @return the number of stored message flows
+	 */
+	public long getStoreCount() {
+		return storeCount.get();
+	}
+	
+	/**
+	 * The method returns the number of cache entries which could not be 
+	 * read or written.
+	 * 
+	 * @return the number of errors
+	 */
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+	
+	/**
+	 * The method returns the directory holding the cache entries.
+	 * 
+	 * @return the directory holding the cache entries
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		long reused = getReuseCount();
+		long total = reused + getStoreCount();
+		
+		return "MessageFlowDiskCache[reused=" + reused + "/" + total 
+				+ (total > 0 ? " (" + (100 * reused / total) + "%)" : "")
+				+ ", stored=" + getStoreCount() + ", errors=" + getErrorCount() + ", directory=" + directory + "]";
+	}
+	
+	/**
+	 * Writes the binary form of the message flow to a temporary file, which 
+	 * is renamed to the entry afterwards. Concurrent readers therefore never 
+	 * see a partially written entry.
+	 */
+	private void store(MessageFlow msgFlow, File entry) {
+		File temp = null;
+		
+		try {
+			if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+				throw new IOException("The directory " + directory + " cannot be created.");
+			}
+			
+			temp = File.createTempFile(entry.getName(), ".tmp", directory);
+			OutputStream out = new FileOutputStream(temp);
+			
+			try {
+				MessageFlowBinaryParser.write(msgFlow, pluginVersion, out);
+			} finally {
+				out.close();
+			}
+			
+			Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			storeCount.incrementAndGet();
+		} catch (IOException e) {
+			LOG.warn("Cannot write cache entry " + entry + ": " + e.getMessage());
+			errorCount.incrementAndGet();
+			
+			if (temp != null && !temp.delete()) {
+				temp.deleteOnExit();
+			}
+		}
+	}
+	
+	/**
+	 * Computes the name of the entry from the plug-in version, the 
+	 * extraction plan and the content of the file.
+	 */
+	private String key(File file, MessageFlowExtractionPlan plan) throws IOException {
+		MessageDigest digest;
+		
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		
+		digest.update(pluginVersion.getBytes(Charset.forName("UTF-8")));
+		digest.update((byte)0);
+		digest.update((byte)MessageFlowBinaryParser.FORMAT_VERSION);
+		digest.update(plan.getKey().getBytes(Charset.forName("UTF-8")));
+		digest.update((byte)0);
+		digest.update(MessageFlowContent.readAllBytes(file.getPath()));
+		
+		StringBuilder key = new StringBuilder();
+		
+		for (byte b : digest.digest()) {
+			key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		
+		return key.toString();
+	}
+}
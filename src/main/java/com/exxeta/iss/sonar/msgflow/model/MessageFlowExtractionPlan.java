@@ -0,0 +1,238 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The class defines which nodes and node properties the parsers extract 
+ * from the message flow files. Nodes of a type which is not part of the 
+ * plan are skipped right after their type has been read, properties which 
+ * are not part of the plan are not read at all and keep the value of a 
+ * missing attribute.
+ * 
+ * The nodes of types which are not supported (e.g. Java Compute or Route 
+ * Nodes) are only extracted if the plan includes them (see 
+ * {@link #includesOtherNodes()}), in which case their monitoring events are 
+ * read.
+ * 
+ * The plan is derived from the active rules of the analysis, so the 
+ * parsers only do the work the rules need. A plan is immutable.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowExtractionPlan {
+
+	/**
+	 * the plan extracting all nodes and properties
+	 */
+	public static final MessageFlowExtractionPlan ALL = createAll();
+	
+	/**
+	 * the properties to be extracted by node type
+	 */
+	private final EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties;
+	
+	/**
+	 * whether the nodes of types which are not supported are extracted
+	 */
+	private final boolean otherNodes;
+	
+	/**
+	 * the canonical form of the plan, e.g. 'COMPUTE[MONITORING_EVENTS];TRY_CATCH[];OTHER[MONITORING_EVENTS]'
+	 */
+	private final String key;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param properties the properties to be extracted by node type; the nodes 
+	 * of the types missing in the map are not extracted
+	 */
+	public MessageFlowExtractionPlan(Map<MessageFlowNodeType, ? extends Set<MessageFlowNodeProperty>> properties) {
+		this(properties, false);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param properties the properties to be extracted by node type; the nodes 
+	 * of the types missing in the map are not extracted
+	 * @param otherNodes whether the nodes of types which are not supported are 
+	 * extracted with their monitoring events
+	 */
+	public MessageFlowExtractionPlan(Map<MessageFlowNodeType, ? extends Set<MessageFlowNodeProperty>> properties, boolean otherNodes) {
+		this.otherNodes = otherNodes;
+		this.properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		
+		for (Map.Entry<MessageFlowNodeType, ? extends Set<MessageFlowNodeProperty>> entry : properties.entrySet()) {
+			EnumSet<MessageFlowNodeProperty> typeProperties = EnumSet.noneOf(MessageFlowNodeProperty.class);
+			typeProperties.addAll(entry.getValue());
+			
+			this.properties.put(entry.getKey(), typeProperties);
+		}
+		
+		StringBuilder key = new StringBuilder();
+		
+		for (Map.Entry<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> entry : this.properties.entrySet()) {
+			if (key.length() > 0) {
+				key.append(';');
+			}
+			
+			key.append(entry.getKey().name()).append('[');
+			
+			String separator = "";
+			
+			for (MessageFlowNodeProperty property : entry.getValue()) {
+				key.append(separator).append(property.name());
+				separator = ",";
+			}
+			
+			key.append(']');
+		}
+		
+		if (otherNodes) {
+			key.append(key.length() > 0 ? ";" : "").append("OTHER[").append(MessageFlowNodeProperty.MONITORING_EVENTS.name()).append(']');
+		}
+		
+		this.key = key.toString();
+	}
+	
+	/**
+	 * The method creates the plan extracting all nodes and properties.
+	 * 
+	 * @return the plan extracting all nodes and properties
+	 */
+	private static MessageFlowExtractionPlan createAll() {
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> all = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		
+		for (MessageFlowNodeType type : MessageFlowNodeType.values()) {
+			all.put(type, EnumSet.allOf(MessageFlowNodeProperty.class));
+		}
+		
+		return new MessageFlowExtractionPlan(all, true);
+	}
+	
+	/**
+	 * The method returns whether the nodes of the given type are extracted.
+	 * 
+	 * @param type the type of the nodes
+	 * 
+	 * @return true if the nodes of the type are extracted
+	 */
+	public boolean includes(MessageFlowNodeType type) {
+		return properties.containsKey(type);
+	}
+	
+	/**
+	 * The method returns whether the nodes of types which are not supported 
+	 * are extracted. Only the ID, the name, the type and the monitoring 
+	 * events of these nodes are read.
+	 * 
+	 * @return true if the nodes of types which are not supported are extracted
+	 */
+	public boolean includesOtherNodes() {
+		return otherNodes;
+	}
+	
+	/**
+	 * The method returns whether the given property of the nodes of the 
+	 * given type is extracted.
+	 * 
+	 * @param type the type of the nodes
+	 * @param property the property of the nodes
+	 * 
+	 * @return true if the property of the nodes of the type is extracted
+	 */
+	public boolean includes(MessageFlowNodeType type, MessageFlowNodeProperty property) {
+		EnumSet<MessageFlowNodeProperty> typeProperties = properties.get(type);
+		
+		return typeProperties != null && typeProperties.contains(property);
+	}
+	
+	/**
+	 * The method returns whether no nodes are extracted at all, in which 
+	 * case the message flow files do not need to be read.
+	 * 
+	 * @return true if no nodes are extracted
+	 */
+	public boolean isEmpty() {
+		return properties.isEmpty() && !otherNodes;
+	}
+	
+	/**
+	 * The method returns the types of the extracted nodes.
+	 * 
+	 * @return the types of the extracted nodes
+	 */
+	public Set<MessageFlowNodeType> getNodeTypes() {
+		return Collections.unmodifiableSet(properties.keySet());
+	}
+	
+	/**
+	 * The method returns the extracted properties of the nodes of the given 
+	 * type.
+	 * 
+	 * @param type the type of the nodes
+	 * 
+	 * @return the extracted properties, empty if the nodes are not extracted
+	 */
+	public Set<MessageFlowNodeProperty> getProperties(MessageFlowNodeType type) {
+		EnumSet<MessageFlowNodeProperty> typeProperties = properties.get(type);
+		
+		return typeProperties == null ? Collections.<MessageFlowNodeProperty>emptySet() : Collections.unmodifiableSet(typeProperties);
+	}
+	
+	/**
+	 * The method returns the canonical form of the plan, which is used as 
+	 * part of the key of the persistent cache.
+	 * 
+	 * @return the canonical form of the plan
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof MessageFlowExtractionPlan && key.equals(((MessageFlowExtractionPlan)obj).key);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return key.hashCode();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MessageFlowExtractionPlan[" + key + "]";
+	}
+}
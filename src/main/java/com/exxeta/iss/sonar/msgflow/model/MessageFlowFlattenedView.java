@@ -0,0 +1,288 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class is a flattened view of a message flow in which the nodes 
+ * referencing a subflow are replaced by the nodes and connections of the 
+ * subflow, so that the connectivity of the nodes can be followed from end 
+ * to end. The view is created by 
+ * {@link MessageFlowProject#getFlattenedMessageFlow(String)}.
+ * 
+ * The nodes of a subflow are identified by the path of subflow node IDs 
+ * leading to them, e.g. 'FCMComposite_1_3/FCMComposite_1_1' for the node 
+ * 'FCMComposite_1_1' of the subflow referenced by the node 
+ * 'FCMComposite_1_3'. The input and output nodes of a subflow remain in the 
+ * view as connectors (e.g. 'FCMComposite_1_3/InTerminal.Input') without a 
+ * message flow node. The message flow nodes are shared with the subflow 
+ * graphs and are not copied.
+ * 
+ * A subflow node is not expanded if its subflow cannot be resolved, if it 
+ * references a subflow already expanded on the path to the node (cycle) or 
+ * if the maximum nesting depth is reached. Such nodes remain in the view 
+ * as connectors (see {@link #getUnexpandedSubflowNodes()}).
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowFlattenedView {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowFlattenedView.class);
+	
+	/**
+	 * the separator of the node IDs in the path of a subflow node
+	 */
+	public static final String SEPARATOR = "/";
+	
+	/**
+	 * the terminal of the output node of a subflow connecting it to the 
+	 * parent flow
+	 */
+	private static final String SUBFLOW_OUTPUT_TERMINAL = "OutTerminal.out";
+	
+	/**
+	 * the terminal of the input node of a subflow connecting it to the 
+	 * parent flow
+	 */
+	private static final String SUBFLOW_INPUT_TERMINAL = "InTerminal.in";
+	
+	/**
+	 * the nodes of the view by path
+	 */
+	private final LinkedHashMap<String, MessageFlowNode> nodes = new LinkedHashMap<String, MessageFlowNode>();
+	
+	/**
+	 * the index of the connections of the view using the paths of the nodes
+	 */
+	private final MessageFlowConnectionIndex connectionIndex = new MessageFlowConnectionIndex();
+	
+	/**
+	 * the paths of the subflow nodes which have not been expanded
+	 */
+	private final ArrayList<String> unexpandedSubflowNodes = new ArrayList<String>();
+	
+	/**
+	 * Constructor
+	 * 
+	 * Expands the subflow nodes of the message flow recursively.
+	 * 
+	 * @param fileName the file name of the message flow
+	 * @param msgFlow the message flow
+	 * @param project the project resolving the subflows
+	 * @param maximumDepth the maximum nesting depth of the subflows
+	 */
+	MessageFlowFlattenedView(String fileName, MessageFlow msgFlow, MessageFlowProject project, int maximumDepth) {
+		Set<String> subflowPath = new HashSet<String>();
+		subflowPath.add(fileName);
+		
+		expand(fileName, msgFlow, "", 0, subflowPath, project, maximumDepth);
+	}
+	
+	/**
+	 * Adds the nodes and connections of a message flow to the view and 
+	 * expands its subflow nodes.
+	 * 
+	 * @param fileName the file name of the message flow
+	 * @param msgFlow the message flow
+	 * @param prefix the path of the subflow node followed by the separator or an empty string
+	 * @param depth the nesting depth of the message flow
+	 * @param subflowPath the file names of the message flows expanded on the path to the message flow
+	 * @param project the project resolving the subflows
+	 * @param maximumDepth the maximum nesting depth of the subflows
+	 */
+	private void expand(String fileName, MessageFlow msgFlow, String prefix, int depth, Set<String> subflowPath, MessageFlowProject project, int maximumDepth) {
+		for (MessageFlowNode node : msgFlow.getNodes()) {
+			nodes.put(prefix + node.getId(), node);
+		}
+		
+		Set<String> expanded = new HashSet<String>();
+		
+		for (MessageFlowSubflowNode subflowNode : msgFlow.getSubflowNodes()) {
+			String path = prefix + subflowNode.getId();
+			String subflowFile = project.getSubflowFile(fileName, subflowNode);
+			
+			if (subflowFile == null) {
+				LOG.warn("The subflow " + subflowNode.getSubflow() + " of " + path + " in " + fileName + " cannot be resolved.");
+				unexpandedSubflowNodes.add(path);
+			} else if (subflowPath.contains(subflowFile)) {
+				LOG.warn("The subflow " + subflowNode.getSubflow() + " of " + path + " in " + fileName + " references itself.");
+				unexpandedSubflowNodes.add(path);
+			} else if (depth >= maximumDepth) {
+				LOG.warn("The subflow " + subflowNode.getSubflow() + " of " + path + " in " + fileName + " exceeds the maximum nesting depth of " + maximumDepth + ".");
+				unexpandedSubflowNodes.add(path);
+			} else {
+				subflowPath.add(subflowFile);
+				expand(subflowFile, project.getMessageFlow(subflowFile), path + SEPARATOR, depth + 1, subflowPath, project, maximumDepth);
+				subflowPath.remove(subflowFile);
+				
+				expanded.add(subflowNode.getId());
+			}
+		}
+		
+		/* the connections to the terminals of an expanded subflow node are linked to its input and output nodes */
+		for (MessageFlowConnection connection : msgFlow.getConnections()) {
+			String sourceNode		= connection.getSourceNode();
+			String sourceTerminal	= connection.getSourceTerminal();
+			String targetNode		= connection.getTargetNode();
+			String targetTerminal	= connection.getTargetTerminal();
+			
+			if (expanded.contains(sourceNode)) {
+				sourceNode		= prefix + sourceNode + SEPARATOR + sourceTerminal;
+				sourceTerminal	= SUBFLOW_OUTPUT_TERMINAL;
+			} else if (sourceNode != null) {
+				sourceNode		= prefix + sourceNode;
+			}
+			
+			if (expanded.contains(targetNode)) {
+				targetNode		= prefix + targetNode + SEPARATOR + targetTerminal;
+				targetTerminal	= SUBFLOW_INPUT_TERMINAL;
+			} else if (targetNode != null) {
+				targetNode		= prefix + targetNode;
+			}
+			
+			connectionIndex.add(new MessageFlowConnection(sourceNode, sourceTerminal, targetNode, targetTerminal));
+		}
+	}
+	
+	/**
+	 * The method returns the nodes of the view by path in the order they 
+	 * have been added (the nodes of a subflow follow the nodes of its parent).
+	 * 
+	 * @return an unmodifiable map of the nodes by path
+	 */
+	public Map<String, MessageFlowNode> getNodes() {
+		return Collections.unmodifiableMap(nodes);
+	}
+	
+	/**
+	 * The method returns the node of the view with the given path.
+	 * 
+	 * @param path the path of the node, e.g. 'FCMComposite_1_3/FCMComposite_1_1'
+	 * 
+	 * @return the node or null if there is no node with the path
+	 */
+	public MessageFlowNode getNode(String path) {
+		return nodes.get(path);
+	}
+	
+	/**
+	 * The method returns all connections of the view.
+	 * 
+	 * @return an unmodifiable list of the connections
+	 */
+	public List<MessageFlowConnection> getConnections() {
+		return connectionIndex.getConnections();
+	}
+	
+	/**
+	 * The method returns the connections of the view starting at the given 
+	 * node.
+	 * 
+	 * @param path the path of the source node
+	 * 
+	 * @return an unmodifiable list of the outgoing connections of the node
+	 */
+	public List<MessageFlowConnection> getConnectionsFrom(String path) {
+		return connectionIndex.getConnectionsFrom(path);
+	}
+	
+	/**
+	 * The method returns the connections of the view ending at the given 
+	 * node.
+	 * 
+	 * @param path the path of the target node
+	 * 
+	 * @return an unmodifiable list of the incoming connections of the node
+	 */
+	public List<MessageFlowConnection> getConnectionsTo(String path) {
+		return connectionIndex.getConnectionsTo(path);
+	}
+	
+	/**
+	 * The method returns the paths of the nodes reachable from an output 
+	 * terminal of a node. The input and output nodes of the subflows are 
+	 * passed through but not returned.
+	 * 
+	 * @param path the path of the node
+	 * @param terminal the output terminal of the node, e.g. 'OutTerminal.failure', or null for all output terminals
+	 * 
+	 * @return the paths of the reachable nodes in breadth-first order
+	 */
+	public Set<String> getReachableNodes(String path, String terminal) {
+		Set<String> visited = new HashSet<String>();
+		Set<String> reachable = new LinkedHashSet<String>();
+		ArrayDeque<String> pending = new ArrayDeque<String>();
+		
+		for (MessageFlowConnection connection : connectionIndex.getConnectionsFrom(path)) {
+			if ((terminal == null || terminal.equals(connection.getSourceTerminal())) && connection.getTargetNode() != null && visited.add(connection.getTargetNode())) {
+				pending.add(connection.getTargetNode());
+			}
+		}
+		
+		while (!pending.isEmpty()) {
+			String node = pending.poll();
+			
+			if (nodes.containsKey(node)) {
+				reachable.add(node);
+			}
+			
+			for (MessageFlowConnection connection : connectionIndex.getConnectionsFrom(node)) {
+				if (connection.getTargetNode() != null && visited.add(connection.getTargetNode())) {
+					pending.add(connection.getTargetNode());
+				}
+			}
+		}
+		
+		return reachable;
+	}
+	
+	/**
+	 * The method returns the paths of the subflow nodes which have not been 
+	 * expanded because the subflow cannot be resolved, it references itself 
+	 * or the maximum nesting depth is reached.
+	 * 
+	 * @return an unmodifiable list of the paths of the unexpanded subflow nodes
+	 */
+	public List<String> getUnexpandedSubflowNodes() {
+		return Collections.unmodifiableList(unexpandedSubflowNodes);
+	}
+	
+	/**
+	 * The method checks if all subflow nodes have been expanded.
+	 * 
+	 * @return true if all subflow nodes have been expanded
+	 */
+	public boolean isComplete() {
+		return unexpandedSubflowNodes.isEmpty();
+	}
+}
@@ -0,0 +1,408 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The class is an index of the graph of a message flow. The nodes are 
+ * numbered from 0 in the order of {@link MessageFlow#getNodes()} followed by 
+ * the subflow nodes and the remaining IDs referenced by connections only 
+ * (e.g. the input and output nodes of a subflow or nodes of types which 
+ * have not been extracted). Such nodes have no {@link MessageFlowNode}.
+ * 
+ * The connections (edges) are numbered in document order and held in flat 
+ * int arrays. The outgoing and incoming edges of the nodes are held in 
+ * compressed sparse row form: the edges of node i are found at the 
+ * positions offsets[i] to offsets[i + 1] - 1 of the edge array, so rules 
+ * following the connections of a message flow run in O(V + E) without 
+ * looking up strings. The terminal names of the edges are held as indices 
+ * of {@link MessageFlowTerminals}.
+ * 
+ * The index is immutable and is created once per message flow by 
+ * {@link MessageFlow#getGraph()}.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowGraph {
+
+	/**
+	 * the node IDs by node index
+	 */
+	private final String[] ids;
+	
+	/**
+	 * the message flow nodes by node index (null for connectors and subflow nodes)
+	 */
+	private final MessageFlowNode[] nodes;
+	
+	/**
+	 * the node indices by node ID
+	 */
+	private final HashMap<String, Integer> indices;
+	
+	/**
+	 * the source node indices by edge index
+	 */
+	private final int[] sources;
+	
+	/**
+	 * the target node indices by edge index
+	 */
+	private final int[] targets;
+	
+	/**
+	 * the source terminal indices by edge index (-1 if unknown)
+	 */
+	private final int[] sourceTerminals;
+	
+	/**
+	 * the target terminal indices by edge index (-1 if unknown)
+	 */
+	private final int[] targetTerminals;
+	
+	/**
+	 * the offsets of the outgoing edges of the nodes in {@link #outEdges}
+	 */
+	private final int[] outOffsets;
+	
+	/**
+	 * the outgoing edges grouped by source node in document order
+	 */
+	private final int[] outEdges;
+	
+	/**
+	 * the offsets of the incoming edges of the nodes in {@link #inEdges}
+	 */
+	private final int[] inOffsets;
+	
+	/**
+	 * the incoming edges grouped by target node in document order
+	 */
+	private final int[] inEdges;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates the index of the nodes and connections of a message flow. 
+	 * Connections without source or target node are ignored.
+	 * 
+	 * @param messageFlow the message flow
+	 */
+	public MessageFlowGraph(MessageFlow messageFlow) {
+		List<MessageFlowNode> flowNodes = messageFlow.getNodes();
+		List<MessageFlowConnection> connections = messageFlow.getConnections();
+		ArrayList<String> nodeIds = new ArrayList<String>(flowNodes.size() + messageFlow.getSubflowNodes().size());
+		
+		indices = new HashMap<String, Integer>();
+		
+		for (MessageFlowNode node : flowNodes) {
+			register(nodeIds, node.getId());
+		}
+		
+		for (MessageFlowSubflowNode node : messageFlow.getSubflowNodes()) {
+			register(nodeIds, node.getId());
+		}
+		
+		int edgeCount = 0;
+		
+		for (MessageFlowConnection connection : connections) {
+			if (connection.getSourceNode() != null && connection.getTargetNode() != null) {
+				register(nodeIds, connection.getSourceNode());
+				register(nodeIds, connection.getTargetNode());
+				edgeCount++;
+			}
+		}
+		
+		ids = nodeIds.toArray(new String[nodeIds.size()]);
+		nodes = new MessageFlowNode[ids.length];
+		
+		for (MessageFlowNode node : flowNodes) {
+			nodes[indices.get(node.getId())] = node;
+		}
+		
+		sources = new int[edgeCount];
+		targets = new int[edgeCount];
+		sourceTerminals = new int[edgeCount];
+		targetTerminals = new int[edgeCount];
+		
+		int edge = 0;
+		
+		for (MessageFlowConnection connection : connections) {
+			if (connection.getSourceNode() != null && connection.getTargetNode() != null) {
+				sources[edge] = indices.get(connection.getSourceNode());
+				targets[edge] = indices.get(connection.getTargetNode());
+				sourceTerminals[edge] = terminal(connection.getSourceTerminal());
+				targetTerminals[edge] = terminal(connection.getTargetTerminal());
+				edge++;
+			}
+		}
+		
+		outOffsets = new int[ids.length + 1];
+		outEdges = group(sources, outOffsets);
+		inOffsets = new int[ids.length + 1];
+		inEdges = group(targets, inOffsets);
+	}
+	
+	/**
+	 * The method returns the number of nodes of the graph.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return ids.length;
+	}
+	
+	/**
+	 * The method returns the number of connections (edges) of the graph.
+	 * 
+	 * @return the number of edges
+	 */
+	public int getEdgeCount() {
+		return sources.length;
+	}
+	
+	/**
+	 * The method returns the index of the node with the given ID.
+	 * 
+	 * @param id the ID of the node
+	 * 
+	 * @return the index of the node or -1 if there is no node with the ID
+	 */
+	public int indexOf(String id) {
+		Integer index = indices.get(id);
+		
+		return index == null ? -1 : index;
+	}
+	
+	/**
+	 * The method returns the ID of a node.
+	 * 
+	 * @param node the index of the node
+	 * 
+	 * @return the ID of the node
+	 */
+	public String getId(int node) {
+		return ids[node];
+	}
+	
+	/**
+	 * The method returns the message flow node of a node index.
+	 * 
+	 * @param node the index of the node
+	 * 
+	 * @return the message flow node or null for subflow nodes and nodes only 
+	 * referenced by connections
+	 */
+	public MessageFlowNode getNode(int node) {
+		return nodes[node];
+	}
+	
+	/**
+	 * The method returns the message flow node with the given ID.
+	 * 
+	 * @param id the ID of the node
+	 * 
+	 * @return the message flow node or null
+	 */
+	public MessageFlowNode getNode(String id) {
+		Integer index = indices.get(id);
+		
+		return index == null ? null : nodes[index];
+	}
+	
+	/**
+	 * The method returns the number of outgoing edges of a node.
+	 * 
+	 * @param node the index of the node
+	 * 
+	 * @return the number of outgoing edges
+	 */
+	public int getOutDegree(int node) {
+		return outOffsets[node + 1] - outOffsets[node];
+	}
+	
+	/**
+	 * The method returns an outgoing edge of a node. The edges of a node are 
+	 * in document order.
+	 * 
+	 * @param node the index of the node
+	 * @param i the position of the edge (0 to out degree - 1)
+	 * 
+	 * @return the index of the edge
+	 */
+	public int getOutEdge(int node, int i) {
+		return outEdges[outOffsets[node] + i];
+	}
+	
+	/**
+	 * The method returns the number of incoming edges of a node.
+	 * 
+	 * @param node the index of the node
+	 * 
+	 * @return the number of incoming edges
+	 */
+	public int getInDegree(int node) {
+		return inOffsets[node + 1] - inOffsets[node];
+	}
+	
+	/**
+	 * The method returns an incoming edge of a node. The edges of a node are 
+	 * in document order.
+	 * 
+	 * @param node the index of the node
+	 * @param i the position of the edge (0 to in degree - 1)
+	 * 
+	 * @return the index of the edge
+	 */
+	public int getInEdge(int node, int i) {
+		return inEdges[inOffsets[node] + i];
+	}
+	
+	/**
+	 * The method returns the source node of an edge.
+	 * 
+	 * @param edge the index of the edge
+	 * 
+	 * @return the index of the source node
+	 */
+	public int getSource(int edge) {
+		return sources[edge];
+	}
+	
+	/**
+	 * The method returns the target node of an edge.
+	 * 
+	 * @param edge the index of the edge
+	 * 
+	 * @return the index of the target node
+	 */
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+	
+	/**
+	 * The method returns the source terminal of an edge.
+	 * 
+	 * @param edge the index of the edge
+	 * 
+	 * @return the index of the terminal name (see 
+	 * {@link MessageFlowTerminals#nameOf(int)}) or -1 if unknown
+	 */
+	public int getSourceTerminal(int edge) {
+		return sourceTerminals[edge];
+	}
+	
+	/**
+	 * The method returns the target terminal of an edge.
+	 * 
+	 * @param edge the index of the edge
+	 * 
+	 * @return the index of the terminal name (see 
+	 * {@link MessageFlowTerminals#nameOf(int)}) or -1 if unknown
+	 */
+	public int getTargetTerminal(int edge) {
+		return targetTerminals[edge];
+	}
+	
+	/**
+	 * The method returns the nodes reachable from a node following the 
+	 * connections in breadth-first order. The start node is only included 
+	 * if it is part of a cycle.
+	 * 
+	 * @param node the index of the start node
+	 * @param terminal the index of the output terminal of the start node to 
+	 * follow or -1 for all output terminals
+	 * 
+	 * @return the set of the indices of the reachable nodes
+	 */
+	public BitSet getReachableNodes(int node, int terminal) {
+		BitSet reached = new BitSet(ids.length);
+		int[] queue = new int[ids.length];
+		int head = 0;
+		int tail = 0;
+		
+		for (int i = outOffsets[node]; i < outOffsets[node + 1]; i++) {
+			int edge = outEdges[i];
+			
+			if ((terminal < 0 || sourceTerminals[edge] == terminal) && !reached.get(targets[edge])) {
+				reached.set(targets[edge]);
+				queue[tail++] = targets[edge];
+			}
+		}
+		
+		while (head < tail) {
+			int current = queue[head++];
+			
+			for (int i = outOffsets[current]; i < outOffsets[current + 1]; i++) {
+				int target = targets[outEdges[i]];
+				
+				if (!reached.get(target)) {
+					reached.set(target);
+					queue[tail++] = target;
+				}
+			}
+		}
+		
+		return reached;
+	}
+	
+	/**
+	 * Assigns the next index to a node ID if it has none yet.
+	 */
+	private void register(ArrayList<String> nodeIds, String id) {
+		if (!indices.containsKey(id)) {
+			indices.put(id, nodeIds.size());
+			nodeIds.add(id);
+		}
+	}
+	
+	/**
+	 * Returns the index of a terminal name or -1 for null.
+	 */
+	private static int terminal(String name) {
+		return name == null ? -1 : MessageFlowTerminals.indexOf(name);
+	}
+	
+	/**
+	 * Groups the edges by node using a counting sort which keeps the 
+	 * document order within a group, and fills the offsets of the groups.
+	 */
+	private static int[] group(int[] edgeNodes, int[] offsets) {
+		int[] edges = new int[edgeNodes.length];
+		
+		for (int node : edgeNodes) {
+			offsets[node + 1]++;
+		}
+		
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+		
+		int[] next = offsets.clone();
+		
+		for (int edge = 0; edge < edgeNodes.length; edge++) {
+			edges[next[edgeNodes[edge]]++] = edge;
+		}
+		
+		return edges;
+	}
+}
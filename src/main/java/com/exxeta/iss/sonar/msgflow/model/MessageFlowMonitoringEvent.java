@@ -0,0 +1,218 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.List;
+
+/**
+ * The class is a model of a monitoring event of a message flow node 
+ * (element 'monitorEvents'). The model holds the source of the event, 
+ * whether it is enabled and which part of the message it captures (see 
+ * {@link PayloadScope}).
+ * 
+ * The scope is derived from the bitstream data of the event and the data 
+ * locations of its application data: the bitstream content 'all' or a 
+ * complex content of '$Root' captures the whole message, the bitstream 
+ * content 'body' or a complex content of '$Body' or a parser folder (e.g. 
+ * '$Root/XMLNSC') captures the body. Other data locations capture single 
+ * fields or subtrees.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowMonitoringEvent {
+
+	/**
+	 * The class defines the parts of the message captured by a monitoring 
+	 * event in ascending order of their size.
+	 */
+	public enum PayloadScope {
+		
+		/**
+		 * no data of the message
+		 */
+		NONE,
+		
+		/**
+		 * single fields or subtrees of the message
+		 */
+		FIELDS,
+		
+		/**
+		 * the headers of the message as bitstream
+		 */
+		HEADERS,
+		
+		/**
+		 * the body of the message
+		 */
+		BODY,
+		
+		/**
+		 * the whole message
+		 */
+		ALL
+	}
+	
+	/**
+	 * the source of the event, e.g. 'Compute.terminal.in'
+	 */
+	private final String source;
+	
+	/**
+	 * the flag whether the event is enabled
+	 */
+	private final boolean enabled;
+	
+	/**
+	 * the part of the message captured by the event
+	 */
+	private final PayloadScope payloadScope;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a new monitoring event (model).
+	 * 
+	 * @param source the source of the event (eventSourceName)
+	 * @param enabled true if the event is enabled (eventEnabled is not 'false')
+	 * @param payloadScope the part of the message captured by the event
+	 */
+	public MessageFlowMonitoringEvent(String source, boolean enabled, PayloadScope payloadScope) {
+		this.source			= MessageFlowSymbols.intern(source == null ? "" : source);
+		this.enabled		= enabled;
+		this.payloadScope	= payloadScope;
+	}
+	
+	/**
+	 * The method derives the part of the message captured by a monitoring 
+	 * event from its bitstream data and the data locations of its 
+	 * application data.
+	 * 
+	 * @param bitstreamContent the content of the bitstream data ('none', 'headers', 'body' or 'all') or null
+	 * @param complexContent the data locations of the complex content
+	 * @param simpleContent the number of fields captured as simple content
+	 * 
+	 * @return the part of the message captured
+	 */
+	public static PayloadScope scopeOf(String bitstreamContent, List<String> complexContent, int simpleContent) {
+		PayloadScope scope = PayloadScope.NONE;
+		
+		if ("all".equals(bitstreamContent)) {
+			return PayloadScope.ALL;
+		} else if ("body".equals(bitstreamContent)) {
+			scope = PayloadScope.BODY;
+		} else if ("headers".equals(bitstreamContent)) {
+			scope = PayloadScope.HEADERS;
+		}
+		
+		for (String dataLocation : complexContent) {
+			String location = dataLocation.trim();
+			
+			if (location.equals("$Root")) {
+				return PayloadScope.ALL;
+			} else if (location.equals("$Body") || (location.startsWith("$Root/") && location.indexOf('/', 6) < 0)) {
+				scope = PayloadScope.BODY;
+			} else if (scope == PayloadScope.NONE) {
+				scope = PayloadScope.FIELDS;
+			}
+		}
+		
+		if (simpleContent > 0 && scope == PayloadScope.NONE) {
+			scope = PayloadScope.FIELDS;
+		}
+		
+		return scope;
+	}
+	
+	/**
+	 * The method returns the source of the event.
+	 * 
+	 * @return the source of the event, e.g. 'Compute.terminal.in'
+	 */
+	public String getSource() {
+		return source;
+	}
+	
+	/**
+	 * The method returns the flag whether the event is enabled.
+	 * 
+	 * @return true if the event is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * The method returns the part of the message captured by the event.
+	 * 
+	 * @return the part of the message captured
+	 */
+	public PayloadScope getPayloadScope() {
+		return payloadScope;
+	}
+	
+	/**
+	 * The method checks whether the event captures the body or the whole 
+	 * message.
+	 * 
+	 * @return true if the event captures the full payload
+	 */
+	public boolean capturesPayload() {
+		return payloadScope == PayloadScope.BODY || payloadScope == PayloadScope.ALL;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	/**
+	 * The method compares the source, flag and scope of two events.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof MessageFlowMonitoringEvent)) {
+			return false;
+		}
+		
+		MessageFlowMonitoringEvent other = (MessageFlowMonitoringEvent)obj;
+		
+		return source.equals(other.source) && enabled == other.enabled && payloadScope == other.payloadScope;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	/**
+	 * The method returns a hash code consistent with {@link #equals(Object)}.
+	 */
+	@Override
+	public int hashCode() {
+		return (source.hashCode() * 31 + payloadScope.hashCode()) * 2 + (enabled ? 1 : 0);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	/**
+	 * The method returns the event as text, e.g. 'Compute.terminal.in (enabled, BODY)'.
+	 */
+	@Override
+	public String toString() {
+		return source + " (" + (enabled ? "enabled" : "disabled") + ", " + payloadScope + ")";
+	}
+
+}
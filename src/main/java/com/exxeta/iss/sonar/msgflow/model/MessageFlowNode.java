@@ -18,12 +18,25 @@
 package com.exxeta.iss.sonar.msgflow.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * The class is a model of a message flow node. The model contains variables 
  * holding connection data as well as configuration data of a message flow 
  * node. 
  * 
+ * The model is kept small since the message flows of a whole project may 
+ * be cached: the strings are shared through {@link MessageFlowSymbols}, the 
+ * flags are packed into a bit field and the terminals are held as sets of 
+ * bits over {@link MessageFlowTerminals}. The connectivity of a terminal is 
+ * checked in constant time, the lists of terminal names are only created 
+ * on request. The values of the plain attribute properties (see 
+ * {@link MessageFlowNodeProperty#getAttributeName()}) are held in one 
+ * array, which is omitted if none of them is set. Equal lists of 
+ * monitoring events are shared between the nodes (see 
+ * {@link MessageFlowSymbols}).
+ * 
  * @author Hendrik Scholz (EXXETA AG)
  */
 public class MessageFlowNode {
@@ -33,50 +46,41 @@ public class MessageFlowNode {
 	 */
 	//private static final Logger LOG = LoggerFactory.getLogger(MessageFlowNode.class);
 	
+	/** the bits of the flags */
+	private static final short BUILD_TREE_USING_SCHEMA		= 1;
+	private static final short MIXED_CONTENT_RETAIN_MODE	= 1 << 1;
+	private static final short COMMENTS_RETAIN_MODE			= 1 << 2;
+	private static final short VALIDATE_MASTER				= 1 << 3;
+	private static final short RESET_MESSAGE_DOMAIN			= 1 << 4;
+	private static final short RESET_MESSAGE_SET			= 1 << 5;
+	private static final short RESET_MESSAGE_TYPE			= 1 << 6;
+	private static final short RESET_MESSAGE_FORMAT			= 1 << 7;
+	private static final short MONITORING_EVENTS_ENABLED	= 1 << 8;
+	
 	/**
 	 * the ID of a message flow node
 	 */
-	private String id;
+	private final String id;
 
 	/**
 	 * the name of a message flow node
 	 */
-	private String name;
+	private final String name;
 	
 	/**
 	 * the type of a message flow node
 	 */
-	private String type;
-	
-	/**
-	 * the flag for 'build Tree Using Schema' of a message flow node
-	 */
-	private boolean buildTreeUsingSchema;
-	
-	/**
-	 * the flag for 'mixed Content Retain Mode' of a message flow node
-	 */
-	private boolean mixedContentRetainMode;
-	
-	/**
-	 * the flag for 'comments Retain Mode' of a message flow node
-	 */
-	private boolean commentsRetainMode;
-	
-	/**
-	 * the flag for 'validate Master' of a message flow node
-	 */
-	private boolean validateMaster;
+	private final String type;
 	
 	/**
 	 * the message domain of a message flow node
 	 */
-	private String messageDomainProperty;	
+	private final String messageDomainProperty;	
 	
 	/**
 	 * the message set of a message flow node
 	 */
-	private String messageSetProperty;
+	private final String messageSetProperty;
 	
 	/**
 	 * the record definition of a message flow node
@@ -85,62 +89,63 @@ public class MessageFlowNode {
 	 * "Record is Whole File", "Record is Unmodified Data",
 	 * "Record is Fixed Length Data", "Record is Delimited Data" 
 	 */
-	private String recordDefinition;
+	private final String recordDefinition;
 	
 	/**
 	 * the request message location of a message flow node
 	 */
-	private String requestMsgLocationInTree;
+	private final String requestMsgLocationInTree;
 	
 	/**
 	 * the message domain of a message flow node
 	 */
-	private String messageDomain;
+	private final String messageDomain;
 	
 	/**
 	 * the message set of a message flow node
 	 */
-	private String messageSet;
+	private final String messageSet;
 	
 	/**
-	 * the flag for 'reset Message Domain' of a message flow node
+	 * the flags of a message flow node (see the bits above)
 	 */
-	private boolean resetMessageDomain;
+	private final short flags;
 	
 	/**
-	 * the flag for 'reset Message Set' of a message flow node
+	 * the set of input terminals of a message flow node (see {@link MessageFlowTerminals})
 	 */
-	private boolean resetMessageSet;
+	private final long[] inputTerminals;
 	
 	/**
-	 * the flag for 'reset Message Type' of a message flow node
+	 * the set of output terminals of a message flow node (see {@link MessageFlowTerminals})
 	 */
-	private boolean resetMessageType;
+	private final long[] outputTerminals;
 	
 	/**
-	 * the flag for 'reset Message Format' of a message flow node
+	 * the numbers of connections of the input terminals or null if each terminal is connected once
 	 */
-	private boolean resetMessageFormat;
+	private final char[] inputConnections;
 	
 	/**
-	 * the flag for "Monitoring / Monitoring events"
+	 * the numbers of connections of the output terminals or null if each terminal is connected once
 	 */
-	private boolean areMonitoringEventsEnabled;
+	private final char[] outputConnections;
 	
 	/**
-	 * the list of input terminals of a message flow node
+	 * the values of the attribute properties by attribute index or null if none is set
 	 */
-	private ArrayList<String> inputTerminals;
+	private final String[] attributes;
 	
 	/**
-	 * the list of output terminals of a message flow node
+	 * the shared, unmodifiable monitoring events of a message flow node or null if it has none
 	 */
-	private ArrayList<String> outputTerminals;
+	private final List<MessageFlowMonitoringEvent> monitoringEvents;
 	
 	/**
 	 * Constructor
 	 * 
-	 * Creates a new message flow node (model) and initialises its properties.
+	 * Creates a new message flow node (model) and initialises its properties. 
+	 * None of the attribute properties is set.
 	 */
 	public MessageFlowNode(String id,
 					   	   String name,
@@ -162,26 +167,129 @@ public class MessageFlowNode {
 					   	   boolean areMonitoringEventsEnabled,
 					   	   ArrayList<String> inputTerminals,
 					   	   ArrayList<String> outputTerminals) {
-		this.id							= id;
-		this.name						= name;
-		this.type						= type;
-		this.buildTreeUsingSchema		= buildTreeUsingSchema;
-		this.mixedContentRetainMode		= mixedContentRetainMode;
-		this.commentsRetainMode			= commentsRetainMode;
-		this.validateMaster				= validateMaster;
-		this.messageDomainProperty		= messageDomainProperty;
-		this.messageSetProperty			= messageSetProperty;
-		this.requestMsgLocationInTree	= requestMsgLocationInTree;
-		this.messageDomain 				= messageDomain; 
-		this.messageSet					= messageSet;
-		this.recordDefinition			= recordDefinition;
-		this.resetMessageDomain 		= resetMessageDomain;
-		this.resetMessageSet			= resetMessageSet;
-		this.resetMessageType			= resetMessageType;
-		this.resetMessageFormat			= resetMessageFormat;
-		this.areMonitoringEventsEnabled	= areMonitoringEventsEnabled;
-		this.inputTerminals				= inputTerminals;
-		this.outputTerminals			= outputTerminals;
+		this(id, name, type, buildTreeUsingSchema, mixedContentRetainMode, commentsRetainMode, validateMaster, 
+				messageDomainProperty, messageSetProperty, requestMsgLocationInTree, messageDomain, messageSet, recordDefinition, 
+				resetMessageDomain, resetMessageSet, resetMessageType, resetMessageFormat, areMonitoringEventsEnabled, 
+				inputTerminals, outputTerminals, null);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a new message flow node (model) and initialises its properties 
+	 * including the attribute properties.
+	 * 
+	 * @param attributes the values of the attribute properties by attribute index (see {@link MessageFlowNodeProperty#getAttributeIndex()}) or null
+	 */
+	public MessageFlowNode(String id,
+					   	   String name,
+					   	   String type,
+					   	   boolean buildTreeUsingSchema,
+					   	   boolean mixedContentRetainMode,
+					   	   boolean commentsRetainMode,
+					   	   boolean validateMaster,
+					   	   String messageDomainProperty,
+					   	   String messageSetProperty,
+					   	   String requestMsgLocationInTree,
+					   	   String messageDomain,
+					   	   String messageSet,
+					   	   String recordDefinition,
+					   	   boolean resetMessageDomain,
+					   	   boolean resetMessageSet,
+					   	   boolean resetMessageType,
+					   	   boolean resetMessageFormat,
+					   	   boolean areMonitoringEventsEnabled,
+					   	   ArrayList<String> inputTerminals,
+					   	   ArrayList<String> outputTerminals,
+					   	   String[] attributes) {
+		this(id, name, type, buildTreeUsingSchema, mixedContentRetainMode, commentsRetainMode, validateMaster, 
+				messageDomainProperty, messageSetProperty, requestMsgLocationInTree, messageDomain, messageSet, recordDefinition, 
+				resetMessageDomain, resetMessageSet, resetMessageType, resetMessageFormat, areMonitoringEventsEnabled, 
+				inputTerminals, outputTerminals, attributes, null);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a new message flow node (model) and initialises its properties 
+	 * including the attribute properties and the monitoring events.
+	 * 
+	 * @param attributes the values of the attribute properties by attribute index (see {@link MessageFlowNodeProperty#getAttributeIndex()}) or null
+	 * @param monitoringEvents the monitoring events of the node in document order or null
+	 */
+	public MessageFlowNode(String id,
+					   	   String name,
+					   	   String type,
+					   	   boolean buildTreeUsingSchema,
+					   	   boolean mixedContentRetainMode,
+					   	   boolean commentsRetainMode,
+					   	   boolean validateMaster,
+					   	   String messageDomainProperty,
+					   	   String messageSetProperty,
+					   	   String requestMsgLocationInTree,
+					   	   String messageDomain,
+					   	   String messageSet,
+					   	   String recordDefinition,
+					   	   boolean resetMessageDomain,
+					   	   boolean resetMessageSet,
+					   	   boolean resetMessageType,
+					   	   boolean resetMessageFormat,
+					   	   boolean areMonitoringEventsEnabled,
+					   	   ArrayList<String> inputTerminals,
+					   	   ArrayList<String> outputTerminals,
+					   	   String[] attributes,
+					   	   List<MessageFlowMonitoringEvent> monitoringEvents) {
+		this.id							= MessageFlowSymbols.intern(id);
+		this.name						= MessageFlowSymbols.intern(name);
+		this.type						= MessageFlowSymbols.intern(type);
+		this.messageDomainProperty		= MessageFlowSymbols.intern(messageDomainProperty);
+		this.messageSetProperty			= MessageFlowSymbols.intern(messageSetProperty);
+		this.requestMsgLocationInTree	= MessageFlowSymbols.intern(requestMsgLocationInTree);
+		this.messageDomain 				= MessageFlowSymbols.intern(messageDomain); 
+		this.messageSet					= MessageFlowSymbols.intern(messageSet);
+		this.recordDefinition			= MessageFlowSymbols.intern(recordDefinition);
+		this.flags						= (short)((buildTreeUsingSchema ? BUILD_TREE_USING_SCHEMA : 0)
+												| (mixedContentRetainMode ? MIXED_CONTENT_RETAIN_MODE : 0)
+												| (commentsRetainMode ? COMMENTS_RETAIN_MODE : 0)
+												| (validateMaster ? VALIDATE_MASTER : 0)
+												| (resetMessageDomain ? RESET_MESSAGE_DOMAIN : 0)
+												| (resetMessageSet ? RESET_MESSAGE_SET : 0)
+												| (resetMessageType ? RESET_MESSAGE_TYPE : 0)
+												| (resetMessageFormat ? RESET_MESSAGE_FORMAT : 0)
+												| (areMonitoringEventsEnabled ? MONITORING_EVENTS_ENABLED : 0));
+		this.inputTerminals				= MessageFlowTerminals.toSet(inputTerminals);
+		this.outputTerminals			= MessageFlowTerminals.toSet(outputTerminals);
+		this.inputConnections			= MessageFlowTerminals.toCounts(inputTerminals, this.inputTerminals);
+		this.outputConnections			= MessageFlowTerminals.toCounts(outputTerminals, this.outputTerminals);
+		this.attributes					= internAttributes(attributes);
+		this.monitoringEvents			= MessageFlowSymbols.intern(monitoringEvents);
+	}
+	
+	/**
+	 * The method copies and interns the values of the attribute properties.
+	 * 
+	 * @param attributes the values by attribute index or null
+	 * 
+	 * @return the interned values or null if none is set
+	 */
+	private static String[] internAttributes(String[] attributes) {
+		if (attributes == null) {
+			return null;
+		}
+		
+		String[] values = null;
+		
+		for (int i = 0; i < attributes.length; i++) {
+			if (attributes[i] != null && !attributes[i].isEmpty()) {
+				if (values == null) {
+					values = new String[attributes.length];
+				}
+				
+				values[i] = MessageFlowSymbols.intern(attributes[i]);
+			}
+		}
+		
+		return values;
 	}
 	
 	/**
@@ -217,7 +325,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'build Tree Using Schema' of a message flow node
 	 */
 	public boolean isBuildTreeUsingSchema() {
-		return buildTreeUsingSchema;
+		return (flags & BUILD_TREE_USING_SCHEMA) != 0;
 	}
 	
 	/**
@@ -226,7 +334,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'mixed Content Retain Mode' of a message flow node
 	 */
 	public boolean isMixedContentRetainMode() {
-		return mixedContentRetainMode;
+		return (flags & MIXED_CONTENT_RETAIN_MODE) != 0;
 	}
 
 	/**
@@ -235,7 +343,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'comments Retain Mode' of a message flow node
 	 */
 	public boolean isCommentsRetainMode() {
-		return commentsRetainMode;
+		return (flags & COMMENTS_RETAIN_MODE) != 0;
 	}
 
 	/**
@@ -244,7 +352,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'validate Master' of a message flow node
 	 */
 	public boolean isValidateMaster() {
-		return validateMaster;
+		return (flags & VALIDATE_MASTER) != 0;
 	}
 
 	/**
@@ -298,7 +406,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'reset Message Domain' of a message flow node
 	 */
 	public boolean isResetMessageDomain() {
-		return resetMessageDomain;
+		return (flags & RESET_MESSAGE_DOMAIN) != 0;
 	}
 
 	/**
@@ -307,7 +415,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'reset Message Set' of a message flow node
 	 */
 	public boolean isResetMessageSet() {
-		return resetMessageSet;
+		return (flags & RESET_MESSAGE_SET) != 0;
 	}
 
 	/**
@@ -316,7 +424,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'reset Message Type' of a message flow node
 	 */
 	public boolean isResetMessageType() {
-		return resetMessageType;
+		return (flags & RESET_MESSAGE_TYPE) != 0;
 	}
 
 	/**
@@ -325,7 +433,7 @@ public class MessageFlowNode {
 	 * @return the flag for 'reset Message Format' of a message flow node
 	 */
 	public boolean isResetMessageFormat() {
-		return resetMessageFormat;
+		return (flags & RESET_MESSAGE_FORMAT) != 0;
 	}
 	
 	/**
@@ -334,25 +442,27 @@ public class MessageFlowNode {
 	 *  @return the flag for 'areMonitoringEventsEnabled' of the message flow node
 	 */
 	public boolean areMonitoringEventsEnabled() {
-		return areMonitoringEventsEnabled;
+		return (flags & MONITORING_EVENTS_ENABLED) != 0;
 	}
 	
 	/**
-	 * The method returns a the list of input terminals of a message flow node.
+	 * The method returns a the list of input terminals of a message flow node. 
+	 * Each connected terminal is listed once. The list is created on each call.
 	 * 
 	 * @return the list of input terminals of a message flow node
 	 */
 	public ArrayList<String> getInputTerminals() {
-		return inputTerminals;
+		return MessageFlowTerminals.toList(inputTerminals);
 	}
 	
 	/**
-	 * The method returns a the list of output terminals of a message flow node.
+	 * The method returns a the list of output terminals of a message flow node. 
+	 * Each connected terminal is listed once. The list is created on each call.
 	 * 
 	 * @return the list of output terminals of a message flow node
 	 */
 	public ArrayList<String> getOutputTerminals() {
-		return outputTerminals;
+		return MessageFlowTerminals.toList(outputTerminals);
 	}
 	
 	/**
@@ -363,4 +473,199 @@ public class MessageFlowNode {
 	public String getRecordDefinition() {
 		return recordDefinition;
 	}
+	
+	/**
+	 * The method returns the input terminals of a message flow node, each 
+	 * terminal listed once per connection.
+	 * 
+	 * @return a new list of the input terminal names
+	 */
+	ArrayList<String> getInputConnections() {
+		return MessageFlowTerminals.toList(inputTerminals, inputConnections);
+	}
+	
+	/**
+	 * The method returns the output terminals of a message flow node, each 
+	 * terminal listed once per connection.
+	 * 
+	 * @return a new list of the output terminal names
+	 */
+	ArrayList<String> getOutputConnections() {
+		return MessageFlowTerminals.toList(outputTerminals, outputConnections);
+	}
+	
+	/**
+	 * The method checks if any attribute property of a message flow node is 
+	 * set.
+	 * 
+	 * @return true if an attribute property is set
+	 */
+	boolean hasAttributes() {
+		return attributes != null;
+	}
+	
+	/**
+	 * The method returns the value of an attribute property of a message 
+	 * flow node.
+	 * 
+	 * @param attributeIndex the index of the attribute (see {@link MessageFlowNodeProperty#getAttributeIndex()})
+	 * 
+	 * @return the value of the attribute or null if it is not set
+	 */
+	String getAttribute(int attributeIndex) {
+		return attributes == null ? null : attributes[attributeIndex];
+	}
+	
+	/**
+	 * The method returns the monitoring events of a message flow node. The 
+	 * events are only extracted for the rules needing the property 
+	 * {@link MessageFlowNodeProperty#MONITORING_EVENTS}.
+	 * 
+	 * @return the monitoring events in document order, empty if the node has none
+	 */
+	public List<MessageFlowMonitoringEvent> getMonitoringEvents() {
+		if (monitoringEvents == null) {
+			return Collections.emptyList();
+		}
+		
+		return monitoringEvents;
+	}
+	
+	/**
+	 * The method checks if an input terminal of a message flow node is 
+	 * connected.
+	 * 
+	 * @param terminal the name of the terminal, e.g. 'InTerminal.in'
+	 * 
+	 * @return true if the terminal is connected
+	 */
+	public boolean hasInputTerminal(String terminal) {
+		return MessageFlowTerminals.contains(inputTerminals, terminal);
+	}
+	
+	/**
+	 * The method checks if an output terminal of a message flow node is 
+	 * connected.
+	 * 
+	 * @param terminal the name of the terminal, e.g. 'OutTerminal.failure'
+	 * 
+	 * @return true if the terminal is connected
+	 */
+	public boolean hasOutputTerminal(String terminal) {
+		return MessageFlowTerminals.contains(outputTerminals, terminal);
+	}
+	
+	/**
+	 * The method returns the number of connections of an input terminal of 
+	 * a message flow node.
+	 * 
+	 * @param terminal the name of the terminal, e.g. 'InTerminal.in'
+	 * 
+	 * @return the number of connections, 0 if the terminal is not connected
+	 */
+	public int getInputConnectionCount(String terminal) {
+		return MessageFlowTerminals.count(inputTerminals, inputConnections, terminal);
+	}
+	
+	/**
+	 * The method returns the number of connections of an output terminal of 
+	 * a message flow node.
+	 * 
+	 * @param terminal the name of the terminal, e.g. 'OutTerminal.out'
+	 * 
+	 * @return the number of connections, 0 if the terminal is not connected
+	 */
+	public int getOutputConnectionCount(String terminal) {
+		return MessageFlowTerminals.count(outputTerminals, outputConnections, terminal);
+	}
+	
+	/**
+	 * The method checks if an input terminal of a message flow node is 
+	 * connected.
+	 * 
+	 * @param terminal the index of the terminal (see {@link MessageFlowTerminals#indexOf(String)})
+	 * 
+	 * @return true if the terminal is connected
+	 */
+	public boolean hasInputTerminal(int terminal) {
+		return MessageFlowTerminals.contains(inputTerminals, terminal);
+	}
+	
+	/**
+	 * The method checks if an output terminal of a message flow node is 
+	 * connected.
+	 * 
+	 * @param terminal the index of the terminal (see {@link MessageFlowTerminals#indexOf(String)})
+	 * 
+	 * @return true if the terminal is connected
+	 */
+	public boolean hasOutputTerminal(int terminal) {
+		return MessageFlowTerminals.contains(outputTerminals, terminal);
+	}
+	
+	/**
+	 * The method checks if a property of a message flow node is set: a flag 
+	 * is true or a value is not empty.
+	 * 
+	 * @param property the property of the message flow node
+	 * 
+	 * @return true if the property is set
+	 */
+	public boolean isSet(MessageFlowNodeProperty property) {
+		switch (property) {
+			case BUILD_TREE_USING_SCHEMA:
+				return isBuildTreeUsingSchema();
+			case MIXED_CONTENT_RETAIN_MODE:
+				return isMixedContentRetainMode();
+			case COMMENTS_RETAIN_MODE:
+				return isCommentsRetainMode();
+			case VALIDATE_MASTER:
+				return isValidateMaster();
+			case RESET_MESSAGE_DOMAIN:
+				return isResetMessageDomain();
+			case RESET_MESSAGE_SET:
+				return isResetMessageSet();
+			case RESET_MESSAGE_TYPE:
+				return isResetMessageType();
+			case RESET_MESSAGE_FORMAT:
+				return isResetMessageFormat();
+			case MONITORING_EVENTS:
+				return areMonitoringEventsEnabled();
+			default:
+				return !getValue(property).isEmpty();
+		}
+	}
+	
+	/**
+	 * The method returns the value of a property of a message flow node. 
+	 * The value of a flag is 'true' or 'false'.
+	 * 
+	 * @param property the property of the message flow node
+	 * 
+	 * @return the value of the property
+	 */
+	public String getValue(MessageFlowNodeProperty property) {
+		if (property.getAttributeIndex() >= 0) {
+			String value = getAttribute(property.getAttributeIndex());
+			
+			return value == null ? "" : value;
+		}
+		
+		switch (property) {
+			case MESSAGE_DOMAIN_PROPERTY:
+				return messageDomainProperty;
+			case MESSAGE_SET_PROPERTY:
+				return messageSetProperty;
+			case REQUEST_MSG_LOCATION_IN_TREE:
+				return requestMsgLocationInTree;
+			case MESSAGE_DOMAIN:
+				return messageDomain;
+			case MESSAGE_SET:
+				return messageSet;
+			case RECORD_DEFINITION:
+				return recordDefinition;
+			default:
+				return isSet(property) ? "true" : "false";
+		}
+	}
 }
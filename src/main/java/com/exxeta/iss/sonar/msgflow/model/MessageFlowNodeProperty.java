@@ -0,0 +1,277 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+/**
+ * The enumeration lists the optional properties of a message flow node which 
+ * are extracted from the message flow files. The ID, the name, the type and 
+ * the connected terminals of a node are always extracted.
+ * 
+ * A property which is not extracted has the value of a missing attribute, 
+ * i.e. an empty string or false (see {@link MessageFlowExtractionPlan}).
+ * 
+ * The properties declaring an attribute name (see {@link #getAttributeName()}) 
+ * are plain attributes of the nodes element. They are read by all parsers 
+ * without a dedicated field of {@link MessageFlowNode}, so rules for 
+ * further attributes only need a new constant.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public enum MessageFlowNodeProperty {
+
+	/**
+	 * 'Build tree using XML schema data types' (parserXmlnscBuildTreeUsingXMLSchema)
+	 */
+	BUILD_TREE_USING_SCHEMA,
+	
+	/**
+	 * 'Retain mixed content' (parserXmlnscMixedContentRetainMode)
+	 */
+	MIXED_CONTENT_RETAIN_MODE,
+	
+	/**
+	 * 'Retain comments' (parserXmlnscCommentsRetainMode)
+	 */
+	COMMENTS_RETAIN_MODE,
+	
+	/**
+	 * 'Validate' (validateMaster)
+	 */
+	VALIDATE_MASTER,
+	
+	/**
+	 * 'Message domain' of the input message parsing (messageDomainProperty)
+	 */
+	MESSAGE_DOMAIN_PROPERTY,
+	
+	/**
+	 * 'Message set' of the input message parsing (messageSetProperty)
+	 */
+	MESSAGE_SET_PROPERTY,
+	
+	/**
+	 * 'Request message location in tree' (requestMsgLocationInTree)
+	 */
+	REQUEST_MSG_LOCATION_IN_TREE,
+	
+	/**
+	 * 'Message domain' of a Reset Content Descriptor node (messageDomain)
+	 */
+	MESSAGE_DOMAIN,
+	
+	/**
+	 * 'Message set' of a Reset Content Descriptor node (messageSet)
+	 */
+	MESSAGE_SET,
+	
+	/**
+	 * 'Record definition' (recordDefinition)
+	 */
+	RECORD_DEFINITION,
+	
+	/**
+	 * 'Reset message domain' (resetMessageDomain)
+	 */
+	RESET_MESSAGE_DOMAIN,
+	
+	/**
+	 * 'Reset message set' (resetMessageSet)
+	 */
+	RESET_MESSAGE_SET,
+	
+	/**
+	 * 'Reset message type' (resetMessageType)
+	 */
+	RESET_MESSAGE_TYPE,
+	
+	/**
+	 * 'Reset message format' (resetMessageFormat)
+	 */
+	RESET_MESSAGE_FORMAT,
+	
+	/**
+	 * the monitoring events (monitorEvents)
+	 */
+	MONITORING_EVENTS,
+	
+	/**
+	 * 'Queue name' of a MQ Input or MQ Output node (queueName)
+	 */
+	QUEUE_NAME("queueName"),
+	
+	/**
+	 * 'Queue manager name' of a MQ Input or MQ Output node (queueManagerName)
+	 */
+	QUEUE_MANAGER_NAME("queueManagerName"),
+	
+	/**
+	 * 'Additional instances' of a MQ Input node (additionalInstances)
+	 */
+	ADDITIONAL_INSTANCES("additionalInstances"),
+	
+	/**
+	 * 'Commit count' of a MQ Input node (commitCount)
+	 */
+	COMMIT_COUNT("commitCount"),
+	
+	/**
+	 * 'Transaction mode' of a MQ Input or MQ Output node (transactionMode)
+	 */
+	TRANSACTION_MODE("transactionMode"),
+	
+	/**
+	 * 'Persistence mode' of a MQ Output node (persistenceMode)
+	 */
+	PERSISTENCE_MODE("persistenceMode"),
+	
+	/**
+	 * 'Browse only' of a MQ Input node (browse)
+	 */
+	BROWSE("browse"),
+	
+	/**
+	 * 'Order mode' of a MQ Input node (orderMode)
+	 */
+	ORDER_MODE("orderMode"),
+	
+	/**
+	 * 'Request timeout' of a HTTP Request node (timeoutForServer)
+	 */
+	HTTP_REQUEST_TIMEOUT("timeoutForServer"),
+	
+	/**
+	 * 'Request timeout' of a SOAP Request node (requestTimeout)
+	 */
+	SOAP_REQUEST_TIMEOUT("requestTimeout"),
+	
+	/**
+	 * 'Enable HTTP/1.1 keep-alive' of a HTTP Request or SOAP Request node (enableKeepAlive)
+	 */
+	KEEP_ALIVE("enableKeepAlive"),
+	
+	/**
+	 * 'Request compression type' of a HTTP Request or SOAP Request node (requestCompressionType)
+	 */
+	REQUEST_COMPRESSION_TYPE("requestCompressionType"),
+	
+	/**
+	 * 'Accept compressed responses by default' of a HTTP Request node (acceptCompressedResponses)
+	 */
+	ACCEPT_COMPRESSED_RESPONSES("acceptCompressedResponses"),
+	
+	/**
+	 * 'Record detection' of a FileInput node (recordDetection)
+	 */
+	RECORD_DETECTION("recordDetection"),
+	
+	/**
+	 * 'Parse timing' of an input node (parseTiming)
+	 */
+	PARSE_TIMING("parseTiming"),
+	
+	/**
+	 * 'Collection expiry' of a Collector node (collectionExpiry)
+	 */
+	COLLECTION_EXPIRY("collectionExpiry"),
+	
+	/**
+	 * 'Quantity' of the input terminals of a Collector node (quantity)
+	 */
+	QUANTITY("quantity");
+	
+	/**
+	 * the properties declaring an attribute name in the order of their attribute indices
+	 */
+	private static final MessageFlowNodeProperty[] ATTRIBUTES;
+	
+	static {
+		int count = 0;
+		
+		for (MessageFlowNodeProperty property : values()) {
+			if (property.attributeName != null) {
+				property.attributeIndex = count++;
+			}
+		}
+		
+		ATTRIBUTES = new MessageFlowNodeProperty[count];
+		
+		for (MessageFlowNodeProperty property : values()) {
+			if (property.attributeName != null) {
+				ATTRIBUTES[property.attributeIndex] = property;
+			}
+		}
+	}
+	
+	/**
+	 * the name of the attribute of the nodes element or null if the property has a dedicated field
+	 */
+	private final String attributeName;
+	
+	/**
+	 * the index of the attribute (see {@link #getAttributeIndex()}) or -1
+	 */
+	private int attributeIndex = -1;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a property held by a dedicated field of {@link MessageFlowNode}.
+	 */
+	private MessageFlowNodeProperty() {
+		this(null);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param attributeName the name of the attribute of the nodes element
+	 */
+	private MessageFlowNodeProperty(String attributeName) {
+		this.attributeName = attributeName;
+	}
+	
+	/**
+	 * The method returns the name of the attribute of the nodes element 
+	 * holding the property, e.g. 'queueName'.
+	 * 
+	 * @return the name of the attribute or null if the property is held by a dedicated field
+	 */
+	public String getAttributeName() {
+		return attributeName;
+	}
+	
+	/**
+	 * The method returns the index of the attribute among the properties 
+	 * declaring an attribute name.
+	 * 
+	 * @return the index of the attribute or -1 if the property is held by a dedicated field
+	 */
+	int getAttributeIndex() {
+		return attributeIndex;
+	}
+	
+	/**
+	 * The method returns the properties declaring an attribute name.
+	 * 
+	 * @return the properties in the order of their attribute indices
+	 */
+	static MessageFlowNodeProperty[] attributes() {
+		return ATTRIBUTES.clone();
+	}
+	
+}
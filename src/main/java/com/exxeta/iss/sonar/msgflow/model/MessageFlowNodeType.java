@@ -0,0 +1,121 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The enumeration is the registry of the message flow node types analysed 
+ * by the plug-in. The message flow holds the nodes indexed by type (see 
+ * {@link MessageFlow#getNodes(MessageFlowNodeType)}).
+ * 
+ * A new node type of the IBM Integration Bus is supported by adding a 
+ * constant with the type name used in the message flow files (e.g. 
+ * 'Compute' for 'ComIbmCompute.msgnode:FCMComposite_1'). Nodes of other 
+ * types are skipped by the parsers.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public enum MessageFlowNodeType {
+
+	COLLECTOR("Collector"),
+	COMPUTE("Compute"),
+	FILE_INPUT("FileInput"),
+	FILE_OUTPUT("FileOutput"),
+	HTTP_INPUT("WSInput"),
+	HTTP_REQUEST("WSRequest"),
+	MQ_INPUT("MQInput"),
+	MQ_OUTPUT("MQOutput"),
+	RESET_CONTENT_DESCRIPTOR("ResetContentDescriptor"),
+	SOAP_INPUT("SOAPInput"),
+	SOAP_REQUEST("SOAPRequest"),
+	TIMEOUT_CONTROL("TimeoutControl"),
+	TIMEOUT_NOTIFICATION("TimeoutNotification"),
+	TRY_CATCH("TryCatch");
+	
+	/**
+	 * the node types by type name
+	 */
+	private static final Map<String, MessageFlowNodeType> BY_NAME = new HashMap<String, MessageFlowNodeType>();
+	
+	/**
+	 * the node types by the usual value of the xmi:type attribute
+	 */
+	private static final Map<String, MessageFlowNodeType> BY_XMI_TYPE = new HashMap<String, MessageFlowNodeType>();
+	
+	static {
+		for (MessageFlowNodeType type : values()) {
+			BY_NAME.put(type.typeName, type);
+			BY_XMI_TYPE.put("ComIbm" + type.typeName + ".msgnode:FCMComposite_1", type);
+		}
+	}
+	
+	/**
+	 * the type name, e.g. 'Compute' (see {@link MessageFlowNode#getType()})
+	 */
+	private final String typeName;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param typeName the type name used in the message flow files
+	 */
+	private MessageFlowNodeType(String typeName) {
+		this.typeName = typeName;
+	}
+	
+	/**
+	 * The method returns the type name, e.g. 'Compute'.
+	 * 
+	 * @return the type name
+	 */
+	public String getTypeName() {
+		return typeName;
+	}
+	
+	/**
+	 * The method returns the node type of a type name.
+	 * 
+	 * @param typeName the type name, e.g. 'Compute'
+	 * 
+	 * @return the node type or null if the type is not supported
+	 */
+	public static MessageFlowNodeType forTypeName(String typeName) {
+		return BY_NAME.get(typeName);
+	}
+	
+	/**
+	 * The method returns the node type of the xmi:type attribute of a node in 
+	 * a message flow file, e.g. 'ComIbmCompute.msgnode:FCMComposite_1'.
+	 * 
+	 * @param xmiType the value of the xmi:type attribute
+	 * 
+	 * @return the node type or null if the node is no ComIbm node or the type 
+	 * is not supported
+	 */
+	public static MessageFlowNodeType forXmiType(String xmiType) {
+		MessageFlowNodeType type = BY_XMI_TYPE.get(xmiType);
+		
+		if (type != null || xmiType == null || !xmiType.contains("ComIbm") || xmiType.indexOf('.') < 0) {
+			return type;
+		}
+		
+		return BY_NAME.get(xmiType.substring(0, xmiType.indexOf('.')).replace("ComIbm", ""));
+	}
+}
@@ -19,23 +19,36 @@ package com.exxeta.iss.sonar.msgflow.model;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
  * The class parses the message flow files (.msgflow). The XML data is 
  * transformed into an internal message flow model. 
  * 
+ * The parser keeps no state between calls of {@link #parse}, so one 
+ * instance can be used by several threads at the same time. The document 
+ * builder and the compiled XPath expressions are reused per thread (see 
+ * {@link MessageFlowParserContext}).
+ * 
+ * Only the nodes and properties of the given extraction plan are read (see 
+ * {@link MessageFlowExtractionPlan}). Nodes referencing a subflow are read 
+ * whenever the file is read (see {@link MessageFlowSubflowNode}). Nodes of 
+ * types which are not supported are read with their monitoring events only 
+ * (see {@link MessageFlow#getOtherNodes()}).
+ * 
  * @author Hendrik Scholz (EXXETA AG)
  */
 public class MessageFlowParser {
@@ -49,221 +62,135 @@ public class MessageFlowParser {
 	 * Parses the message flow file (.msgflow) and creates the message flow node model.
 	 * 
 	 * @param fileName the file name of the message flow file to be parsed
-	 * @param collectorNodes the list of Collector Nodes to which the new message flow node should be added
-	 * @param computeNodes the list of Compute Nodes to which the new message flow node should be added
-	 * @param fileInputNodes the list of File Input Nodes to which the new message flow node should be added
-	 * @param fileOutputNodes the list of File Output Nodes to which the new message flow node should be added
-	 * @param httpInputNodes the list of Http Input Nodes to which the new message flow node should be added
-	 * @param httpRequestNodes the list of Http Request Nodes to which the new message flow node should be added
-	 * @param mqInputNodes the list of MQ Input Nodes to which the new message flow node should be added
-	 * @param mqOutputNodes the list of MQ Output Nodes to which the new message flow node should be added
-	 * @param resetContentDescriptorNodes the list of Reset Content Descriptor Nodes to which the new message flow node should be added
-	 * @param soapInputNodes the list of Soap Input Nodes to which the new message flow node should be added
-	 * @param soapRequestNodes the list of Soap Request Nodes to which the new message flow node should be added
-	 * @param timeoutControlNodes the list of Timeout Control Nodes to which the new message flow node should be added
-	 * @param timeoutNotificationNodes the list of Timeout Notification Nodes to which the new message flow node should be added
-	 * @param tryCatchNodes the list of Try Catch Nodes to which the new message flow node should be added
+	 * @param plan the nodes and properties to be extracted
+	 * @param nodes the lists of nodes by node type to which the new message flow nodes should be added
+	 * @param connectionIndex the index to which the connections of the message flow are added
+	 * @param subflowNodes the list to which the nodes referencing a subflow are added in document order
+	 * @param otherNodes the list to which the nodes of types which are not supported are added in document order
 	 */
 	public void parse(String fileName,
-					  ArrayList<MessageFlowNode> collectorNodes,
-					  ArrayList<MessageFlowNode> computeNodes,
-					  ArrayList<MessageFlowNode> fileInputNodes,
-					  ArrayList<MessageFlowNode> fileOutputNodes,
-					  ArrayList<MessageFlowNode> httpInputNodes,
-					  ArrayList<MessageFlowNode> httpRequestNodes,
-					  ArrayList<MessageFlowNode> mqInputNodes,
-					  ArrayList<MessageFlowNode> mqOutputNodes,
-					  ArrayList<MessageFlowNode> resetContentDescriptorNodes,
-					  ArrayList<MessageFlowNode> soapInputNodes,
-					  ArrayList<MessageFlowNode> soapRequestNodes,
-					  ArrayList<MessageFlowNode> timeoutControlNodes,
-					  ArrayList<MessageFlowNode> timeoutNotificationNodes,
-					  ArrayList<MessageFlowNode> tryCatchNodes) {
+					  MessageFlowExtractionPlan plan,
+					  EnumMap<MessageFlowNodeType, ArrayList<MessageFlowNode>> nodes,
+					  MessageFlowConnectionIndex connectionIndex,
+					  ArrayList<MessageFlowSubflowNode> subflowNodes,
+					  ArrayList<MessageFlowNode> otherNodes) {
 		LOG.debug("START");
 
 		try {
-			Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(fileName);
+			MessageFlowParserContext context = MessageFlowParserContext.get();
+			Document document = context.parse(fileName);
 		
-			XPathExpression numberOfNodes = XPathFactory.newInstance().newXPath().compile("count(//nodes)");
-			int non = Integer.parseInt((String)numberOfNodes.evaluate(document, XPathConstants.STRING));
+			LOG.debug("Index connections - START");
 			
-			for (; non > 0; non--) {
-				LOG.debug("Prepare expressions - START");
+			NodeList connections = context.select(context.connectionsExpr, document);
+			
+			for (int noc = 0; noc < connections.getLength(); noc++) {
+				Element connection = (Element)connections.item(noc);
+				
+				connectionIndex.add(new MessageFlowConnection(connection.hasAttribute("sourceNode") ? connection.getAttribute("sourceNode") : null,
+															  connection.getAttribute("sourceTerminalName"),
+															  connection.hasAttribute("targetNode") ? connection.getAttribute("targetNode") : null,
+															  connection.getAttribute("targetTerminalName")));
+			}
+			
+			LOG.debug("Index connections - END");
+			
+			NodeList elements = context.select(context.nodesExpr, document);
+			ArrayList<MessageFlowSubflowNode> reversedSubflowNodes = new ArrayList<MessageFlowSubflowNode>();
+			ArrayList<MessageFlowNode> reversedOtherNodes = new ArrayList<MessageFlowNode>();
+			
+			/* the nodes are processed in reverse document order */
+			for (int non = elements.getLength(); non > 0; non--) {
+				Element node = (Element)elements.item(non - 1);
 				
-				XPathExpression idExpr								= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@id");
-				XPathExpression nameExpr							= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/translation/@string");
-				XPathExpression typeExpr							= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@type");
-				XPathExpression buildTreeUsingSchemaExpr			= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@parserXmlnscBuildTreeUsingXMLSchema");
-				XPathExpression mixedContentRetainModeExpr			= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@parserXmlnscMixedContentRetainMode");
-				XPathExpression commentsRetainModeExpr				= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@parserXmlnscCommentsRetainMode");
-				XPathExpression validateMasterExpr					= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@validateMaster");
-				XPathExpression messageDomainPropertyExpr			= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@messageDomainProperty");
-				XPathExpression messageSetPropertyExpr				= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@messageSetProperty");
-				XPathExpression requestMsgLocationInTreeExpr		= XPathFactory.newInstance().newXPath().compile("//nodes[" + non + "]/@requestMsgLocationInTree");
-
-				XPathExpression messageDomainExpr					= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@messageDomain");
-				XPathExpression messageSetExpr						= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@messageSet");
-				XPathExpression recordDefinitionExpr				= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@recordDefinition");
-				XPathExpression resetMessageDomainExpr				= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@resetMessageDomain");
-				XPathExpression resetMessageSetExpr					= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@resetMessageSet");
-				XPathExpression resetMessageTypeExpr				= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@resetMessageType");
-				XPathExpression resetMessageFormatExpr				= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/@resetMessageFormat");
-				XPathExpression monitoringEventsExpr				= XPathFactory.newInstance().newXPath().compile("count(//nodes[" + non +  "]/monitorEvents)");
-				XPathExpression monitoringEventsEventEnabledExpr	= XPathFactory.newInstance().newXPath().compile("//nodes[" + non +  "]/monitorEvents/@eventEnabled");
-
-				LOG.debug("Prepare expressions - END");
 				LOG.debug("Evaluate expressions - START");
 
-				String id						= (String)idExpr.evaluate(document, XPathConstants.STRING);
-				String name						= (String)nameExpr.evaluate(document, XPathConstants.STRING);
-				String type						= (String)typeExpr.evaluate(document, XPathConstants.STRING);
+				String type						= context.evaluate(context.typeExpr, node);
+				MessageFlowNodeType nodeType	= MessageFlowNodeType.forXmiType(type);
 				
-				LOG.debug("id: " + id);
-				LOG.debug("name: " + name);
 				LOG.debug("type: " + type);
 
-				if (type.contains("ComIbm") == false) {
-					/* if the node is not a ComIbm node */
-					LOG.debug("omitted node of type " + type);
+				String subflowPrefix			= nodeType == null ? MessageFlowSubflowNode.getPrefix(type) : null;
+				
+				if (subflowPrefix != null) {
+					LOG.debug("subflow node of type " + type);
+					
+					reversedSubflowNodes.add(new MessageFlowSubflowNode(context.evaluate(context.idExpr, node), 
+																		context.evaluate(context.nameExpr, node), 
+																		namespaceOf(document, subflowPrefix)));
 					continue;
 				}
-
-				String messageDomainProperty	= (String)messageDomainPropertyExpr.evaluate(document, XPathConstants.STRING);
-				String messageSetProperty		= (String)messageSetPropertyExpr.evaluate(document, XPathConstants.STRING);
-				String requestMsgLocationInTree	= (String)requestMsgLocationInTreeExpr.evaluate(document, XPathConstants.STRING);
-				String messageDomain			= (String)messageDomainExpr.evaluate(document, XPathConstants.STRING);
-				String messageSet				= (String)messageSetExpr.evaluate(document, XPathConstants.STRING);
-				String recordDefinition			= (String)recordDefinitionExpr.evaluate(document, XPathConstants.STRING);
-				type 							= type.substring(0, type.indexOf(".")).replace("ComIbm", "");
-				boolean buildTreeUsingSchema 	= Boolean.parseBoolean((String)buildTreeUsingSchemaExpr.evaluate(document, XPathConstants.STRING));
-				boolean mixedContentRetainMode	= ((String)mixedContentRetainModeExpr.evaluate(document, XPathConstants.STRING)).equals("all");
-				boolean commentsRetainMode		= ((String)commentsRetainModeExpr.evaluate(document, XPathConstants.STRING)).equals("all");
-				boolean validateMaster			= ((String)validateMasterExpr.evaluate(document, XPathConstants.STRING)).equals("contentAndValue");
-				boolean resetMessageDomain	 	= Boolean.parseBoolean((String)resetMessageDomainExpr.evaluate(document, XPathConstants.STRING));
-				boolean resetMessageSet 		= Boolean.parseBoolean((String)resetMessageSetExpr.evaluate(document, XPathConstants.STRING));
-				boolean resetMessageType 		= Boolean.parseBoolean((String)resetMessageTypeExpr.evaluate(document, XPathConstants.STRING));
-				boolean resetMessageFormat 		= Boolean.parseBoolean((String)resetMessageFormatExpr.evaluate(document, XPathConstants.STRING));
 				
-				int monitoringEvents				= Integer.parseInt((String)monitoringEventsExpr.evaluate(document, XPathConstants.STRING));
-				String monitoringEventsEventEnabled	= (String)monitoringEventsEventEnabledExpr.evaluate(document, XPathConstants.STRING);
-				boolean areMonitoringEventsEnabled	= true;
-				
-				/* 
-				 * monitoring events are enabled unless defined otherwise
-				 * 
-				 * - monitoring events are missing
-				 * - existing monitoring events are disabled 
-				 */
-				if (monitoringEvents == 0 ||
-					monitoringEventsEventEnabled.equals("false")) {
-					areMonitoringEventsEnabled = false;
+				if (nodeType == null && plan.includesOtherNodes()) {
+					LOG.debug("other node of type " + type);
+					
+					reversedOtherNodes.add(createOtherNode(context.evaluate(context.idExpr, node), 
+														   context.evaluate(context.nameExpr, node), 
+														   typeNameOf(type), 
+														   connectionIndex, 
+														   monitoringEventsOf(node)));
+					continue;
+				}
+
+				if (nodeType == null || !plan.includes(nodeType)) {
+					/* if the node is not a ComIbm node, its type is not supported or not needed by the active rules */
+					LOG.debug("omitted node of type " + type);
+					continue;
 				}
+
+				String id						= context.evaluate(context.idExpr, node);
+				String name						= context.evaluate(context.nameExpr, node);
 				
-				XPathExpression numberOfInputTerminals = XPathFactory.newInstance().newXPath().compile("count(//connections[@targetNode='" + id + "'])");
-				int noit = Integer.parseInt((String)numberOfInputTerminals.evaluate(document, XPathConstants.STRING));
+				LOG.debug("id: " + id);
+				LOG.debug("name: " + name);
+
+				Set<MessageFlowNodeProperty> properties	= plan.getProperties(nodeType);
 
-				XPathExpression numberOfOutputTerminals = XPathFactory.newInstance().newXPath().compile("count(//connections[@sourceNode='" + id + "'])");
-				int noot = Integer.parseInt((String)numberOfOutputTerminals.evaluate(document, XPathConstants.STRING));
+				String messageDomainProperty	= properties.contains(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY) ? context.evaluate(context.messageDomainPropertyExpr, node) : "";
+				String messageSetProperty		= properties.contains(MessageFlowNodeProperty.MESSAGE_SET_PROPERTY) ? context.evaluate(context.messageSetPropertyExpr, node) : "";
+				String requestMsgLocationInTree	= properties.contains(MessageFlowNodeProperty.REQUEST_MSG_LOCATION_IN_TREE) ? context.evaluate(context.requestMsgLocationInTreeExpr, node) : "";
+				String messageDomain			= properties.contains(MessageFlowNodeProperty.MESSAGE_DOMAIN) ? context.evaluate(context.messageDomainExpr, node) : "";
+				String messageSet				= properties.contains(MessageFlowNodeProperty.MESSAGE_SET) ? context.evaluate(context.messageSetExpr, node) : "";
+				String recordDefinition			= properties.contains(MessageFlowNodeProperty.RECORD_DEFINITION) ? context.evaluate(context.recordDefinitionExpr, node) : "";
+				boolean buildTreeUsingSchema 	= properties.contains(MessageFlowNodeProperty.BUILD_TREE_USING_SCHEMA) && Boolean.parseBoolean(context.evaluate(context.buildTreeUsingSchemaExpr, node));
+				boolean mixedContentRetainMode	= properties.contains(MessageFlowNodeProperty.MIXED_CONTENT_RETAIN_MODE) && context.evaluate(context.mixedContentRetainModeExpr, node).equals("all");
+				boolean commentsRetainMode		= properties.contains(MessageFlowNodeProperty.COMMENTS_RETAIN_MODE) && context.evaluate(context.commentsRetainModeExpr, node).equals("all");
+				boolean validateMaster			= properties.contains(MessageFlowNodeProperty.VALIDATE_MASTER) && context.evaluate(context.validateMasterExpr, node).equals("contentAndValue");
+				boolean resetMessageDomain	 	= properties.contains(MessageFlowNodeProperty.RESET_MESSAGE_DOMAIN) && Boolean.parseBoolean(context.evaluate(context.resetMessageDomainExpr, node));
+				boolean resetMessageSet 		= properties.contains(MessageFlowNodeProperty.RESET_MESSAGE_SET) && Boolean.parseBoolean(context.evaluate(context.resetMessageSetExpr, node));
+				boolean resetMessageType 		= properties.contains(MessageFlowNodeProperty.RESET_MESSAGE_TYPE) && Boolean.parseBoolean(context.evaluate(context.resetMessageTypeExpr, node));
+				boolean resetMessageFormat 		= properties.contains(MessageFlowNodeProperty.RESET_MESSAGE_FORMAT) && Boolean.parseBoolean(context.evaluate(context.resetMessageFormatExpr, node));
 				
-				ArrayList<String> inputTerminals = new ArrayList<String>();
-				ArrayList<String> outputTerminals = new ArrayList<String>();
+				List<MessageFlowMonitoringEvent> monitoringEvents = properties.contains(MessageFlowNodeProperty.MONITORING_EVENTS) 
+						? monitoringEventsOf(node) : Collections.<MessageFlowMonitoringEvent>emptyList();
 				
-				for (; noit > 0; noit--) {
-					XPathExpression inputTerminalExpr = XPathFactory.newInstance().newXPath().compile("//connections[@targetNode='" + id + "'][" + noit + "]/@targetTerminalName");
-					inputTerminals.add(((String)inputTerminalExpr.evaluate(document, XPathConstants.STRING)));
-				}
+				/* monitoring events are enabled if at least one of the events is enabled */
+				boolean areMonitoringEventsEnabled = areEnabled(monitoringEvents);
 				
-				for (; noot > 0; noot--) {
-					XPathExpression outputTerminalExpr = XPathFactory.newInstance().newXPath().compile("//connections[@sourceNode='" + id + "'][" + noot + "]/@sourceTerminalName");
-					outputTerminals.add(((String)outputTerminalExpr.evaluate(document, XPathConstants.STRING)));
-				}
+				String[] attributes = attributesOf(node, properties);
+				
+				ArrayList<String> inputTerminals = connectionIndex.getInputTerminals(id);
+				ArrayList<String> outputTerminals = connectionIndex.getOutputTerminals(id);
 
 				LOG.debug("Evaluate expressions - END");
 				LOG.debug("Fill nodes - START");
 
 				/* create new MessageFlowNode using values extracted from msgflow file */
-				MessageFlowNode mfn = new MessageFlowNode(id, name, type, buildTreeUsingSchema, mixedContentRetainMode, commentsRetainMode, validateMaster, messageDomainProperty, messageSetProperty, requestMsgLocationInTree, messageDomain, messageSet, recordDefinition, resetMessageDomain, resetMessageSet, resetMessageType, resetMessageFormat, areMonitoringEventsEnabled, inputTerminals, outputTerminals);
+				MessageFlowNode mfn = new MessageFlowNode(id, name, nodeType.getTypeName(), buildTreeUsingSchema, mixedContentRetainMode, commentsRetainMode, validateMaster, messageDomainProperty, messageSetProperty, requestMsgLocationInTree, messageDomain, messageSet, recordDefinition, resetMessageDomain, resetMessageSet, resetMessageType, resetMessageFormat, areMonitoringEventsEnabled, inputTerminals, outputTerminals, attributes, monitoringEvents);
 				
-				if (type.equals("Collector")) {
-					/* Collector */
-					LOG.debug("Collector");
-
-					collectorNodes.add(mfn);
-				} else if (type.equals("Compute")) {
-					/* Compute */
-					LOG.debug("Compute");
-					
-					computeNodes.add(mfn);
-				} else if (type.equals("FileInput")) {
-					LOG.debug("FileInput");
-					
-					/* FileInput */
-					fileInputNodes.add(mfn);
-				} else if (type.equals("FileOutput")) {
-					LOG.debug("FileOutput");
-					
-					/* FileOutput */
-					fileOutputNodes.add(mfn);
-				} else if (type.equals("WSInput")) {
-					LOG.debug("WSInput");
-					
-					/* HTTPInput */
-					httpInputNodes.add(mfn);
-				} else if (type.equals("WSRequest")) {
-					LOG.debug("WSRequest");
-					
-					/* HTTPRequest */
-					httpRequestNodes.add(mfn);
-				} else if (type.equals("MQInput")) {
-					LOG.debug("MQInput");
-					
-					/* MQInput */
-					mqInputNodes.add(mfn);
-				} else if (type.equals("MQOutput")) {
-					LOG.debug("MQOutput");
-					
-					/* MQOutput */
-					mqOutputNodes.add(mfn);
-				} else if (type.equals("ResetContentDescriptor")) {
-					LOG.debug("ResetContentDescriptor");
-					
-					/* ResetContentDescriptor */
-					resetContentDescriptorNodes.add(mfn);
-				} else if (type.equals("SOAPInput")) {
-					LOG.debug("SOAPInput");
-					
-					/* SOAPInput */
-					soapInputNodes.add(mfn);
-				} else if (type.equals("SOAPRequest")) {
-					LOG.debug("SOAPRequest");
-					
-					/* SOAPRequest */
-					soapRequestNodes.add(mfn);
-				} else if (type.equals("TimeoutControl")) {
-					LOG.debug("TimeoutControl");
-					
-					/* TimeoutControl */
-					timeoutControlNodes.add(mfn);
-				} else if (type.equals("TimeoutNotification")) {
-					LOG.debug("TimeoutNotification");
-					
-					/* TimeoutNotification */
-					timeoutNotificationNodes.add(mfn);
-				} else if (type.equals("TryCatch")) {
-					LOG.debug("TryCatch");
-					
-					/* TryCatch */
-					tryCatchNodes.add(mfn);
-				}
+				addNode(mfn, nodeType, nodes);
 				
 				LOG.debug("Fill nodes - END");
 			}
+			
+			Collections.reverse(reversedSubflowNodes);
+			subflowNodes.addAll(reversedSubflowNodes);
+			Collections.reverse(reversedOtherNodes);
+			otherNodes.addAll(reversedOtherNodes);
 		} catch (XPathExpressionException e) {
 			LOG.error(e.getMessage());
 		} catch (SAXException e) {
 			LOG.error(e.getMessage());
-		} catch (ParserConfigurationException e) {
-			LOG.error(e.getMessage());
 		} catch (IOException e) {
 			LOG.error(e.getMessage());
 		} catch (Exception e) {
@@ -272,4 +199,151 @@ public class MessageFlowParser {
 		
 		LOG.debug("END");
 	}
+	
+	/**
+	 * Returns the values of the attribute properties of a node which are 
+	 * part of the extraction plan.
+	 * 
+	 * @param node the nodes element
+	 * @param properties the extracted properties of the node
+	 * 
+	 * @return the values by attribute index or null if none of the attributes is extracted
+	 */
+	private static String[] attributesOf(Element node, Set<MessageFlowNodeProperty> properties) {
+		MessageFlowNodeProperty[] attributeProperties = MessageFlowNodeProperty.attributes();
+		String[] attributes = null;
+		
+		for (MessageFlowNodeProperty property : attributeProperties) {
+			if (properties.contains(property) && node.hasAttribute(property.getAttributeName())) {
+				if (attributes == null) {
+					attributes = new String[attributeProperties.length];
+				}
+				
+				attributes[property.getAttributeIndex()] = node.getAttribute(property.getAttributeName());
+			}
+		}
+		
+		return attributes;
+	}
+	
+	/**
+	 * Returns the monitoring events of a node, i.e. its child elements 
+	 * 'monitorEvents'. An event is enabled unless its attribute 
+	 * 'eventEnabled' is 'false'.
+	 * 
+	 * @param node the nodes element
+	 * 
+	 * @return the monitoring events in document order
+	 */
+	private static List<MessageFlowMonitoringEvent> monitoringEventsOf(Element node) {
+		List<MessageFlowMonitoringEvent> events = new ArrayList<MessageFlowMonitoringEvent>();
+		
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE || !child.getNodeName().equals("monitorEvents")) {
+				continue;
+			}
+			
+			Element event = (Element)child;
+			NodeList bitStreamData = event.getElementsByTagName("bitStreamData");
+			NodeList complexContent = event.getElementsByTagName("complexContent");
+			List<String> dataLocations = new ArrayList<String>();
+			
+			for (int i = 0; i < complexContent.getLength(); i++) {
+				dataLocations.add(((Element)complexContent.item(i)).getAttribute("dataLocation"));
+			}
+			
+			String bitstreamContent = bitStreamData.getLength() == 0 ? null : ((Element)bitStreamData.item(0)).getAttribute("bitstreamContent");
+			
+			events.add(new MessageFlowMonitoringEvent(event.getAttribute("eventSourceName"), 
+													  !event.getAttribute("eventEnabled").equals("false"), 
+													  MessageFlowMonitoringEvent.scopeOf(bitstreamContent, dataLocations, event.getElementsByTagName("simpleContent").getLength())));
+		}
+		
+		return events;
+	}
+	
+	/**
+	 * Returns the type name of a node of a type which is not supported, 
+	 * i.e. the XMI type up to the first dot without the prefix 'ComIbm', 
+	 * e.g. 'JavaCompute' for 'ComIbmJavaCompute.msgnode:FCMComposite_1'.
+	 * 
+	 * @param xmiType the XMI type of the node
+	 * 
+	 * @return the type name of the node
+	 */
+	static String typeNameOf(String xmiType) {
+		String typeName = xmiType.indexOf('.') < 0 ? xmiType : xmiType.substring(0, xmiType.indexOf('.'));
+		
+		return typeName.startsWith("ComIbm") ? typeName.substring("ComIbm".length()) : typeName;
+	}
+	
+	/**
+	 * Creates the message flow node of a node of a type which is not 
+	 * supported. None of the properties of the supported types is set.
+	 * 
+	 * @param id the ID of the node
+	 * @param name the name of the node
+	 * @param typeName the type name of the node (see {@link #typeNameOf(String)})
+	 * @param connectionIndex the index of the connections of the message flow
+	 * @param monitoringEvents the monitoring events of the node in document order
+	 * 
+	 * @return the message flow node
+	 */
+	static MessageFlowNode createOtherNode(String id, 
+										   String name, 
+										   String typeName, 
+										   MessageFlowConnectionIndex connectionIndex, 
+										   List<MessageFlowMonitoringEvent> monitoringEvents) {
+		return new MessageFlowNode(id, name, typeName, false, false, false, false, "", "", "", "", "", "", false, false, false, false, 
+				areEnabled(monitoringEvents), connectionIndex.getInputTerminals(id), connectionIndex.getOutputTerminals(id), null, monitoringEvents);
+	}
+	
+	/**
+	 * Returns whether at least one of the monitoring events is enabled.
+	 * 
+	 * @param monitoringEvents the monitoring events of a node
+	 * 
+	 * @return true if an event is enabled
+	 */
+	static boolean areEnabled(List<MessageFlowMonitoringEvent> monitoringEvents) {
+		for (MessageFlowMonitoringEvent event : monitoringEvents) {
+			if (event.isEnabled()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Returns the namespace declared for a prefix on the root element of the 
+	 * document, where the message flow files declare all namespaces. The 
+	 * document is not parsed namespace aware, so the declarations are read 
+	 * as plain attributes.
+	 * 
+	 * @param document the document of the message flow file
+	 * @param prefix the namespace prefix, e.g. 'Compute.subflow'
+	 * 
+	 * @return the namespace or the prefix if it is not declared
+	 */
+	private static String namespaceOf(Document document, String prefix) {
+		String namespace = document.getDocumentElement().getAttribute("xmlns:" + prefix);
+		
+		return namespace.isEmpty() ? prefix : namespace;
+	}
+	
+	/**
+	 * Adds the message flow node to the list of its type.
+	 * 
+	 * @param mfn the message flow node to be added
+	 * @param nodeType the type of the message flow node
+	 * @param nodes the lists of nodes by node type
+	 */
+	protected void addNode(MessageFlowNode mfn,
+						   MessageFlowNodeType nodeType,
+						   EnumMap<MessageFlowNodeType, ArrayList<MessageFlowNode>> nodes) {
+		LOG.debug(nodeType.getTypeName());
+		
+		nodes.get(nodeType).add(mfn);
+	}
 }
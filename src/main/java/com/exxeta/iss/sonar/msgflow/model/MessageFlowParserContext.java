@@ -0,0 +1,249 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * The class holds the document builder and the compiled XPath expressions 
+ * used by {@link MessageFlowParser}. The factories are looked up and the 
+ * expressions are compiled once per context instead of once per file and 
+ * node.
+ * 
+ * The node expressions refer to the node to be evaluated by the variable 
+ * <code>$node</code> which is resolved by the context (see 
+ * {@link #evaluate(XPathExpression, Element)}).
+ * 
+ * The time spent parsing and evaluating is added to the XML time of the 
+ * current thread (see {@link MessageFlowStatistics}).
+ * 
+ * A context is not thread-safe and must be confined to one thread (see 
+ * {@link #get()}).
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+final class MessageFlowParserContext implements XPathVariableResolver {
+
+	/**
+	 * the name of the variable referring to the node to be evaluated
+	 */
+	private static final QName NODE = new QName("node");
+	
+	/**
+	 * the context of the current thread
+	 */
+	private static final ThreadLocal<MessageFlowParserContext> CONTEXT = new ThreadLocal<MessageFlowParserContext>() {
+		@Override
+		protected MessageFlowParserContext initialValue() {
+			try {
+				return new MessageFlowParserContext();
+			} catch (ParserConfigurationException e) {
+				throw new IllegalStateException(e);
+			} catch (XPathExpressionException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	};
+	
+	/**
+	 * the document builder, reset before each file
+	 */
+	private final DocumentBuilder documentBuilder;
+	
+	/**
+	 * the node to which the variable $node refers
+	 */
+	private Element node;
+	
+	/** the expression selecting all connections */
+	final XPathExpression connectionsExpr;
+	/** the expression selecting all nodes */
+	final XPathExpression nodesExpr;
+	
+	/** the expressions evaluated per node */
+	final XPathExpression idExpr;
+	final XPathExpression nameExpr;
+	final XPathExpression typeExpr;
+	final XPathExpression buildTreeUsingSchemaExpr;
+	final XPathExpression mixedContentRetainModeExpr;
+	final XPathExpression commentsRetainModeExpr;
+	final XPathExpression validateMasterExpr;
+	final XPathExpression messageDomainPropertyExpr;
+	final XPathExpression messageSetPropertyExpr;
+	final XPathExpression requestMsgLocationInTreeExpr;
+	final XPathExpression messageDomainExpr;
+	final XPathExpression messageSetExpr;
+	final XPathExpression recordDefinitionExpr;
+	final XPathExpression resetMessageDomainExpr;
+	final XPathExpression resetMessageSetExpr;
+	final XPathExpression resetMessageTypeExpr;
+	final XPathExpression resetMessageFormatExpr;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates the document builder and compiles the expressions.
+	 * 
+	 * @throws ParserConfigurationException if the document builder cannot be created
+	 * @throws XPathExpressionException if an expression cannot be compiled
+	 */
+	private MessageFlowParserContext() throws ParserConfigurationException, XPathExpressionException {
+		documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		xpath.setXPathVariableResolver(this);
+		
+		connectionsExpr						= xpath.compile("//connections");
+		nodesExpr							= xpath.compile("//nodes");
+		
+		idExpr								= xpath.compile("$node/@id");
+		nameExpr							= xpath.compile("$node/translation/@string");
+		typeExpr							= xpath.compile("$node/@type");
+		buildTreeUsingSchemaExpr			= xpath.compile("$node/@parserXmlnscBuildTreeUsingXMLSchema");
+		mixedContentRetainModeExpr			= xpath.compile("$node/@parserXmlnscMixedContentRetainMode");
+		commentsRetainModeExpr				= xpath.compile("$node/@parserXmlnscCommentsRetainMode");
+		validateMasterExpr					= xpath.compile("$node/@validateMaster");
+		messageDomainPropertyExpr			= xpath.compile("$node/@messageDomainProperty");
+		messageSetPropertyExpr				= xpath.compile("$node/@messageSetProperty");
+		requestMsgLocationInTreeExpr		= xpath.compile("$node/@requestMsgLocationInTree");
+		
+		messageDomainExpr					= xpath.compile("$node/@messageDomain");
+		messageSetExpr						= xpath.compile("$node/@messageSet");
+		recordDefinitionExpr				= xpath.compile("$node/@recordDefinition");
+		resetMessageDomainExpr				= xpath.compile("$node/@resetMessageDomain");
+		resetMessageSetExpr					= xpath.compile("$node/@resetMessageSet");
+		resetMessageTypeExpr				= xpath.compile("$node/@resetMessageType");
+		resetMessageFormatExpr				= xpath.compile("$node/@resetMessageFormat");
+	}
+	
+	/**
+	 * Returns the context of the current thread.
+	 * 
+	 * @return the context of the current thread
+	 */
+	static MessageFlowParserContext get() {
+		return CONTEXT.get();
+	}
+	
+	/**
+	 * The method parses the message flow file or its prefetched content 
+	 * (see {@link MessageFlowContent}).
+	 * 
+	 * @param fileName the file name of the message flow file
+	 * 
+	 * @return the document of the message flow file
+	 * 
+	 * @throws SAXException if the file is not well-formed
+	 * @throws IOException if the file cannot be read
+	 */
+	Document parse(String fileName) throws SAXException, IOException {
+		long start = System.nanoTime();
+		
+		try {
+			documentBuilder.reset();
+			
+			InputStream in = MessageFlowContent.open(fileName);
+			
+			try {
+				return documentBuilder.parse(in, fileName);
+			} finally {
+				in.close();
+			}
+		} finally {
+			MessageFlowStatistics.addXmlNanos(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * The method evaluates an expression selecting a list of elements of the 
+	 * document.
+	 * 
+	 * @param expression the expression, e.g. {@link #nodesExpr}
+	 * @param document the document of the message flow file
+	 * 
+	 * @return the elements selected
+	 * 
+	 * @throws XPathExpressionException if the expression cannot be evaluated
+	 */
+	NodeList select(XPathExpression expression, Document document) throws XPathExpressionException {
+		long start = System.nanoTime();
+		
+		try {
+			return (NodeList)expression.evaluate(document, XPathConstants.NODESET);
+		} finally {
+			MessageFlowStatistics.addXmlNanos(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * The method evaluates a node expression for the given node.
+	 * 
+	 * The node is detached from its document first. The XPath implementation 
+	 * of the JDK locates the node in the whole document otherwise, so the 
+	 * effort would grow with the number of nodes in front of it.
+	 * 
+	 * @param expression the node expression, e.g. {@link #idExpr}
+	 * @param element the node of the message flow
+	 * 
+	 * @return the result of the expression as string
+	 * 
+	 * @throws XPathExpressionException if the expression cannot be evaluated
+	 */
+	String evaluate(XPathExpression expression, Element element) throws XPathExpressionException {
+		if (element.getParentNode() != null) {
+			element.getParentNode().removeChild(element);
+		}
+		
+		node = element;
+		
+		long start = System.nanoTime();
+		
+		try {
+			return (String)expression.evaluate(element, XPathConstants.STRING);
+		} finally {
+			node = null;
+			
+			MessageFlowStatistics.addXmlNanos(System.nanoTime() - start);
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see javax.xml.xpath.XPathVariableResolver#resolveVariable(javax.xml.namespace.QName)
+	 */
+	@Override
+	public Object resolveVariable(QName variableName) {
+		return NODE.equals(variableName) ? node : null;
+	}
+}
@@ -17,12 +17,39 @@
  */
 package com.exxeta.iss.sonar.msgflow.model;
 
-import java.util.HashMap;
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The class holds the list of message flows (internal message flow model) of a 
  * single message flow project.
  * 
+ * The message flows are kept in a thread-safe cache bounded by a maximum 
+ * number of entries (see {@link MessageFlowCache}). The project may be used 
+ * by several threads at the same time; message flows are immutable once 
+ * they have been parsed.
+ * 
+ * If a persistent cache is set (see {@link MessageFlowDiskCache}), message 
+ * flows missing in the memory cache are loaded from the persistent cache 
+ * before the message flow files are parsed.
+ * 
+ * Only the nodes and properties of the extraction plan are extracted from 
+ * the message flow files (see {@link MessageFlowExtractionPlan}). The plan 
+ * is set once per analysis according to the active rules.
+ * 
+ * The time spent loading the message flows is recorded in the statistics 
+ * of the project (see {@link MessageFlowStatistics}).
+ * 
+ * The subflows referenced by the message flows are resolved lazily. A 
+ * subflow graph is a message flow of the cache, so it is parsed once and 
+ * shared by all parent flows using it (and by the analysis of the subflow 
+ * file itself). Flattened views of the message flows are created on 
+ * request (see {@link MessageFlowFlattenedView}).
+ * 
+ * The MQ queues read and written by the message flows are collected in a 
+ * project-wide index during the analysis (see {@link MessageFlowQueueIndex}).
+ * 
  * @author Hendrik Scholz (EXXETA AG)
  */
 public class MessageFlowProject {
@@ -33,14 +60,97 @@ public class MessageFlowProject {
 	//private static final Logger LOG = LoggerFactory.getLogger(MessageFlowProject.class);
 	
 	/**
-	 * a HashMap holding the file name and the message flow object
+	 * the one and only instance of the MessageFlowProject
 	 */
-	private static HashMap<String, MessageFlow> msgflowMap;
-
+	private static final MessageFlowProject instance = new MessageFlowProject();
+	
 	/**
-	 * the one and only instance of the MessageFlowProject
+	 * the default maximum nesting depth of the subflows in a flattened view
+	 */
+	public static final int DEFAULT_MAXIMUM_SUBFLOW_DEPTH = 8;
+	
+	/**
+	 * the default maximum request timeout of HTTP Request and SOAP Request 
+	 * nodes in seconds
+	 */
+	public static final int DEFAULT_MAXIMUM_REQUEST_TIMEOUT = 60;
+	
+	/**
+	 * the default maximum number of enabled monitoring events per message on 
+	 * a path of a message flow
+	 */
+	public static final int DEFAULT_MAXIMUM_MONITORING_EVENTS = 10;
+	
+	/**
+	 * the default maximum number of enabled monitoring events per message on 
+	 * a path of a message flow capturing the body or the whole message
+	 */
+	public static final int DEFAULT_MAXIMUM_PAYLOAD_EVENTS = 2;
+	
+	/**
+	 * the marker of subflows which cannot be resolved
+	 */
+	private static final String UNRESOLVED = "";
+	
+	/**
+	 * a cache holding the file name and the message flow object
+	 */
+	private final MessageFlowCache msgflowCache = new MessageFlowCache(MessageFlowCache.DEFAULT_MAXIMUM_SIZE);
+	
+	/**
+	 * the parser used to parse the message flow files
+	 */
+	private volatile MessageFlowParser messageFlowParser = new MessageFlowParser();
+	
+	/**
+	 * the persistent cache of the message flows or null
+	 */
+	private volatile MessageFlowDiskCache diskCache;
+	
+	/**
+	 * the nodes and properties extracted from the message flow files
+	 */
+	private volatile MessageFlowExtractionPlan extractionPlan = MessageFlowExtractionPlan.ALL;
+	
+	/**
+	 * the counters and timers of the analysis
+	 */
+	private final MessageFlowStatistics statistics = new MessageFlowStatistics();
+	
+	/**
+	 * the producers and consumers of the MQ queues of the project
+	 */
+	private final MessageFlowQueueIndex queueIndex = new MessageFlowQueueIndex();
+	
+	/**
+	 * the base directory of the project, above which no subflows are looked up, or null
+	 */
+	private volatile File baseDir;
+	
+	/**
+	 * the resolved subflow files by directory of the parent flow and subflow
+	 */
+	private final ConcurrentHashMap<String, String> subflowFiles = new ConcurrentHashMap<String, String>();
+	
+	/**
+	 * the maximum nesting depth of the subflows in a flattened view
+	 */
+	private volatile int maximumSubflowDepth = DEFAULT_MAXIMUM_SUBFLOW_DEPTH;
+	
+	/**
+	 * the maximum request timeout of HTTP Request and SOAP Request nodes in seconds
+	 */
+	private volatile int maximumRequestTimeout = DEFAULT_MAXIMUM_REQUEST_TIMEOUT;
+	
+	/**
+	 * the maximum number of enabled monitoring events per message on a path of a message flow
+	 */
+	private volatile int maximumMonitoringEvents = DEFAULT_MAXIMUM_MONITORING_EVENTS;
+	
+	/**
+	 * the maximum number of enabled monitoring events per message on a path of a message flow capturing the payload
 	 */
-	private static MessageFlowProject instance;
+	private volatile int maximumPayloadEvents = DEFAULT_MAXIMUM_PAYLOAD_EVENTS;
 	
 	/**
 	 * Constructor
@@ -51,43 +161,355 @@ public class MessageFlowProject {
 	}
 	
 	/**
-	 * Creates an instance of a MessageFlowProject and initialises the HashMap
+	 * Returns the instance of a MessageFlowProject
 	 * 
-	 * @return an instance of a MessageFlowProject
+	 * @return the instance of a MessageFlowProject
 	 */
 	public static MessageFlowProject getInstance() {
-		if (instance == null) {
-			instance = new MessageFlowProject();
-			msgflowMap = new HashMap<String, MessageFlow>();
-		}
-		
 		return instance;
 	}
 	
 	/**
 	 * The method retrieves the message flow object using the file name.
 	 * 
-	 * If the file name is not in the map, the file is parsed and the 
-	 * corresponding message flow object is put to the map. If the file name 
-	 * is in the map, the existing message flow object is returned. Every file 
-	 * is just parsed once.
+	 * If the file name is not in the cache, the file is parsed and the 
+	 * corresponding message flow object is put to the cache. If the file name 
+	 * is in the cache, the existing message flow object is returned. A file 
+	 * is parsed once as long as it is not evicted from the cache, even if it 
+	 * is requested by several threads at the same time.
 	 * 
 	 * @param the file name for which the message flow object should be retrieved
 	 * 
 	 * @return the message flow object
 	 */
-	public MessageFlow getMessageFlow(String fileName) {
+	public MessageFlow getMessageFlow(final String fileName) {
 		/*
 		 * retrieves the message flow object using the file name
 		 * 
-		 * If the message flow is not in the map, parse the file and put the
-		 * message flow object to the map.
+		 * If the message flow is not in the cache, parse the file and put the
+		 * message flow object to the cache.
 		 */
-		if (msgflowMap.containsKey(fileName) == false) {
-			msgflowMap.put(fileName,
-					   	   new MessageFlow(fileName, new MessageFlowParser()));
+		final MessageFlowParser parser = messageFlowParser;
+		final MessageFlowDiskCache persistentCache = diskCache;
+		final MessageFlowExtractionPlan plan = extractionPlan;
+		
+		return msgflowCache.get(fileName, new Callable<MessageFlow>() {
+			@Override
+			public MessageFlow call() {
+				long start = System.nanoTime();
+				long xmlStart = MessageFlowStatistics.getXmlNanos();
+				
+				try {
+					if (persistentCache != null) {
+						return persistentCache.load(fileName, parser, plan);
+					}
+					
+					return new MessageFlow(fileName, parser, plan);
+				} finally {
+					statistics.addLoad(System.nanoTime() - start, MessageFlowStatistics.getXmlNanos() - xmlStart);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * The method retrieves the message flow object of a subflow referenced by 
+	 * a node of a message flow. The subflow is loaded on the first request 
+	 * and taken from the cache afterwards, so all parent flows share the 
+	 * same subflow graph.
+	 * 
+	 * @param fileName the file name of the parent flow
+	 * @param subflowNode the node referencing the subflow
+	 * 
+	 * @return the message flow object of the subflow or null if the subflow cannot be resolved
+	 */
+	public MessageFlow getSubflow(String fileName, MessageFlowSubflowNode subflowNode) {
+		String subflowFile = getSubflowFile(fileName, subflowNode);
+		
+		return subflowFile == null ? null : getMessageFlow(subflowFile);
+	}
+	
+	/**
+	 * The method returns the file name of a subflow referenced by a node of 
+	 * a message flow. The subflow path is relative to the project of the 
+	 * subflow, so it is looked up in the directory of the parent flow and in 
+	 * each of its parent directories up to the base directory of the project 
+	 * (see {@link #setBaseDir(File)}), so that no file outside of the project 
+	 * is taken. The result is kept per directory and subflow path, as a 
+	 * subflow is typically referenced by many flows.
+	 * 
+	 * @param fileName the file name of the parent flow
+	 * @param subflowNode the node referencing the subflow
+	 * 
+	 * @return the file name of the subflow or null if the subflow cannot be resolved
+	 */
+	public String getSubflowFile(String fileName, MessageFlowSubflowNode subflowNode) {
+		File directory = new File(fileName).getParentFile();
+		String key = (directory == null ? "" : directory.getPath()) + File.pathSeparator + subflowNode.getSubflow();
+		String subflowFile = subflowFiles.get(key);
+		
+		if (subflowFile == null) {
+			subflowFile = UNRESOLVED;
+			
+			File base = baseDir;
+			
+			for (File dir = directory == null ? new File("") : directory; dir != null; dir = dir.getParentFile()) {
+				File file = dir.getPath().isEmpty() ? new File(subflowNode.getSubflow()) : new File(dir, subflowNode.getSubflow());
+				
+				if (file.isFile()) {
+					subflowFile = file.getPath();
+					break;
+				}
+				
+				if (base != null && !isBelow(dir, base)) {
+					/* the base directory or a directory outside of the project */
+					break;
+				}
+			}
+			
+			subflowFiles.putIfAbsent(key, subflowFile);
+		}
+		
+		return subflowFile.equals(UNRESOLVED) ? null : subflowFile;
+	}
+	
+	/**
+	 * Returns whether a directory lies strictly below the base directory.
+	 * 
+	 * @param dir the directory
+	 * @param base the base directory of the project
+	 * 
+	 * @return true if the directory is a sub-directory of the base directory
+	 */
+	private static boolean isBelow(File dir, File base) {
+		String path = dir.getAbsoluteFile().toURI().normalize().getPath();
+		String basePath = base.getAbsoluteFile().toURI().normalize().getPath();
+		
+		if (!basePath.endsWith("/")) {
+			basePath = basePath + "/";
+		}
+		
+		return path.startsWith(basePath) && path.length() > basePath.length();
+	}
+	
+	/**
+	 * The method returns the base directory of the project.
+	 * 
+	 * @return the base directory of the project or null if the subflows are 
+	 * looked up up to the root directory
+	 */
+	public File getBaseDir() {
+		return baseDir;
+	}
+	
+	/**
+	 * The method sets the base directory of the project, above which no 
+	 * subflows are looked up. The resolved subflow files are released.
+	 * 
+	 * @param baseDir the base directory of the project or null
+	 */
+	public void setBaseDir(File baseDir) {
+		this.baseDir = baseDir;
+		subflowFiles.clear();
+	}
+	
+	/**
+	 * The method creates a flattened view of a message flow in which the 
+	 * subflow nodes are expanded recursively up to the maximum nesting depth. 
+	 * The view is not cached, but the subflow graphs are.
+	 * 
+	 * @param fileName the file name of the message flow
+	 * 
+	 * @return the flattened view of the message flow
+	 */
+	public MessageFlowFlattenedView getFlattenedMessageFlow(String fileName) {
+		return new MessageFlowFlattenedView(fileName, getMessageFlow(fileName), this, maximumSubflowDepth);
+	}
+	
+	/**
+	 * The method returns the maximum nesting depth of the subflows in a 
+	 * flattened view.
+	 * 
+	 * @return the maximum nesting depth of the subflows
+	 */
+	public int getMaximumSubflowDepth() {
+		return maximumSubflowDepth;
+	}
+	
+	/**
+	 * The method sets the maximum nesting depth of the subflows in a 
+	 * flattened view.
+	 * 
+	 * @param maximumSubflowDepth the maximum nesting depth of the subflows
+	 */
+	public void setMaximumSubflowDepth(int maximumSubflowDepth) {
+		this.maximumSubflowDepth = maximumSubflowDepth;
+	}
+	
+	/**
+	 * The method returns the maximum request timeout of HTTP Request and 
+	 * SOAP Request nodes.
+	 * 
+	 * @return the maximum request timeout in seconds
+	 */
+	public int getMaximumRequestTimeout() {
+		return maximumRequestTimeout;
+	}
+	
+	/**
+	 * The method sets the maximum request timeout of HTTP Request and SOAP 
+	 * Request nodes.
+	 * 
+	 * @param maximumRequestTimeout the maximum request timeout in seconds
+	 */
+	public void setMaximumRequestTimeout(int maximumRequestTimeout) {
+		this.maximumRequestTimeout = maximumRequestTimeout;
+	}
+	
+	/**
+	 * The method returns the maximum number of enabled monitoring events 
+	 * emitted per message on a path of a message flow.
+	 * 
+	 * @return the maximum number of monitoring events
+	 */
+	public int getMaximumMonitoringEvents() {
+		return maximumMonitoringEvents;
+	}
+	
+	/**
+	 * The method sets the maximum number of enabled monitoring events 
+	 * emitted per message on a path of a message flow.
+	 * 
+	 * @param maximumMonitoringEvents the maximum number of monitoring events
+	 */
+	public void setMaximumMonitoringEvents(int maximumMonitoringEvents) {
+		this.maximumMonitoringEvents = maximumMonitoringEvents;
+	}
+	
+	/**
+	 * The method returns the maximum number of enabled monitoring events 
+	 * emitted per message on a path of a message flow capturing the body or 
+	 * the whole message.
+	 * 
+	 * @return the maximum number of payload events
+	 */
+	public int getMaximumPayloadEvents() {
+		return maximumPayloadEvents;
+	}
+	
+	/**
+	 * The method sets the maximum number of enabled monitoring events 
+	 * emitted per message on a path of a message flow capturing the body or 
+	 * the whole message.
+	 * 
+	 * @param maximumPayloadEvents the maximum number of payload events
+	 */
+	public void setMaximumPayloadEvents(int maximumPayloadEvents) {
+		this.maximumPayloadEvents = maximumPayloadEvents;
+	}
+	
+	/**
+	 * The method returns the cache of the message flows, e.g. to retrieve 
+	 * the hit, miss and eviction counters.
+	 * 
+	 * @return the cache of the message flows
+	 */
+	public MessageFlowCache getMessageFlowCache() {
+		return msgflowCache;
+	}
+	
+	/**
+	 * The method returns the counters and timers of the analysis, e.g. the 
+	 * time spent loading the message flows.
+	 * 
+	 * @return the statistics of the analysis
+	 */
+	public MessageFlowStatistics getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * The method returns the index of the producers and consumers of the MQ 
+	 * queues of the project.
+	 * 
+	 * @return the queue index of the project
+	 */
+	public MessageFlowQueueIndex getQueueIndex() {
+		return queueIndex;
+	}
+	
+	/**
+	 * The method returns the parser used to parse the message flow files.
+	 * 
+	 * @return the parser used to parse the message flow files
+	 */
+	public MessageFlowParser getMessageFlowParser() {
+		return messageFlowParser;
+	}
+	
+	/**
+	 * The method sets the parser used to parse the message flow files. 
+	 * Message flows which have already been parsed are not affected.
+	 * 
+	 * @param messageFlowParser the parser used to parse the message flow files
+	 */
+	public void setMessageFlowParser(MessageFlowParser messageFlowParser) {
+		this.messageFlowParser = messageFlowParser;
+	}
+	
+	/**
+	 * The method returns the persistent cache of the message flows.
+	 * 
+	 * @return the persistent cache of the message flows or null
+	 */
+	public MessageFlowDiskCache getDiskCache() {
+		return diskCache;
+	}
+	
+	/**
+	 * The method sets the persistent cache of the message flows. Message 
+	 * flows which are already in the memory cache are not affected.
+	 * 
+	 * @param diskCache the persistent cache of the message flows or null
+	 */
+	public void setDiskCache(MessageFlowDiskCache diskCache) {
+		this.diskCache = diskCache;
+	}
+	
+	/**
+	 * The method returns the plan defining the nodes and properties 
+	 * extracted from the message flow files.
+	 * 
+	 * @return the extraction plan
+	 */
+	public MessageFlowExtractionPlan getExtractionPlan() {
+		return extractionPlan;
+	}
+	
+	/**
+	 * The method releases the message flows of an earlier analysis, i.e. the 
+	 * memory cache, the resolved subflow files, the queue index and the 
+	 * shared terminal tables. It is called at the start of an analysis.
+	 */
+	public synchronized void clear() {
+		msgflowCache.clear();
+		subflowFiles.clear();
+		queueIndex.clear();
+		MessageFlowTerminals.clear();
+	}
+	
+	/**
+	 * The method sets the plan defining the nodes and properties extracted 
+	 * from the message flow files. The memory cache is cleared if the plan 
+	 * changes, as the cached message flows have been parsed according to 
+	 * the previous plan.
+	 * 
+	 * @param extractionPlan the extraction plan
+	 */
+	public synchronized void setExtractionPlan(MessageFlowExtractionPlan extractionPlan) {
+		if (!this.extractionPlan.equals(extractionPlan)) {
+			this.extractionPlan = extractionPlan;
+			msgflowCache.clear();
 		}
-
-		return msgflowMap.get(fileName);
 	}
 }
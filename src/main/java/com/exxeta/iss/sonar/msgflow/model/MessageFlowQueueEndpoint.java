@@ -0,0 +1,168 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+/**
+ * The class is a model of a MQ queue read or written by a node of a message 
+ * flow, i.e. the queue of a MQ Input node (consumer) or of a MQ Output node 
+ * (producer). The endpoints of all message flow files of a project are 
+ * collected in the {@link MessageFlowQueueIndex}.
+ * 
+ * The queue manager is empty if the node uses the queue manager of the 
+ * integration server.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowQueueEndpoint {
+
+	/**
+	 * true if the node writes to the queue, false if it reads from the queue
+	 */
+	private final boolean producer;
+	
+	/**
+	 * the name of the queue manager or an empty string
+	 */
+	private final String queueManager;
+	
+	/**
+	 * the name of the queue
+	 */
+	private final String queue;
+	
+	/**
+	 * the name of the node
+	 */
+	private final String nodeName;
+	
+	/**
+	 * the type of the node, e.g. 'MQInput'
+	 */
+	private final String nodeType;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a new queue endpoint (model).
+	 */
+	public MessageFlowQueueEndpoint(boolean producer,
+									String queueManager,
+									String queue,
+									String nodeName,
+									String nodeType) {
+		this.producer		= producer;
+		this.queueManager	= queueManager == null ? "" : queueManager;
+		this.queue			= queue;
+		this.nodeName		= nodeName;
+		this.nodeType		= nodeType;
+	}
+	
+	/**
+	 * The method creates the endpoint of a MQ Input or MQ Output node.
+	 * 
+	 * @param node the message flow node
+	 * 
+	 * @return the endpoint or null if the node is no MQ node or its queue name is not set
+	 */
+	public static MessageFlowQueueEndpoint of(MessageFlowNode node) {
+		String queue = node.getValue(MessageFlowNodeProperty.QUEUE_NAME);
+		
+		if (queue.isEmpty()) {
+			return null;
+		}
+		
+		MessageFlowNodeType nodeType = MessageFlowNodeType.forTypeName(node.getType());
+		
+		if (nodeType != MessageFlowNodeType.MQ_INPUT && nodeType != MessageFlowNodeType.MQ_OUTPUT) {
+			return null;
+		}
+		
+		return new MessageFlowQueueEndpoint(nodeType == MessageFlowNodeType.MQ_OUTPUT,
+											node.getValue(MessageFlowNodeProperty.QUEUE_MANAGER_NAME),
+											queue,
+											node.getName(),
+											node.getType());
+	}
+	
+	/**
+	 * The method returns whether the node writes to the queue.
+	 * 
+	 * @return true for a producer (MQ Output), false for a consumer (MQ Input)
+	 */
+	public boolean isProducer() {
+		return producer;
+	}
+	
+	/**
+	 * The method returns the name of the queue manager.
+	 * 
+	 * @return the name of the queue manager or an empty string
+	 */
+	public String getQueueManager() {
+		return queueManager;
+	}
+	
+	/**
+	 * The method returns the name of the queue.
+	 * 
+	 * @return the name of the queue
+	 */
+	public String getQueue() {
+		return queue;
+	}
+	
+	/**
+	 * The method returns the name of the node.
+	 * 
+	 * @return the name of the node
+	 */
+	public String getNodeName() {
+		return nodeName;
+	}
+	
+	/**
+	 * The method returns the type of the node, e.g. 'MQOutput'.
+	 * 
+	 * @return the type of the node
+	 */
+	public String getNodeType() {
+		return nodeType;
+	}
+	
+	/**
+	 * The method checks if two endpoints refer to the same queue. The queue 
+	 * managers match if they are equal or if one of them is empty, as the 
+	 * queue manager of the integration server is not known to the analysis.
+	 * 
+	 * @param other the other endpoint
+	 * 
+	 * @return true if the endpoints refer to the same queue
+	 */
+	public boolean matches(MessageFlowQueueEndpoint other) {
+		return queue.equals(other.queue) 
+				&& (queueManager.isEmpty() || other.queueManager.isEmpty() || queueManager.equals(other.queueManager));
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return (producer ? "producer" : "consumer") + "[" + (queueManager.isEmpty() ? "" : queueManager + ":") + queue + ", " + nodeName + "]";
+	}
+}
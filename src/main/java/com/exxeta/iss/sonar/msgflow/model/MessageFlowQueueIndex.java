@@ -0,0 +1,277 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The class indexes the MQ queues read and written by the message flows of 
+ * a project (see {@link MessageFlowQueueEndpoint}). The endpoints are 
+ * hashed by queue name, so the producers and consumers of a queue are 
+ * looked up in constant time instead of comparing the message flow files 
+ * pairwise.
+ * 
+ * The endpoints are added once per file during the analysis of the files 
+ * and looked up after all files have been analysed, e.g. to find queues 
+ * without a consumer. The index may be used by several threads at the 
+ * same time.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowQueueIndex {
+
+	/**
+	 * the registered endpoints by queue name
+	 */
+	private final Map<String, List<Registration>> queues = new HashMap<String, List<Registration>>();
+	
+	/**
+	 * the endpoints by path of the message flow file in the order of the paths
+	 */
+	private final Map<String, List<MessageFlowQueueEndpoint>> files = new TreeMap<String, List<MessageFlowQueueEndpoint>>();
+	
+	/**
+	 * the number of registered producers
+	 */
+	private int producerCount;
+	
+	/**
+	 * the number of registered consumers
+	 */
+	private int consumerCount;
+	
+	/**
+	 * The method adds the endpoints of a message flow file. The endpoints 
+	 * of a file already added are replaced.
+	 * 
+	 * @param path the path of the message flow file in the project
+	 * @param endpoints the endpoints of the message flow file
+	 */
+	public synchronized void add(String path, List<MessageFlowQueueEndpoint> endpoints) {
+		remove(path);
+		
+		if (endpoints.isEmpty()) {
+			return;
+		}
+		
+		files.put(path, new ArrayList<MessageFlowQueueEndpoint>(endpoints));
+		
+		for (MessageFlowQueueEndpoint endpoint : endpoints) {
+			List<Registration> registrations = queues.get(endpoint.getQueue());
+			
+			if (registrations == null) {
+				registrations = new ArrayList<Registration>(2);
+				queues.put(endpoint.getQueue(), registrations);
+			}
+			
+			registrations.add(new Registration(path, endpoint));
+			
+			if (endpoint.isProducer()) {
+				producerCount++;
+			} else {
+				consumerCount++;
+			}
+		}
+	}
+	
+	/**
+	 * Removes the endpoints of a message flow file.
+	 * 
+	 * @param path the path of the message flow file in the project
+	 */
+	private void remove(String path) {
+		List<MessageFlowQueueEndpoint> endpoints = files.remove(path);
+		
+		if (endpoints == null) {
+			return;
+		}
+		
+		for (MessageFlowQueueEndpoint endpoint : endpoints) {
+			List<Registration> registrations = queues.get(endpoint.getQueue());
+			
+			for (int i = registrations.size() - 1; i >= 0; i--) {
+				if (registrations.get(i).endpoint == endpoint) {
+					registrations.remove(i);
+				}
+			}
+			
+			if (registrations.isEmpty()) {
+				queues.remove(endpoint.getQueue());
+			}
+			
+			if (endpoint.isProducer()) {
+				producerCount--;
+			} else {
+				consumerCount--;
+			}
+		}
+	}
+	
+	/**
+	 * The method removes all endpoints, e.g. at the start of an analysis.
+	 */
+	public synchronized void clear() {
+		queues.clear();
+		files.clear();
+		producerCount = 0;
+		consumerCount = 0;
+	}
+	
+	/**
+	 * The method returns the paths of the message flow files holding 
+	 * endpoints.
+	 * 
+	 * @return the paths in their natural order
+	 */
+	public synchronized List<String> getPaths() {
+		return new ArrayList<String>(files.keySet());
+	}
+	
+	/**
+	 * The method returns the endpoints of a message flow file.
+	 * 
+	 * @param path the path of the message flow file in the project
+	 * 
+	 * @return the endpoints in the order they were added, empty if the file holds no endpoints
+	 */
+	public synchronized List<MessageFlowQueueEndpoint> getEndpoints(String path) {
+		List<MessageFlowQueueEndpoint> endpoints = files.get(path);
+		
+		return endpoints == null ? Collections.<MessageFlowQueueEndpoint>emptyList() : Collections.unmodifiableList(endpoints);
+	}
+	
+	/**
+	 * The method returns the paths of the files holding the other producers 
+	 * of the queue of an endpoint (see {@link MessageFlowQueueEndpoint#matches}).
+	 * 
+	 * @param endpoint the endpoint
+	 * 
+	 * @return the paths, one per producer other than the endpoint itself
+	 */
+	public List<String> getProducers(MessageFlowQueueEndpoint endpoint) {
+		return lookup(endpoint, true);
+	}
+	
+	/**
+	 * The method returns the paths of the files holding the other consumers 
+	 * of the queue of an endpoint (see {@link MessageFlowQueueEndpoint#matches}).
+	 * 
+	 * @param endpoint the endpoint
+	 * 
+	 * @return the paths, one per consumer other than the endpoint itself
+	 */
+	public List<String> getConsumers(MessageFlowQueueEndpoint endpoint) {
+		return lookup(endpoint, false);
+	}
+	
+	/**
+	 * Looks up the producers or consumers of the queue of an endpoint.
+	 */
+	private synchronized List<String> lookup(MessageFlowQueueEndpoint endpoint, boolean producers) {
+		List<Registration> registrations = queues.get(endpoint.getQueue());
+		
+		if (registrations == null) {
+			return Collections.emptyList();
+		}
+		
+		List<String> paths = new ArrayList<String>();
+		
+		for (Registration registration : registrations) {
+			if (registration.endpoint != endpoint 
+					&& registration.endpoint.isProducer() == producers 
+					&& registration.endpoint.matches(endpoint)) {
+				paths.add(registration.path);
+			}
+		}
+		
+		return paths;
+	}
+	
+	/**
+	 * The method returns the number of distinct queue names.
+	 * 
+	 * @return the number of queues
+	 */
+	public synchronized int getQueueCount() {
+		return queues.size();
+	}
+	
+	/**
+	 * The method returns the number of registered producers.
+	 * 
+	 * @return the number of producers
+	 */
+	public synchronized int getProducerCount() {
+		return producerCount;
+	}
+	
+	/**
+	 * The method returns the number of registered consumers.
+	 * 
+	 * @return the number of consumers
+	 */
+	public synchronized int getConsumerCount() {
+		return consumerCount;
+	}
+	
+	/**
+	 * The method returns the number of message flow files holding endpoints.
+	 * 
+	 * @return the number of files
+	 */
+	public synchronized int getFileCount() {
+		return files.size();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "MessageFlowQueueIndex[queues=" + queues.size() + ", producers=" + producerCount + ", consumers=" + consumerCount + ", files=" + files.size() + "]";
+	}
+	
+	/**
+	 * The class holds an endpoint and the path of its message flow file.
+	 */
+	private static final class Registration {
+		
+		/**
+		 * the path of the message flow file
+		 */
+		private final String path;
+		
+		/**
+		 * the endpoint
+		 */
+		private final MessageFlowQueueEndpoint endpoint;
+		
+		/**
+		 * Constructor
+		 */
+		private Registration(String path, MessageFlowQueueEndpoint endpoint) {
+			this.path		= path;
+			this.endpoint	= endpoint;
+		}
+	}
+}
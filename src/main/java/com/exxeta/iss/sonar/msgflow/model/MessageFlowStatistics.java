@@ -0,0 +1,517 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class collects the counters and timers of an analysis: the time spent 
+ * loading (parsing) the message flows and in XML parsing and XPath 
+ * evaluation, the time spent by the rule visitors, the number of 
+ * evaluations and issues per rule, the slowest files and the occupancy of 
+ * the queues between the stages of a pipelined analysis.
+ * 
+ * The counters are updated once per message flow file, so the overhead is 
+ * low. The statistics may be updated by several threads at the same time.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowStatistics {
+
+	/**
+	 * the number of slowest files kept
+	 */
+	public static final int SLOWEST_FILES = 10;
+	
+	/**
+	 * the XML parsing and XPath evaluation time of the current thread in nanoseconds
+	 */
+	private static final ThreadLocal<long[]> XML_NANOS = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+	
+	/**
+	 * the number of message flows loaded
+	 */
+	private final AtomicLong loadCount = new AtomicLong();
+	
+	/**
+	 * the time spent loading the message flows in nanoseconds
+	 */
+	private final AtomicLong loadNanos = new AtomicLong();
+	
+	/**
+	 * the time spent in XML parsing and XPath evaluation in nanoseconds
+	 */
+	private final AtomicLong xmlNanos = new AtomicLong();
+	
+	/**
+	 * the number of analysed files
+	 */
+	private final AtomicLong fileCount = new AtomicLong();
+	
+	/**
+	 * the time spent analysing the files in nanoseconds
+	 */
+	private final AtomicLong fileNanos = new AtomicLong();
+	
+	/**
+	 * the number of published issues
+	 */
+	private final AtomicLong issueCount = new AtomicLong();
+	
+	/**
+	 * the time spent by the rule visitors in nanoseconds by visitor name
+	 */
+	private final ConcurrentMap<String, AtomicLong> visitorNanos = new ConcurrentHashMap<String, AtomicLong>();
+	
+	/**
+	 * the number of evaluations (index 0) and issues (index 1) by rule key
+	 */
+	private final ConcurrentMap<String, AtomicLongArray> rules = new ConcurrentHashMap<String, AtomicLongArray>();
+	
+	/**
+	 * the capacity (index 0), the number of elements put (index 1), the sum 
+	 * of the occupancies after each put (index 2), the maximum occupancy 
+	 * (index 3) and the number of puts to a full (index 4) and takes from an 
+	 * empty queue (index 5) by queue name
+	 */
+	private final ConcurrentMap<String, AtomicLongArray> queues = new ConcurrentHashMap<String, AtomicLongArray>();
+	
+	/**
+	 * the slowest files, the fastest of them first
+	 */
+	private final PriorityQueue<FileTime> slowestFiles = new PriorityQueue<FileTime>(SLOWEST_FILES + 1, new Comparator<FileTime>() {
+		@Override
+		public int compare(FileTime first, FileTime second) {
+			return first.nanos < second.nanos ? -1 : (first.nanos == second.nanos ? 0 : 1);
+		}
+	});
+	
+	/**
+	 * The method adds XML parsing and XPath evaluation time of the current 
+	 * thread. It is called by the parsers once per message flow file.
+	 * 
+	 * @param nanos the time in nanoseconds
+	 */
+	static void addXmlNanos(long nanos) {
+		XML_NANOS.get()[0] += nanos;
+	}
+	
+	/**
+	 * The method returns the XML parsing and XPath evaluation time of the 
+	 * current thread.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	static long getXmlNanos() {
+		return XML_NANOS.get()[0];
+	}
+	
+	/**
+	 * The method resets all counters and timers, e.g. at the start of an 
+	 * analysis.
+	 */
+	public void reset() {
+		loadCount.set(0);
+		loadNanos.set(0);
+		xmlNanos.set(0);
+		fileCount.set(0);
+		fileNanos.set(0);
+		issueCount.set(0);
+		visitorNanos.clear();
+		rules.clear();
+		queues.clear();
+		
+		synchronized (slowestFiles) {
+			slowestFiles.clear();
+		}
+	}
+	
+	/**
+	 * The method adds the load of a message flow.
+	 * 
+	 * @param nanos the time spent loading the message flow in nanoseconds
+	 * @param xml the part of the time spent in XML parsing and XPath evaluation
+	 */
+	public void addLoad(long nanos, long xml) {
+		loadCount.incrementAndGet();
+		loadNanos.addAndGet(nanos);
+		xmlNanos.addAndGet(xml);
+	}
+	
+	/**
+	 * The method adds the analysis of a file, including loading the message 
+	 * flow and evaluating the rules.
+	 * 
+	 * @param file the name of the file
+	 * @param nanos the time spent analysing the file in nanoseconds
+	 */
+	public void addFile(String file, long nanos) {
+		fileCount.incrementAndGet();
+		fileNanos.addAndGet(nanos);
+		
+		synchronized (slowestFiles) {
+			if (slowestFiles.size() < SLOWEST_FILES || slowestFiles.peek().nanos < nanos) {
+				slowestFiles.add(new FileTime(file, nanos));
+				
+				if (slowestFiles.size() > SLOWEST_FILES) {
+					slowestFiles.poll();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The method adds the time spent by a rule visitor.
+	 * 
+	 * @param visitor the name of the visitor
+	 * @param nanos the time in nanoseconds
+	 */
+	public void addVisitorNanos(String visitor, long nanos) {
+		AtomicLong counter = visitorNanos.get(visitor);
+		
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = visitorNanos.putIfAbsent(visitor, newCounter);
+			
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		
+		counter.addAndGet(nanos);
+	}
+	
+	/**
+	 * The method adds the evaluations and issues of a rule.
+	 * 
+	 * @param rule the key of the rule
+	 * @param evaluations the number of evaluations
+	 * @param issues the number of issues
+	 */
+	public void addRule(String rule, long evaluations, long issues) {
+		AtomicLongArray counters = rules.get(rule);
+		
+		if (counters == null) {
+			AtomicLongArray newCounters = new AtomicLongArray(2);
+			counters = rules.putIfAbsent(rule, newCounters);
+			
+			if (counters == null) {
+				counters = newCounters;
+			}
+		}
+		
+		counters.addAndGet(0, evaluations);
+		counters.addAndGet(1, issues);
+	}
+	
+	/**
+	 * The method adds the occupancy of a queue between two stages of the 
+	 * analysis. A queue which is often full indicates that the stage taking 
+	 * from it is the bottleneck, a queue which is often empty indicates that 
+	 * the stage putting to it is the bottleneck.
+	 * 
+	 * @param queue the name of the queue
+	 * @param capacity the capacity of the queue
+	 * @param puts the number of elements put
+	 * @param occupancy the sum of the occupancies after each put
+	 * @param maximumOccupancy the maximum occupancy
+	 * @param fullCount the number of puts which waited for a full queue
+	 * @param emptyCount the number of takes which waited for an empty queue
+	 */
+	public void addQueue(String queue, int capacity, long puts, long occupancy, long maximumOccupancy, long fullCount, long emptyCount) {
+		AtomicLongArray counters = queues.get(queue);
+		
+		if (counters == null) {
+			AtomicLongArray newCounters = new AtomicLongArray(6);
+			counters = queues.putIfAbsent(queue, newCounters);
+			
+			if (counters == null) {
+				counters = newCounters;
+			}
+		}
+		
+		counters.set(0, capacity);
+		counters.addAndGet(1, puts);
+		counters.addAndGet(2, occupancy);
+		counters.set(3, Math.max(counters.get(3), maximumOccupancy));
+		counters.addAndGet(4, fullCount);
+		counters.addAndGet(5, emptyCount);
+	}
+	
+	/**
+	 * The method adds published issues.
+	 * 
+	 * @param issues the number of issues
+	 */
+	public void addIssues(int issues) {
+		issueCount.addAndGet(issues);
+	}
+	
+	/**
+	 * The method returns the number of loaded message flows.
+	 * 
+	 * @return the number of loaded message flows
+	 */
+	public long getLoadCount() {
+		return loadCount.get();
+	}
+	
+	/**
+	 * The method returns the time spent loading the message flows.
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getLoadMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(loadNanos.get());
+	}
+	
+	/**
+	 * The method returns the time spent in XML parsing and XPath evaluation.
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getXmlMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(xmlNanos.get());
+	}
+	
+	/**
+	 * The method returns the number of analysed files.
+	 * 
+	 * @return the number of analysed files
+	 */
+	public long getFileCount() {
+		return fileCount.get();
+	}
+	
+	/**
+	 * The method returns the time spent analysing the files.
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getFileMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(fileNanos.get());
+	}
+	
+	/**
+	 * The method returns the time spent by the rule visitors.
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getVisitorMillis() {
+		long nanos = 0;
+		
+		for (AtomicLong counter : visitorNanos.values()) {
+			nanos += counter.get();
+		}
+		
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+	
+	/**
+	 * The method returns the number of published issues.
+	 * 
+	 * @return the number of published issues
+	 */
+	public long getIssueCount() {
+		return issueCount.get();
+	}
+	
+	/**
+	 * The method returns the number of evaluations of a rule.
+	 * 
+	 * @param rule the key of the rule
+	 * 
+	 * @return the number of evaluations
+	 */
+	public long getEvaluationCount(String rule) {
+		AtomicLongArray counters = rules.get(rule);
+		
+		return counters == null ? 0 : counters.get(0);
+	}
+	
+	/**
+	 * The method returns the number of issues of a rule.
+	 * 
+	 * @param rule the key of the rule
+	 * 
+	 * @return the number of issues
+	 */
+	public long getIssueCount(String rule) {
+		AtomicLongArray counters = rules.get(rule);
+		
+		return counters == null ? 0 : counters.get(1);
+	}
+	
+	/**
+	 * The method returns the average occupancy of a queue relative to its 
+	 * capacity.
+	 * 
+	 * @param queue the name of the queue
+	 * 
+	 * @return the average occupancy in percent
+	 */
+	public long getAverageOccupancy(String queue) {
+		AtomicLongArray counters = queues.get(queue);
+		
+		if (counters == null || counters.get(0) == 0 || counters.get(1) == 0) {
+			return 0;
+		}
+		
+		return 100 * counters.get(2) / (counters.get(0) * counters.get(1));
+	}
+	
+	/**
+	 * The method returns the number of puts which waited for a full queue.
+	 * 
+	 * @param queue the name of the queue
+	 * 
+	 * @return the number of puts to a full queue
+	 */
+	public long getFullCount(String queue) {
+		AtomicLongArray counters = queues.get(queue);
+		
+		return counters == null ? 0 : counters.get(4);
+	}
+	
+	/**
+	 * The method returns the number of takes which waited for an empty queue.
+	 * 
+	 * @param queue the name of the queue
+	 * 
+	 * @return the number of takes from an empty queue
+	 */
+	public long getEmptyCount(String queue) {
+		AtomicLongArray counters = queues.get(queue);
+		
+		return counters == null ? 0 : counters.get(5);
+	}
+	
+	/**
+	 * The method returns the slowest files, the slowest first.
+	 * 
+	 * @return the names of the slowest files and the time spent in milliseconds
+	 */
+	public List<String> getSlowestFiles() {
+		List<FileTime> files;
+		
+		synchronized (slowestFiles) {
+			files = new ArrayList<FileTime>(slowestFiles);
+		}
+		
+		Collections.sort(files, Collections.reverseOrder(slowestFiles.comparator()));
+		
+		List<String> names = new ArrayList<String>();
+		
+		for (FileTime file : files) {
+			names.add(file.file + " (" + TimeUnit.NANOSECONDS.toMillis(file.nanos) + " ms)");
+		}
+		
+		return names;
+	}
+	
+	/**
+	 * The method returns the summary of the analysis, one line per entry.
+	 * 
+	 * @return the lines of the summary
+	 */
+	public List<String> getSummary() {
+		List<String> summary = new ArrayList<String>();
+		
+		summary.add("Analysed " + getFileCount() + " files in " + getFileMillis() + " ms, published " + getIssueCount() + " issues");
+		summary.add("Loaded " + getLoadCount() + " message flows in " + getLoadMillis() + " ms, XML parsing and XPath " + getXmlMillis() + " ms");
+		summary.add("Rule visitors " + getVisitorMillis() + " ms");
+		
+		for (Map.Entry<String, AtomicLong> entry : new TreeMap<String, AtomicLong>(visitorNanos).entrySet()) {
+			summary.add("  " + entry.getKey() + ": " + TimeUnit.NANOSECONDS.toMillis(entry.getValue().get()) + " ms");
+		}
+		
+		summary.add("Rules (evaluations/issues)");
+		
+		for (Map.Entry<String, AtomicLongArray> entry : new TreeMap<String, AtomicLongArray>(rules).entrySet()) {
+			summary.add("  " + entry.getKey() + ": " + entry.getValue().get(0) + "/" + entry.getValue().get(1));
+		}
+		
+		if (!queues.isEmpty()) {
+			summary.add("Queues (capacity/average occupancy/maximum occupancy/full/empty)");
+			
+			for (Map.Entry<String, AtomicLongArray> entry : new TreeMap<String, AtomicLongArray>(queues).entrySet()) {
+				AtomicLongArray counters = entry.getValue();
+				
+				summary.add("  " + entry.getKey() + ": " + counters.get(0) + "/" + getAverageOccupancy(entry.getKey()) + "%/" + counters.get(3) 
+						+ "/" + counters.get(4) + "/" + counters.get(5));
+			}
+		}
+		
+		summary.add("Slowest files");
+		
+		for (String file : getSlowestFiles()) {
+			summary.add("  " + file);
+		}
+		
+		return summary;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MessageFlowStatistics[files=" + getFileCount() + " (" + getFileMillis() + " ms), loaded=" + getLoadCount() 
+				+ " (" + getLoadMillis() + " ms, xml " + getXmlMillis() + " ms), visitors=" + getVisitorMillis() + " ms, issues=" + getIssueCount() + "]";
+	}
+	
+	/**
+	 * The class holds the time spent analysing a file.
+	 */
+	private static final class FileTime {
+		
+		/**
+		 * the name of the file
+		 */
+		private final String file;
+		
+		/**
+		 * the time spent in nanoseconds
+		 */
+		private final long nanos;
+		
+		/**
+		 * Constructor
+		 */
+		private FileTime(String file, long nanos) {
+			this.file = file;
+			this.nanos = nanos;
+		}
+	}
+}
@@ -0,0 +1,458 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class parses the message flow files (.msgflow) using a streaming
+ * (StAX) parser. All message flow nodes and connections are collected in
+ * one forward pass over the file, so the parse time grows linearly with
+ * the number of nodes and connections.
+ *
+ * The resulting message flow model is identical to the one created by the
+ * DOM based {@link MessageFlowParser}. The attributes of the nodes and 
+ * properties which are not part of the extraction plan are not read.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowStaxParser extends MessageFlowParser {
+
+	/**
+	 * The logger for the class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MessageFlowStaxParser.class);
+
+	/**
+	 * the factory for the stream readers, created once per thread as the
+	 * service lookup is expensive and the factory is not guaranteed to be
+	 * thread-safe
+	 */
+	private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = new ThreadLocal<XMLInputFactory>() {
+		@Override
+		protected XMLInputFactory initialValue() {
+			return createXMLInputFactory();
+		}
+	};
+
+	/**
+	 * Parses the message flow file (.msgflow) and creates the message flow node model.
+	 *
+	 * @see MessageFlowParser#parse(String, MessageFlowExtractionPlan, EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)
+	 */
+	@Override
+	public void parse(String fileName,
+					  MessageFlowExtractionPlan plan,
+					  EnumMap<MessageFlowNodeType, ArrayList<MessageFlowNode>> nodes,
+					  MessageFlowConnectionIndex connectionIndex,
+					  ArrayList<MessageFlowSubflowNode> subflowNodes,
+					  ArrayList<MessageFlowNode> otherNodes) {
+		LOG.debug("START");
+
+		ArrayList<RawNode> rawNodes = new ArrayList<RawNode>();
+
+		InputStream in = null;
+
+		try {
+			in = MessageFlowContent.open(fileName);
+
+			LOG.debug("Read stream - START");
+
+			long start = System.nanoTime();
+			
+			try {
+				read(XML_INPUT_FACTORY.get().createXMLStreamReader(fileName, in), plan, rawNodes, connectionIndex);
+			} finally {
+				MessageFlowStatistics.addXmlNanos(System.nanoTime() - start);
+			}
+
+			LOG.debug("Read stream - END");
+			LOG.debug("Fill nodes - START");
+
+			/*
+			 * The nodes and terminals are added in reverse document order as
+			 * done by the DOM based parser.
+			 */
+			for (int non = rawNodes.size() - 1; non >= 0; non--) {
+				RawNode rawNode = rawNodes.get(non);
+				MessageFlowNodeType nodeType = rawNode.nodeType;
+				
+				if (nodeType == null) {
+					/* subflow nodes and other nodes are added in document order below */
+					continue;
+				}
+
+				LOG.debug("id: " + rawNode.id);
+				LOG.debug("name: " + rawNode.name);
+				LOG.debug("type: " + nodeType.getTypeName());
+
+				/* monitoring events are enabled if at least one of the events is enabled */
+				boolean areMonitoringEventsEnabled = MessageFlowParser.areEnabled(rawNode.monitoringEvents);
+
+				MessageFlowNode mfn = new MessageFlowNode(rawNode.id,
+														  rawNode.name,
+														  nodeType.getTypeName(),
+														  Boolean.parseBoolean(rawNode.buildTreeUsingSchema),
+														  rawNode.mixedContentRetainMode.equals("all"),
+														  rawNode.commentsRetainMode.equals("all"),
+														  rawNode.validateMaster.equals("contentAndValue"),
+														  rawNode.messageDomainProperty,
+														  rawNode.messageSetProperty,
+														  rawNode.requestMsgLocationInTree,
+														  rawNode.messageDomain,
+														  rawNode.messageSet,
+														  rawNode.recordDefinition,
+														  Boolean.parseBoolean(rawNode.resetMessageDomain),
+														  Boolean.parseBoolean(rawNode.resetMessageSet),
+														  Boolean.parseBoolean(rawNode.resetMessageType),
+														  Boolean.parseBoolean(rawNode.resetMessageFormat),
+														  areMonitoringEventsEnabled,
+														  connectionIndex.getInputTerminals(rawNode.id),
+														  connectionIndex.getOutputTerminals(rawNode.id),
+														  rawNode.attributes,
+														  rawNode.monitoringEvents);
+
+				addNode(mfn, nodeType, nodes);
+			}
+			
+			for (RawNode rawNode : rawNodes) {
+				if (rawNode.subflow != null) {
+					subflowNodes.add(new MessageFlowSubflowNode(rawNode.id, rawNode.name, rawNode.subflow));
+				} else if (rawNode.otherTypeName != null) {
+					otherNodes.add(MessageFlowParser.createOtherNode(rawNode.id, rawNode.name, rawNode.otherTypeName, connectionIndex, rawNode.monitoringEvents));
+				}
+			}
+
+			LOG.debug("Fill nodes - END");
+		} catch (XMLStreamException e) {
+			LOG.error(e.getMessage());
+		} catch (IOException e) {
+			LOG.error(e.getMessage());
+		} catch (Exception e) {
+			LOG.error(e.getMessage());
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					LOG.error(e.getMessage());
+				}
+			}
+		}
+
+		LOG.debug("END");
+	}
+
+	/**
+	 * Reads the message flow file in a single pass. The nodes of the plan
+	 * are collected in document order and the connections are added to the
+	 * index.
+	 *
+	 * @param reader the stream reader of the message flow file
+	 * @param plan the nodes and properties to be extracted
+	 * @param rawNodes the list to which the nodes are added
+	 * @param connectionIndex the index to which the connections are added
+	 *
+	 * @throws XMLStreamException if the file is not well-formed
+	 */
+	private void read(XMLStreamReader reader,
+					  MessageFlowExtractionPlan plan,
+					  ArrayList<RawNode> rawNodes,
+					  MessageFlowConnectionIndex connectionIndex) throws XMLStreamException {
+		/* the nodes element currently open and its depth */
+		RawNode current = null;
+		int currentDepth = -1;
+		int depth = 0;
+		
+		/* the monitorEvents element currently open */
+		RawEvent currentEvent = null;
+
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+
+					String localName = reader.getLocalName();
+
+					if (localName.equals("nodes")) {
+						current = readNode(reader, plan);
+						currentDepth = current == null ? -1 : depth;
+
+						if (current != null) {
+							rawNodes.add(current);
+						}
+					} else if (localName.equals("connections")) {
+						connectionIndex.add(new MessageFlowConnection(attribute(reader, "sourceNode"),
+																	  valueOf(attribute(reader, "sourceTerminalName")),
+																	  attribute(reader, "targetNode"),
+																	  valueOf(attribute(reader, "targetTerminalName"))));
+					} else if (current != null && depth == currentDepth + 1) {
+						/* direct children of a node */
+						if (localName.equals("translation")) {
+							String string = attribute(reader, "string");
+
+							if (current.name == null && string != null) {
+								current.name = string;
+							}
+						} else if (current.monitoringEventsExtracted && localName.equals("monitorEvents")) {
+							currentEvent = new RawEvent();
+							currentEvent.source = attribute(reader, "eventSourceName");
+							currentEvent.enabled = !"false".equals(attribute(reader, "eventEnabled"));
+						}
+					} else if (currentEvent != null) {
+						/* descendants of a monitoring event */
+						if (localName.equals("bitStreamData")) {
+							if (currentEvent.bitstreamContent == null) {
+								currentEvent.bitstreamContent = valueOf(attribute(reader, "bitstreamContent"));
+							}
+						} else if (localName.equals("complexContent")) {
+							currentEvent.complexContent.add(valueOf(attribute(reader, "dataLocation")));
+						} else if (localName.equals("simpleContent")) {
+							currentEvent.simpleContent++;
+						}
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (currentEvent != null && depth == currentDepth + 1) {
+						current.monitoringEvents.add(new MessageFlowMonitoringEvent(currentEvent.source, currentEvent.enabled, 
+								MessageFlowMonitoringEvent.scopeOf(currentEvent.bitstreamContent, currentEvent.complexContent, currentEvent.simpleContent)));
+						currentEvent = null;
+					}
+
+					if (current != null && depth == currentDepth) {
+						current = null;
+						currentDepth = -1;
+					}
+
+					depth--;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		for (RawNode rawNode : rawNodes) {
+			rawNode.name = valueOf(rawNode.name);
+		}
+	}
+
+	/**
+	 * Reads the attributes of a nodes element. Only the type is read if the 
+	 * node is not a ComIbm node, its type is not supported or not part of 
+	 * the plan. Only the ID and the subflow are read if the node references 
+	 * a subflow, only the ID and the monitoring events if the type of the 
+	 * node is not supported and the plan includes such nodes.
+	 *
+	 * @param reader the stream reader positioned on the nodes element
+	 * @param plan the nodes and properties to be extracted
+	 *
+	 * @return the raw node holding the attribute values or null if the node is omitted
+	 */
+	private RawNode readNode(XMLStreamReader reader, MessageFlowExtractionPlan plan) {
+		String type = valueOf(attribute(reader, "type"));
+		MessageFlowNodeType nodeType = MessageFlowNodeType.forXmiType(type);
+		String subflowPrefix = nodeType == null ? MessageFlowSubflowNode.getPrefix(type) : null;
+		
+		if (subflowPrefix != null) {
+			LOG.debug("subflow node of type " + type);
+			
+			RawNode rawNode = new RawNode();
+			String namespace = reader.getNamespaceURI(subflowPrefix);
+			
+			rawNode.id			= valueOf(attribute(reader, "id"));
+			rawNode.subflow		= namespace == null || namespace.isEmpty() ? subflowPrefix : namespace;
+			
+			return rawNode;
+		}
+		
+		if (nodeType == null && plan.includesOtherNodes()) {
+			LOG.debug("other node of type " + type);
+			
+			RawNode rawNode = new RawNode();
+			
+			rawNode.id							= valueOf(attribute(reader, "id"));
+			rawNode.otherTypeName				= MessageFlowParser.typeNameOf(type);
+			rawNode.monitoringEventsExtracted	= true;
+			
+			return rawNode;
+		}
+
+		if (nodeType == null || !plan.includes(nodeType)) {
+			LOG.debug("omitted node of type " + type);
+
+			return null;
+		}
+
+		RawNode rawNode = new RawNode();
+		Set<MessageFlowNodeProperty> properties = plan.getProperties(nodeType);
+
+		rawNode.nodeType					= nodeType;
+		rawNode.id							= valueOf(attribute(reader, "id"));
+		rawNode.buildTreeUsingSchema		= attribute(reader, "parserXmlnscBuildTreeUsingXMLSchema", properties, MessageFlowNodeProperty.BUILD_TREE_USING_SCHEMA);
+		rawNode.mixedContentRetainMode		= attribute(reader, "parserXmlnscMixedContentRetainMode", properties, MessageFlowNodeProperty.MIXED_CONTENT_RETAIN_MODE);
+		rawNode.commentsRetainMode			= attribute(reader, "parserXmlnscCommentsRetainMode", properties, MessageFlowNodeProperty.COMMENTS_RETAIN_MODE);
+		rawNode.validateMaster				= attribute(reader, "validateMaster", properties, MessageFlowNodeProperty.VALIDATE_MASTER);
+		rawNode.messageDomainProperty		= attribute(reader, "messageDomainProperty", properties, MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY);
+		rawNode.messageSetProperty			= attribute(reader, "messageSetProperty", properties, MessageFlowNodeProperty.MESSAGE_SET_PROPERTY);
+		rawNode.requestMsgLocationInTree	= attribute(reader, "requestMsgLocationInTree", properties, MessageFlowNodeProperty.REQUEST_MSG_LOCATION_IN_TREE);
+		rawNode.messageDomain				= attribute(reader, "messageDomain", properties, MessageFlowNodeProperty.MESSAGE_DOMAIN);
+		rawNode.messageSet					= attribute(reader, "messageSet", properties, MessageFlowNodeProperty.MESSAGE_SET);
+		rawNode.recordDefinition			= attribute(reader, "recordDefinition", properties, MessageFlowNodeProperty.RECORD_DEFINITION);
+		rawNode.resetMessageDomain			= attribute(reader, "resetMessageDomain", properties, MessageFlowNodeProperty.RESET_MESSAGE_DOMAIN);
+		rawNode.resetMessageSet				= attribute(reader, "resetMessageSet", properties, MessageFlowNodeProperty.RESET_MESSAGE_SET);
+		rawNode.resetMessageType			= attribute(reader, "resetMessageType", properties, MessageFlowNodeProperty.RESET_MESSAGE_TYPE);
+		rawNode.resetMessageFormat			= attribute(reader, "resetMessageFormat", properties, MessageFlowNodeProperty.RESET_MESSAGE_FORMAT);
+		rawNode.monitoringEventsExtracted	= properties.contains(MessageFlowNodeProperty.MONITORING_EVENTS);
+		
+		MessageFlowNodeProperty[] attributeProperties = MessageFlowNodeProperty.attributes();
+		
+		for (MessageFlowNodeProperty property : attributeProperties) {
+			String value = properties.contains(property) ? attribute(reader, property.getAttributeName()) : null;
+			
+			if (value != null) {
+				if (rawNode.attributes == null) {
+					rawNode.attributes = new String[attributeProperties.length];
+				}
+				
+				rawNode.attributes[property.getAttributeIndex()] = value;
+			}
+		}
+
+		return rawNode;
+	}
+
+	/**
+	 * Returns the value of the first attribute with the given local name. The
+	 * namespace prefix of the attribute is ignored (e.g. 'xmi:id' matches
+	 * 'id'), as done by the XPath expressions of the DOM based parser.
+	 *
+	 * @param reader the stream reader positioned on a start element
+	 * @param localName the local name of the attribute
+	 *
+	 * @return the value of the attribute or null if the attribute does not exist
+	 */
+	private static String attribute(XMLStreamReader reader, String localName) {
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			if (reader.getAttributeLocalName(i).equals(localName)) {
+				return reader.getAttributeValue(i);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the value of the attribute of a node property or an empty 
+	 * string if the property is not extracted.
+	 *
+	 * @param reader the stream reader positioned on a nodes element
+	 * @param localName the local name of the attribute
+	 * @param properties the extracted properties of the node
+	 * @param property the property held by the attribute
+	 *
+	 * @return the value of the attribute or an empty string
+	 */
+	private static String attribute(XMLStreamReader reader, String localName, Set<MessageFlowNodeProperty> properties, MessageFlowNodeProperty property) {
+		return properties.contains(property) ? valueOf(attribute(reader, localName)) : "";
+	}
+
+	/**
+	 * Returns the value or an empty string if the value is null (XPath
+	 * semantics for missing attributes).
+	 *
+	 * @param value the value
+	 *
+	 * @return the value or an empty string
+	 */
+	private static String valueOf(String value) {
+		return value == null ? "" : value;
+	}
+
+	/**
+	 * Creates the factory for the stream readers. External entities and
+	 * DTDs are not supported as message flow files do not use them.
+	 *
+	 * @return the factory for the stream readers
+	 */
+	private static XMLInputFactory createXMLInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+
+		return factory;
+	}
+
+	/**
+	 * The class holds the attribute values of a nodes element until all
+	 * connections of the file have been read. The node type is null and the 
+	 * subflow is set if the node references a subflow, the other type name 
+	 * is set if the type of the node is not supported.
+	 */
+	private static final class RawNode {
+		private MessageFlowNodeType nodeType;
+		private String subflow;
+		private String otherTypeName;
+		private String id;
+		private String name;
+		private String buildTreeUsingSchema;
+		private String mixedContentRetainMode;
+		private String commentsRetainMode;
+		private String validateMaster;
+		private String messageDomainProperty;
+		private String messageSetProperty;
+		private String requestMsgLocationInTree;
+		private String messageDomain;
+		private String messageSet;
+		private String recordDefinition;
+		private String resetMessageDomain;
+		private String resetMessageSet;
+		private String resetMessageType;
+		private String resetMessageFormat;
+		private boolean monitoringEventsExtracted;
+		private final ArrayList<MessageFlowMonitoringEvent> monitoringEvents = new ArrayList<MessageFlowMonitoringEvent>();
+		private String[] attributes;
+	}
+
+	/**
+	 * The class holds the data of a monitorEvents element until the element
+	 * has been read.
+	 */
+	private static final class RawEvent {
+		private String source;
+		private boolean enabled;
+		private String bitstreamContent;
+		private final ArrayList<String> complexContent = new ArrayList<String>();
+		private int simpleContent;
+	}
+}
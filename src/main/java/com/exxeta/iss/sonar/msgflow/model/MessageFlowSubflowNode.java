@@ -0,0 +1,127 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+/**
+ * The class is a model of a message flow node which references a subflow 
+ * (e.g. 'Compute.subflow:FCMComposite_1'). The terminals of the node are 
+ * the input and output nodes of the subflow, so the connections of the 
+ * parent flow name them by their IDs (e.g. 'InTerminal.Input').
+ * 
+ * The subflow is identified by the namespace of the node type as declared 
+ * in the message flow file, i.e. the path of the subflow file relative to 
+ * its project (e.g. 'com/exxeta/Compute.subflow'). The subflow graph itself 
+ * is resolved by the {@link MessageFlowProject}.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowSubflowNode {
+
+	/**
+	 * the suffix of the xmi:type attribute of a subflow node
+	 */
+	private static final String TYPE_SUFFIX = ":FCMComposite_1";
+	
+	/**
+	 * the ID of the node
+	 */
+	private final String id;
+	
+	/**
+	 * the name of the node
+	 */
+	private final String name;
+	
+	/**
+	 * the path of the subflow file relative to its project
+	 */
+	private final String subflow;
+	
+	/**
+	 * Constructor
+	 * 
+	 * Creates a new subflow node (model).
+	 */
+	public MessageFlowSubflowNode(String id,
+								  String name,
+								  String subflow) {
+		this.id			= id;
+		this.name		= name;
+		this.subflow	= subflow;
+	}
+
+	/**
+	 * The method returns the ID of the node.
+	 * 
+	 * @return the ID of the node
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * The method returns the name of the node.
+	 * 
+	 * @return the name of the node
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The method returns the path of the referenced subflow file relative to 
+	 * its project, e.g. 'com/exxeta/Compute.subflow'.
+	 * 
+	 * @return the path of the subflow file
+	 */
+	public String getSubflow() {
+		return subflow;
+	}
+	
+	/**
+	 * The method returns the namespace prefix of the xmi:type attribute of a 
+	 * node if the node references a subflow, e.g. 'Compute.subflow' for 
+	 * 'Compute.subflow:FCMComposite_1'. Message flows used as subflows 
+	 * ('.msgflow') are references as well.
+	 * 
+	 * @param xmiType the value of the xmi:type attribute
+	 * 
+	 * @return the namespace prefix or null if the node references no subflow
+	 */
+	public static String getPrefix(String xmiType) {
+		if (xmiType == null || !xmiType.endsWith(TYPE_SUFFIX)) {
+			return null;
+		}
+		
+		String prefix = xmiType.substring(0, xmiType.length() - TYPE_SUFFIX.length());
+		
+		if (!prefix.endsWith(".subflow") && !prefix.endsWith(".msgflow")) {
+			return null;
+		}
+		
+		return prefix;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return id + " (" + subflow + ")";
+	}
+}
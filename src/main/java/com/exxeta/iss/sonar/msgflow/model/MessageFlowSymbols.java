@@ -0,0 +1,90 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * The class is the symbol table shared by all message flow nodes. Equal 
+ * strings, e.g. node types, message domains or node IDs, and equal lists of 
+ * monitoring events are held once instead of once per node.
+ * 
+ * The symbols are held weakly, so symbols which are no longer used by any 
+ * node (e.g. after the message flow cache has been cleared) are removed.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowSymbols {
+
+	/**
+	 * the symbols
+	 */
+	private static final Interner<String> SYMBOLS = Interners.newWeakInterner();
+	
+	/**
+	 * the lists of monitoring events
+	 */
+	private static final Interner<ImmutableList<MessageFlowMonitoringEvent>> MONITORING_EVENTS = Interners.newWeakInterner();
+	
+	/**
+	 * Constructor
+	 * 
+	 * Direct instantiation is not possible.
+	 */
+	private MessageFlowSymbols() {
+	}
+	
+	/**
+	 * The method returns the shared instance of a string.
+	 * 
+	 * @param value the string or null
+	 * 
+	 * @return the shared instance of the string or null
+	 */
+	public static String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		
+		if (value.isEmpty()) {
+			return "";
+		}
+		
+		return SYMBOLS.intern(value);
+	}
+	
+	/**
+	 * The method returns the shared instance of a list of monitoring events.
+	 * 
+	 * @param monitoringEvents the monitoring events or null
+	 * 
+	 * @return the shared, unmodifiable instance of the list or null if the 
+	 * list is null or empty
+	 */
+	public static List<MessageFlowMonitoringEvent> intern(List<MessageFlowMonitoringEvent> monitoringEvents) {
+		if (monitoringEvents == null || monitoringEvents.isEmpty()) {
+			return null;
+		}
+		
+		return MONITORING_EVENTS.intern(ImmutableList.copyOf(monitoringEvents));
+	}
+}
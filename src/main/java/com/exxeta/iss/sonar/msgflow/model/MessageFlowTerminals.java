@@ -0,0 +1,427 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The class is the table of terminal names shared by all message flow 
+ * nodes. Each terminal name gets a fixed index, so the terminals of a node 
+ * can be held as a set of bits (see {@link MessageFlowNode}).
+ * 
+ * The terminals of the IBM Integration Bus nodes are registered in advance 
+ * and fit into the first word of a set, so checking them takes constant 
+ * time. Other terminal names (e.g. of user-defined nodes or subflows) are 
+ * added when they occur. Equal terminal sets are shared by all nodes.
+ * 
+ * The tables belong to one analysis. They are cleared at the start of the 
+ * next analysis (see {@link #clear()}), so a long-running scanner does not 
+ * keep the terminal names, sets and counts of earlier projects.
+ * 
+ * A terminal may have several connections (fan-out). The numbers of 
+ * connections are only held for the sets in which a terminal is connected 
+ * more than once (see {@link #toCounts(List, long[])}).
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public final class MessageFlowTerminals {
+
+	/**
+	 * the terminals registered in advance
+	 */
+	private static final String[] KNOWN_TERMINALS = {
+		"InTerminal.in",
+		"InTerminal.control",
+		"InTerminal.Input",
+		"OutTerminal.out",
+		"OutTerminal.failure",
+		"OutTerminal.catch",
+		"OutTerminal.try",
+		"OutTerminal.expire",
+		"OutTerminal.timeout",
+		"OutTerminal.error",
+		"OutTerminal.noMatch",
+		"OutTerminal.match",
+		"OutTerminal.default",
+		"OutTerminal.true",
+		"OutTerminal.false",
+		"OutTerminal.unknown",
+		"OutTerminal.Output",
+		"OutTerminal.out1",
+		"OutTerminal.out2",
+		"OutTerminal.out3",
+		"OutTerminal.out4",
+		"OutTerminal.alternate",
+		"OutTerminal.noMessage",
+		"OutTerminal.endOfData",
+		"InTerminal.EOD",
+		"OutTerminal.EOD",
+		"OutTerminal.fault"
+	};
+	
+	/**
+	 * the empty terminal set
+	 */
+	static final long[] EMPTY = new long[0];
+	
+	/**
+	 * the indices of the terminal names
+	 */
+	private static final ConcurrentMap<String, Integer> INDICES = new ConcurrentHashMap<String, Integer>();
+	
+	/**
+	 * the terminal names by index, guarded by INDICES when written
+	 */
+	private static volatile String[] names = new String[0];
+	
+	/**
+	 * the shared terminal sets
+	 */
+	private static final ConcurrentMap<TerminalSet, long[]> SETS = new ConcurrentHashMap<TerminalSet, long[]>();
+	
+	/**
+	 * the shared connection counts by their characters
+	 */
+	private static final ConcurrentMap<String, char[]> COUNTS = new ConcurrentHashMap<String, char[]>();
+	
+	static {
+		for (String terminal : KNOWN_TERMINALS) {
+			indexOf(terminal);
+		}
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * Direct instantiation is not possible.
+	 */
+	private MessageFlowTerminals() {
+	}
+	
+	/**
+	 * The method returns the index of a terminal name. Unknown terminal 
+	 * names are added to the table.
+	 * 
+	 * @param terminal the terminal name, e.g. 'OutTerminal.failure'
+	 * 
+	 * @return the index of the terminal name
+	 */
+	public static int indexOf(String terminal) {
+		Integer index = INDICES.get(terminal);
+		
+		if (index != null) {
+			return index;
+		}
+		
+		synchronized (INDICES) {
+			index = INDICES.get(terminal);
+			
+			if (index == null) {
+				String[] extended = Arrays.copyOf(names, names.length + 1);
+				
+				index = names.length;
+				extended[index] = MessageFlowSymbols.intern(terminal);
+				
+				/* the name must be visible before the index */
+				names = extended;
+				INDICES.put(extended[index], index);
+			}
+			
+			return index;
+		}
+	}
+	
+	/**
+	 * The method clears the tables, only the terminals registered in advance 
+	 * are kept with their indices. The terminal sets of existing nodes may 
+	 * refer to removed indices, so the method must only be called when no 
+	 * nodes of an earlier analysis are used any more (see 
+	 * {@link MessageFlowProject#clear()}).
+	 */
+	static void clear() {
+		synchronized (INDICES) {
+			SETS.clear();
+			COUNTS.clear();
+			
+			names = Arrays.copyOf(names, KNOWN_TERMINALS.length);
+			INDICES.keySet().retainAll(Arrays.asList(KNOWN_TERMINALS));
+		}
+	}
+	
+	/**
+	 * The method returns the number of terminal names in the table.
+	 * 
+	 * @return the number of terminal names
+	 */
+	static int size() {
+		return names.length;
+	}
+	
+	/**
+	 * The method returns the terminal name of an index.
+	 * 
+	 * @param index the index of the terminal name
+	 * 
+	 * @return the terminal name
+	 */
+	public static String nameOf(int index) {
+		return names[index];
+	}
+	
+	/**
+	 * The method creates the set of the given terminal names. Equal sets are 
+	 * shared.
+	 * 
+	 * @param terminals the terminal names (duplicates are ignored)
+	 * 
+	 * @return the terminal set
+	 */
+	static long[] toSet(List<String> terminals) {
+		if (terminals == null || terminals.isEmpty()) {
+			return EMPTY;
+		}
+		
+		long[] set = EMPTY;
+		
+		for (String terminal : terminals) {
+			int index = indexOf(terminal);
+			
+			if (index >> 6 >= set.length) {
+				set = Arrays.copyOf(set, (index >> 6) + 1);
+			}
+			
+			set[index >> 6] |= 1L << index;
+		}
+		
+		long[] shared = SETS.putIfAbsent(new TerminalSet(set), set);
+		
+		return shared == null ? set : shared;
+	}
+	
+	/**
+	 * The method checks if a terminal set contains a terminal name. Unknown 
+	 * terminal names are not added to the table.
+	 * 
+	 * @param set the terminal set
+	 * @param terminal the terminal name
+	 * 
+	 * @return true if the set contains the terminal name
+	 */
+	static boolean contains(long[] set, String terminal) {
+		Integer index = INDICES.get(terminal);
+		
+		return index != null && index >> 6 < set.length && (set[index >> 6] & 1L << index) != 0;
+	}
+	
+	/**
+	 * The method checks if a terminal set contains the terminal of an index.
+	 * 
+	 * @param set the terminal set
+	 * @param index the index of the terminal name
+	 * 
+	 * @return true if the set contains the terminal
+	 */
+	static boolean contains(long[] set, int index) {
+		return index >> 6 < set.length && (set[index >> 6] & 1L << index) != 0;
+	}
+	
+	/**
+	 * The method creates the connection counts of a terminal set. The counts 
+	 * are held in the order of the terminals in the set. Equal counts are 
+	 * shared.
+	 * 
+	 * @param terminals the terminal names, one per connection
+	 * @param set the terminal set of the terminal names (see {@link #toSet(List)})
+	 * 
+	 * @return the connection counts or null if each terminal is connected once
+	 */
+	static char[] toCounts(List<String> terminals, long[] set) {
+		if (terminals == null || terminals.size() == size(set)) {
+			return null;
+		}
+		
+		char[] counts = new char[size(set)];
+		
+		for (String terminal : terminals) {
+			int rank = rank(set, indexOf(terminal));
+			
+			if (counts[rank] < Character.MAX_VALUE) {
+				counts[rank]++;
+			}
+		}
+		
+		char[] shared = COUNTS.putIfAbsent(String.valueOf(counts), counts);
+		
+		return shared == null ? counts : shared;
+	}
+	
+	/**
+	 * The method returns the number of connections of a terminal.
+	 * 
+	 * @param set the terminal set
+	 * @param counts the connection counts of the set or null
+	 * @param index the index of the terminal name
+	 * 
+	 * @return the number of connections, 0 if the terminal is not connected
+	 */
+	static int count(long[] set, char[] counts, int index) {
+		if (!contains(set, index)) {
+			return 0;
+		}
+		
+		return counts == null ? 1 : counts[rank(set, index)];
+	}
+	
+	/**
+	 * The method returns the number of connections of a terminal. Unknown 
+	 * terminal names are not added to the table.
+	 * 
+	 * @param set the terminal set
+	 * @param counts the connection counts of the set or null
+	 * @param terminal the terminal name
+	 * 
+	 * @return the number of connections, 0 if the terminal is not connected
+	 */
+	static int count(long[] set, char[] counts, String terminal) {
+		Integer index = INDICES.get(terminal);
+		
+		return index == null ? 0 : count(set, counts, index);
+	}
+	
+	/**
+	 * The method returns the number of terminals of a terminal set.
+	 * 
+	 * @param set the terminal set
+	 * 
+	 * @return the number of terminals
+	 */
+	static int size(long[] set) {
+		int size = 0;
+		
+		for (long word : set) {
+			size += Long.bitCount(word);
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * The method returns the position of a terminal in a terminal set, i.e. 
+	 * the number of terminals with a lower index. It is constant for the 
+	 * terminals registered in advance.
+	 * 
+	 * @param set the terminal set
+	 * @param index the index of the terminal name
+	 * 
+	 * @return the position of the terminal
+	 */
+	private static int rank(long[] set, int index) {
+		int rank = Long.bitCount(set[index >> 6] & (1L << index) - 1);
+		
+		for (int word = 0; word < index >> 6; word++) {
+			rank += Long.bitCount(set[word]);
+		}
+		
+		return rank;
+	}
+	
+	/**
+	 * The method returns the terminal names of a terminal set, each name 
+	 * repeated by the number of its connections.
+	 * 
+	 * @param set the terminal set
+	 * @param counts the connection counts of the set or null
+	 * 
+	 * @return a new list of the terminal names
+	 */
+	static ArrayList<String> toList(long[] set, char[] counts) {
+		ArrayList<String> terminals = toList(set);
+		
+		if (counts == null) {
+			return terminals;
+		}
+		
+		ArrayList<String> connections = new ArrayList<String>();
+		
+		for (int rank = 0; rank < terminals.size(); rank++) {
+			for (int i = 0; i < counts[rank]; i++) {
+				connections.add(terminals.get(rank));
+			}
+		}
+		
+		return connections;
+	}
+	
+	/**
+	 * The method returns the terminal names of a terminal set in the order 
+	 * of their indices.
+	 * 
+	 * @param set the terminal set
+	 * 
+	 * @return a new list of the terminal names
+	 */
+	static ArrayList<String> toList(long[] set) {
+		ArrayList<String> terminals = new ArrayList<String>();
+		
+		for (int word = 0; word < set.length; word++) {
+			for (long bits = set[word]; bits != 0; bits &= bits - 1) {
+				terminals.add(nameOf(word << 6 | Long.numberOfTrailingZeros(bits)));
+			}
+		}
+		
+		return terminals;
+	}
+	
+	/**
+	 * The class is the key of a shared terminal set.
+	 */
+	private static final class TerminalSet {
+		
+		/**
+		 * the bits of the set
+		 */
+		private final long[] bits;
+		
+		/**
+		 * Constructor
+		 */
+		private TerminalSet(long[] bits) {
+			this.bits = bits;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(bits);
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof TerminalSet && Arrays.equals(bits, ((TerminalSet)other).bits);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.utils.ValidationMessages;
+
+/**
+ * The class tests the performance profile.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowPerformanceProfileTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.MessageFlowPerformanceProfile#createProfile(org.sonar.api.utils.ValidationMessages)}.
+	 */
+	@Test
+	public final void testCreateProfileValidationMessages() {
+		RulesProfile rp = new MessageFlowPerformanceProfile().createProfile(ValidationMessages.create());
+		
+		assertEquals(MessageFlowCheckList.PERFORMANCE_PROFILE, rp.getName());
+		assertEquals(MessageFlowLanguage.KEY, rp.getLanguage());
+		
+		List<String> ruleKeys = new ArrayList<String>();
+		
+		for (ActiveRule activeRule : rp.getActiveRules()) {
+			ruleKeys.add(activeRule.getRuleKey());
+		}
+		
+		assertEquals(17, ruleKeys.size());
+		assertTrue("MQInputNodeAdditionalInstances is not defined as a rule.", ruleKeys.contains("MQInputNodeAdditionalInstances"));
+		assertTrue("MQInputNodeCommitCount is not defined as a rule.", ruleKeys.contains("MQInputNodeCommitCount"));
+		assertTrue("MQInputNodeTransactionMode is not defined as a rule.", ruleKeys.contains("MQInputNodeTransactionMode"));
+		assertTrue("MQInputNodeBrowse is not defined as a rule.", ruleKeys.contains("MQInputNodeBrowse"));
+		assertTrue("MQInputNodeOrderMode is not defined as a rule.", ruleKeys.contains("MQInputNodeOrderMode"));
+		assertTrue("MQOutputNodeTransactionMode is not defined as a rule.", ruleKeys.contains("MQOutputNodeTransactionMode"));
+		assertTrue("HttpRequestNodeTimeout is not defined as a rule.", ruleKeys.contains("HttpRequestNodeTimeout"));
+		assertTrue("HttpRequestNodeKeepAlive is not defined as a rule.", ruleKeys.contains("HttpRequestNodeKeepAlive"));
+		assertTrue("HttpRequestNodeCompression is not defined as a rule.", ruleKeys.contains("HttpRequestNodeCompression"));
+		assertTrue("SoapRequestNodeTimeout is not defined as a rule.", ruleKeys.contains("SoapRequestNodeTimeout"));
+		assertTrue("SoapRequestNodeKeepAlive is not defined as a rule.", ruleKeys.contains("SoapRequestNodeKeepAlive"));
+		assertTrue("CollectorRequestLoop is not defined as a rule.", ruleKeys.contains("CollectorRequestLoop"));
+		assertTrue("CollectorNodeUnboundedCollection is not defined as a rule.", ruleKeys.contains("CollectorNodeUnboundedCollection"));
+		assertTrue("FileInputNodeRecordDetection is not defined as a rule.", ruleKeys.contains("FileInputNodeRecordDetection"));
+		assertTrue("FileInputNodeParseTiming is not defined as a rule.", ruleKeys.contains("FileInputNodeParseTiming"));
+		assertTrue("FileInputNodeWholeFileValidation is not defined as a rule.", ruleKeys.contains("FileInputNodeWholeFileValidation"));
+		assertTrue("MonitoringEventBudget is not defined as a rule.", ruleKeys.contains("MonitoringEventBudget"));
+		
+		/* the performance rules are not part of the default profile */
+		for (ActiveRule activeRule : new MessageFlowProfile().createProfile(ValidationMessages.create()).getActiveRules()) {
+			assertFalse(activeRule.getRuleKey(), ruleKeys.contains(activeRule.getRuleKey()));
+		}
+	}
+
+}
@@ -22,13 +22,19 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 
 import com.exxeta.iss.sonar.msgflow.batch.CollectorNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.CollectorRequestLoopSensor;
 import com.exxeta.iss.sonar.msgflow.batch.ComputeNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.ErrorHandlingPathSensor;
 import com.exxeta.iss.sonar.msgflow.batch.FileInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.FileOutputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.HttpInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.HttpRequestNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.MQInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.MQOutputNodeSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor;
+import com.exxeta.iss.sonar.msgflow.batch.MessageFlowProjectInitializer;
+import com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor;
+import com.exxeta.iss.sonar.msgflow.batch.MonitoringEventBudgetSensor;
 import com.exxeta.iss.sonar.msgflow.batch.ResetContentDescriptorNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.SoapInputNodeSensor;
 import com.exxeta.iss.sonar.msgflow.batch.SoapRequestNodeSensor;
@@ -51,7 +57,12 @@ public class MessageFlowPluginTest {
 		MessageFlowPlugin mfp = new MessageFlowPlugin();
 		assertFalse("The list of extensions is empty.", mfp.getExtensions().isEmpty());
 		
-		/* check whether list of sensors is complete */
+		assertTrue("MessageFlowMetrics has not been imported.", mfp.getExtensions().contains(MessageFlowMetrics.class));
+		assertTrue("MessageFlowProjectInitializer has not been imported.", mfp.getExtensions().contains(MessageFlowProjectInitializer.class));
+		assertTrue("MessageFlowSensor has not been imported.", mfp.getExtensions().contains(MessageFlowSensor.class));
+		assertTrue("MessageFlowPerformanceProfile has not been imported.", mfp.getExtensions().contains(MessageFlowPerformanceProfile.class));
+		
+		/* check whether list of rule visitors is complete */
 		assertTrue("CollectorNodeSensor has not been imported.", mfp.getExtensions().contains(CollectorNodeSensor.class));
 		assertTrue("ComputeNodeSensor has not been imported.", mfp.getExtensions().contains(ComputeNodeSensor.class));
 		assertTrue("FileInputNodeSensor has not been imported.", mfp.getExtensions().contains(FileInputNodeSensor.class));
@@ -66,6 +77,10 @@ public class MessageFlowPluginTest {
 		assertTrue("TimeoutControlNodeSensor has not been imported.", mfp.getExtensions().contains(TimeoutControlNodeSensor.class));
 		assertTrue("TimeoutNotificationNodeSensor has not been imported.", mfp.getExtensions().contains(TimeoutNotificationNodeSensor.class));
 		assertTrue("TryCatchNodeSensor has not been imported.", mfp.getExtensions().contains(TryCatchNodeSensor.class));
+		assertTrue("ErrorHandlingPathSensor has not been imported.", mfp.getExtensions().contains(ErrorHandlingPathSensor.class));
+		assertTrue("MQQueueTopologySensor has not been imported.", mfp.getExtensions().contains(MQQueueTopologySensor.class));
+		assertTrue("CollectorRequestLoopSensor has not been imported.", mfp.getExtensions().contains(CollectorRequestLoopSensor.class));
+		assertTrue("MonitoringEventBudgetSensor has not been imported.", mfp.getExtensions().contains(MonitoringEventBudgetSensor.class));
 	}
 
 }
@@ -41,8 +41,8 @@ public class MessageFlowProfileTest {
 		MessageFlowProfile mfp = new MessageFlowProfile();
 		RulesProfile rp = mfp.createProfile(ValidationMessages.create());
 		
-		/* Currently, there should be 71 rules. */
-		assertEquals(71, rp.getActiveRules().size());
+		/* Currently, there should be 74 rules. */
+		assertEquals(74, rp.getActiveRules().size());
 		
 		ArrayList<String> ruleKeys = new ArrayList<String>();
 		
@@ -153,6 +153,13 @@ public class MessageFlowProfileTest {
 		assertTrue("TryCatchNodeTryTerminal is not defined as a rule.", ruleKeys.contains("TryCatchNodeTryTerminal"));
 		assertTrue("TryCatchNodeCatchTerminal is not defined as a rule.", ruleKeys.contains("TryCatchNodeCatchTerminal"));
 		assertTrue("TryCatchNodeMonitoringEvents is not defined as a rule.", ruleKeys.contains("TryCatchNodeMonitoringEvents"));
+		
+		assertTrue("ErrorHandlingPath is not defined as a rule.", ruleKeys.contains("ErrorHandlingPath"));
+		
+		assertTrue("MQQueueNotConsumed is not defined as a rule.", ruleKeys.contains("MQQueueNotConsumed"));
+		assertTrue("MQQueueNotProduced is not defined as a rule.", ruleKeys.contains("MQQueueNotProduced"));
+		//assertTrue("MQQueueMultipleConsumers is not defined as a rule.", ruleKeys.contains("MQQueueMultipleConsumers"));
+		//assertTrue("MQQueueMultipleProducers is not defined as a rule.", ruleKeys.contains("MQQueueMultipleProducers"));
 	}
 
 }
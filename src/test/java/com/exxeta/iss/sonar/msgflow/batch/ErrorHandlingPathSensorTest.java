@@ -0,0 +1,172 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowExtractionPlan;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class tests the analysis of the error handling paths of a message flow.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class ErrorHandlingPathSensorTest {
+
+	/**
+	 * Resets the extraction plan of the message flow project, which is set 
+	 * by the sensor.
+	 */
+	@After
+	public void tearDown() {
+		MessageFlowProject.getInstance().setExtractionPlan(MessageFlowExtractionPlan.ALL);
+	}
+	
+	/**
+	 * The method analyses a message flow file of the test resources with the 
+	 * error handling path visitor only.
+	 * 
+	 * @param fileName the file name relative to the test resources
+	 * 
+	 * @return the issues found in the file
+	 */
+	private static List<Issue> analyse(String fileName) {
+		return MessageFlowSensorFixture.analyse(fileName, null, new ErrorHandlingPathSensor());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.ErrorHandlingPathSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitMessageFlow() {
+		List<Issue> issues = analyse("errorhandling/ErrorHandling.msgflow");
+		List<String> messages = new ArrayList<String>();
+		
+		for (Issue issue : issues) {
+			assertEquals(RuleKey.of("msgflow", "ErrorHandlingPath"), issue.ruleKey());
+			messages.add(issue.message());
+		}
+		
+		/* nodes without handler on the path, each reported once in the order they are reached */
+		assertEquals(4, messages.size());
+		assertTrue(messages.get(0).startsWith("The failure terminal of 'Unhandled' (type: Compute) is not connected"));
+		assertTrue(messages.get(0).contains("on the path from 'MQ Input'"));
+		
+		/* the catch branch of a Try Catch Node is handled by the input node */
+		assertTrue(messages.get(1).startsWith("The failure terminal of 'Handler' "));
+		
+		/* the failure branch of a node is handled by the input node */
+		assertTrue(messages.get(2).startsWith("The failure terminal of 'Failure Handler' "));
+		
+		/* the catch branch of an input node is not handled again */
+		assertTrue(messages.get(3).startsWith("The failure terminal of 'Catch Handler' "));
+		assertTrue(messages.get(3).contains("on the path from 'File Input'"));
+		
+		/* the try branch, nodes with connected failure terminal and nodes handled by the input node */
+		for (String message : messages) {
+			assertFalse(message.contains("'Protected'"));
+			assertFalse(message.contains("'Request With Failure'"));
+			assertFalse(message.contains("'Covered Request'"));
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.ErrorHandlingPathSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitMessageFlowWithSubflows() {
+		List<String> messages = new ArrayList<String>();
+		
+		for (Issue issue : analyse("errorhandling/Subflows.msgflow")) {
+			messages.add(issue.message());
+		}
+		
+		/* the unhandled nodes inside the subflows are reported with the path of the subflow node */
+		assertEquals(5, messages.size());
+		assertTrue(messages.contains("The failure terminal of 'Lookup' (type: Compute) in the subflow node 'Enrich' is not connected and an exception on the path from 'Orders In' "
+				+ "does not reach the catch terminal of a TryCatch or input node."));
+		assertTrue(messages.contains("The failure terminal of 'Write Audit' (type: Compute) in the subflow node 'Enrich/Audit' is not connected and an exception on the path from 'Orders In' "
+				+ "does not reach the catch terminal of a TryCatch or input node."));
+		
+		/* the catch terminal of a Try Catch Node inside a subflow leads to an output terminal of the subflow node */
+		assertTrue(messages.contains("The failure terminal of 'Error Path' (type: Compute) is not connected and an exception on the path from 'Orders In' "
+				+ "does not reach the catch terminal of a TryCatch or input node."));
+		
+		/* a subflow referenced by another node is reported for that node as well */
+		assertTrue(messages.contains("The failure terminal of 'Lookup' (type: Compute) in the subflow node 'Enrich Again' is not connected and an exception on the path from 'Retries In' "
+				+ "does not reach the catch terminal of a TryCatch or input node."));
+		assertTrue(messages.contains("The failure terminal of 'Write Audit' (type: Compute) in the subflow node 'Enrich Again/Audit' is not connected and an exception on the path from 'Retries In' "
+				+ "does not reach the catch terminal of a TryCatch or input node."));
+		
+		/* the try terminal of a Try Catch Node inside a subflow handles the nodes after the subflow node */
+		for (String message : messages) {
+			assertFalse(message.contains("'Safe'"));
+			assertFalse(message.contains("'After Guard'"));
+		}
+		
+		/* subflows which cannot be resolved or reference themselves are passed through */
+		assertTrue(analyse("subflows/Main.msgflow").isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.ErrorHandlingPathSensor#getNodeTypes()}.
+	 */
+	@Test
+	public final void testGetNodeTypes() {
+		MessageFlowSensor sensor = new MessageFlowSensor(new DefaultFileSystem(), new Settings(), new RecordingPerspectives(), 
+				new MessageFlowNodeVisitor[] { new ErrorHandlingPathSensor() });
+		
+		/* the nodes needed to follow the paths are extracted without properties */
+		MessageFlowExtractionPlan plan = sensor.getExtractionPlan();
+		
+		assertTrue(plan.includes(MessageFlowNodeType.TRY_CATCH));
+		assertTrue(plan.includes(MessageFlowNodeType.MQ_INPUT));
+		assertTrue(plan.includes(MessageFlowNodeType.SOAP_REQUEST));
+		assertFalse(plan.includes(MessageFlowNodeType.MQ_OUTPUT));
+		assertTrue(plan.getProperties(MessageFlowNodeType.COMPUTE).isEmpty());
+		
+		/* nothing is extracted if the rule is not active */
+		sensor = new MessageFlowSensor(new DefaultFileSystem(), new Settings(), new RecordingPerspectives(), 
+				new ActiveRulesBuilder().create(RuleKey.of("msgflow", "ComputeNodeInTerminal")).activate().build(), 
+				new MessageFlowNodeVisitor[] { new ErrorHandlingPathSensor() });
+		
+		assertTrue(sensor.getExtractionPlan().isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.ErrorHandlingPathSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitMessageFlowWithoutInput() {
+		/* failures are only reported on paths from input nodes */
+		assertTrue(analyse("Compute.msgflow").isEmpty());
+	}
+}
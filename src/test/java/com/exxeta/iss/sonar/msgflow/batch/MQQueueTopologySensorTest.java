@@ -0,0 +1,187 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowPlugin;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowExtractionPlan;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class tests the analysis of the MQ queues connecting the message flows 
+ * of a project.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MQQueueTopologySensorTest {
+
+	/**
+	 * the folder holding the working directory of the incremental analysis
+	 */
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+	
+	/**
+	 * Resets the extraction plan of the message flow project, which is set 
+	 * by the sensor.
+	 */
+	@After
+	public void tearDown() {
+		MessageFlowProject.getInstance().setExtractionPlan(MessageFlowExtractionPlan.ALL);
+	}
+	
+	/**
+	 * The method creates a file system holding the message flow files of the 
+	 * test resources in the directory 'queues'.
+	 * 
+	 * @return the file system
+	 */
+	private static DefaultFileSystem createFileSystem() {
+		return MessageFlowSensorFixture.createFileSystem("queues/Billing.msgflow", "queues/Order.msgflow", "queues/Shipping.msgflow");
+	}
+	
+	/**
+	 * The method analyses the message flow files with the queue topology 
+	 * visitor only.
+	 * 
+	 * @param fs the file system holding the message flow files
+	 * @param settings the settings of the analysis
+	 * 
+	 * @return the issues by path of the message flow file
+	 */
+	private static Map<String, List<Issue>> analyse(DefaultFileSystem fs, Settings settings) {
+		return MessageFlowSensorFixture.analyse(fs, settings, null, new MQQueueTopologySensor()).getIssues();
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor#visitProjectFile(String, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitProjectFile() {
+		Map<String, List<Issue>> issues = analyse(createFileSystem(), new Settings());
+		
+		assertEquals(3, issues.size());
+		
+		/* 'ORDER.OUT' is read by two flows, 'AUDIT' of 'QM1' is not read by 'Audit In' of 'QM3' */
+		List<Issue> billing = issues.get("queues/Billing.msgflow");
+		assertEquals(3, billing.size());
+		assertEquals(RuleKey.of("msgflow", "MQQueueMultipleConsumers"), billing.get(0).ruleKey());
+		assertEquals("The queue 'ORDER.OUT' read by 'Billing In' (type: MQInput) is also read by 1 other MQ Input node(s), e.g. in 'queues/Shipping.msgflow'.", 
+				billing.get(0).message());
+		assertEquals(RuleKey.of("msgflow", "MQQueueNotConsumed"), billing.get(1).ruleKey());
+		assertEquals("The queue 'AUDIT' of queue manager 'QM1' written by 'Audit Out' (type: MQOutput) is not read by any MQ Input node of the project.", 
+				billing.get(1).message());
+		assertEquals(RuleKey.of("msgflow", "MQQueueMultipleProducers"), billing.get(2).ruleKey());
+		
+		/* 'ORDER.IN' is not written, the node without queue name is not analysed */
+		List<Issue> order = issues.get("queues/Order.msgflow");
+		assertEquals(1, order.size());
+		assertEquals(RuleKey.of("msgflow", "MQQueueNotProduced"), order.get(0).ruleKey());
+		assertEquals("The queue 'ORDER.IN' read by 'Order In' (type: MQInput) is not written by any MQ Output node of the project.", order.get(0).message());
+		
+		List<Issue> shipping = issues.get("queues/Shipping.msgflow");
+		assertEquals(2, shipping.size());
+		assertEquals(RuleKey.of("msgflow", "MQQueueMultipleConsumers"), shipping.get(0).ruleKey());
+		assertEquals(RuleKey.of("msgflow", "MQQueueMultipleProducers"), shipping.get(1).ruleKey());
+		assertTrue(shipping.get(1).message().endsWith("e.g. in 'queues/Billing.msgflow'."));
+		
+		assertEquals(3, MessageFlowProject.getInstance().getQueueIndex().getQueueCount());
+		assertEquals(3, MessageFlowProject.getInstance().getQueueIndex().getFileCount());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor#visitProjectFile(String, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitProjectFileLookups() {
+		RecordingPerspectives perspectives = MessageFlowSensorFixture.analyse(createFileSystem(), new Settings(), null, 
+				new MQInputNodeSensor(), new MQQueueTopologySensor());
+		
+		/* the issues of a file and the issues found across the files are published with one lookup */
+		assertEquals(3, perspectives.getLookups());
+		assertTrue(perspectives.getAllIssues().size() > 6);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor#visitProjectFile(String, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitProjectFileInParallel() {
+		Settings settings = new Settings();
+		settings.setProperty(MessageFlowPlugin.THREADS_KEY, 4);
+		
+		assertEquals(analyse(createFileSystem(), new Settings()).toString(), analyse(createFileSystem(), settings).toString());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor#visitProjectFile(String, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitProjectFileIncremental() throws IOException {
+		DefaultFileSystem fs = createFileSystem();
+		fs.setWorkDir(temp.newFolder("work"));
+		
+		Settings settings = new Settings();
+		settings.setProperty(MessageFlowPlugin.INCREMENTAL_KEY, true);
+		
+		String expected = analyse(fs, settings).toString();
+		
+		/* the queues of the unchanged files are taken from the manifest */
+		MessageFlowProject.getInstance().getMessageFlowCache().clear();
+		long misses = MessageFlowProject.getInstance().getMessageFlowCache().getMissCount();
+		
+		assertEquals(expected, analyse(fs, settings).toString());
+		assertEquals(misses, MessageFlowProject.getInstance().getMessageFlowCache().getMissCount());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MQQueueTopologySensor#getNodeTypes()}.
+	 */
+	@Test
+	public final void testGetNodeTypes() {
+		MessageFlowSensor sensor = new MessageFlowSensor(new DefaultFileSystem(), new Settings(), new RecordingPerspectives(), 
+				new ActiveRulesBuilder().create(RuleKey.of("msgflow", "MQQueueNotProduced")).activate().build(), 
+				new MessageFlowNodeVisitor[] { new MQQueueTopologySensor() });
+		
+		/* the queues of the producers are needed by the rules of the consumers */
+		MessageFlowExtractionPlan plan = sensor.getExtractionPlan();
+		
+		assertTrue(plan.includes(MessageFlowNodeType.MQ_INPUT, MessageFlowNodeProperty.QUEUE_NAME));
+		assertTrue(plan.includes(MessageFlowNodeType.MQ_OUTPUT, MessageFlowNodeProperty.QUEUE_NAME));
+		assertTrue(plan.includes(MessageFlowNodeType.MQ_OUTPUT, MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		assertFalse(plan.includes(MessageFlowNodeType.MQ_OUTPUT, MessageFlowNodeProperty.VALIDATE_MASTER));
+		assertFalse(plan.includes(MessageFlowNodeType.COMPUTE));
+	}
+}
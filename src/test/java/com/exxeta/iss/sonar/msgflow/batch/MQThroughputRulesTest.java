@@ -0,0 +1,82 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * The class tests the throughput rules of the MQ Input and MQ Output nodes.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MQThroughputRulesTest {
+
+	/**
+	 * the keys of the throughput rules
+	 */
+	private static final String[] RULES = { "MQInputNodeAdditionalInstances", "MQInputNodeCommitCount", "MQInputNodeTransactionMode", 
+			"MQInputNodeBrowse", "MQInputNodeOrderMode", "MQOutputNodeTransactionMode" };
+	
+	/**
+	 * The method analyses the message flow file 'throughput/Throughput.msgflow' 
+	 * with the throughput rules being active only.
+	 * 
+	 * @return the issues of the message flow file
+	 */
+	private static List<Issue> analyse() {
+		return MessageFlowSensorFixture.analyse("throughput/Throughput.msgflow", RULES, new MQInputNodeSensor(), new MQOutputNodeSensor());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MQInputNodeSensor#MQInputNodeSensor()} 
+	 * and {@link com.exxeta.iss.sonar.msgflow.batch.MQOutputNodeSensor#MQOutputNodeSensor()}.
+	 */
+	@Test
+	public final void testThroughputRules() {
+		List<Issue> issues = analyse();
+		
+		/* 'Fast In' and 'Reply Out' are configured for throughput */
+		assertEquals(6, issues.size());
+		
+		List<RuleKey> ruleKeys = new ArrayList<RuleKey>();
+		
+		for (Issue issue : issues) {
+			ruleKeys.add(issue.ruleKey());
+			assertTrue(issue.message(), issue.message().contains("'Slow In'") || issue.message().contains("'Trace Out'"));
+		}
+		
+		for (String rule : RULES) {
+			assertTrue(rule, ruleKeys.contains(RuleKey.of("msgflow", rule)));
+		}
+		
+		for (Issue issue : issues) {
+			if (issue.ruleKey().rule().equals("MQInputNodeOrderMode")) {
+				assertEquals("'Order mode' under 'Advanced' is set to 'byQueueOrder' for 'Slow In' (type: MQInput), the messages are processed one after another (see Properties).", 
+						issue.message());
+			}
+		}
+	}
+
+}
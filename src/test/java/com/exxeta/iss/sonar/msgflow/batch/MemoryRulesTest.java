@@ -0,0 +1,82 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * The class tests the memory rules of the Collector and FileInput nodes.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MemoryRulesTest {
+
+	/**
+	 * the keys of the memory rules
+	 */
+	private static final String[] RULES = { "CollectorNodeUnboundedCollection", "FileInputNodeRecordDetection", 
+			"FileInputNodeParseTiming", "FileInputNodeWholeFileValidation" };
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.CollectorNodeSensor#CollectorNodeSensor()} 
+	 * and {@link com.exxeta.iss.sonar.msgflow.batch.FileInputNodeSensor#FileInputNodeSensor()}.
+	 */
+	@Test
+	public final void testMemoryRules() {
+		List<String> messages = analyse(RULES);
+		
+		/* 'Record In', 'Unvalidated Record In' and 'Expiring Collector' are bounded */
+		assertEquals(5, messages.size());
+		assertTrue(messages.contains("CollectorNodeUnboundedCollection: Neither 'Collection expiry' nor 'Quantity' is set for 'Unbounded Collector' (type: Collector), incomplete collections are kept without limit (see Properties)."));
+		assertTrue(messages.contains("FileInputNodeRecordDetection: 'Record detection' under 'Records and Elements' is set to 'Whole File' for 'Whole File In' (type: FileInput), each file is read into memory as one message (see Properties)."));
+		assertTrue(messages.contains("FileInputNodeParseTiming: 'Parse timing' under 'Parser Options' is set to 'complete' for 'Whole File In' (type: FileInput), the complete message tree is built when the message is read (see Properties)."));
+		assertTrue(messages.contains("FileInputNodeWholeFileValidation: 'Validate' under 'Validation' is set to 'Content and Value' for the whole files read by 'Whole File In' (type: FileInput), the complete message tree of each file is built for the validation (see Properties)."));
+		assertTrue(messages.contains("FileInputNodeRecordDetection: 'Record detection' under 'Records and Elements' is set to 'Whole File' for 'Unvalidated File In' (type: FileInput), each file is read into memory as one message (see Properties)."));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.FileInputNodeSensor#FileInputNodeSensor()}.
+	 */
+	@Test
+	public final void testValidationOfRecords() {
+		List<String> messages = analyse(new String[] { "FileInputNodeValidation" });
+		
+		/* the validation of whole files is not requested, it contradicts 'FileInputNodeWholeFileValidation' */
+		assertEquals(1, messages.size());
+		assertEquals("FileInputNodeValidation: 'Validate' under 'Validation' is not set to 'Content and Value' for 'Unvalidated Record In' (type: FileInput) (see Properties).", 
+				messages.get(0));
+	}
+	
+	/**
+	 * The method analyses the message flow of the memory rules with the 
+	 * given rules.
+	 * 
+	 * @param rules the keys of the active rules
+	 * 
+	 * @return the issues as rule key and message
+	 */
+	private static List<String> analyse(String[] rules) {
+		return MessageFlowSensorFixture.ruleMessages(MessageFlowSensorFixture.analyse("memory/Memory.msgflow", rules, 
+				new CollectorNodeSensor(), new FileInputNodeSensor()));
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * The class tests the manifest of the incremental analysis.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowManifestTest {
+
+	/**
+	 * the temporary folder holding the manifest and the message flow files
+	 */
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+	
+	/**
+	 * The method creates a collector holding two issues.
+	 * 
+	 * @return the collector holding the issues
+	 */
+	private static MessageFlowIssueCollector createIssues() {
+		MessageFlowIssueCollector issues = new MessageFlowIssueCollector();
+		issues.addIssue(RuleKey.of("msgflow", "ComputeNodeInTerminal"), "The in terminal is not connected.", 1);
+		issues.addIssue(RuleKey.of("msgflow", "ComputeNodeMonitoringEvents"), "There are no monitoring events.");
+		
+		return issues;
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowManifest#getUnchangedIssues(String, File)}.
+	 */
+	@Test
+	public final void testGetUnchangedIssues() throws IOException {
+		File manifestFile = new File(temp.getRoot(), "manifest.bin");
+		File file = temp.newFile("Compute.msgflow");
+		Files.copy(new File("src/test/resources/Compute.msgflow").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		MessageFlowManifest manifest = new MessageFlowManifest(manifestFile, "1.0");
+		assertNull(manifest.getUnchangedIssues("Compute.msgflow", file));
+		manifest.putIssues("Compute.msgflow", file, createIssues());
+		manifest.write();
+		
+		assertEquals(0, manifest.getSkippedCount());
+		assertEquals(1, manifest.getAnalysedCount());
+		
+		/* the file is unchanged */
+		manifest = new MessageFlowManifest(manifestFile, "1.0");
+		MessageFlowIssueCollector issues = manifest.getUnchangedIssues("Compute.msgflow", file);
+		assertNotNull(issues);
+		assertEquals(2, issues.size());
+		assertNull(manifest.getUnchangedIssues("Other.msgflow", file));
+		assertEquals(1, manifest.getSkippedCount());
+		manifest.write();
+		
+		/* only the modification time has changed */
+		assertTrue(file.setLastModified(file.lastModified() - 60000));
+		manifest = new MessageFlowManifest(manifestFile, "1.0");
+		assertNotNull(manifest.getUnchangedIssues("Compute.msgflow", file));
+		manifest.write();
+		
+		/* the content has changed */
+		FileWriter writer = new FileWriter(file, true);
+		writer.write("\n");
+		writer.close();
+		manifest = new MessageFlowManifest(manifestFile, "1.0");
+		assertNull(manifest.getUnchangedIssues("Compute.msgflow", file));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowManifest#putIssues(String, File, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testPutIssuesDependingOnOtherFiles() throws IOException {
+		File manifestFile = new File(temp.getRoot(), "manifest.bin");
+		File file = new File("src/test/resources/Compute.msgflow");
+		MessageFlowIssueCollector issues = createIssues();
+		issues.dependOnOtherFiles();
+		
+		MessageFlowManifest manifest = new MessageFlowManifest(manifestFile, "1.0");
+		manifest.putIssues("Compute.msgflow", file, issues);
+		manifest.write();
+		
+		/* the issues may change with the subflows, so the file is analysed again */
+		assertEquals(1, manifest.getAnalysedCount());
+		assertNull(new MessageFlowManifest(manifestFile, "1.0").getUnchangedIssues("Compute.msgflow", file));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowManifest#MessageFlowManifest(File, String)}.
+	 */
+	@Test
+	public final void testOtherConfiguration() throws IOException {
+		File manifestFile = new File(temp.getRoot(), "manifest.bin");
+		File file = new File("src/test/resources/Compute.msgflow");
+		
+		MessageFlowManifest manifest = new MessageFlowManifest(manifestFile, "1.0|*");
+		manifest.putIssues("Compute.msgflow", file, createIssues());
+		manifest.write();
+		
+		assertNotNull(new MessageFlowManifest(manifestFile, "1.0|*").getUnchangedIssues("Compute.msgflow", file));
+		assertNull(new MessageFlowManifest(manifestFile, "1.0|ComputeNodeInTerminal").getUnchangedIssues("Compute.msgflow", file));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowManifest#MessageFlowManifest(File, String)}.
+	 */
+	@Test
+	public final void testCorruptManifest() throws IOException {
+		File manifestFile = temp.newFile("manifest.bin");
+		Files.write(manifestFile.toPath(), new byte[] { 0x4D, 0x53, 0x47, 0x4D, 0x00 });
+		
+		MessageFlowManifest manifest = new MessageFlowManifest(manifestFile, "1.0");
+		assertNull(manifest.getUnchangedIssues("Compute.msgflow", new File("src/test/resources/Compute.msgflow")));
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.config.Settings;
+
+/**
+ * The class tests the configuration of the pipelined analysis.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowPipelineTest {
+
+	/**
+	 * the directory of the manifest
+	 */
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowPipeline#depths(String)}.
+	 */
+	@Test
+	public final void testDepths() {
+		int d = MessageFlowPipeline.DEFAULT_DEPTH;
+		
+		assertArrayEquals(new int[] { d, d, d }, MessageFlowPipeline.depths(null));
+		assertArrayEquals(new int[] { d, d, d }, MessageFlowPipeline.depths(""));
+		assertArrayEquals(new int[] { 4, 4, 4 }, MessageFlowPipeline.depths("4"));
+		assertArrayEquals(new int[] { 8, 2, 32 }, MessageFlowPipeline.depths("8, 2 ,32"));
+		
+		/* invalid values */
+		assertArrayEquals(new int[] { d, d, d }, MessageFlowPipeline.depths("8,2"));
+		assertArrayEquals(new int[] { d, d, d }, MessageFlowPipeline.depths("8,0,8"));
+		assertArrayEquals(new int[] { d, d, d }, MessageFlowPipeline.depths("many"));
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowPipeline#analyse(java.util.List)}.
+	 */
+	@Test(timeout = 10000)
+	public final void testAnalysePrefetchError() throws IOException {
+		final Error error = new Error("prefetch");
+		File file = new File("src/test/resources/Collector.msgflow");
+		
+		MessageFlowManifest manifest = new MessageFlowManifest(new File(temp.newFolder(), "manifest"), "test") {
+			@Override
+			public MessageFlowIssueCollector getUnchangedIssues(String path, File msgflowFile) {
+				throw error;
+			}
+		};
+		
+		MessageFlowSensor sensor = new MessageFlowSensor(new DefaultFileSystem(), new Settings(), new RecordingPerspectives(), 
+				new ActiveRulesBuilder().build(), new MessageFlowNodeVisitor[0]);
+		InputFile inputFile = new DefaultInputFile("Collector.msgflow")
+				.setAbsolutePath(file.getAbsolutePath())
+				.setFile(file)
+				.setLanguage("msgflow");
+		
+		/* the error reaches the calling thread instead of the analysis waiting forever */
+		try {
+			new MessageFlowPipeline(sensor, manifest, 1, 1, MessageFlowPipeline.depths(null)).analyse(Collections.singletonList(inputFile));
+			fail("The error has not been rethrown.");
+		} catch (Error e) {
+			assertSame(error, e);
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+
+/**
+ * The class tests the declarative rules and the compiled rule tables.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowRuleTest {
+
+	/**
+	 * The method creates a message flow node.
+	 * 
+	 * @param messageDomainProperty the message domain of the node
+	 * @param messageSetProperty the message set of the node
+	 * @param validateMaster the flag for 'validate Master' of the node
+	 * @param outputTerminals the connected output terminals of the node
+	 * 
+	 * @return the message flow node
+	 */
+	private static MessageFlowNode createNode(String messageDomainProperty, String messageSetProperty, boolean validateMaster, String... outputTerminals) {
+		return new MessageFlowNode("FCMComposite_1_1", "MQ Input", "ComIbmMQInput.msgnode", false, false, false, validateMaster, 
+				messageDomainProperty, messageSetProperty, "", "", "", "", false, false, false, false, true, 
+				new ArrayList<String>(), new ArrayList<String>(Arrays.asList(outputTerminals)));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowRule#terminalNotConnected(String, String)}.
+	 */
+	@Test
+	public final void testTerminalNotConnected() {
+		MessageFlowRule rule = MessageFlowRule.terminalNotConnected("MQInputNodeCatchTerminal", "OutTerminal.catch");
+		
+		assertEquals(RuleKey.of("msgflow", "MQInputNodeCatchTerminal"), rule.getRuleKey());
+		assertTrue(rule.getProperties().isEmpty());
+		assertTrue(rule.isViolatedBy(createNode("", "", false, "OutTerminal.out")));
+		assertFalse(rule.isViolatedBy(createNode("", "", false, "OutTerminal.out", "OutTerminal.catch")));
+		assertEquals("The catch terminal (output) for 'MQ Input' (type: ComIbmMQInput.msgnode) is not connected.", 
+				rule.getMessage(createNode("", "", false)));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowRule#whenValueIn(MessageFlowNodeProperty, String...)}.
+	 */
+	@Test
+	public final void testWhenValueIn() {
+		MessageFlowRule rule = MessageFlowRule.propertyNotSet("MQInputNodeMessageSet", MessageFlowNodeProperty.MESSAGE_SET_PROPERTY, 
+				"'Message set' is not set for '{name}' (domain: {MESSAGE_DOMAIN_PROPERTY}).")
+				.whenValueIn(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, "MRM", "XMLNSC");
+		
+		assertEquals(EnumSet.of(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, MessageFlowNodeProperty.MESSAGE_SET_PROPERTY), rule.getProperties());
+		assertTrue(rule.isViolatedBy(createNode("XMLNSC", "", false)));
+		assertFalse(rule.isViolatedBy(createNode("XMLNSC", "MessageSet", false)));
+		assertFalse(rule.isViolatedBy(createNode("JSON", "", false)));
+		assertEquals("'Message set' is not set for 'MQ Input' (domain: MRM).", rule.getMessage(createNode("MRM", "", false)));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowRule#whenValueNotIn(MessageFlowNodeProperty, String...)}.
+	 */
+	@Test
+	public final void testWhenValueNotIn() {
+		MessageFlowRule rule = MessageFlowRule.propertyNotSet("MQInputNodeMessageSet", MessageFlowNodeProperty.MESSAGE_SET_PROPERTY, 
+				"'Message set' is not set for '{name}'.")
+				.whenValueNotIn(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, "", "JSON");
+		
+		assertTrue(rule.isViolatedBy(createNode("XMLNSC", "", false)));
+		assertFalse(rule.isViolatedBy(createNode("XMLNSC", "MessageSet", false)));
+		assertFalse(rule.isViolatedBy(createNode("JSON", "", false)));
+		assertFalse(rule.isViolatedBy(createNode("", "", false)));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowRuleTable#evaluate(MessageFlowNode, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testEvaluate() {
+		MessageFlowRuleTable table = new MessageFlowRuleTable(Arrays.asList(
+				MessageFlowRule.propertyNotSet("MQInputNodeValidation", MessageFlowNodeProperty.VALIDATE_MASTER, "'Validate' is not set for '{name}'."),
+				MessageFlowRule.terminalNotConnected("MQInputNodeFailureTerminal", "OutTerminal.failure").onLine(1)), 
+				MessageFlowActiveRules.of(new ActiveRulesBuilder().create(RuleKey.of("msgflow", "MQInputNodeFailureTerminal")).activate().build()));
+		
+		assertEquals(1, table.size());
+		
+		MessageFlowIssueCollector issues = new MessageFlowIssueCollector();
+		table.evaluate(createNode("", "", false, "OutTerminal.out"), issues);
+		table.evaluate(createNode("", "", false, "OutTerminal.failure"), issues);
+		
+		RecordingPerspectives perspectives = new RecordingPerspectives();
+		issues.publish(perspectives.as(Issuable.class, new DefaultInputFile("MQInput.msgflow")));
+		
+		assertEquals(1, perspectives.getAllIssues().size());
+		assertEquals(RuleKey.of("msgflow", "MQInputNodeFailureTerminal"), perspectives.getAllIssues().get(0).ruleKey());
+		assertEquals(Integer.valueOf(1), perspectives.getAllIssues().get(0).line());
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * The class runs the {@link MessageFlowSensor} on message flow files of the 
+ * test resources with the given rules and visitors and records the issues 
+ * with {@link RecordingPerspectives}. It is shared by the tests of the rule 
+ * visitors.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+final class MessageFlowSensorFixture {
+
+	/**
+	 * the directory of the test resources
+	 */
+	private static final String RESOURCES = "src/test/resources";
+	
+	/**
+	 * Constructor
+	 * 
+	 * Direct instantiation is not possible.
+	 */
+	private MessageFlowSensorFixture() {
+	}
+	
+	/**
+	 * The method creates a file system holding message flow files of the 
+	 * test resources.
+	 * 
+	 * @param paths the paths of the files relative to the test resources, e.g. 'queues/Order.msgflow'
+	 * 
+	 * @return the file system
+	 */
+	static DefaultFileSystem createFileSystem(String... paths) {
+		DefaultFileSystem fs = new DefaultFileSystem();
+		
+		for (String path : paths) {
+			File file = new File(RESOURCES, path);
+			
+			fs.add(new DefaultInputFile(path)
+					.setAbsolutePath(file.getAbsolutePath())
+					.setFile(file)
+					.setLanguage("msgflow"));
+		}
+		
+		return fs;
+	}
+	
+	/**
+	 * The method analyses the message flow files of a file system.
+	 * 
+	 * @param fs the file system holding the message flow files
+	 * @param settings the settings of the analysis
+	 * @param rules the keys of the active rules or null if all rules are active
+	 * @param visitors the rule visitors
+	 * 
+	 * @return the perspectives holding the issues by path of the message flow file
+	 */
+	static RecordingPerspectives analyse(DefaultFileSystem fs, Settings settings, String[] rules, MessageFlowNodeVisitor... visitors) {
+		ActiveRulesBuilder builder = new ActiveRulesBuilder();
+		
+		if (rules != null) {
+			for (String rule : rules) {
+				builder.create(RuleKey.of("msgflow", rule)).activate();
+			}
+		}
+		
+		RecordingPerspectives perspectives = new RecordingPerspectives();
+		
+		new MessageFlowSensor(fs, settings, perspectives, rules == null ? null : builder.build(), visitors).analyse(null, null);
+		
+		return perspectives;
+	}
+	
+	/**
+	 * The method analyses a message flow file of the test resources.
+	 * 
+	 * @param path the path of the file relative to the test resources, e.g. 'memory/Memory.msgflow'
+	 * @param rules the keys of the active rules or null if all rules are active
+	 * @param visitors the rule visitors
+	 * 
+	 * @return the issues of the message flow file in the order they were added
+	 */
+	static List<Issue> analyse(String path, String[] rules, MessageFlowNodeVisitor... visitors) {
+		List<Issue> issues = analyse(createFileSystem(path), new Settings(), rules, visitors).getIssues().get(path);
+		
+		return issues == null ? new ArrayList<Issue>() : issues;
+	}
+	
+	/**
+	 * The method returns the messages of issues.
+	 * 
+	 * @param issues the issues
+	 * 
+	 * @return the messages in the order of the issues
+	 */
+	static List<String> messages(List<Issue> issues) {
+		List<String> messages = new ArrayList<String>();
+		
+		for (Issue issue : issues) {
+			messages.add(issue.message());
+		}
+		
+		return messages;
+	}
+	
+	/**
+	 * The method returns the rule keys and messages of issues, e.g. 
+	 * 'MQInputNodeBrowse: ...'.
+	 * 
+	 * @param issues the issues
+	 * 
+	 * @return the rule keys and messages in the order of the issues
+	 */
+	static List<String> ruleMessages(List<Issue> issues) {
+		List<String> messages = new ArrayList<String>();
+		
+		for (Issue issue : issues) {
+			messages.add(issue.ruleKey().rule() + ": " + issue.message());
+		}
+		
+		return messages;
+	}
+
+}
@@ -0,0 +1,413 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+
+import com.exxeta.iss.sonar.msgflow.MessageFlowPlugin;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowExtractionPlan;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNode;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeProperty;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics;
+
+/**
+ * The class tests the sensor passing the message flow nodes to the rule 
+ * visitors.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowSensorTest {
+
+	/**
+	 * the temporary folder used as working directory
+	 */
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+	
+	/**
+	 * the file system containing the test resources
+	 */
+	private DefaultFileSystem fs;
+	
+	/**
+	 * the settings of the plug-in
+	 */
+	private Settings settings;
+	
+	/**
+	 * the resource perspectives recording the issues
+	 */
+	private RecordingPerspectives perspectives;
+	
+	/**
+	 * Creates the file system containing the message flow files of the 
+	 * test resources.
+	 */
+	@Before
+	public void setUp() {
+		fs = new DefaultFileSystem();
+		settings = new Settings();
+		perspectives = new RecordingPerspectives();
+		
+		for (File file : new File("src/test/resources").listFiles()) {
+			if (file.getName().endsWith(".msgflow") || file.getName().endsWith(".subflow")) {
+				fs.add(new DefaultInputFile(file.getName())
+						.setAbsolutePath(file.getAbsolutePath())
+						.setFile(file)
+						.setLanguage("msgflow"));
+			}
+		}
+	}
+	
+	/**
+	 * Resets the extraction plan of the message flow project, which is set 
+	 * by the sensor.
+	 */
+	@After
+	public void tearDown() {
+		MessageFlowProject.getInstance().setExtractionPlan(MessageFlowExtractionPlan.ALL);
+	}
+	
+	/**
+	 * The method returns all rule visitors of the plug-in.
+	 * 
+	 * @return the rule visitors of the plug-in
+	 */
+	static MessageFlowNodeVisitor[] createVisitors() {
+		return new MessageFlowNodeVisitor[] {
+			new CollectorNodeSensor(),
+			new ComputeNodeSensor(),
+			new FileInputNodeSensor(),
+			new FileOutputNodeSensor(),
+			new HttpInputNodeSensor(),
+			new HttpRequestNodeSensor(),
+			new MQInputNodeSensor(),
+			new MQOutputNodeSensor(),
+			new ResetContentDescriptorNodeSensor(),
+			new SoapInputNodeSensor(),
+			new SoapRequestNodeSensor(),
+			new TimeoutControlNodeSensor(),
+			new TimeoutNotificationNodeSensor(),
+			new TryCatchNodeSensor(),
+			new ErrorHandlingPathSensor(),
+			new MQQueueTopologySensor(),
+			new CollectorRequestLoopSensor(),
+			new MonitoringEventBudgetSensor()
+		};
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyse() {
+		MessageFlowSensor sensor = new MessageFlowSensor(fs, settings, perspectives, createVisitors());
+		
+		assertTrue(sensor.shouldExecuteOnProject(null));
+		
+		sensor.analyse(null, null);
+		
+		assertEquals(148, perspectives.getAllIssues().size());
+		
+		/* the issuable is looked up once per file */
+		assertEquals(19, perspectives.getIssues().size());
+		assertEquals(19, perspectives.getLookups());
+		
+		/* the message flow is visited before the nodes */
+		List<Issue> issues = perspectives.getIssues().get("Collector.msgflow");
+		assertEquals(RuleKey.of("msgflow", "TryCatchNodeTryCatch"), issues.get(0).ruleKey());
+		assertEquals(RuleKey.of("msgflow", "CollectorNodeMonitoringEvents"), issues.get(1).ruleKey());
+		assertEquals(9, issues.size());
+		
+		/* the line of an issue is published */
+		for (Issue issue : perspectives.getIssues().get("HttpRequest.msgflow")) {
+			if (issue.ruleKey().rule().equals("HttpRequestNodeInTerminal")) {
+				assertEquals(Integer.valueOf(1), issue.line());
+			} else {
+				assertNull(issue.line());
+			}
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseStatistics() {
+		new MessageFlowSensor(fs, settings, perspectives, createVisitors()).analyse(null, null);
+		
+		MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+		
+		int files = 0;
+		
+		for (File file : new File("src/test/resources").listFiles()) {
+			if (file.getName().endsWith(".msgflow") || file.getName().endsWith(".subflow")) {
+				files++;
+			}
+		}
+		
+		assertEquals(files, statistics.getFileCount());
+		assertEquals(148, statistics.getIssueCount());
+		assertEquals(Math.min(files, MessageFlowStatistics.SLOWEST_FILES), statistics.getSlowestFiles().size());
+		
+		/* a rule raises at most one issue per evaluation */
+		assertTrue(statistics.getIssueCount("CollectorNodeMonitoringEvents") > 0);
+		assertTrue(statistics.getEvaluationCount("CollectorNodeMonitoringEvents") >= statistics.getIssueCount("CollectorNodeMonitoringEvents"));
+		assertEquals(0, statistics.getEvaluationCount("Unknown"));
+		
+		/* the statistics are reset by the next analysis */
+		new MessageFlowSensor(fs, settings, new RecordingPerspectives(), createVisitors()).analyse(null, null);
+		
+		assertEquals(files, statistics.getFileCount());
+		assertEquals(148, statistics.getIssueCount());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseWithoutVisitors() {
+		MessageFlowSensor sensor = new MessageFlowSensor(fs, settings, perspectives, new MessageFlowNodeVisitor[0]);
+		
+		sensor.analyse(null, null);
+		
+		assertEquals(0, perspectives.getLookups());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseInParallel() {
+		new MessageFlowSensor(fs, settings, perspectives, createVisitors()).analyse(null, null);
+		
+		RecordingPerspectives parallelPerspectives = new RecordingPerspectives();
+		settings.setProperty(MessageFlowPlugin.THREADS_KEY, 4);
+		new MessageFlowSensor(fs, settings, parallelPerspectives, createVisitors()).analyse(null, null);
+		
+		/* the files and their issues are published in the same order */
+		List<String> expected = new ArrayList<String>(perspectives.getIssues().keySet());
+		List<String> actual = new ArrayList<String>(parallelPerspectives.getIssues().keySet());
+		assertEquals(expected, actual);
+		
+		List<Issue> expectedIssues = perspectives.getAllIssues();
+		List<Issue> actualIssues = parallelPerspectives.getAllIssues();
+		assertEquals(expectedIssues.size(), actualIssues.size());
+		
+		for (int i = 0; i < expectedIssues.size(); i++) {
+			assertEquals(expectedIssues.get(i).ruleKey(), actualIssues.get(i).ruleKey());
+			assertEquals(expectedIssues.get(i).message(), actualIssues.get(i).message());
+		}
+		
+		assertEquals(19, parallelPerspectives.getLookups());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseInPipelineWithBackpressure() {
+		new MessageFlowSensor(fs, settings, perspectives, createVisitors()).analyse(null, null);
+		
+		/* queues holding a single file make the stages wait for each other */
+		RecordingPerspectives pipelinePerspectives = new RecordingPerspectives();
+		settings.setProperty(MessageFlowPlugin.THREADS_KEY, 3);
+		settings.setProperty(MessageFlowPlugin.PIPELINE_DEPTHS_KEY, "1");
+		new MessageFlowSensor(fs, settings, pipelinePerspectives, createVisitors()).analyse(null, null);
+		
+		List<Issue> expectedIssues = perspectives.getAllIssues();
+		List<Issue> actualIssues = pipelinePerspectives.getAllIssues();
+		assertEquals(expectedIssues.size(), actualIssues.size());
+		
+		for (int i = 0; i < expectedIssues.size(); i++) {
+			assertEquals(expectedIssues.get(i).ruleKey(), actualIssues.get(i).ruleKey());
+			assertEquals(expectedIssues.get(i).message(), actualIssues.get(i).message());
+		}
+		
+		/* the occupancy of the queues is part of the statistics */
+		MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+		
+		assertEquals(19, statistics.getFileCount());
+		assertTrue(statistics.getSummary().contains("Queues (capacity/average occupancy/maximum occupancy/full/empty)"));
+		assertTrue(statistics.getEmptyCount("publish") > 0);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseWithActiveRules() {
+		new MessageFlowSensor(fs, settings, perspectives, createVisitors()).analyse(null, null);
+		
+		ActiveRules activeRules = new ActiveRulesBuilder()
+				.create(RuleKey.of("msgflow", "CollectorNodeMonitoringEvents")).activate()
+				.create(RuleKey.of("msgflow", "TryCatchNodeTryCatch")).activate()
+				.create(RuleKey.of("other", "ComputeNodeInTerminal")).activate()
+				.build();
+		RecordingPerspectives activePerspectives = new RecordingPerspectives();
+		MessageFlowSensor sensor = new MessageFlowSensor(fs, settings, activePerspectives, activeRules, createVisitors());
+		
+		/* only the Collector and TryCatch nodes are extracted */
+		MessageFlowExtractionPlan plan = sensor.getExtractionPlan();
+		assertEquals(EnumSet.of(MessageFlowNodeType.COLLECTOR, MessageFlowNodeType.TRY_CATCH), plan.getNodeTypes());
+		assertEquals(EnumSet.of(MessageFlowNodeProperty.MONITORING_EVENTS), plan.getProperties(MessageFlowNodeType.COLLECTOR));
+		assertEquals(0, plan.getProperties(MessageFlowNodeType.TRY_CATCH).size());
+		
+		sensor.analyse(null, null);
+		
+		assertEquals(plan, MessageFlowProject.getInstance().getExtractionPlan());
+		
+		/* the issues of the active rules are the same as without the plan */
+		List<Issue> expected = new ArrayList<Issue>();
+		
+		for (Issue issue : perspectives.getAllIssues()) {
+			if (issue.ruleKey().rule().equals("CollectorNodeMonitoringEvents") || issue.ruleKey().rule().equals("TryCatchNodeTryCatch")) {
+				expected.add(issue);
+			}
+		}
+		
+		List<Issue> actual = activePerspectives.getAllIssues();
+		assertEquals(expected.size(), actual.size());
+		
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).ruleKey(), actual.get(i).ruleKey());
+			assertEquals(expected.get(i).message(), actual.get(i).message());
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseWithoutActiveRules() {
+		MessageFlowSensor sensor = new MessageFlowSensor(fs, settings, perspectives, new ActiveRulesBuilder().build(), createVisitors());
+		
+		assertTrue(sensor.getExtractionPlan().isEmpty());
+		
+		sensor.analyse(null, null);
+		
+		assertEquals(0, perspectives.getLookups());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#analyse(org.sonar.api.resources.Project, org.sonar.api.batch.SensorContext)}.
+	 */
+	@Test
+	public final void testAnalyseIncremental() throws IOException {
+		fs.setWorkDir(temp.newFolder("work"));
+		settings.setProperty(MessageFlowPlugin.INCREMENTAL_KEY, true);
+		
+		new MessageFlowSensor(fs, settings, perspectives, createVisitors()).analyse(null, null);
+		
+		assertEquals(148, perspectives.getAllIssues().size());
+		assertTrue(new File(fs.workDir(), "msgflow-manifest.bin").isFile());
+		
+		/* the unchanged files are not parsed again, their issues are published again */
+		MessageFlowProject.getInstance().getMessageFlowCache().clear();
+		long misses = MessageFlowProject.getInstance().getMessageFlowCache().getMissCount();
+		
+		RecordingPerspectives incrementalPerspectives = new RecordingPerspectives();
+		settings.setProperty(MessageFlowPlugin.THREADS_KEY, 4);
+		new MessageFlowSensor(fs, settings, incrementalPerspectives, createVisitors()).analyse(null, null);
+		
+		assertEquals(misses, MessageFlowProject.getInstance().getMessageFlowCache().getMissCount());
+		
+		List<Issue> expectedIssues = perspectives.getAllIssues();
+		List<Issue> actualIssues = incrementalPerspectives.getAllIssues();
+		assertEquals(expectedIssues.size(), actualIssues.size());
+		
+		for (int i = 0; i < expectedIssues.size(); i++) {
+			assertEquals(expectedIssues.get(i).ruleKey(), actualIssues.get(i).ruleKey());
+			assertEquals(expectedIssues.get(i).message(), actualIssues.get(i).message());
+			assertEquals(expectedIssues.get(i).line(), actualIssues.get(i).line());
+		}
+		
+		/* other active rules invalidate the manifest */
+		MessageFlowSensor sensor = new MessageFlowSensor(fs, settings, new RecordingPerspectives(), new ActiveRulesBuilder()
+				.create(RuleKey.of("msgflow", "TryCatchNodeTryCatch")).activate()
+				.build(), createVisitors());
+		misses = MessageFlowProject.getInstance().getMessageFlowCache().getMissCount();
+		sensor.analyse(null, null);
+		
+		assertEquals(misses + 19, MessageFlowProject.getInstance().getMessageFlowCache().getMissCount());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#requiredProperties(MessageFlowNodeVisitor, MessageFlowActiveRules)}.
+	 */
+	@Test
+	public final void testRequiredProperties() {
+		MessageFlowActiveRules activeRules = MessageFlowActiveRules.of(new ActiveRulesBuilder()
+				.create(RuleKey.of("msgflow", "FileInputNodeMessageSet")).activate()
+				.create(RuleKey.of("msgflow", "FileInputNodeOutTerminal")).activate()
+				.build());
+		
+		assertEquals(EnumSet.of(MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY, MessageFlowNodeProperty.MESSAGE_SET_PROPERTY), 
+				MessageFlowSensor.requiredProperties(new FileInputNodeSensor(), activeRules));
+		assertNull(MessageFlowSensor.requiredProperties(new ComputeNodeSensor(), activeRules));
+		assertEquals(EnumSet.of(MessageFlowNodeProperty.MONITORING_EVENTS), MessageFlowSensor.requiredProperties(new ComputeNodeSensor(), MessageFlowActiveRules.ALL));
+		
+		/* a visitor without declared rules needs all properties */
+		MessageFlowNodeVisitor visitor = new MessageFlowNodeVisitor() {
+			@Override
+			public MessageFlowNodeType getNodeType() {
+				return MessageFlowNodeType.COMPUTE;
+			}
+			
+			@Override
+			public void visitNode(MessageFlowNode msgFlowNode, MessageFlowIssueCollector issues) {
+				// nothing to do
+			}
+		};
+		
+		assertEquals(EnumSet.allOf(MessageFlowNodeProperty.class), MessageFlowSensor.requiredProperties(visitor, activeRules));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MessageFlowSensor#threads(int)}.
+	 */
+	@Test
+	public final void testThreads() {
+		assertEquals(1, MessageFlowSensor.threads(1));
+		assertEquals(8, MessageFlowSensor.threads(8));
+		assertEquals(Runtime.getRuntime().availableProcessors(), MessageFlowSensor.threads(0));
+		assertEquals(Runtime.getRuntime().availableProcessors(), MessageFlowSensor.threads(-1));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class tests the rule on the monitoring event budget of a message flow.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MonitoringEventBudgetSensorTest {
+
+	/**
+	 * Resets the monitoring event budget of the message flow project.
+	 */
+	@After
+	public void tearDown() {
+		MessageFlowProject.getInstance().setMaximumMonitoringEvents(MessageFlowProject.DEFAULT_MAXIMUM_MONITORING_EVENTS);
+		MessageFlowProject.getInstance().setMaximumPayloadEvents(MessageFlowProject.DEFAULT_MAXIMUM_PAYLOAD_EVENTS);
+	}
+	
+	/**
+	 * The method analyses a message flow file of the folder 'monitoring' 
+	 * with the rule 'MonitoringEventBudget' being active only.
+	 * 
+	 * @param path the path of the message flow file, e.g. 'monitoring/Events.msgflow'
+	 * 
+	 * @return the messages of the issues of the message flow file
+	 */
+	private static List<String> analyse(String path) {
+		return MessageFlowSensorFixture.messages(MessageFlowSensorFixture.analyse(path, 
+				new String[] { MonitoringEventBudgetSensor.RULE }, new MonitoringEventBudgetSensor()));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MonitoringEventBudgetSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitMessageFlow() {
+		List<String> messages = analyse("monitoring/Events.msgflow");
+		
+		/* the disabled events of 'Events In' and 'Audit' are not counted */
+		assertEquals(1, messages.size());
+		assertEquals("The message flow emits up to 6 monitoring events per message on the path from 'Events In' (maximum: 10), " 
+				+ "up to 3 events on a path capture the message body or the whole message (maximum: 2), e.g. 'Events In' (Events In.transaction.Start).", messages.get(0));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MonitoringEventBudgetSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitMessageFlowWithBranches() {
+		/* 9 events in total, but a message passes 6 of them at most ('Express') */
+		MessageFlowProject.getInstance().setMaximumMonitoringEvents(6);
+		
+		assertTrue(analyse("monitoring/Branches.msgflow").isEmpty());
+		
+		/* the events of the Java Compute, Route, Mapping and Filter Nodes are counted, the loop once */
+		MessageFlowProject.getInstance().setMaximumMonitoringEvents(5);
+		MessageFlowProject.getInstance().setMaximumPayloadEvents(1);
+		
+		List<String> messages = analyse("monitoring/Branches.msgflow");
+		
+		assertEquals(1, messages.size());
+		assertEquals("The message flow emits up to 6 monitoring events per message on the path from 'Orders In' (maximum: 5), " 
+				+ "up to 2 events on a path capture the message body or the whole message (maximum: 1), e.g. 'Route Orders' (Route Orders.terminal.in).", messages.get(0));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.MonitoringEventBudgetSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testVisitMessageFlowWithinBudget() {
+		MessageFlowProject.getInstance().setMaximumMonitoringEvents(6);
+		MessageFlowProject.getInstance().setMaximumPayloadEvents(3);
+		
+		assertTrue(analyse("monitoring/Events.msgflow").isEmpty());
+		
+		MessageFlowProject.getInstance().setMaximumMonitoringEvents(5);
+		
+		assertEquals(1, analyse("monitoring/Events.msgflow").size());
+	}
+
+}
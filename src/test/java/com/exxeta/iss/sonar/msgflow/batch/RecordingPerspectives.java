@@ -0,0 +1,217 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonar.api.batch.fs.InputPath;
+import org.sonar.api.component.Component;
+import org.sonar.api.component.Perspective;
+import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.resources.Resource;
+
+/**
+ * The class is a test double for {@link ResourcePerspectives} recording the 
+ * issues added to the {@link Issuable} of each file.
+ * 
+ * The methods 'as' keep the raw bound 'Perspective' of the API, a bound 
+ * with type arguments would not override them.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+class RecordingPerspectives implements ResourcePerspectives {
+
+	/**
+	 * the issues by relative path of the file in the order they were added
+	 */
+	private final Map<String, List<Issue>> issues = new LinkedHashMap<String, List<Issue>>();
+	
+	/**
+	 * the number of issuable lookups
+	 */
+	private int lookups;
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.component.ResourcePerspectives#as(java.lang.Class, org.sonar.api.resources.Resource)
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public <P extends Perspective> P as(Class<P> perspectiveClass, Resource resource) {
+		throw new UnsupportedOperationException();
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.component.ResourcePerspectives#as(java.lang.Class, org.sonar.api.batch.fs.InputPath)
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public synchronized <P extends Perspective> P as(Class<P> perspectiveClass, InputPath inputPath) {
+		lookups++;
+		
+		List<Issue> fileIssues = issues.get(inputPath.relativePath());
+		
+		if (fileIssues == null) {
+			fileIssues = new ArrayList<Issue>();
+			issues.put(inputPath.relativePath(), fileIssues);
+		}
+		
+		return perspectiveClass.cast(new RecordingIssuable(fileIssues));
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.sonar.api.component.Perspectives#as(java.lang.Class, org.sonar.api.component.Component)
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public <P extends Perspective> P as(Class<P> perspectiveClass, Component component) {
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * The method returns the recorded issues by relative path of the file.
+	 * 
+	 * @return the recorded issues
+	 */
+	public synchronized Map<String, List<Issue>> getIssues() {
+		return issues;
+	}
+	
+	/**
+	 * The method returns the recorded issues of all files.
+	 * 
+	 * @return the recorded issues
+	 */
+	public synchronized List<Issue> getAllIssues() {
+		List<Issue> allIssues = new ArrayList<Issue>();
+		
+		for (List<Issue> fileIssues : issues.values()) {
+			allIssues.addAll(fileIssues);
+		}
+		
+		return allIssues;
+	}
+	
+	/**
+	 * The method returns the number of issuable lookups.
+	 * 
+	 * @return the number of issuable lookups
+	 */
+	public synchronized int getLookups() {
+		return lookups;
+	}
+	
+	/**
+	 * The class records the issues of one file.
+	 */
+	private static final class RecordingIssuable implements Issuable {
+		
+		/**
+		 * the issues of the file
+		 */
+		private final List<Issue> fileIssues;
+		
+		/**
+		 * Constructor
+		 */
+		private RecordingIssuable(List<Issue> fileIssues) {
+			this.fileIssues = fileIssues;
+		}
+		
+		@Override
+		public Component<?> component() {
+			return null;
+		}
+		
+		@Override
+		public IssueBuilder newIssueBuilder() {
+			final DefaultIssue issue = new DefaultIssue();
+			
+			return new IssueBuilder() {
+				@Override
+				public IssueBuilder ruleKey(org.sonar.api.rule.RuleKey ruleKey) {
+					issue.setRuleKey(ruleKey);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder line(Integer line) {
+					issue.setLine(line);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder message(String message) {
+					issue.setMessage(message);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder severity(String severity) {
+					issue.setSeverity(severity);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder reporter(String reporter) {
+					issue.setReporter(reporter);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder effortToFix(Double effortToFix) {
+					issue.setEffortToFix(effortToFix);
+					return this;
+				}
+				
+				@Override
+				public IssueBuilder attribute(String key, String value) {
+					issue.setAttribute(key, value);
+					return this;
+				}
+				
+				@Override
+				public Issue build() {
+					return issue;
+				}
+			};
+		}
+		
+		@Override
+		public boolean addIssue(Issue issue) {
+			synchronized (fileIssues) {
+				return fileIssues.add(issue);
+			}
+		}
+		
+		@Override
+		public List<Issue> issues() {
+			return fileIssues;
+		}
+		
+		@Override
+		public List<Issue> resolvedIssues() {
+			return new ArrayList<Issue>();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowProject;
+
+/**
+ * The class tests the latency rules of the HTTP Request and SOAP Request 
+ * nodes.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class RequestLatencyRulesTest {
+
+	/**
+	 * the keys of the latency rules
+	 */
+	private static final String[] RULES = { "HttpRequestNodeTimeout", "HttpRequestNodeKeepAlive", "HttpRequestNodeCompression", 
+			"SoapRequestNodeTimeout", "SoapRequestNodeKeepAlive", "CollectorRequestLoop" };
+	
+	/**
+	 * Resets the maximum request timeout of the message flow project.
+	 */
+	@After
+	public void tearDown() {
+		MessageFlowProject.getInstance().setMaximumRequestTimeout(MessageFlowProject.DEFAULT_MAXIMUM_REQUEST_TIMEOUT);
+	}
+	
+	/**
+	 * The method analyses the message flow file 'latency/Latency.msgflow' 
+	 * with the latency rules being active only.
+	 * 
+	 * @return the messages of the issues of the message flow file by rule key
+	 */
+	private static List<String> analyse() {
+		return MessageFlowSensorFixture.ruleMessages(MessageFlowSensorFixture.analyse("latency/Latency.msgflow", RULES, 
+				new HttpRequestNodeSensor(), new SoapRequestNodeSensor(), new CollectorRequestLoopSensor()));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.HttpRequestNodeSensor#visitNode(com.exxeta.iss.sonar.msgflow.model.MessageFlowNode, MessageFlowIssueCollector)} 
+	 * and {@link com.exxeta.iss.sonar.msgflow.batch.SoapRequestNodeSensor#visitNode(com.exxeta.iss.sonar.msgflow.model.MessageFlowNode, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testRequestTimeout() {
+		List<String> messages = analyse();
+		
+		assertTrue(messages.contains("HttpRequestNodeTimeout: 'Request timeout' is set to 300 seconds for 'Lookup' (type: WSRequest), which exceeds the maximum of 60 seconds (see Properties)."));
+		assertTrue(messages.contains("SoapRequestNodeTimeout: 'Request timeout' is set to 0 for 'Notify' (type: SOAPRequest), the request waits without limit (see Properties)."));
+		assertTrue(messages.contains("SoapRequestNodeTimeout: 'Request timeout' is not set for 'Default Call' (type: SOAPRequest), the default of 120 seconds exceeds the maximum of 60 seconds (see Properties)."));
+		
+		/* 'Fast Call' is within the maximum */
+		for (String message : messages) {
+			assertFalse(message, message.contains("'Fast Call'"));
+		}
+		
+		MessageFlowProject.getInstance().setMaximumRequestTimeout(300);
+		messages = analyse();
+		
+		int timeouts = 0;
+		
+		for (String message : messages) {
+			if (message.contains("Timeout: ")) {
+				assertTrue(message, message.contains("'Notify'"));
+				timeouts++;
+			}
+		}
+		
+		assertEquals(1, timeouts);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.HttpRequestNodeSensor#HttpRequestNodeSensor()} 
+	 * and {@link com.exxeta.iss.sonar.msgflow.batch.SoapRequestNodeSensor#SoapRequestNodeSensor()}.
+	 */
+	@Test
+	public final void testKeepAliveAndCompression() {
+		List<String> messages = analyse();
+		
+		assertTrue(messages.contains("HttpRequestNodeKeepAlive: 'Enable HTTP/1.1 keep-alive' under 'HTTP Settings' is not set for 'Lookup' (type: WSRequest), a new connection is opened for each request (see Properties)."));
+		assertTrue(messages.contains("SoapRequestNodeKeepAlive: 'Enable HTTP/1.1 keep-alive' under 'HTTP Transport' is not set for 'Notify' (type: SOAPRequest), a new connection is opened for each request (see Properties)."));
+		assertTrue(messages.contains("HttpRequestNodeCompression: Neither 'Request compression type' nor 'Accept compressed responses by default' under 'HTTP Settings' is set for 'Lookup' (type: WSRequest) (see Properties)."));
+		assertEquals(7, messages.size());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.batch.CollectorRequestLoopSensor#visitMessageFlow(com.exxeta.iss.sonar.msgflow.model.MessageFlow, MessageFlowIssueCollector)}.
+	 */
+	@Test
+	public final void testCollectorRequestLoop() {
+		List<String> loops = new ArrayList<String>();
+		
+		for (String message : analyse()) {
+			if (message.startsWith(CollectorRequestLoopSensor.RULE)) {
+				loops.add(message);
+			}
+		}
+		
+		/* 'Notify' is fed by the Collector Node but not part of the loop */
+		assertEquals(1, loops.size());
+		assertEquals("CollectorRequestLoop: 'Lookup' (type: WSRequest) is called in a loop fed by 'Collect Orders' (type: Collector), each iteration waits for the response of the service.", 
+				loops.get(0));
+	}
+
+}
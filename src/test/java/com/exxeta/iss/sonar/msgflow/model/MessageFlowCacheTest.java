@@ -0,0 +1,167 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * The class tests the bounded message flow cache.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowCacheTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowCache#get(String, Callable)}.
+	 */
+	@Test
+	public final void testGetCountsHitsAndMisses() {
+		MessageFlowCache cache = new MessageFlowCache(10);
+		Callable<MessageFlow> loader = loader("src/test/resources/Collector.msgflow", new AtomicInteger());
+
+		MessageFlow mf1 = cache.get("Collector", loader);
+		MessageFlow mf2 = cache.get("Collector", loader);
+
+		assertSame(mf1, mf2);
+		assertEquals(1, mf1.getCollectorNodes().size());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(1, cache.size());
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowCache#get(String, Callable)}.
+	 */
+	@Test
+	public final void testGetEvictsLeastRecentlyUsed() {
+		MessageFlowCache cache = new MessageFlowCache(2);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("a", loader("src/test/resources/Compute.msgflow", loads));
+		cache.get("b", loader("src/test/resources/Compute.msgflow", loads));
+		/* 'a' is now the most recently used entry */
+		cache.get("a", loader("src/test/resources/Compute.msgflow", loads));
+		cache.get("c", loader("src/test/resources/Compute.msgflow", loads));
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(3, loads.get());
+
+		/* 'b' has been evicted and is loaded again */
+		cache.get("a", loader("src/test/resources/Compute.msgflow", loads));
+		assertEquals(3, loads.get());
+		cache.get("b", loader("src/test/resources/Compute.msgflow", loads));
+		assertEquals(4, loads.get());
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowCache#setMaximumSize(int)}.
+	 */
+	@Test
+	public final void testSetMaximumSize() {
+		MessageFlowCache cache = new MessageFlowCache(5);
+		AtomicInteger loads = new AtomicInteger();
+
+		for (int i = 0; i < 5; i++) {
+			cache.get("key" + i, loader("src/test/resources/Compute.msgflow", loads));
+		}
+
+		cache.setMaximumSize(2);
+
+		assertEquals(2, cache.getMaximumSize());
+		assertEquals(2, cache.size());
+		assertEquals(3, cache.getEvictionCount());
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowCache#setMaximumSize(int)}.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSetMaximumSizeInvalid() {
+		new MessageFlowCache(0);
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowCache#get(String, Callable)}.
+	 */
+	@Test
+	public final void testGetLoadsOnceUnderContention() throws Exception {
+		final MessageFlowCache cache = new MessageFlowCache(10);
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Callable<MessageFlow> loader = loader("src/test/resources/Collector.msgflow", loads);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<MessageFlow>> results = new ArrayList<Future<MessageFlow>>();
+
+		try {
+			for (int i = 0; i < 32; i++) {
+				results.add(executor.submit(new Callable<MessageFlow>() {
+					@Override
+					public MessageFlow call() throws Exception {
+						start.await();
+
+						return cache.get("Collector", loader);
+					}
+				}));
+			}
+
+			start.countDown();
+
+			MessageFlow first = results.get(0).get(30, TimeUnit.SECONDS);
+
+			for (Future<MessageFlow> result : results) {
+				assertSame(first, result.get(30, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(31, cache.getHitCount());
+	}
+
+	/**
+	 * Creates a loader parsing the given file and counting the loads.
+	 */
+	private static Callable<MessageFlow> loader(final String fileName, final AtomicInteger loads) {
+		return new Callable<MessageFlow>() {
+			@Override
+			public MessageFlow call() {
+				loads.incrementAndGet();
+
+				return new MessageFlow(fileName, new MessageFlowParser());
+			}
+		};
+	}
+
+}
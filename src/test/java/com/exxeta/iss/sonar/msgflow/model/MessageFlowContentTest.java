@@ -0,0 +1,68 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+/**
+ * The class tests the prefetching of the content of the message flow files.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowContentTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowContent#read(File)}.
+	 */
+	@Test
+	public final void testRead() throws IOException {
+		File file = new File("src/test/resources/Collector.msgflow");
+		
+		assertArrayEquals(Files.readAllBytes(file.toPath()), MessageFlowContent.read(file));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowContent#prefetch(String, byte[])}.
+	 */
+	@Test
+	public final void testPrefetch() throws IOException {
+		byte[] collector = MessageFlowContent.read(new File("src/test/resources/Collector.msgflow"));
+		
+		/* the parsers use the prefetched content of the file instead of reading it */
+		MessageFlowContent.prefetch("src/test/resources/Compute.msgflow", collector);
+		
+		try {
+			assertEquals(1, new MessageFlow("src/test/resources/Compute.msgflow", new MessageFlowParser()).getCollectorNodes().size());
+			assertEquals(1, new MessageFlow("src/test/resources/Compute.msgflow", new MessageFlowStaxParser()).getCollectorNodes().size());
+			
+			/* other files are read as usual */
+			assertEquals(0, new MessageFlow("src/test/resources/MQInput.msgflow", new MessageFlowParser()).getCollectorNodes().size());
+		} finally {
+			MessageFlowContent.clear();
+		}
+		
+		assertEquals(0, new MessageFlow("src/test/resources/Compute.msgflow", new MessageFlowParser()).getCollectorNodes().size());
+	}
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class tests the persistent message flow cache.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowDiskCacheTest {
+
+	/**
+	 * the folder holding the cache entries and copies of the message flow files
+	 */
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadSubflowNodes() throws IOException {
+		File directory = temp.newFolder("cache");
+		String file = "src/test/resources/subflows/Main.msgflow";
+		
+		new MessageFlowDiskCache(directory, "1.0").load(file, new MessageFlowParser());
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow actual = cache.load(file, new MessageFlowParser());
+		
+		assertEquals(1, cache.getReuseCount());
+		assertEquals(4, actual.getSubflowNodes().size());
+		assertMessageFlowsEqual(file, new MessageFlow(file, new MessageFlowParser()), actual);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadAttributes() throws IOException {
+		File directory = temp.newFolder("cache");
+		String file = "src/test/resources/queues/Order.msgflow";
+		
+		new MessageFlowDiskCache(directory, "1.0").load(file, new MessageFlowParser());
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow actual = cache.load(file, new MessageFlowParser());
+		
+		assertEquals(1, cache.getReuseCount());
+		assertEquals("QM3", actual.getMqInputNodes().get(0).getValue(MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		assertEquals("ORDER.OUT", actual.getMqOutputNodes().get(1).getValue(MessageFlowNodeProperty.QUEUE_NAME));
+		assertEquals("", actual.getMqOutputNodes().get(0).getValue(MessageFlowNodeProperty.QUEUE_NAME));
+		assertMessageFlowsEqual(file, new MessageFlow(file, new MessageFlowParser()), actual);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadMonitoringEvents() throws IOException {
+		File directory = temp.newFolder("cache");
+		String file = "src/test/resources/monitoring/Events.msgflow";
+		
+		new MessageFlowDiskCache(directory, "1.0").load(file, new MessageFlowParser());
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow actual = cache.load(file, new MessageFlowParser());
+		
+		assertEquals(1, cache.getReuseCount());
+		assertEquals(3, actual.getMqInputNodes().get(0).getMonitoringEvents().size());
+		assertFalse(actual.getMqInputNodes().get(0).getMonitoringEvents().get(2).isEnabled());
+		assertMessageFlowsEqual(file, new MessageFlow(file, new MessageFlowParser()), actual);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadOtherNodes() throws IOException {
+		File directory = temp.newFolder("cache");
+		String file = "src/test/resources/monitoring/Branches.msgflow";
+		
+		new MessageFlowDiskCache(directory, "1.0").load(file, new MessageFlowParser());
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow actual = cache.load(file, new MessageFlowParser());
+		
+		assertEquals(1, cache.getReuseCount());
+		assertEquals(4, actual.getOtherNodes().size());
+		assertEquals("JavaCompute", actual.getOtherNodes().get(0).getType());
+		assertMessageFlowsEqual(file, new MessageFlow(file, new MessageFlowParser()), actual);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadReusesEntries() throws IOException {
+		File directory = temp.newFolder("cache");
+		File[] files = new File("src/test/resources").listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile();
+			}
+		});
+		
+		MessageFlowDiskCache first = new MessageFlowDiskCache(directory, "1.0");
+		
+		for (File file : files) {
+			first.load(file.getPath(), new MessageFlowParser());
+		}
+		
+		assertEquals(0, first.getReuseCount());
+		assertEquals(files.length, first.getStoreCount());
+		
+		MessageFlowDiskCache second = new MessageFlowDiskCache(directory, "1.0");
+		
+		for (File file : files) {
+			MessageFlow expected = new MessageFlow(file.getPath(), new MessageFlowParser());
+			MessageFlow actual = second.load(file.getPath(), new MessageFlowParser());
+			
+			assertMessageFlowsEqual(file.getName(), expected, actual);
+		}
+		
+		assertEquals(files.length, second.getReuseCount());
+		assertEquals(0, second.getStoreCount());
+		assertEquals(0, second.getErrorCount());
+		assertEquals(0, second.deleteUnusedEntries());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadChangedFile() throws IOException {
+		File directory = temp.newFolder("cache");
+		File file = temp.newFile("Flow.msgflow");
+		Files.copy(new File("src/test/resources/Compute.msgflow").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		new MessageFlowDiskCache(directory, "1.0").load(file.getPath(), new MessageFlowParser());
+		
+		Files.copy(new File("src/test/resources/Collector.msgflow").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow msgFlow = cache.load(file.getPath(), new MessageFlowParser());
+		
+		assertEquals(1, msgFlow.getCollectorNodes().size());
+		assertEquals(0, cache.getReuseCount());
+		assertEquals(1, cache.getStoreCount());
+		
+		/* the entry of the previous content is not used anymore */
+		assertEquals(1, cache.deleteUnusedEntries());
+		assertEquals(1, directory.listFiles().length);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadOtherPluginVersion() throws IOException {
+		File directory = temp.newFolder("cache");
+		
+		new MessageFlowDiskCache(directory, "1.0").load("src/test/resources/Compute.msgflow", new MessageFlowParser());
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.1");
+		cache.load("src/test/resources/Compute.msgflow", new MessageFlowParser());
+		
+		assertEquals(0, cache.getReuseCount());
+		assertEquals(1, cache.getStoreCount());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser, MessageFlowExtractionPlan)}.
+	 */
+	@Test
+	public final void testLoadOtherExtractionPlan() throws IOException {
+		File directory = temp.newFolder("cache");
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		properties.put(MessageFlowNodeType.COMPUTE, EnumSet.noneOf(MessageFlowNodeProperty.class));
+		MessageFlowExtractionPlan plan = new MessageFlowExtractionPlan(properties);
+		
+		new MessageFlowDiskCache(directory, "1.0").load("src/test/resources/Compute.msgflow", new MessageFlowParser());
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow msgFlow = cache.load("src/test/resources/Compute.msgflow", new MessageFlowParser(), plan);
+		
+		assertEquals(0, cache.getReuseCount());
+		assertEquals(1, cache.getStoreCount());
+		assertEquals(1, msgFlow.getComputeNodes().size());
+		assertFalse(msgFlow.getComputeNodes().get(0).areMonitoringEventsEnabled());
+		
+		cache = new MessageFlowDiskCache(directory, "1.0");
+		msgFlow = cache.load("src/test/resources/Compute.msgflow", new MessageFlowParser(), plan);
+		
+		assertEquals(1, cache.getReuseCount());
+		assertEquals(plan, msgFlow.getExtractionPlan());
+		assertEquals(2, directory.listFiles().length);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowDiskCache#load(String, MessageFlowParser)}.
+	 */
+	@Test
+	public final void testLoadCorruptEntry() throws IOException {
+		File directory = temp.newFolder("cache");
+		
+		new MessageFlowDiskCache(directory, "1.0").load("src/test/resources/Compute.msgflow", new MessageFlowParser());
+		
+		File entry = directory.listFiles()[0];
+		FileOutputStream out = new FileOutputStream(entry);
+		out.write(new byte[] { 0x4D, 0x53, 0x47 });
+		out.close();
+		
+		MessageFlowDiskCache cache = new MessageFlowDiskCache(directory, "1.0");
+		MessageFlow msgFlow = cache.load("src/test/resources/Compute.msgflow", new MessageFlowParser());
+		
+		assertEquals(1, msgFlow.getComputeNodes().size());
+		assertEquals(1, cache.getErrorCount());
+		assertEquals(1, cache.getStoreCount());
+		
+		/* the entry has been rewritten */
+		cache = new MessageFlowDiskCache(directory, "1.0");
+		cache.load("src/test/resources/Compute.msgflow", new MessageFlowParser());
+		assertEquals(1, cache.getReuseCount());
+	}
+	
+	/**
+	 * Compares two message flows node by node and connection by connection.
+	 * 
+	 * @param file the name of the message flow file
+	 * @param expected the parsed message flow
+	 * @param actual the message flow read from the cache
+	 */
+	private static void assertMessageFlowsEqual(String file, MessageFlow expected, MessageFlow actual) {
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getCollectorNodes(), actual.getCollectorNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getComputeNodes(), actual.getComputeNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getFileInputNodes(), actual.getFileInputNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getFileOutputNodes(), actual.getFileOutputNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getHttpInputNodes(), actual.getHttpInputNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getHttpRequestNodes(), actual.getHttpRequestNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getMqInputNodes(), actual.getMqInputNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getMqOutputNodes(), actual.getMqOutputNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getResetContentDescriptorNodes(), actual.getResetContentDescriptorNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getSoapInputNodes(), actual.getSoapInputNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getSoapRequestNodes(), actual.getSoapRequestNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getTimeoutControlNodes(), actual.getTimeoutControlNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getTimeoutNotificationNodes(), actual.getTimeoutNotificationNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getTryCatchNodes(), actual.getTryCatchNodes());
+		MessageFlowStaxParserTest.assertSubflowNodesEqual(file, expected.getSubflowNodes(), actual.getSubflowNodes());
+		MessageFlowStaxParserTest.assertNodesEqual(file, expected.getOtherNodes(), actual.getOtherNodes());
+		
+		assertEquals(file, expected.getConnections().size(), actual.getConnections().size());
+		
+		for (int i = 0; i < expected.getConnections().size(); i++) {
+			assertEquals(file, expected.getConnections().get(i).toString(), actual.getConnections().get(i).toString());
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * The class tests the extraction plan and the parsers extracting only the 
+ * nodes and properties of the plan.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowExtractionPlanTest {
+
+	/**
+	 * The method creates a plan extracting the message domain and the 
+	 * validation of the MQ Input nodes and the monitoring events of the 
+	 * Compute nodes.
+	 * 
+	 * @return the extraction plan
+	 */
+	private static MessageFlowExtractionPlan createPlan() {
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		properties.put(MessageFlowNodeType.MQ_INPUT, EnumSet.of(MessageFlowNodeProperty.VALIDATE_MASTER, MessageFlowNodeProperty.MESSAGE_DOMAIN_PROPERTY));
+		properties.put(MessageFlowNodeType.COMPUTE, EnumSet.of(MessageFlowNodeProperty.MONITORING_EVENTS));
+		
+		return new MessageFlowExtractionPlan(properties);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowExtractionPlan#includes(MessageFlowNodeType, MessageFlowNodeProperty)}.
+	 */
+	@Test
+	public final void testIncludes() {
+		MessageFlowExtractionPlan plan = createPlan();
+		
+		assertTrue(plan.includes(MessageFlowNodeType.MQ_INPUT));
+		assertTrue(plan.includes(MessageFlowNodeType.MQ_INPUT, MessageFlowNodeProperty.VALIDATE_MASTER));
+		assertFalse(plan.includes(MessageFlowNodeType.MQ_INPUT, MessageFlowNodeProperty.MONITORING_EVENTS));
+		assertFalse(plan.includes(MessageFlowNodeType.TRY_CATCH));
+		assertFalse(plan.includes(MessageFlowNodeType.TRY_CATCH, MessageFlowNodeProperty.MONITORING_EVENTS));
+		assertEquals(0, plan.getProperties(MessageFlowNodeType.TRY_CATCH).size());
+		assertEquals(EnumSet.of(MessageFlowNodeType.COMPUTE, MessageFlowNodeType.MQ_INPUT), plan.getNodeTypes());
+		assertFalse(plan.isEmpty());
+		assertFalse(plan.includesOtherNodes());
+		assertTrue(MessageFlowExtractionPlan.ALL.includesOtherNodes());
+		
+		for (MessageFlowNodeType type : MessageFlowNodeType.values()) {
+			assertEquals(EnumSet.allOf(MessageFlowNodeProperty.class), MessageFlowExtractionPlan.ALL.getProperties(type));
+		}
+		
+		assertTrue(new MessageFlowExtractionPlan(new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class)).isEmpty());
+		assertFalse(new MessageFlowExtractionPlan(new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class), true).isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowExtractionPlan#getKey()}.
+	 */
+	@Test
+	public final void testGetKey() {
+		MessageFlowExtractionPlan plan = createPlan();
+		
+		assertEquals("COMPUTE[MONITORING_EVENTS];MQ_INPUT[VALIDATE_MASTER,MESSAGE_DOMAIN_PROPERTY]", plan.getKey());
+		assertEquals(plan, createPlan());
+		assertEquals(plan.hashCode(), createPlan().hashCode());
+		assertFalse(plan.equals(MessageFlowExtractionPlan.ALL));
+		
+		MessageFlowExtractionPlan otherNodesPlan = new MessageFlowExtractionPlan(new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class), true);
+		
+		assertEquals("OTHER[MONITORING_EVENTS]", otherNodesPlan.getKey());
+		assertTrue(MessageFlowExtractionPlan.ALL.getKey().endsWith(";OTHER[MONITORING_EVENTS]"));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParse() {
+		assertParsedAccordingToPlan(new MessageFlowParser());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseStax() {
+		assertParsedAccordingToPlan(new MessageFlowStaxParser());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlow#MessageFlow(String, MessageFlowParser, MessageFlowExtractionPlan)}.
+	 */
+	@Test
+	public final void testParseEmptyPlan() {
+		MessageFlowExtractionPlan plan = new MessageFlowExtractionPlan(new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class));
+		MessageFlow mf = new MessageFlow("src/test/resources/Collector.msgflow", new MessageFlowParser(), plan);
+		
+		assertEquals(0, mf.getNodes().size());
+		assertEquals(0, mf.getConnections().size());
+		assertSame(plan, mf.getExtractionPlan());
+	}
+	
+	/**
+	 * Parses the message flow files of the test resources according to the 
+	 * plan and compares the result with the message flows parsed completely.
+	 * 
+	 * @param parser the parser to be tested
+	 */
+	private static void assertParsedAccordingToPlan(MessageFlowParser parser) {
+		MessageFlowExtractionPlan plan = createPlan();
+		int mqInputNodes = 0;
+		
+		for (File file : new File("src/test/resources").listFiles()) {
+			if (!file.getName().endsWith(".msgflow") && !file.getName().endsWith(".subflow")) {
+				continue;
+			}
+			
+			MessageFlow expected = new MessageFlow(file.getPath(), parser);
+			MessageFlow actual = new MessageFlow(file.getPath(), parser, plan);
+			
+			for (MessageFlowNodeType type : MessageFlowNodeType.values()) {
+				List<MessageFlowNode> expectedNodes = expected.getNodes(type);
+				List<MessageFlowNode> actualNodes = actual.getNodes(type);
+				
+				if (!plan.includes(type)) {
+					assertEquals(file.getName(), 0, actualNodes.size());
+					continue;
+				}
+				
+				assertEquals(file.getName(), expectedNodes.size(), actualNodes.size());
+				
+				for (int i = 0; i < expectedNodes.size(); i++) {
+					MessageFlowNode e = expectedNodes.get(i);
+					MessageFlowNode a = actualNodes.get(i);
+					
+					assertEquals(e.getId(), a.getId());
+					assertEquals(e.getName(), a.getName());
+					assertEquals(e.getInputTerminals(), a.getInputTerminals());
+					assertEquals(e.getOutputTerminals(), a.getOutputTerminals());
+					
+					if (type == MessageFlowNodeType.MQ_INPUT) {
+						mqInputNodes++;
+						
+						assertEquals(e.isValidateMaster(), a.isValidateMaster());
+						assertEquals(e.getMessageDomainProperty(), a.getMessageDomainProperty());
+						assertFalse(a.isBuildTreeUsingSchema());
+						assertEquals("", a.getMessageSetProperty());
+						assertFalse(a.areMonitoringEventsEnabled());
+					} else {
+						assertEquals(e.areMonitoringEventsEnabled(), a.areMonitoringEventsEnabled());
+						assertFalse(a.isValidateMaster());
+						assertEquals("", a.getMessageDomainProperty());
+					}
+				}
+			}
+		}
+		
+		assertTrue(mqInputNodes > 0);
+	}
+}
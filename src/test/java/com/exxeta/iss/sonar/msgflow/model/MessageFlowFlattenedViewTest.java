@@ -0,0 +1,158 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class tests the subflow resolution and the flattened views of the 
+ * message flows.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowFlattenedViewTest {
+
+	/**
+	 * the message flow referencing the subflows
+	 */
+	private static final String MAIN = "src/test/resources/subflows/Main.msgflow";
+	
+	/**
+	 * the folder holding the project directories
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#getFlattenedMessageFlow(String)}.
+	 */
+	@Test
+	public final void testGetFlattenedMessageFlow() {
+		MessageFlowFlattenedView view = MessageFlowProject.getInstance().getFlattenedMessageFlow(MAIN);
+		
+		assertEquals("MQInput", view.getNode("FCMComposite_1_1").getType());
+		assertEquals("Compute", view.getNode("FCMComposite_1_2/FCMComposite_1_1").getType());
+		assertEquals("Compute", view.getNode("FCMComposite_1_3/FCMComposite_1_1/FCMComposite_1_1").getType());
+		assertNull(view.getNode("FCMComposite_1_2"));
+		assertEquals(4, view.getNodes().size());
+		
+		/* the MQ Output node is reached through the Compute subflow and the Compute subflow nested in another subflow */
+		assertEquals(new ArrayList<String>(Arrays.asList("FCMComposite_1_2/FCMComposite_1_1", "FCMComposite_1_3/FCMComposite_1_1/FCMComposite_1_1", "FCMComposite_1_4")), 
+				new ArrayList<String>(view.getReachableNodes("FCMComposite_1_1", "OutTerminal.out")));
+		assertTrue(view.getReachableNodes("FCMComposite_1_4", null).isEmpty());
+		
+		/* the cyclic and the missing subflow are not expanded */
+		assertFalse(view.isComplete());
+		assertEquals(Arrays.asList("FCMComposite_1_5/FCMComposite_1_1/FCMComposite_1_1", "FCMComposite_1_6"), view.getUnexpandedSubflowNodes());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#getFlattenedMessageFlow(String)}.
+	 */
+	@Test
+	public final void testGetFlattenedMessageFlowMaximumDepth() {
+		MessageFlowProject mfp = MessageFlowProject.getInstance();
+		
+		mfp.setMaximumSubflowDepth(1);
+		
+		try {
+			MessageFlowFlattenedView view = mfp.getFlattenedMessageFlow(MAIN);
+			
+			assertNull(view.getNode("FCMComposite_1_3/FCMComposite_1_1/FCMComposite_1_1"));
+			assertTrue(view.getUnexpandedSubflowNodes().contains("FCMComposite_1_3/FCMComposite_1_1"));
+			/* the unexpanded subflow node remains a connector */
+			assertEquals(new ArrayList<String>(Arrays.asList("FCMComposite_1_2/FCMComposite_1_1", "FCMComposite_1_4")), 
+					new ArrayList<String>(view.getReachableNodes("FCMComposite_1_1", "OutTerminal.out")));
+		} finally {
+			mfp.setMaximumSubflowDepth(MessageFlowProject.DEFAULT_MAXIMUM_SUBFLOW_DEPTH);
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#getSubflow(String, MessageFlowSubflowNode)}.
+	 */
+	@Test
+	public final void testGetSubflowIsShared() {
+		MessageFlowProject mfp = MessageFlowProject.getInstance();
+		MessageFlow main = mfp.getMessageFlow(MAIN);
+		MessageFlow nested = mfp.getSubflow(MAIN, main.getSubflowNodes().get(1));
+		
+		assertNotNull(nested);
+		
+		MessageFlow compute = mfp.getSubflow(MAIN, main.getSubflowNodes().get(0));
+		
+		assertEquals(1, compute.getComputeNodes().size());
+		assertSame(compute, mfp.getSubflow(mfp.getSubflowFile(MAIN, main.getSubflowNodes().get(1)), nested.getSubflowNodes().get(0)));
+		assertSame(compute, mfp.getMessageFlow("src/test/resources/Compute.subflow"));
+		assertNull(mfp.getSubflow(MAIN, main.getSubflowNodes().get(3)));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#getSubflowFile(String, MessageFlowSubflowNode)}.
+	 */
+	@Test
+	public final void testGetSubflowFileWithinBaseDir() throws IOException {
+		MessageFlowProject mfp = MessageFlowProject.getInstance();
+		File outside = folder.newFile("Audit.subflow");
+		File project = folder.newFolder("project");
+		File flows = new File(project, "flows");
+		File common = new File(project, "Common.subflow");
+		
+		assertTrue(flows.mkdir());
+		assertTrue(common.createNewFile());
+		
+		String main = new File(flows, "Main.msgflow").getPath();
+		MessageFlowSubflowNode audit = new MessageFlowSubflowNode("FCMComposite_1_1", "Audit", "Audit.subflow");
+		MessageFlowSubflowNode commonNode = new MessageFlowSubflowNode("FCMComposite_1_2", "Common", "Common.subflow");
+		
+		try {
+			/* without a base directory the subflow above the project is found */
+			mfp.setBaseDir(null);
+			assertEquals(outside.getPath(), mfp.getSubflowFile(main, audit));
+			
+			/* the subflow above the base directory stays unresolved */
+			mfp.setBaseDir(project);
+			assertNull(mfp.getSubflowFile(main, audit));
+			assertEquals(common.getPath(), mfp.getSubflowFile(main, commonNode));
+		} finally {
+			mfp.setBaseDir(null);
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowSubflowNode#getPrefix(String)}.
+	 */
+	@Test
+	public final void testGetPrefix() {
+		assertEquals("com_exxeta_Compute.subflow", MessageFlowSubflowNode.getPrefix("com_exxeta_Compute.subflow:FCMComposite_1"));
+		assertEquals("Main.msgflow", MessageFlowSubflowNode.getPrefix("Main.msgflow:FCMComposite_1"));
+		assertNull(MessageFlowSubflowNode.getPrefix("ComIbmCompute.msgnode:FCMComposite_1"));
+		assertNull(MessageFlowSubflowNode.getPrefix("eflow:FCMSource"));
+		assertNull(MessageFlowSubflowNode.getPrefix(null));
+	}
+
+}
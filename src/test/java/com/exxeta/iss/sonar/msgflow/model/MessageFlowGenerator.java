@@ -0,0 +1,354 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * The class generates synthetic message flow files (.msgflow) and subflow 
+ * files (.subflow) of a given size, e.g. for benchmarks and scaling tests.
+ * 
+ * The nodes cycle through the supported node types and are connected to a 
+ * chain. Additional connections, monitoring events and node properties are 
+ * added depending on the configuration. The same configuration and seed 
+ * always generate the same file.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowGenerator {
+
+	/**
+	 * the supported node types (without 'ComIbm' prefix and '.msgnode' suffix)
+	 */
+	static final String[] NODE_TYPES = {
+		"Collector",
+		"Compute",
+		"FileInput",
+		"FileOutput",
+		"WSInput",
+		"WSRequest",
+		"MQInput",
+		"MQOutput",
+		"ResetContentDescriptor",
+		"SOAPInput",
+		"SOAPRequest",
+		"TimeoutControl",
+		"TimeoutNotification",
+		"TryCatch"
+	};
+	
+	/**
+	 * the output terminals used for the additional connections
+	 */
+	private static final String[] OUTPUT_TERMINALS = {
+		"OutTerminal.out",
+		"OutTerminal.failure",
+		"OutTerminal.catch",
+		"OutTerminal.try",
+		"OutTerminal.timeout"
+	};
+	
+	/**
+	 * the node properties with their values (see {@link MessageFlowNode})
+	 */
+	private static final String[][] PROPERTIES = {
+		{"parserXmlnscBuildTreeUsingXMLSchema", "true"},
+		{"parserXmlnscMixedContentRetainMode", "all"},
+		{"parserXmlnscCommentsRetainMode", "all"},
+		{"validateMaster", "contentAndValue"},
+		{"messageDomainProperty", "XMLNSC"},
+		{"messageSetProperty", "MessageSet"},
+		{"requestMsgLocationInTree", "InputRoot.XMLNSC"},
+		{"messageDomain", "DFDL"},
+		{"messageSet", "MessageSet"},
+		{"recordDefinition", "DelimitedData"},
+		{"resetMessageDomain", "true"},
+		{"resetMessageSet", "true"},
+		{"resetMessageType", "true"},
+		{"resetMessageFormat", "true"}
+	};
+	
+	/**
+	 * the number of nodes of the generated message flows
+	 */
+	private int nodeCount = 10;
+	
+	/**
+	 * the average number of outgoing connections per node (at least 1 for a chain)
+	 */
+	private double connectionDensity = 1.0;
+	
+	/**
+	 * the fraction of nodes with monitoring events
+	 */
+	private double monitoringEvents = 0.0;
+	
+	/**
+	 * the fraction of monitoring events which are disabled
+	 */
+	private double disabledMonitoringEvents = 0.0;
+	
+	/**
+	 * the fraction of node properties which are set
+	 */
+	private double propertyMix = 0.0;
+	
+	/**
+	 * the seed of the random numbers
+	 */
+	private long seed = 42L;
+	
+	/**
+	 * The method sets the number of nodes of the generated message flows.
+	 * 
+	 * @param nodeCount the number of nodes
+	 * 
+	 * @return the generator
+	 */
+	public MessageFlowGenerator nodeCount(int nodeCount) {
+		this.nodeCount = nodeCount;
+		return this;
+	}
+	
+	/**
+	 * The method sets the average number of outgoing connections per node. 
+	 * The nodes are always connected to a chain, so values less than 1 have 
+	 * the same effect as 1.
+	 * 
+	 * @param connectionDensity the average number of outgoing connections per node
+	 * 
+	 * @return the generator
+	 */
+	public MessageFlowGenerator connectionDensity(double connectionDensity) {
+		this.connectionDensity = connectionDensity;
+		return this;
+	}
+	
+	/**
+	 * The method sets the fraction of nodes with monitoring events.
+	 * 
+	 * @param monitoringEvents the fraction of nodes with monitoring events (0.0 to 1.0)
+	 * 
+	 * @return the generator
+	 */
+	public MessageFlowGenerator monitoringEvents(double monitoringEvents) {
+		this.monitoringEvents = monitoringEvents;
+		return this;
+	}
+	
+	/**
+	 * The method sets the fraction of monitoring events which are disabled.
+	 * 
+	 * @param disabledMonitoringEvents the fraction of disabled monitoring events (0.0 to 1.0)
+	 * 
+	 * @return the generator
+	 */
+	public MessageFlowGenerator disabledMonitoringEvents(double disabledMonitoringEvents) {
+		this.disabledMonitoringEvents = disabledMonitoringEvents;
+		return this;
+	}
+	
+	/**
+	 * The method sets the fraction of node properties (e.g. validateMaster or 
+	 * messageDomain) which are set on each node.
+	 * 
+	 * @param propertyMix the fraction of properties which are set (0.0 to 1.0)
+	 * 
+	 * @return the generator
+	 */
+	public MessageFlowGenerator propertyMix(double propertyMix) {
+		this.propertyMix = propertyMix;
+		return this;
+	}
+	
+	/**
+	 * The method sets the seed of the random numbers.
+	 * 
+	 * @param seed the seed of the random numbers
+	 * 
+	 * @return the generator
+	 */
+	public MessageFlowGenerator seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+	
+	/**
+	 * The method generates a message flow. If the name ends with '.subflow', 
+	 * the message flow gets an input and an output node connected to the 
+	 * first and the last node of the chain.
+	 * 
+	 * @param name the name of the message flow, e.g. 'Flow.msgflow'
+	 * 
+	 * @return the XML content of the message flow file
+	 */
+	public String generate(String name) {
+		Random random = new Random(seed);
+		boolean subflow = name.endsWith(".subflow");
+		String bundleName = name.indexOf('.') < 0 ? name : name.substring(0, name.indexOf('.'));
+		StringBuilder xml = new StringBuilder(1024 + nodeCount * (512 + (int)(propertyMix * 512) + (int)(monitoringEvents * 640)));
+		
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<ecore:EPackage xmi:version=\"2.0\"\n");
+		xml.append("    xmlns:xmi=\"http://www.omg.org/XMI\"");
+		
+		for (String type : NODE_TYPES) {
+			xml.append(" xmlns:ComIbm").append(type).append(".msgnode=\"ComIbm").append(type).append(".msgnode\"");
+		}
+		
+		xml.append(" xmlns:ecore=\"http://www.eclipse.org/emf/2002/Ecore\" xmlns:eflow=\"http://www.ibm.com/wbi/2005/eflow\"");
+		xml.append(" xmlns:mbmonitor=\"http://www.ibm.com/wbi/2008/eflow_mbmonitor\" xmlns:utility=\"http://www.ibm.com/wbi/2005/eflow_utility\"");
+		xml.append(" nsURI=\"").append(name).append("\"\n");
+		xml.append("    nsPrefix=\"").append(name).append("\">\n");
+		xml.append("  <eClassifiers xmi:type=\"eflow:FCMComposite\" name=\"FCMComposite_1\">\n");
+		xml.append("    <eSuperTypes href=\"http://www.ibm.com/wbi/2005/eflow#//FCMBlock\"/>\n");
+		xml.append("    <translation xmi:type=\"utility:TranslatableString\" key=\"").append(bundleName).append("\" bundleName=\"").append(bundleName).append("\" pluginId=\"Nodes\"/>\n");
+		xml.append("    <composition>\n");
+		
+		if (subflow) {
+			xml.append("      <nodes xmi:type=\"eflow:FCMSource\" xmi:id=\"InTerminal.Input\" location=\"20,20\">\n");
+			xml.append("        <translation xmi:type=\"utility:TranslatableString\" key=\"InTerminal.Input\" bundleName=\"").append(bundleName).append("\" pluginId=\"Nodes\"/>\n");
+			xml.append("      </nodes>\n");
+			xml.append("      <nodes xmi:type=\"eflow:FCMSink\" xmi:id=\"OutTerminal.Output\" location=\"20,200\">\n");
+			xml.append("        <translation xmi:type=\"utility:TranslatableString\" key=\"OutTerminal.Output\" bundleName=\"").append(bundleName).append("\" pluginId=\"Nodes\"/>\n");
+			xml.append("      </nodes>\n");
+		}
+		
+		for (int i = 1; i <= nodeCount; i++) {
+			appendNode(xml, i, random);
+		}
+		
+		int connection = 0;
+		
+		if (subflow && nodeCount > 0) {
+			appendConnection(xml, ++connection, "InTerminal.Input", "OutTerminal.out", nodeId(1));
+			appendConnection(xml, ++connection, nodeId(nodeCount), "OutTerminal.out", "OutTerminal.Output");
+		}
+		
+		for (int i = 1; i < nodeCount; i++) {
+			appendConnection(xml, ++connection, nodeId(i), "OutTerminal.out", nodeId(i + 1));
+		}
+		
+		/* additional connections point forward, so the message flow stays acyclic */
+		int additional = (int)Math.round(Math.max(0.0, connectionDensity - 1.0) * nodeCount);
+		
+		for (int i = 0; i < additional && nodeCount > 2; i++) {
+			int source = 1 + random.nextInt(nodeCount - 2);
+			int target = source + 2 + random.nextInt(nodeCount - source - 1);
+			
+			appendConnection(xml, ++connection, nodeId(source), OUTPUT_TERMINALS[random.nextInt(OUTPUT_TERMINALS.length)], nodeId(target));
+		}
+		
+		xml.append("    </composition>\n");
+		xml.append("    <propertyOrganizer/>\n");
+		xml.append("    <stickyBoard/>\n");
+		xml.append("  </eClassifiers>\n");
+		xml.append("</ecore:EPackage>\n");
+		
+		return xml.toString();
+	}
+	
+	/**
+	 * The method generates a message flow and writes it to a file.
+	 * 
+	 * @param directory the directory of the file
+	 * @param name the name of the file, e.g. 'Flow.msgflow' or 'Flow.subflow'
+	 * 
+	 * @return the message flow file
+	 * 
+	 * @throws IOException if the file cannot be written
+	 */
+	public File write(File directory, String name) throws IOException {
+		File file = new File(directory, name);
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+		
+		try {
+			writer.write(generate(name));
+		} finally {
+			writer.close();
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * Returns the id of the node with the given number.
+	 */
+	private static String nodeId(int number) {
+		return "FCMComposite_1_" + number;
+	}
+	
+	/**
+	 * Appends the node with the given number including its properties and 
+	 * monitoring events.
+	 */
+	private void appendNode(StringBuilder xml, int number, Random random) {
+		String type = NODE_TYPES[(number - 1) % NODE_TYPES.length];
+		
+		xml.append("      <nodes xmi:type=\"ComIbm").append(type).append(".msgnode:FCMComposite_1\" xmi:id=\"").append(nodeId(number))
+		   .append("\" location=\"").append(number * 10).append(",100\"");
+		
+		for (String[] property : PROPERTIES) {
+			if (random.nextDouble() < propertyMix) {
+				xml.append(' ').append(property[0]).append("=\"").append(property[1]).append('"');
+			}
+		}
+		
+		xml.append(">\n");
+		xml.append("        <translation xmi:type=\"utility:ConstantString\" string=\"").append(type).append(number).append("\"/>\n");
+		
+		if (random.nextDouble() < monitoringEvents) {
+			xml.append("        <monitorEvents eventSourceDescription=\"In terminal\" eventSourceName=\"").append(type).append(number)
+			   .append(".terminal.in\" eventIdentity=\"$Root\"");
+			
+			if (random.nextDouble() < disabledMonitoringEvents) {
+				xml.append(" eventEnabled=\"false\"");
+			}
+			
+			xml.append(">\n");
+			xml.append("          <eventXMLDoc xmi:type=\"mbmonitor:MonitorEvent\">\n");
+			xml.append("            <globalTransactionCorrelator/>\n");
+			xml.append("            <parentTransactionCorrelator/>\n");
+			xml.append("            <localTransactionCorrelator/>\n");
+			xml.append("            <bitStreamData encoding=\"none\" bitstreamContent=\"none\"/>\n");
+			xml.append("            <eventName dataLocation=\"$Root\" isXPath=\"true\"/>\n");
+			xml.append("            <eventFilter dataLocation=\"true()\" isXPath=\"true\"/>\n");
+			xml.append("          </eventXMLDoc>\n");
+			xml.append("        </monitorEvents>\n");
+		}
+		
+		xml.append("      </nodes>\n");
+	}
+	
+	/**
+	 * Appends a connection from the source node to the input terminal of the 
+	 * target node.
+	 */
+	private static void appendConnection(StringBuilder xml, int number, String sourceNode, String sourceTerminal, String targetNode) {
+		xml.append("      <connections xmi:type=\"eflow:FCMConnection\" xmi:id=\"FCMConnection_").append(number)
+		   .append("\" targetNode=\"").append(targetNode)
+		   .append("\" sourceNode=\"").append(sourceNode)
+		   .append("\" sourceTerminalName=\"").append(sourceTerminal).append("\" targetTerminalName=\"InTerminal.in\"/>\n");
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class tests the generator of synthetic message flows.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowGeneratorTest {
+
+	/**
+	 * the directory of the generated message flows
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator#write(File, String)}.
+	 */
+	@Test
+	public final void testWrite() throws IOException {
+		File file = new MessageFlowGenerator().nodeCount(30).write(folder.getRoot(), "Flow.msgflow");
+		
+		MessageFlow dom = new MessageFlow(file.getPath(), new MessageFlowParser());
+		MessageFlow stax = new MessageFlow(file.getPath(), new MessageFlowStaxParser());
+		
+		assertEquals(30, dom.getNodes().size());
+		assertEquals(29, dom.getConnections().size());
+		assertEquals(3, dom.getComputeNodes().size());
+		assertEquals(2, dom.getTryCatchNodes().size());
+		
+		for (MessageFlowNode node : dom.getNodes()) {
+			assertEquals(node.getType().replace("ComIbm", "").replace(".msgnode", "") + node.getId().substring("FCMComposite_1_".length()), node.getName());
+		}
+		
+		MessageFlowStaxParserTest.assertNodesEqual(file.getName(), dom.getNodes(), stax.getNodes());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator#write(File, String)}.
+	 */
+	@Test
+	public final void testWriteSubflow() throws IOException {
+		File file = new MessageFlowGenerator().nodeCount(14).write(folder.getRoot(), "Flow.subflow");
+		
+		MessageFlow mf = new MessageFlow(file.getPath(), new MessageFlowStaxParser());
+		
+		/* the input and output nodes of the subflow are no ComIbm nodes */
+		assertEquals(14, mf.getNodes().size());
+		assertEquals(15, mf.getConnections().size());
+		assertEquals(1, mf.getConnectionsFrom("InTerminal.Input").size());
+		assertEquals(1, mf.getConnectionsTo("OutTerminal.Output").size());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator#connectionDensity(double)}.
+	 */
+	@Test
+	public final void testConnectionDensity() throws IOException {
+		File file = new MessageFlowGenerator().nodeCount(100).connectionDensity(2.5).write(folder.getRoot(), "Flow.msgflow");
+		
+		MessageFlow mf = new MessageFlow(file.getPath(), new MessageFlowStaxParser());
+		
+		assertEquals(99 + 150, mf.getConnections().size());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator#monitoringEvents(double)}.
+	 */
+	@Test
+	public final void testMonitoringEvents() throws IOException {
+		MessageFlowGenerator generator = new MessageFlowGenerator().nodeCount(50);
+		
+		assertEquals(0, countMonitoredNodes(generator.monitoringEvents(0.0).write(folder.getRoot(), "None.msgflow")));
+		assertEquals(50, countMonitoredNodes(generator.monitoringEvents(1.0).write(folder.getRoot(), "All.msgflow")));
+		assertEquals(0, countMonitoredNodes(generator.disabledMonitoringEvents(1.0).write(folder.getRoot(), "Disabled.msgflow")));
+		
+		int monitored = countMonitoredNodes(generator.disabledMonitoringEvents(0.5).write(folder.getRoot(), "Mixed.msgflow"));
+		assertTrue(monitored > 0 && monitored < 50);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator#propertyMix(double)}.
+	 */
+	@Test
+	public final void testPropertyMix() throws IOException {
+		File none = new MessageFlowGenerator().nodeCount(14).propertyMix(0.0).write(folder.getRoot(), "None.msgflow");
+		File all = new MessageFlowGenerator().nodeCount(14).propertyMix(1.0).write(folder.getRoot(), "All.msgflow");
+		
+		for (MessageFlowNode node : new MessageFlow(none.getPath(), new MessageFlowParser()).getNodes()) {
+			assertFalse(node.isValidateMaster());
+			assertEquals("", node.getMessageDomain());
+		}
+		
+		for (MessageFlowNode node : new MessageFlow(all.getPath(), new MessageFlowParser()).getNodes()) {
+			assertTrue(node.isBuildTreeUsingSchema());
+			assertTrue(node.isValidateMaster());
+			assertTrue(node.isResetMessageFormat());
+			assertEquals("DFDL", node.getMessageDomain());
+			assertEquals("DelimitedData", node.getRecordDefinition());
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGenerator#generate(String)}.
+	 */
+	@Test
+	public final void testGenerateIsRepeatable() {
+		MessageFlowGenerator generator = new MessageFlowGenerator().nodeCount(100).connectionDensity(2.0).monitoringEvents(0.5).propertyMix(0.5);
+		
+		assertEquals(generator.generate("Flow.msgflow"), generator.generate("Flow.msgflow"));
+		assertFalse(generator.generate("Flow.msgflow").equals(generator.seed(7L).generate("Flow.msgflow")));
+	}
+	
+	/**
+	 * Returns the number of nodes with enabled monitoring events.
+	 */
+	private static int countMonitoredNodes(File file) {
+		int monitored = 0;
+		
+		for (MessageFlowNode node : new MessageFlow(file.getPath(), new MessageFlowStaxParser()).getNodes()) {
+			if (node.areMonitoringEventsEnabled()) {
+				monitored++;
+			}
+		}
+		
+		return monitored;
+	}
+}
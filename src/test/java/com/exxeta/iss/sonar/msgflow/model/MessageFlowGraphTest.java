@@ -0,0 +1,146 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class tests the graph index of a message flow.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowGraphTest {
+
+	/**
+	 * the directory of the generated message flows
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph#indexOf(String)}.
+	 */
+	@Test
+	public final void testIndexOf() {
+		MessageFlow mf = new MessageFlow("src/test/resources/Collector.msgflow", new MessageFlowParser());
+		MessageFlowGraph graph = mf.getGraph();
+		
+		assertSame(graph, mf.getGraph());
+		assertEquals(3, graph.getNodeCount());
+		assertEquals(5, graph.getEdgeCount());
+		
+		/* the nodes are numbered in the order of the node types */
+		assertEquals(0, graph.indexOf("FCMComposite_1_1"));
+		assertEquals(-1, graph.indexOf("FCMComposite_1_4"));
+		assertEquals("FCMComposite_1_1", graph.getId(0));
+		assertSame(mf.getCollectorNodes().get(0), graph.getNode(0));
+		
+		for (MessageFlowNode node : mf.getComputeNodes()) {
+			assertSame(node, graph.getNode(node.getId()));
+		}
+		
+		assertNull(graph.getNode("FCMComposite_1_4"));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph#getOutEdge(int, int)}.
+	 */
+	@Test
+	public final void testGetOutEdge() {
+		MessageFlowGraph graph = new MessageFlow("src/test/resources/Collector.msgflow", new MessageFlowParser()).getGraph();
+		int collector = graph.indexOf("FCMComposite_1_1");
+		String[] terminals = { "OutTerminal.failure", "OutTerminal.out", "OutTerminal.expire", "OutTerminal.catch" };
+		
+		/* the edges of a node are in document order */
+		assertEquals(terminals.length, graph.getOutDegree(collector));
+		
+		for (int i = 0; i < terminals.length; i++) {
+			int edge = graph.getOutEdge(collector, i);
+			
+			assertEquals(collector, graph.getSource(edge));
+			assertEquals("FCMComposite_1_2", graph.getId(graph.getTarget(edge)));
+			assertEquals(terminals[i], MessageFlowTerminals.nameOf(graph.getSourceTerminal(edge)));
+			assertEquals("InTerminal.in", MessageFlowTerminals.nameOf(graph.getTargetTerminal(edge)));
+		}
+		
+		assertEquals(0, graph.getOutDegree(graph.indexOf("FCMComposite_1_2")));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph#getInEdge(int, int)}.
+	 */
+	@Test
+	public final void testGetInEdge() {
+		MessageFlowGraph graph = new MessageFlow("src/test/resources/Collector.msgflow", new MessageFlowParser()).getGraph();
+		int collector = graph.indexOf("FCMComposite_1_1");
+		
+		assertEquals(4, graph.getInDegree(graph.indexOf("FCMComposite_1_2")));
+		assertEquals(1, graph.getInDegree(collector));
+		
+		int edge = graph.getInEdge(collector, 0);
+		
+		assertEquals("FCMComposite_1_3", graph.getId(graph.getSource(edge)));
+		assertEquals(MessageFlowTerminals.indexOf("InTerminal.control"), graph.getTargetTerminal(edge));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph#getReachableNodes(int, int)}.
+	 */
+	@Test
+	public final void testGetReachableNodes() {
+		MessageFlowGraph graph = new MessageFlow("src/test/resources/Collector.msgflow", new MessageFlowParser()).getGraph();
+		int collector = graph.indexOf("FCMComposite_1_1");
+		
+		BitSet reached = graph.getReachableNodes(graph.indexOf("FCMComposite_1_3"), -1);
+		
+		assertEquals(2, reached.cardinality());
+		assertTrue(reached.get(collector));
+		assertTrue(reached.get(graph.indexOf("FCMComposite_1_2")));
+		
+		assertEquals(1, graph.getReachableNodes(collector, MessageFlowTerminals.indexOf("OutTerminal.catch")).cardinality());
+		assertTrue(graph.getReachableNodes(collector, MessageFlowTerminals.indexOf("OutTerminal.timeout")).isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowGraph#MessageFlowGraph(MessageFlow)}.
+	 */
+	@Test
+	public final void testConnectors() throws IOException {
+		File file = new MessageFlowGenerator().nodeCount(100).connectionDensity(1.5).write(folder.getRoot(), "Flow.subflow");
+		MessageFlowGraph graph = new MessageFlow(file.getPath(), new MessageFlowStaxParser()).getGraph();
+		
+		/* the input and output nodes of the subflow are only referenced by connections */
+		assertEquals(102, graph.getNodeCount());
+		assertEquals(151, graph.getEdgeCount());
+		assertEquals(100, graph.indexOf("InTerminal.Input"));
+		assertNull(graph.getNode(100));
+		
+		BitSet reached = graph.getReachableNodes(graph.indexOf("InTerminal.Input"), -1);
+		
+		assertEquals(101, reached.cardinality());
+		assertTrue(reached.get(graph.indexOf("OutTerminal.Output")));
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.exxeta.iss.sonar.msgflow.model.MessageFlowMonitoringEvent.PayloadScope;
+
+/**
+ * The class tests the payload scopes of monitoring events.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowMonitoringEventTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowMonitoringEvent#scopeOf(String, java.util.List, int)}.
+	 */
+	@Test
+	public final void testScopeOf() {
+		assertEquals(PayloadScope.NONE, MessageFlowMonitoringEvent.scopeOf("", Collections.<String>emptyList(), 0));
+		assertEquals(PayloadScope.NONE, MessageFlowMonitoringEvent.scopeOf("none", Collections.<String>emptyList(), 0));
+		assertEquals(PayloadScope.HEADERS, MessageFlowMonitoringEvent.scopeOf("headers", Collections.<String>emptyList(), 0));
+		assertEquals(PayloadScope.BODY, MessageFlowMonitoringEvent.scopeOf("body", Collections.<String>emptyList(), 0));
+		assertEquals(PayloadScope.ALL, MessageFlowMonitoringEvent.scopeOf("all", Collections.<String>emptyList(), 0));
+		assertEquals(PayloadScope.FIELDS, MessageFlowMonitoringEvent.scopeOf("", Collections.<String>emptyList(), 2));
+		assertEquals(PayloadScope.FIELDS, MessageFlowMonitoringEvent.scopeOf("", Arrays.asList("$Root/XMLNSC/Order/Header"), 0));
+		assertEquals(PayloadScope.BODY, MessageFlowMonitoringEvent.scopeOf("", Arrays.asList("$Body"), 0));
+		assertEquals(PayloadScope.BODY, MessageFlowMonitoringEvent.scopeOf("headers", Arrays.asList("$Root/XMLNSC"), 1));
+		assertEquals(PayloadScope.ALL, MessageFlowMonitoringEvent.scopeOf("body", Arrays.asList("$Body", "$Root"), 0));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowMonitoringEvent#capturesPayload()}.
+	 */
+	@Test
+	public final void testCapturesPayload() {
+		assertFalse(new MessageFlowMonitoringEvent("a", true, PayloadScope.HEADERS).capturesPayload());
+		assertFalse(new MessageFlowMonitoringEvent("a", true, PayloadScope.FIELDS).capturesPayload());
+		assertTrue(new MessageFlowMonitoringEvent("a", false, PayloadScope.BODY).capturesPayload());
+		assertTrue(new MessageFlowMonitoringEvent(null, true, PayloadScope.ALL).capturesPayload());
+		assertEquals("", new MessageFlowMonitoringEvent(null, true, PayloadScope.ALL).getSource());
+	}
+
+}
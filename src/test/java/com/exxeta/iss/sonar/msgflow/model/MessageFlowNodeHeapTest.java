@@ -0,0 +1,103 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class measures the heap retained by the message flow nodes.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowNodeHeapTest {
+
+	/**
+	 * the maximum accepted heap per node in bytes
+	 */
+	private static final long MAXIMUM_BYTES_PER_NODE = 96;
+	
+	/**
+	 * the number of nodes of each generated message flow
+	 */
+	private static final int NODES = 1000;
+	
+	/**
+	 * the number of parsed message flows
+	 */
+	private static final int FLOWS = 20;
+	
+	/**
+	 * the directory of the generated message flows
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowNode}.
+	 */
+	@Test
+	public final void testHeapPerNode() throws IOException {
+		File file = new MessageFlowGenerator()
+				.nodeCount(NODES)
+				.connectionDensity(2.0)
+				.monitoringEvents(0.5)
+				.propertyMix(0.5)
+				.write(folder.getRoot(), "Flow.msgflow");
+		MessageFlowParser parser = new MessageFlowStaxParser();
+		
+		/* the shared tables are filled by the first message flow */
+		new MessageFlow(file.getPath(), parser);
+		
+		List<MessageFlowNode> nodes = new ArrayList<MessageFlowNode>(NODES * FLOWS);
+		long before = usedHeap();
+		
+		for (int i = 0; i < FLOWS; i++) {
+			nodes.addAll(new MessageFlow(file.getPath(), parser).getNodes());
+		}
+		
+		long bytesPerNode = (usedHeap() - before) / nodes.size();
+		
+		assertEquals(NODES * FLOWS, nodes.size());
+		assertTrue("The nodes take " + bytesPerNode + " bytes per node.", bytesPerNode <= MAXIMUM_BYTES_PER_NODE);
+	}
+	
+	/**
+	 * Returns the used heap after garbage collection.
+	 */
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		
+		/* the lowest value is the closest to the live objects */
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		
+		return used;
+	}
+}
@@ -19,6 +19,9 @@ package com.exxeta.iss.sonar.msgflow.model;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import org.junit.Test;
 
 /**
@@ -262,4 +265,25 @@ public class MessageFlowNodeTest {
 		assertTrue("No OutTerminal.catch found.", mf.getCollectorNodes().get(0).getOutputTerminals().contains("OutTerminal.catch"));
 	}
 
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowNode#getOutputConnectionCount(String)}.
+	 */
+	@Test
+	public final void testGetOutputConnectionCount() {
+		MessageFlowNode node = new MessageFlowNode("FCMComposite_1_1", "Compute", "ComIbmCompute.msgnode", false, false, false, false, 
+				"", "", "", "", "", "", false, false, false, false, true, 
+				new ArrayList<String>(Arrays.asList("InTerminal.in")), 
+				new ArrayList<String>(Arrays.asList("OutTerminal.out", "OutTerminal.out", "OutTerminal.failure")));
+		
+		assertEquals(2, node.getOutputConnectionCount("OutTerminal.out"));
+		assertEquals(1, node.getOutputConnectionCount("OutTerminal.failure"));
+		assertEquals(0, node.getOutputConnectionCount("OutTerminal.catch"));
+		assertEquals(0, node.getOutputConnectionCount("OutTerminal.unknown"));
+		assertEquals(1, node.getInputConnectionCount("InTerminal.in"));
+		assertTrue(node.hasOutputTerminal("OutTerminal.out"));
+		assertFalse(node.hasOutputTerminal("OutTerminal.catch"));
+		assertTrue(node.hasInputTerminal("InTerminal.in"));
+		assertEquals(Arrays.asList("OutTerminal.out", "OutTerminal.failure"), node.getOutputTerminals());
+	}
+
 }
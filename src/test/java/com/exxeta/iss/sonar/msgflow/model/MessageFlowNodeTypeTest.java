@@ -0,0 +1,74 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * The class tests the registry of the message flow node types.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowNodeTypeTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType#forXmiType(String)}.
+	 */
+	@Test
+	public final void testForXmiType() {
+		assertEquals(MessageFlowNodeType.COMPUTE, MessageFlowNodeType.forXmiType("ComIbmCompute.msgnode:FCMComposite_1"));
+		assertEquals(MessageFlowNodeType.HTTP_INPUT, MessageFlowNodeType.forXmiType("ComIbmWSInput.msgnode:FCMComposite_1"));
+		
+		/* the type name is derived if the composite differs */
+		assertEquals(MessageFlowNodeType.MQ_INPUT, MessageFlowNodeType.forXmiType("ComIbmMQInput.msgnode:FCMComposite_2"));
+		
+		/* nodes of other types are not supported */
+		assertNull(MessageFlowNodeType.forXmiType("ComIbmFilter.msgnode:FCMComposite_1"));
+		assertNull(MessageFlowNodeType.forXmiType("eflow:FCMSource"));
+		assertNull(MessageFlowNodeType.forXmiType("Compute.subflow:FCMComposite_1"));
+		assertNull(MessageFlowNodeType.forXmiType(""));
+		assertNull(MessageFlowNodeType.forXmiType(null));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowNodeType#forTypeName(String)}.
+	 */
+	@Test
+	public final void testForTypeName() {
+		for (MessageFlowNodeType type : MessageFlowNodeType.values()) {
+			assertEquals(type, MessageFlowNodeType.forTypeName(type.getTypeName()));
+		}
+		
+		assertNull(MessageFlowNodeType.forTypeName("Filter"));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlow#getNodes(MessageFlowNodeType)}.
+	 */
+	@Test
+	public final void testGetNodes() {
+		MessageFlow mf = new MessageFlow("src/test/resources/Compute.subflow", new MessageFlowParser());
+		
+		/* the input and output nodes of the subflow are skipped */
+		assertEquals(1, mf.getNodes().size());
+		assertSame(mf.getComputeNodes(), mf.getNodes(MessageFlowNodeType.COMPUTE));
+		assertEquals(0, mf.getNodes(MessageFlowNodeType.TRY_CATCH).size());
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * The class tests the thread-confined context of the DOM based parser.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowParserContextTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowParserContext#get()}.
+	 */
+	@Test
+	public final void testGetIsThreadConfined() throws Exception {
+		MessageFlowParserContext context = MessageFlowParserContext.get();
+		
+		assertSame(context, MessageFlowParserContext.get());
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try {
+			assertNotSame(context, executor.submit(new Callable<MessageFlowParserContext>() {
+				@Override
+				public MessageFlowParserContext call() {
+					return MessageFlowParserContext.get();
+				}
+			}).get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowParserContext#evaluate(javax.xml.xpath.XPathExpression, Element)}.
+	 */
+	@Test
+	public final void testEvaluate() throws Exception {
+		MessageFlowParserContext context = MessageFlowParserContext.get();
+		Document document = context.parse("src/test/resources/Compute.subflow");
+		NodeList nodes = context.select(context.nodesExpr, document);
+		
+		assertEquals(3, nodes.getLength());
+		
+		/* the expressions are reused for every node */
+		assertEquals("InTerminal.Input", context.evaluate(context.idExpr, (Element)nodes.item(0)));
+		assertEquals("OutTerminal.Output", context.evaluate(context.idExpr, (Element)nodes.item(1)));
+		assertEquals("FCMComposite_1_1", context.evaluate(context.idExpr, (Element)nodes.item(2)));
+		assertEquals("Compute", context.evaluate(context.nameExpr, (Element)nodes.item(2)));
+		assertEquals("", context.evaluate(context.recordDefinitionExpr, (Element)nodes.item(2)));
+		
+		/* the document builder is reused for the next file */
+		document = context.parse("src/test/resources/Monitoring.msgflow");
+		nodes = context.select(context.nodesExpr, document);
+		
+		assertEquals("FCMComposite_1_1", context.evaluate(context.idExpr, (Element)nodes.item(0)));
+		assertEquals("ComIbmCompute.msgnode:FCMComposite_1", context.evaluate(context.typeExpr, (Element)nodes.item(0)));
+	}
+}
@@ -44,20 +44,39 @@ public class MessageFlowProjectTest {
 	public final void testGetMessageFlow() {
 		MessageFlowProject mfp = MessageFlowProject.getInstance();
 		
-		long start = System.nanoTime();
 		MessageFlow mf = mfp.getMessageFlow("src/test/resources/Collector.msgflow");
-		long stop = System.nanoTime();
-		long diff1 = stop - start;
-		
-		start = System.nanoTime();
-		mf = mfp.getMessageFlow("src/test/resources/Collector.msgflow");
-		stop = System.nanoTime();
-		long diff2 = stop - start;
+		long hits = mfp.getMessageFlowCache().getHitCount();
 		
+		assertSame(mf, mfp.getMessageFlow("src/test/resources/Collector.msgflow"));
 		assertEquals(1, mf.getCollectorNodes().size());
 		
-		/* loading the message flow object the second time should be faster */
-		assertTrue(diff1 > diff2);
+		/* the message flow object is taken from the cache the second time (see the benchmark module for timings) */
+		assertEquals(hits + 1, mfp.getMessageFlowCache().getHitCount());
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#clear()}.
+	 */
+	@Test
+	public final void testClear() {
+		MessageFlowProject mfp = MessageFlowProject.getInstance();
+		mfp.clear();
+		
+		int knownTerminals = MessageFlowTerminals.size();
+		int tryIndex = MessageFlowTerminals.indexOf("OutTerminal.try");
+		
+		MessageFlow mf = mfp.getMessageFlow("src/test/resources/Collector.msgflow");
+		MessageFlowTerminals.indexOf("OutTerminal.userDefined");
+		
+		assertEquals(knownTerminals + 1, MessageFlowTerminals.size());
+		
+		mfp.clear();
+		
+		/* the terminals registered in advance keep their indices */
+		assertEquals(knownTerminals, MessageFlowTerminals.size());
+		assertEquals(tryIndex, MessageFlowTerminals.indexOf("OutTerminal.try"));
+		assertEquals(0, mfp.getMessageFlowCache().size());
+		assertNotSame(mf, mfp.getMessageFlow("src/test/resources/Collector.msgflow"));
 	}
 
 }
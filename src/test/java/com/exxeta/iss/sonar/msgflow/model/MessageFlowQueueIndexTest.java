@@ -0,0 +1,126 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * The class tests the index of the producers and consumers of the MQ queues.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowQueueIndexTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueIndex#getConsumers(MessageFlowQueueEndpoint)}.
+	 */
+	@Test
+	public final void testLookup() {
+		MessageFlowQueueIndex index = new MessageFlowQueueIndex();
+		MessageFlowQueueEndpoint out = new MessageFlowQueueEndpoint(true, "", "Q1", "Out", "MQOutput");
+		MessageFlowQueueEndpoint in = new MessageFlowQueueEndpoint(false, null, "Q1", "In", "MQInput");
+		MessageFlowQueueEndpoint otherIn = new MessageFlowQueueEndpoint(false, "QM1", "Q1", "Other In", "MQInput");
+		MessageFlowQueueEndpoint orphan = new MessageFlowQueueEndpoint(true, "QM1", "Q2", "Orphan", "MQOutput");
+		
+		index.add("b.msgflow", Arrays.asList(out, orphan));
+		index.add("a.msgflow", Arrays.asList(in, otherIn));
+		
+		assertEquals(Arrays.asList("a.msgflow", "b.msgflow"), index.getPaths());
+		assertEquals(Arrays.asList(out, orphan), index.getEndpoints("b.msgflow"));
+		assertTrue(index.getEndpoints("c.msgflow").isEmpty());
+		
+		/* an empty queue manager matches any queue manager */
+		assertEquals(Arrays.asList("a.msgflow", "a.msgflow"), index.getConsumers(out));
+		assertEquals(Arrays.asList("b.msgflow"), index.getProducers(otherIn));
+		assertEquals(Arrays.asList("a.msgflow"), index.getConsumers(in));
+		assertTrue(index.getConsumers(orphan).isEmpty());
+		assertTrue(index.getProducers(out).isEmpty());
+		
+		assertEquals(2, index.getQueueCount());
+		assertEquals(2, index.getProducerCount());
+		assertEquals(2, index.getConsumerCount());
+		assertEquals(2, index.getFileCount());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueEndpoint#matches(MessageFlowQueueEndpoint)}.
+	 */
+	@Test
+	public final void testMatches() {
+		MessageFlowQueueEndpoint qm1 = new MessageFlowQueueEndpoint(true, "QM1", "Q", "A", "MQOutput");
+		
+		assertTrue(qm1.matches(new MessageFlowQueueEndpoint(false, "QM1", "Q", "B", "MQInput")));
+		assertTrue(qm1.matches(new MessageFlowQueueEndpoint(false, "", "Q", "B", "MQInput")));
+		assertFalse(qm1.matches(new MessageFlowQueueEndpoint(false, "QM2", "Q", "B", "MQInput")));
+		assertFalse(qm1.matches(new MessageFlowQueueEndpoint(false, "QM1", "q", "B", "MQInput")));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueIndex#add(String, java.util.List)}.
+	 */
+	@Test
+	public final void testAddReplacesFile() {
+		MessageFlowQueueIndex index = new MessageFlowQueueIndex();
+		MessageFlowQueueEndpoint in = new MessageFlowQueueEndpoint(false, "", "Q1", "In", "MQInput");
+		
+		index.add("a.msgflow", Arrays.asList(new MessageFlowQueueEndpoint(true, "", "Q1", "Out", "MQOutput")));
+		index.add("b.msgflow", Arrays.asList(in));
+		assertEquals(1, index.getProducers(in).size());
+		
+		/* the endpoints of a file added again are replaced */
+		index.add("a.msgflow", Arrays.asList(new MessageFlowQueueEndpoint(true, "", "Q2", "Out", "MQOutput")));
+		assertTrue(index.getProducers(in).isEmpty());
+		assertEquals(2, index.getQueueCount());
+		assertEquals(1, index.getProducerCount());
+		
+		index.add("a.msgflow", Collections.<MessageFlowQueueEndpoint>emptyList());
+		assertEquals(Arrays.asList("b.msgflow"), index.getPaths());
+		assertEquals(0, index.getProducerCount());
+		
+		index.clear();
+		assertEquals(0, index.getQueueCount());
+		assertEquals(0, index.getConsumerCount());
+		assertTrue(index.getPaths().isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowQueueEndpoint#of(MessageFlowNode)}.
+	 */
+	@Test
+	public final void testOf() {
+		MessageFlow mf = new MessageFlow("src/test/resources/queues/Order.msgflow", new MessageFlowParser());
+		MessageFlowQueueEndpoint endpoint = MessageFlowQueueEndpoint.of(mf.getMqInputNodes().get(0));
+		
+		assertFalse(endpoint.isProducer());
+		assertEquals("QM3", endpoint.getQueueManager());
+		assertEquals("AUDIT", endpoint.getQueue());
+		assertEquals("Audit In", endpoint.getNodeName());
+		assertEquals("MQInput", endpoint.getNodeType());
+		
+		assertTrue(MessageFlowQueueEndpoint.of(mf.getMqOutputNodes().get(1)).isProducer());
+		
+		/* nodes without queue name and other nodes */
+		assertNull(MessageFlowQueueEndpoint.of(mf.getMqOutputNodes().get(0)));
+		assertNull(MessageFlowQueueEndpoint.of(mf.getComputeNodes().get(0)));
+	}
+}
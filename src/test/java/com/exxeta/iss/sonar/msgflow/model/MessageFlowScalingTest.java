@@ -0,0 +1,184 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class checks that the parse time and the memory allocated while 
+ * parsing grow roughly linearly with the number of nodes of a message flow.
+ * 
+ * A small and a large message flow are generated (see 
+ * {@link MessageFlowGenerator}). The cost per node of the large message flow 
+ * must not exceed the cost per node of the small message flow by more than 
+ * {@link #TOLERANCE}. A quadratic parser exceeds the tolerance clearly, 
+ * while timing noise does not.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowScalingTest {
+
+	/**
+	 * the accepted factor between the cost per node of the large and the small message flow
+	 */
+	private static final double TOLERANCE = 3.0;
+	
+	/**
+	 * the number of nodes of the small message flow
+	 */
+	private static final int SMALL = 125;
+	
+	/**
+	 * the number of nodes of the large message flow
+	 */
+	private static final int LARGE = 1000;
+	
+	/**
+	 * the number of measured runs (the best run counts)
+	 */
+	private static final int RUNS = 5;
+	
+	/**
+	 * the directory of the generated message flows
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testStaxParseTimeIsLinear() throws IOException {
+		assertLinear("parse time", new MessageFlowStaxParser(), false);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testStaxParseMemoryIsLinear() throws IOException {
+		assertLinear("allocated memory", new MessageFlowStaxParser(), true);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testDomParseTimeIsLinear() throws IOException {
+		assertLinear("parse time", new MessageFlowParser(), false);
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testDomParseMemoryIsLinear() throws IOException {
+		assertLinear("allocated memory", new MessageFlowParser(), true);
+	}
+	
+	/**
+	 * Checks that the cost per node of the large message flow does not 
+	 * exceed the cost per node of the small message flow by more than the 
+	 * tolerance.
+	 * 
+	 * @param cost the name of the cost for the failure message
+	 * @param parser the parser to be measured
+	 * @param memory true to measure the allocated memory, false to measure the time
+	 */
+	private void assertLinear(String cost, MessageFlowParser parser, boolean memory) throws IOException {
+		if (memory) {
+			assumeTrue(isAllocatedMemorySupported());
+		}
+		
+		String small = generate(SMALL).getPath();
+		String large = generate(LARGE).getPath();
+		
+		/* warm-up */
+		measure(small, parser, memory);
+		measure(large, parser, memory);
+		
+		double smallPerNode = (double)measure(small, parser, memory) / SMALL;
+		double largePerNode = (double)measure(large, parser, memory) / LARGE;
+		
+		assertTrue(cost + " per node grows from " + smallPerNode + " (" + SMALL + " nodes) to " + largePerNode + " (" + LARGE + " nodes)",
+				largePerNode < smallPerNode * TOLERANCE);
+	}
+	
+	/**
+	 * Generates a message flow with the given number of nodes and a realistic 
+	 * mix of connections, monitoring events and properties.
+	 */
+	private File generate(int nodeCount) throws IOException {
+		return new MessageFlowGenerator()
+				.nodeCount(nodeCount)
+				.connectionDensity(1.5)
+				.monitoringEvents(0.3)
+				.disabledMonitoringEvents(0.5)
+				.propertyMix(0.3)
+				.write(folder.getRoot(), "Flow" + nodeCount + ".msgflow");
+	}
+	
+	/**
+	 * Parses the file several times and returns the lowest parse time (in 
+	 * nanoseconds) or the lowest allocated memory (in bytes) of the runs.
+	 */
+	private static long measure(String fileName, MessageFlowParser parser, boolean memory) {
+		long best = Long.MAX_VALUE;
+		
+		for (int run = 0; run < RUNS; run++) {
+			long start = memory ? allocatedMemory() : System.nanoTime();
+			MessageFlow mf = new MessageFlow(fileName, parser);
+			long end = memory ? allocatedMemory() : System.nanoTime();
+			
+			assertFalse(mf.getNodes().isEmpty());
+			
+			best = Math.min(best, end - start);
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Returns true if the memory allocated by the current thread can be 
+	 * measured.
+	 */
+	private static boolean isAllocatedMemorySupported() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		
+		return bean instanceof com.sun.management.ThreadMXBean 
+				&& ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()
+				&& ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemoryEnabled();
+	}
+	
+	/**
+	 * Returns the memory allocated by the current thread so far (in bytes).
+	 */
+	private static long allocatedMemory() {
+		return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
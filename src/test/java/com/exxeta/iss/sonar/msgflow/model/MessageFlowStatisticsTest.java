@@ -0,0 +1,136 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * The class tests the counters and timers of an analysis.
+ * 
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowStatisticsTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics#getSlowestFiles()}.
+	 */
+	@Test
+	public final void testGetSlowestFiles() {
+		MessageFlowStatistics statistics = new MessageFlowStatistics();
+		
+		for (int i = 1; i <= 2 * MessageFlowStatistics.SLOWEST_FILES; i++) {
+			statistics.addFile("File" + i + ".msgflow", i * 1000000L);
+		}
+		
+		List<String> slowestFiles = statistics.getSlowestFiles();
+		
+		assertEquals(2 * MessageFlowStatistics.SLOWEST_FILES, statistics.getFileCount());
+		assertEquals(MessageFlowStatistics.SLOWEST_FILES, slowestFiles.size());
+		assertEquals("File20.msgflow (20 ms)", slowestFiles.get(0));
+		assertEquals("File11.msgflow (11 ms)", slowestFiles.get(MessageFlowStatistics.SLOWEST_FILES - 1));
+		assertEquals(210, statistics.getFileMillis());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics#addRule(String, long, long)}.
+	 */
+	@Test
+	public final void testAddRule() {
+		MessageFlowStatistics statistics = new MessageFlowStatistics();
+		statistics.addRule("ComputeNodeInTerminal", 3, 1);
+		statistics.addRule("ComputeNodeInTerminal", 2, 0);
+		statistics.addVisitorNanos("ComputeNodeSensor", 2000000L);
+		statistics.addVisitorNanos("ComputeNodeSensor", 1000000L);
+		
+		assertEquals(5, statistics.getEvaluationCount("ComputeNodeInTerminal"));
+		assertEquals(1, statistics.getIssueCount("ComputeNodeInTerminal"));
+		assertEquals(0, statistics.getEvaluationCount("ComputeNodeOutTerminal"));
+		assertEquals(3, statistics.getVisitorMillis());
+		
+		List<String> summary = statistics.getSummary();
+		assertTrue(summary.contains("  ComputeNodeSensor: 3 ms"));
+		assertTrue(summary.contains("  ComputeNodeInTerminal: 5/1"));
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics#reset()}.
+	 */
+	@Test
+	public final void testReset() {
+		MessageFlowStatistics statistics = new MessageFlowStatistics();
+		statistics.addLoad(5000000L, 2000000L);
+		statistics.addFile("Compute.msgflow", 1000000L);
+		statistics.addIssues(4);
+		statistics.addRule("ComputeNodeInTerminal", 1, 1);
+		
+		assertEquals(1, statistics.getLoadCount());
+		assertEquals(5, statistics.getLoadMillis());
+		assertEquals(2, statistics.getXmlMillis());
+		assertEquals(4, statistics.getIssueCount());
+		
+		statistics.reset();
+		
+		assertEquals(0, statistics.getLoadCount());
+		assertEquals(0, statistics.getLoadMillis());
+		assertEquals(0, statistics.getFileCount());
+		assertEquals(0, statistics.getIssueCount());
+		assertEquals(0, statistics.getEvaluationCount("ComputeNodeInTerminal"));
+		assertTrue(statistics.getSlowestFiles().isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowProject#getStatistics()}.
+	 */
+	@Test
+	public final void testParseTime() {
+		MessageFlowProject.getInstance().getMessageFlowCache().clear();
+		MessageFlowStatistics statistics = MessageFlowProject.getInstance().getStatistics();
+		statistics.reset();
+		
+		long xmlNanos = MessageFlowStatistics.getXmlNanos();
+		MessageFlowProject.getInstance().getMessageFlow("src/test/resources/Compute.msgflow");
+		
+		assertEquals(1, statistics.getLoadCount());
+		assertTrue(MessageFlowStatistics.getXmlNanos() > xmlNanos);
+		assertTrue(statistics.getXmlMillis() <= statistics.getLoadMillis());
+	}
+	
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStatistics#addQueue(String, int, long, long, long, long, long)}.
+	 */
+	@Test
+	public final void testAddQueue() {
+		MessageFlowStatistics statistics = new MessageFlowStatistics();
+		
+		/* 10 puts into a queue of 4 with 2 files waiting on average */
+		statistics.addQueue("parse", 4, 10, 20, 4, 3, 1);
+		
+		assertEquals(50, statistics.getAverageOccupancy("parse"));
+		assertEquals(3, statistics.getFullCount("parse"));
+		assertEquals(1, statistics.getEmptyCount("parse"));
+		assertEquals(0, statistics.getAverageOccupancy("evaluate"));
+		assertTrue(statistics.getSummary().contains("  parse: 4/50%/4/3/1"));
+		
+		statistics.reset();
+		assertEquals(0, statistics.getFullCount("parse"));
+	}
+}
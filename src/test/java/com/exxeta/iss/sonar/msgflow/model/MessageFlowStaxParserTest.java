@@ -0,0 +1,279 @@
+/*
+ * Sonar Message Flow Plugin
+ * Copyright (C) 2015 Hendrik Scholz and EXXETA AG
+ * http://www.exxeta.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exxeta.iss.sonar.msgflow.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * The class tests the StAX based parser against the DOM based parser.
+ *
+ * @author Hendrik Scholz (EXXETA AG)
+ */
+public class MessageFlowStaxParserTest {
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseIsIdenticalToDomParser() {
+		File[] files = new File("src/test/resources").listFiles();
+		assertNotNull(files);
+
+		for (File file : files) {
+			if (!file.getName().endsWith(".msgflow") && !file.getName().endsWith(".subflow")) {
+				continue;
+			}
+
+			MessageFlow expected = new MessageFlow(file.getPath(), new MessageFlowParser());
+			MessageFlow actual = new MessageFlow(file.getPath(), new MessageFlowStaxParser());
+
+			assertNodesEqual(file.getName(), expected.getCollectorNodes(), actual.getCollectorNodes());
+			assertNodesEqual(file.getName(), expected.getComputeNodes(), actual.getComputeNodes());
+			assertNodesEqual(file.getName(), expected.getFileInputNodes(), actual.getFileInputNodes());
+			assertNodesEqual(file.getName(), expected.getFileOutputNodes(), actual.getFileOutputNodes());
+			assertNodesEqual(file.getName(), expected.getHttpInputNodes(), actual.getHttpInputNodes());
+			assertNodesEqual(file.getName(), expected.getHttpRequestNodes(), actual.getHttpRequestNodes());
+			assertNodesEqual(file.getName(), expected.getMqInputNodes(), actual.getMqInputNodes());
+			assertNodesEqual(file.getName(), expected.getMqOutputNodes(), actual.getMqOutputNodes());
+			assertNodesEqual(file.getName(), expected.getResetContentDescriptorNodes(), actual.getResetContentDescriptorNodes());
+			assertNodesEqual(file.getName(), expected.getSoapInputNodes(), actual.getSoapInputNodes());
+			assertNodesEqual(file.getName(), expected.getSoapRequestNodes(), actual.getSoapRequestNodes());
+			assertNodesEqual(file.getName(), expected.getTimeoutControlNodes(), actual.getTimeoutControlNodes());
+			assertNodesEqual(file.getName(), expected.getTimeoutNotificationNodes(), actual.getTimeoutNotificationNodes());
+			assertNodesEqual(file.getName(), expected.getTryCatchNodes(), actual.getTryCatchNodes());
+			assertNodesEqual(file.getName(), expected.getOtherNodes(), actual.getOtherNodes());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseMissingFile() {
+		MessageFlow mf = new MessageFlow("src/test/resources/Missing.msgflow", new MessageFlowStaxParser());
+		assertEquals(0, mf.getComputeNodes().size());
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseSubflowNodes() {
+		for (File file : new File("src/test/resources/subflows").listFiles()) {
+			MessageFlow expected = new MessageFlow(file.getPath(), new MessageFlowParser());
+			MessageFlow actual = new MessageFlow(file.getPath(), new MessageFlowStaxParser());
+
+			assertSubflowNodesEqual(file.getName(), expected.getSubflowNodes(), actual.getSubflowNodes());
+			assertNodesEqual(file.getName(), expected.getNodes(), actual.getNodes());
+			assertNodesEqual(file.getName(), expected.getOtherNodes(), actual.getOtherNodes());
+		}
+		
+		List<MessageFlowSubflowNode> subflowNodes = new MessageFlow("src/test/resources/subflows/Main.msgflow", new MessageFlowStaxParser()).getSubflowNodes();
+		
+		assertEquals(4, subflowNodes.size());
+		assertEquals("FCMComposite_1_2", subflowNodes.get(0).getId());
+		assertEquals("Compute", subflowNodes.get(0).getName());
+		assertEquals("Compute.subflow", subflowNodes.get(0).getSubflow());
+		assertEquals("subflows/Nested.subflow", subflowNodes.get(1).getSubflow());
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseAttributes() {
+		for (File file : new File("src/test/resources/queues").listFiles()) {
+			MessageFlow expected = new MessageFlow(file.getPath(), new MessageFlowParser());
+			MessageFlow actual = new MessageFlow(file.getPath(), new MessageFlowStaxParser());
+
+			assertNodesEqual(file.getName(), expected.getNodes(), actual.getNodes());
+		}
+		
+		MessageFlow mf = new MessageFlow("src/test/resources/queues/Order.msgflow", new MessageFlowStaxParser());
+		MessageFlowNode auditIn = mf.getMqInputNodes().get(0);
+		MessageFlowNode orderIn = mf.getMqInputNodes().get(1);
+		
+		assertEquals("Audit In", auditIn.getName());
+		assertEquals("AUDIT", auditIn.getValue(MessageFlowNodeProperty.QUEUE_NAME));
+		assertEquals("QM3", auditIn.getValue(MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		assertEquals("ORDER.IN", orderIn.getValue(MessageFlowNodeProperty.QUEUE_NAME));
+		assertEquals("", orderIn.getValue(MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		assertTrue(orderIn.isSet(MessageFlowNodeProperty.QUEUE_NAME));
+		assertFalse(orderIn.isSet(MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		
+		/* the attributes are only read if they are part of the plan */
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		properties.put(MessageFlowNodeType.MQ_INPUT, EnumSet.of(MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		MessageFlowExtractionPlan plan = new MessageFlowExtractionPlan(properties);
+		
+		for (MessageFlowParser parser : new MessageFlowParser[] { new MessageFlowParser(), new MessageFlowStaxParser() }) {
+			auditIn = new MessageFlow("src/test/resources/queues/Order.msgflow", parser, plan).getMqInputNodes().get(0);
+			
+			assertEquals("", auditIn.getValue(MessageFlowNodeProperty.QUEUE_NAME));
+			assertEquals("QM3", auditIn.getValue(MessageFlowNodeProperty.QUEUE_MANAGER_NAME));
+		}
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseMonitoringEvents() {
+		String file = "src/test/resources/monitoring/Events.msgflow";
+		MessageFlow expected = new MessageFlow(file, new MessageFlowParser());
+		MessageFlow actual = new MessageFlow(file, new MessageFlowStaxParser());
+		
+		assertNodesEqual(file, expected.getNodes(), actual.getNodes());
+		
+		List<MessageFlowMonitoringEvent> events = actual.getMqInputNodes().get(0).getMonitoringEvents();
+		assertEquals(3, events.size());
+		assertEquals(new MessageFlowMonitoringEvent("Events In.transaction.Start", true, MessageFlowMonitoringEvent.PayloadScope.ALL), events.get(0));
+		assertEquals(new MessageFlowMonitoringEvent("Events In.transaction.End", true, MessageFlowMonitoringEvent.PayloadScope.NONE), events.get(1));
+		assertEquals(new MessageFlowMonitoringEvent("Events In.transaction.Rollback", false, MessageFlowMonitoringEvent.PayloadScope.ALL), events.get(2));
+		assertEquals(MessageFlowMonitoringEvent.PayloadScope.HEADERS, actual.getMqOutputNodes().get(0).getMonitoringEvents().get(0).getPayloadScope());
+		
+		for (MessageFlowNode node : actual.getComputeNodes()) {
+			/* all events are read, not only the first one */
+			assertTrue(node.getName(), node.areMonitoringEventsEnabled());
+			
+			if (node.getName().equals("Audit")) {
+				assertEquals("[Audit.terminal.in (disabled, NONE), Audit.terminal.out (enabled, ALL)]", node.getMonitoringEvents().toString());
+			} else {
+				assertEquals("[Enrich.terminal.in (enabled, BODY), Enrich.terminal.out (enabled, FIELDS)]", node.getMonitoringEvents().toString());
+			}
+		}
+		
+		/* the events are only read if they are part of the plan */
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		properties.put(MessageFlowNodeType.MQ_INPUT, EnumSet.noneOf(MessageFlowNodeProperty.class));
+		MessageFlowExtractionPlan plan = new MessageFlowExtractionPlan(properties);
+		
+		for (MessageFlowParser parser : new MessageFlowParser[] { new MessageFlowParser(), new MessageFlowStaxParser() }) {
+			assertTrue(new MessageFlow(file, parser, plan).getMqInputNodes().get(0).getMonitoringEvents().isEmpty());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlowStaxParser#parse(String, MessageFlowExtractionPlan, java.util.EnumMap, MessageFlowConnectionIndex, ArrayList, ArrayList)}.
+	 */
+	@Test
+	public final void testParseOtherNodes() {
+		String file = "src/test/resources/monitoring/Branches.msgflow";
+		MessageFlow expected = new MessageFlow(file, new MessageFlowParser());
+		MessageFlow actual = new MessageFlow(file, new MessageFlowStaxParser());
+		
+		assertNodesEqual(file, expected.getOtherNodes(), actual.getOtherNodes());
+		
+		List<MessageFlowNode> otherNodes = actual.getOtherNodes();
+		assertEquals(4, otherNodes.size());
+		assertEquals("Route Orders", otherNodes.get(0).getName());
+		assertEquals("JavaCompute", otherNodes.get(0).getType());
+		assertEquals("[Route Orders.terminal.in (enabled, ALL)]", otherNodes.get(0).getMonitoringEvents().toString());
+		assertEquals("Route", otherNodes.get(1).getType());
+		assertEquals(3, otherNodes.get(1).getMonitoringEvents().size());
+		assertEquals("MSLMapping", otherNodes.get(2).getType());
+		assertEquals("Filter", otherNodes.get(3).getType());
+		assertEquals("[OutTerminal.true, OutTerminal.false]", otherNodes.get(3).getOutputConnections().toString());
+		assertEquals(3, actual.getNodes().size());
+		
+		/* the other nodes are only read if they are part of the plan */
+		EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>> properties = new EnumMap<MessageFlowNodeType, EnumSet<MessageFlowNodeProperty>>(MessageFlowNodeType.class);
+		properties.put(MessageFlowNodeType.MQ_INPUT, EnumSet.of(MessageFlowNodeProperty.MONITORING_EVENTS));
+		
+		for (MessageFlowParser parser : new MessageFlowParser[] { new MessageFlowParser(), new MessageFlowStaxParser() }) {
+			assertTrue(new MessageFlow(file, parser, new MessageFlowExtractionPlan(properties)).getOtherNodes().isEmpty());
+			assertEquals(4, new MessageFlow(file, parser, new MessageFlowExtractionPlan(properties, true)).getOtherNodes().size());
+		}
+	}
+
+	/**
+	 * Compares two lists of subflow nodes property by property.
+	 *
+	 * @param file the name of the file the nodes are taken from
+	 * @param expected the nodes created by the DOM based parser
+	 * @param actual the nodes created by another parser
+	 */
+	static void assertSubflowNodesEqual(String file, List<MessageFlowSubflowNode> expected, List<MessageFlowSubflowNode> actual) {
+		assertEquals(file, expected.size(), actual.size());
+
+		for (int i = 0; i < expected.size(); i++) {
+			MessageFlowSubflowNode e = expected.get(i);
+			MessageFlowSubflowNode a = actual.get(i);
+			String message = file + ": " + e.getId();
+
+			assertEquals(message, e.getId(), a.getId());
+			assertEquals(message, e.getName(), a.getName());
+			assertEquals(message, e.getSubflow(), a.getSubflow());
+		}
+	}
+
+	/**
+	 * Compares two lists of message flow nodes property by property.
+	 *
+	 * @param file the name of the file the nodes are taken from
+	 * @param expected the nodes created by the DOM based parser
+	 * @param actual the nodes created by the StAX based parser
+	 */
+	static void assertNodesEqual(String file, List<MessageFlowNode> expected, List<MessageFlowNode> actual) {
+		assertEquals(file, expected.size(), actual.size());
+
+		for (int i = 0; i < expected.size(); i++) {
+			MessageFlowNode e = expected.get(i);
+			MessageFlowNode a = actual.get(i);
+			String message = file + ": " + e.getId();
+
+			assertEquals(message, e.getId(), a.getId());
+			assertEquals(message, e.getName(), a.getName());
+			assertEquals(message, e.getType(), a.getType());
+			assertEquals(message, e.isBuildTreeUsingSchema(), a.isBuildTreeUsingSchema());
+			assertEquals(message, e.isMixedContentRetainMode(), a.isMixedContentRetainMode());
+			assertEquals(message, e.isCommentsRetainMode(), a.isCommentsRetainMode());
+			assertEquals(message, e.isValidateMaster(), a.isValidateMaster());
+			assertEquals(message, e.getMessageDomainProperty(), a.getMessageDomainProperty());
+			assertEquals(message, e.getMessageSetProperty(), a.getMessageSetProperty());
+			assertEquals(message, e.getRequestMsgLocationInTree(), a.getRequestMsgLocationInTree());
+			assertEquals(message, e.getMessageDomain(), a.getMessageDomain());
+			assertEquals(message, e.getMessageSet(), a.getMessageSet());
+			assertEquals(message, e.getRecordDefinition(), a.getRecordDefinition());
+			assertEquals(message, e.isResetMessageDomain(), a.isResetMessageDomain());
+			assertEquals(message, e.isResetMessageSet(), a.isResetMessageSet());
+			assertEquals(message, e.isResetMessageType(), a.isResetMessageType());
+			assertEquals(message, e.isResetMessageFormat(), a.isResetMessageFormat());
+			assertEquals(message, e.areMonitoringEventsEnabled(), a.areMonitoringEventsEnabled());
+			assertEquals(message, e.getInputTerminals(), a.getInputTerminals());
+			assertEquals(message, e.getOutputTerminals(), a.getOutputTerminals());
+			assertEquals(message, e.getInputConnections(), a.getInputConnections());
+			assertEquals(message, e.getOutputConnections(), a.getOutputConnections());
+			
+			for (MessageFlowNodeProperty property : MessageFlowNodeProperty.attributes()) {
+				assertEquals(message, e.getValue(property), a.getValue(property));
+			}
+			
+			assertEquals(message, e.getMonitoringEvents(), a.getMonitoringEvents());
+		}
+	}
+
+}
@@ -186,4 +186,24 @@ public class MessageFlowTest {
 		/* TODO: insert additional tests here */
 	}
 
+	/**
+	 * Test method for {@link com.exxeta.iss.sonar.msgflow.model.MessageFlow#getConnections()}.
+	 */
+	@Test
+	public final void testGetConnections() {
+		MessageFlow mf = new MessageFlow("src/test/resources/Collector.msgflow", new MessageFlowParser());
+		assertEquals(5, mf.getConnections().size());
+		assertEquals("FCMComposite_1_1", mf.getConnections().get(0).getSourceNode());
+		assertEquals("OutTerminal.failure", mf.getConnections().get(0).getSourceTerminal());
+		assertEquals("FCMComposite_1_2", mf.getConnections().get(0).getTargetNode());
+		assertEquals("InTerminal.in", mf.getConnections().get(0).getTargetTerminal());
+		
+		assertEquals(4, mf.getConnectionsFrom("FCMComposite_1_1").size());
+		assertEquals(1, mf.getConnectionsTo("FCMComposite_1_1").size());
+		assertEquals("InTerminal.control", mf.getConnectionsTo("FCMComposite_1_1").get(0).getTargetTerminal());
+		assertEquals(4, mf.getConnectionsTo("FCMComposite_1_2").size());
+		assertEquals(0, mf.getConnectionsFrom("FCMComposite_1_2").size());
+		assertEquals(0, mf.getConnectionsFrom("unknown").size());
+	}
+
 }